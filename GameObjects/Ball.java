@@ -6,28 +6,28 @@ import javax.swing.ImageIcon;
  */
 
 import Render.AssetPaths;
+import Render.SpriteCache;
 import Render.Screen;
 public class Ball {
     private static final String ICON_PATH = AssetPaths.BALL_ICON_PATH;
     private static final int WIDTH = 53;
     private static final int HEIGHT = 53;
-    private static ImageIcon ballIcon;
     private int x;
     private int y;
     /** Sub-pixel position used by collision/movement to avoid rounding artifacts. */
     private double preciseX;
     private double preciseY;
     /**
-     * The horizontal velocity of the ball in pixels per timer tick.
+     * The horizontal velocity of the ball in pixels per second.
      * A larger number means a faster ball.
      */
     private double defaultXVelocity = 0;
     private double xVelocity = 0;
     /**
-     * The vertical velocity of the ball in pixels per timer tick.
+     * The vertical velocity of the ball in pixels per second.
      * A larger number means a faster ball.
      */
-    private double defaultYVelocity = 11;
+    private double defaultYVelocity = 1100;
     private double yVelocity = 0;
 
     /**
@@ -36,7 +36,6 @@ public class Ball {
      * @param y The initial y-coordinate of the ball.
      */
     public Ball(int x, int y){
-        ballIcon = new ImageIcon(ICON_PATH);
         this.x = x;
         this.y = y;
         this.preciseX = x;
@@ -95,11 +94,11 @@ public class Ball {
     }
 
     /**
-     * Returns the icon for the ball.
+     * Returns the icon for the ball, decoded once by the {@link SpriteCache}.
      * @return The ImageIcon of the ball.
      */
     public static ImageIcon getIcon(){
-        return ballIcon;
+        return SpriteCache.getIcon(ICON_PATH);
     }
 
     /**
@@ -111,7 +110,7 @@ public class Ball {
     }
 
     /**
-     * Returns the horizontal velocity of the ball.
+     * Returns the horizontal velocity of the ball in pixels per second.
      * @return The ball's horizontal velocity.
      */
     public double getBallXVelocity(){
@@ -129,7 +128,7 @@ public class Ball {
         this.xVelocity = xVelocity;
     }
     /**
-     * Returns the vertical velocity of the ball.
+     * Returns the vertical velocity of the ball in pixels per second.
      * @return The ball's vertical velocity.
      */
     public double getBallYVelocity(){
@@ -0,0 +1,121 @@
+package GameObjects;
+import java.util.Arrays;
+
+/**
+ * A packed store for many balls, used by the multi-ball mode.
+ * Each ball is an index into parallel primitive arrays holding its sub-pixel position and its velocity,
+ * so thousands of balls can be updated in contiguous chunks without touching any objects.
+ * Every ball has the size of a {@link Ball}. The id of a ball is its index: removing balls keeps the others
+ * in their order, so ids stay sorted by the order the balls were added in.
+ */
+public class BallField {
+    private static final int INITIAL_CAPACITY = 64;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] xVelocity = new double[INITIAL_CAPACITY];
+    private double[] yVelocity = new double[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Adds a ball.
+     * @param x The x-coordinate of the ball's left edge.
+     * @param y The y-coordinate of the ball's top edge.
+     * @param xVelocity The horizontal velocity in pixels per second.
+     * @param yVelocity The vertical velocity in pixels per second.
+     * @return The id of the new ball.
+     */
+    public int add(double x, double y, double xVelocity, double yVelocity){
+        if(count == this.x.length){
+            int capacity = count * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.xVelocity = Arrays.copyOf(this.xVelocity, capacity);
+            this.yVelocity = Arrays.copyOf(this.yVelocity, capacity);
+        }
+        int id = count++;
+        set(id, x, y, xVelocity, yVelocity);
+        return id;
+    }
+
+    /**
+     * Overwrites the state of a ball.
+     * @param id The id of the ball.
+     * @param x The x-coordinate of the ball's left edge.
+     * @param y The y-coordinate of the ball's top edge.
+     * @param xVelocity The horizontal velocity in pixels per second.
+     * @param yVelocity The vertical velocity in pixels per second.
+     */
+    public void set(int id, double x, double y, double xVelocity, double yVelocity){
+        this.x[id] = x;
+        this.y[id] = y;
+        this.xVelocity[id] = xVelocity;
+        this.yVelocity[id] = yVelocity;
+    }
+
+    /**
+     * Removes every ball marked in the given array, keeping the order of the others.
+     * Runs in one pass over the balls, however many are removed.
+     * @param removed For each ball id, true if the ball is removed.
+     */
+    public void removeMarked(boolean[] removed){
+        int kept = 0;
+        for(int id = 0; id < count; id++){
+            if(!removed[id]){
+                if(kept != id){
+                    set(kept, x[id], y[id], xVelocity[id], yVelocity[id]);
+                }
+                kept++;
+            }
+        }
+        count = kept;
+    }
+
+    /** Removes every ball. */
+    public void clear(){
+        count = 0;
+    }
+
+    /**
+     * Returns the number of balls.
+     * @return The number of balls.
+     */
+    public int getCount(){
+        return count;
+    }
+
+    /**
+     * Returns the sub-pixel x-coordinate of a ball's left edge.
+     * @param id The id of the ball.
+     * @return The x-coordinate.
+     */
+    public double getX(int id){
+        return x[id];
+    }
+
+    /**
+     * Returns the sub-pixel y-coordinate of a ball's top edge.
+     * @param id The id of the ball.
+     * @return The y-coordinate.
+     */
+    public double getY(int id){
+        return y[id];
+    }
+
+    /**
+     * Returns the horizontal velocity of a ball.
+     * @param id The id of the ball.
+     * @return The velocity in pixels per second.
+     */
+    public double getXVelocity(int id){
+        return xVelocity[id];
+    }
+
+    /**
+     * Returns the vertical velocity of a ball.
+     * @param id The id of the ball.
+     * @return The velocity in pixels per second.
+     */
+    public double getYVelocity(int id){
+        return yVelocity[id];
+    }
+}
@@ -1,34 +1,17 @@
 package GameObjects;
-import java.awt.Rectangle;
 import javax.swing.ImageIcon;
 import Render.AssetPaths;
+import Render.SpriteCache;
 /**
- * The Brick class represents a single brick object in the game.
- * It stores the brick's position, dimensions, and icon.
+ * The Brick class describes the bricks of the game: their size and icon.
+ * The bricks themselves are stored by id in a {@link BrickField}.
  */
 public class Brick{
     private static final int WIDTH = 120;
     private static final int HEIGHT = 40;
     private static final String ICON_PATH = AssetPaths.BRICK_ICON_PATH;
-    private static ImageIcon brickIcon;
-    /**
-     * The y-coordinate for the line of bricks. This value determines the
-     * starting vertical position of the bricks on the screen.
-     */
-    private int y;
-    private int x;
-    private Rectangle rectangle_brick;
 
-    /**
-     * Constructs a new Brick object at the specified x-coordinate.
-     * @param x The x-coordinate of the brick.
-     * @param y The y-coordinate of the brick.
-     */
-    public Brick(int x, int y){
-        brickIcon = new ImageIcon(ICON_PATH);
-        this.x = x;
-        this.y = y;
-        rectangle_brick = new Rectangle(x, y, WIDTH, HEIGHT);
+    private Brick(){
     }
 
     /**
@@ -48,35 +31,11 @@ public class Brick{
     }
 
     /**
-     * Returns the x-coordinate of the brick.
-     * @return The x-coordinate of the brick.
-     */
-    public int getX(){
-        return x;
-    }
-
-    /**
-     * Returns the y-coordinate of the brick.
-     * @return The y-coordinate of the brick.
-     */
-    public int getY(){
-        return y;
-    }
-
-    /**
-     * Returns the bounding box of the brick as a Rectangle object.
-     * @return The Rectangle object representing the brick's boundaries.
-     */
-    public Rectangle getRectangleBrick(){
-        return rectangle_brick;
-    }
-
-    /**
-     * Returns the icon for the brick.
+     * Returns the icon for the bricks, shared by all bricks through the {@link SpriteCache}.
      * @return The ImageIcon of the brick.
      */
-    public ImageIcon getIcon(){
-        return brickIcon;
+    public static ImageIcon getIcon(){
+        return SpriteCache.getIcon(ICON_PATH);
     }
 
     /**
@@ -86,31 +45,4 @@ public class Brick{
     public static String getIconPath(){
         return ICON_PATH;
     }
-
-    /**
-     * Compares this brick to another object for equality.
-     * Two bricks are considered equal if they have the same x and y coordinates.
-     * @param other The object to compare with.
-     * @return true if the objects are equal, false otherwise.
-     */
-    @Override
-    public boolean equals(Object other){
-        if(other instanceof Brick){
-            Brick brick = (Brick)other;
-            if(x == brick.getX() && y == brick.getY()){
-                return true;
-            }
-        }
-        return false;        
-    }
-
-    /**
-     * Returns a hash code value for the brick.
-     * This is used for efficient storage in hash-based collections.
-     * @return A hash code value for this object.
-     */
-    @Override
-    public int hashCode(){
-        return x + y;
-    }
 }
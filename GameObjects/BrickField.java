@@ -0,0 +1,225 @@
+package GameObjects;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A packed store for the bricks of a level.
+ * Each brick is an id into parallel primitive arrays (position, size, hit points and type) plus a bit in a live set,
+ * so a brick costs a few ints instead of an object, and iterating over the bricks walks contiguous memory.
+ * Ids are handed out in the order bricks are added and never change: removing a brick only clears its live bit,
+ * so removal is O(1) and nothing referring to other bricks by id has to be updated.
+ * Ids are only reused after {@link #clear()}, or kept for good by a level that moves and revives its bricks
+ * instead of adding new ones.
+ */
+public class BrickField {
+    private static final int INITIAL_CAPACITY = 64;
+    private int[] x = new int[INITIAL_CAPACITY];
+    private int[] y = new int[INITIAL_CAPACITY];
+    private int[] width = new int[INITIAL_CAPACITY];
+    private int[] height = new int[INITIAL_CAPACITY];
+    private int[] hitPoints = new int[INITIAL_CAPACITY];
+    private byte[] type = new byte[INITIAL_CAPACITY];
+    /** The ids of the bricks that were not destroyed yet. */
+    private final BitSet live = new BitSet();
+    /** The number of ids handed out since the last clear. */
+    private int idCount;
+    private int liveCount;
+
+    /**
+     * Adds a brick.
+     * @param x The x-coordinate of the brick.
+     * @param y The y-coordinate of the brick.
+     * @param width The width of the brick.
+     * @param height The height of the brick.
+     * @param hitPoints The number of hits the brick takes before it is destroyed.
+     * @param type The kind of brick, from 0 to 255; 0 is the standard brick.
+     * @return The id of the new brick.
+     */
+    public int add(int x, int y, int width, int height, int hitPoints, int type){
+        if(idCount == this.x.length){
+            grow();
+        }
+        int id = idCount++;
+        this.x[id] = x;
+        this.y[id] = y;
+        this.width[id] = width;
+        this.height[id] = height;
+        this.hitPoints[id] = hitPoints;
+        this.type[id] = (byte) type;
+        live.set(id);
+        liveCount++;
+        return id;
+    }
+
+    /**
+     * Removes a brick. Removing a brick that is already gone does nothing.
+     * @param id The id of the brick.
+     */
+    public void remove(int id){
+        if(live.get(id)){
+            live.clear(id);
+            liveCount--;
+        }
+    }
+
+    /**
+     * Brings a removed brick back with new hit points. Reviving a live brick only resets its hit points.
+     * @param id The id of the brick.
+     * @param hitPoints The number of hits the brick takes before it is destroyed.
+     */
+    public void revive(int id, int hitPoints){
+        this.hitPoints[id] = hitPoints;
+        if(!live.get(id)){
+            live.set(id);
+            liveCount++;
+        }
+    }
+
+    /**
+     * Moves a brick. Anything indexing the brick by position must be updated by the caller.
+     * @param id The id of the brick.
+     * @param x The new x-coordinate of the brick.
+     * @param y The new y-coordinate of the brick.
+     */
+    public void setPosition(int id, int x, int y){
+        this.x[id] = x;
+        this.y[id] = y;
+    }
+
+    /**
+     * Takes one hit point from a brick.
+     * @param id The id of the brick.
+     * @return The hit points the brick has left.
+     */
+    public int damage(int id){
+        return --hitPoints[id];
+    }
+
+    /** Removes every brick and starts handing out ids from 0 again. */
+    public void clear(){
+        live.clear();
+        idCount = 0;
+        liveCount = 0;
+    }
+
+    /**
+     * Returns whether a brick was added and not removed yet.
+     * @param id The id of the brick.
+     * @return true if the brick is still in the level.
+     */
+    public boolean isLive(int id){
+        return live.get(id);
+    }
+
+    /**
+     * Returns the first live brick with an id greater than or equal to the given one.
+     * Iterate over the live bricks with {@code for(int id = field.nextLive(0); id >= 0; id = field.nextLive(id + 1))}.
+     * @param fromId The id to start from.
+     * @return The id of the next live brick, or -1 if there is none.
+     */
+    public int nextLive(int fromId){
+        return live.nextSetBit(fromId);
+    }
+
+    /**
+     * Returns the live bits of 64 consecutive ids, e.g. to send the state of the level in small pieces.
+     * @param index The index of the word; it covers ids {@code 64 * index} to {@code 64 * index + 63}.
+     * @return The word, with bit n set if brick {@code 64 * index + n} is live.
+     */
+    public long getLiveWord(int index){
+        int base = index * 64;
+        long word = 0;
+        for(int id = live.nextSetBit(base); id >= 0 && id < base + 64; id = live.nextSetBit(id + 1)){
+            word |= 1L << (id - base);
+        }
+        return word;
+    }
+
+    /**
+     * Returns a hash of which bricks are still live, for comparing the state of two fields cheaply.
+     * @return The hash of the live set.
+     */
+    public long liveHash(){
+        return live.hashCode();
+    }
+
+    /**
+     * Returns the number of bricks still in the level.
+     * @return The number of live bricks.
+     */
+    public int getLiveCount(){
+        return liveCount;
+    }
+
+    /**
+     * Returns the number of ids handed out since the last clear; every id is smaller than this.
+     * @return The number of ids in use, including those of removed bricks.
+     */
+    public int getIdCount(){
+        return idCount;
+    }
+
+    /**
+     * Returns the x-coordinate of a brick.
+     * @param id The id of the brick.
+     * @return The x-coordinate of the brick.
+     */
+    public int getX(int id){
+        return x[id];
+    }
+
+    /**
+     * Returns the y-coordinate of a brick.
+     * @param id The id of the brick.
+     * @return The y-coordinate of the brick.
+     */
+    public int getY(int id){
+        return y[id];
+    }
+
+    /**
+     * Returns the width of a brick.
+     * @param id The id of the brick.
+     * @return The width of the brick.
+     */
+    public int getWidth(int id){
+        return width[id];
+    }
+
+    /**
+     * Returns the height of a brick.
+     * @param id The id of the brick.
+     * @return The height of the brick.
+     */
+    public int getHeight(int id){
+        return height[id];
+    }
+
+    /**
+     * Returns the hit points a brick has left.
+     * @param id The id of the brick.
+     * @return The remaining hit points of the brick.
+     */
+    public int getHitPoints(int id){
+        return hitPoints[id];
+    }
+
+    /**
+     * Returns the kind of a brick.
+     * @param id The id of the brick.
+     * @return The type of the brick, from 0 to 255.
+     */
+    public int getType(int id){
+        return type[id] & 0xFF;
+    }
+
+    private void grow(){
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        hitPoints = Arrays.copyOf(hitPoints, capacity);
+        type = Arrays.copyOf(type, capacity);
+    }
+}
@@ -0,0 +1,227 @@
+package GameObjects;
+import java.util.Arrays;
+import Render.Screen;
+
+/**
+ * A uniform-grid spatial index over the bricks of a {@link BrickField}.
+ * The play area is split into brick-sized cells and every brick id is registered in each cell it overlaps,
+ * so a collision query only has to look at the few cells the ball covers instead of every brick.
+ * Bricks lying completely outside the play area can never be reached by the ball and are not indexed.
+ */
+public class BrickGrid {
+    /** Cells are brick-sized, so a brick overlaps at most 2x2 cells. */
+    private static final int CELL_WIDTH = Brick.getWidth();
+    private static final int CELL_HEIGHT = Brick.getHeight();
+    /** Initial capacity of a cell; grows if a level stacks bricks on top of each other. */
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    /** The ball can sink up to about two ball heights below the window before a miss is counted. */
+    private static final int PLAY_AREA_HEIGHT = Screen.WINDOW_HEIGHT + (2 * Ball.getHeight());
+    private final BrickField field;
+    private final int columns;
+    private final int rows;
+    /** Brick ids registered in each cell, indexed by row * columns + column. */
+    private final int[][] cells;
+    /** The number of bricks currently stored in each cell. */
+    private final int[] cellCounts;
+
+    /**
+     * A reusable buffer for the result of a query.
+     * Threads querying the same grid concurrently each use their own buffer.
+     */
+    public static final class Candidates {
+        private int[] ids = new int[INITIAL_CELL_CAPACITY * 6];
+        private int count;
+
+        /**
+         * Returns the number of bricks found by the last query.
+         * @return The number of candidates.
+         */
+        public int getCount(){
+            return count;
+        }
+
+        /**
+         * Returns a brick found by the last query.
+         * @param index The index of the candidate, smaller than {@link #getCount()}.
+         * @return The id of the candidate brick.
+         */
+        public int get(int index){
+            return ids[index];
+        }
+    }
+
+    /**
+     * Constructs an empty grid covering the whole game window.
+     * @param field The bricks the ids registered in the grid refer to.
+     */
+    public BrickGrid(BrickField field){
+        this.field = field;
+        columns = (Screen.WINDOW_WIDTH + CELL_WIDTH - 1) / CELL_WIDTH;
+        rows = (PLAY_AREA_HEIGHT + CELL_HEIGHT - 1) / CELL_HEIGHT;
+        cells = new int[columns * rows][];
+        cellCounts = new int[columns * rows];
+    }
+
+    /**
+     * Registers a brick in every cell it overlaps.
+     * @param id The id of the brick to add.
+     */
+    public void add(int id){
+        if(isOutsidePlayArea(id)){
+            return;
+        }
+        int firstColumn = toColumn(field.getX(id));
+        int lastColumn = toColumn(field.getX(id) + field.getWidth(id));
+        int firstRow = toRow(field.getY(id));
+        int lastRow = toRow(field.getY(id) + field.getHeight(id));
+        for(int row = firstRow; row <= lastRow; row++){
+            for(int column = firstColumn; column <= lastColumn; column++){
+                addToCell(row * columns + column, id);
+            }
+        }
+    }
+
+    /**
+     * Removes a brick from every cell it was registered in.
+     * @param id The id of the brick to remove.
+     */
+    public void remove(int id){
+        removeAt(id, field.getX(id), field.getY(id));
+    }
+
+    /**
+     * Updates the cells of a brick that was moved in the field. Nothing changes while the brick still overlaps
+     * the same cells, which is the case for most moves of a brick drifting a few pixels at a time.
+     * @param id The id of the brick, already at its new position in the field.
+     * @param oldX The x-coordinate of the brick before the move.
+     * @param oldY The y-coordinate of the brick before the move.
+     */
+    public void move(int id, int oldX, int oldY){
+        int x = field.getX(id);
+        int y = field.getY(id);
+        int width = field.getWidth(id);
+        int height = field.getHeight(id);
+        if(toColumn(oldX) == toColumn(x) && toColumn(oldX + width) == toColumn(x + width)
+                && toRow(oldY) == toRow(y) && toRow(oldY + height) == toRow(y + height)
+                && isOutsidePlayArea(oldX, oldY, width, height) == isOutsidePlayArea(x, y, width, height)){
+            return;
+        }
+        removeAt(id, oldX, oldY);
+        add(id);
+    }
+
+    /** Removes a brick from the cells it overlaps at the given position. */
+    private void removeAt(int id, int x, int y){
+        int width = field.getWidth(id);
+        int height = field.getHeight(id);
+        if(isOutsidePlayArea(x, y, width, height)){
+            return;
+        }
+        int firstColumn = toColumn(x);
+        int lastColumn = toColumn(x + width);
+        int firstRow = toRow(y);
+        int lastRow = toRow(y + height);
+        for(int row = firstRow; row <= lastRow; row++){
+            for(int column = firstColumn; column <= lastColumn; column++){
+                removeFromCell(row * columns + column, id);
+            }
+        }
+    }
+
+    /** Removes every brick from the grid. */
+    public void clear(){
+        Arrays.fill(cellCounts, 0);
+    }
+
+    /**
+     * Collects the bricks registered in the cells overlapping the given area into the given buffer.
+     * Each brick is reported once, in increasing id order, which is the order the bricks were added in.
+     * The grid is only read, so several threads may query it at once as long as nothing is added or removed.
+     * @param left The left edge of the area.
+     * @param top The top edge of the area.
+     * @param right The right edge of the area.
+     * @param bottom The bottom edge of the area.
+     * @param result The buffer receiving the candidates.
+     * @return The number of candidate bricks found.
+     */
+    public int query(int left, int top, int right, int bottom, Candidates result){
+        int firstColumn = toColumn(left);
+        int lastColumn = toColumn(right);
+        int firstRow = toRow(top);
+        int lastRow = toRow(bottom);
+        int count = 0;
+        for(int row = firstRow; row <= lastRow; row++){
+            for(int column = firstColumn; column <= lastColumn; column++){
+                int cell = row * columns + column;
+                for(int k = 0; k < cellCounts[cell]; k++){
+                    count = insertCandidate(result, cells[cell][k], count);
+                }
+            }
+        }
+        result.count = count;
+        return count;
+    }
+
+    /** Inserts a brick into the sorted candidate list unless it is already there. */
+    private static int insertCandidate(Candidates result, int id, int count){
+        int[] ids = result.ids;
+        int position = count;
+        for(int i = 0; i < count; i++){
+            if(ids[i] == id){
+                return count;
+            }
+            if(position == count && id < ids[i]){
+                position = i;
+            }
+        }
+        if(count == ids.length){
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            result.ids = ids;
+        }
+        System.arraycopy(ids, position, ids, position + 1, count - position);
+        ids[position] = id;
+        return count + 1;
+    }
+
+    private void addToCell(int cell, int id){
+        if(cells[cell] == null){
+            cells[cell] = new int[INITIAL_CELL_CAPACITY];
+        }
+        else if(cellCounts[cell] == cells[cell].length){
+            cells[cell] = Arrays.copyOf(cells[cell], cells[cell].length * 2);
+        }
+        cells[cell][cellCounts[cell]++] = id;
+    }
+
+    private void removeFromCell(int cell, int id){
+        int count = cellCounts[cell];
+        for(int k = 0; k < count; k++){
+            if(cells[cell][k] == id){
+                // Order inside a cell does not matter, so swap the last entry into the hole.
+                cells[cell][k] = cells[cell][count - 1];
+                cellCounts[cell] = count - 1;
+                return;
+            }
+        }
+    }
+
+    /** Returns true if no part of the brick lies inside the area covered by the grid. */
+    private boolean isOutsidePlayArea(int id){
+        return isOutsidePlayArea(field.getX(id), field.getY(id), field.getWidth(id), field.getHeight(id));
+    }
+
+    /** Returns true if no part of a rectangle lies inside the area covered by the grid. */
+    private static boolean isOutsidePlayArea(int x, int y, int width, int height){
+        return x + width < 0 || x > Screen.WINDOW_WIDTH || y + height < 0 || y > PLAY_AREA_HEIGHT;
+    }
+
+    /** Maps an x-coordinate to a column, clamping anything off-screen to the border cells. */
+    private int toColumn(int x){
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x, CELL_WIDTH)));
+    }
+
+    /** Maps a y-coordinate to a row, clamping anything off-screen to the border cells. */
+    private int toRow(int y){
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, CELL_HEIGHT)));
+    }
+}
@@ -1,64 +1,202 @@
 package GameObjects;
-import java.util.ArrayList;
-import java.util.List;
+import Render.Screen;
 
 /**
- * Manages all the lines of bricks in the game.
- * This class acts as a container for multiple BrickLine objects, representing the entire brick layout.
+ * Manages all the bricks of a level, either laid out in horizontal lines or loaded from a {@link LevelPack}.
+ * The bricks live in a packed {@link BrickField} and are referred to by their id, both by the physics
+ * and by the screen; ids never change while the level is played, so destroying a brick does not shift any other.
  */
 public class BrickLines {
-    /** A list containing all the BrickLine objects for the level. */
-    private List <BrickLine> brickLines;
+    /** The calculated number of bricks that can fit in a single line based on screen width. */
+    private static final int BRICKS_PER_LINE = Screen.WINDOW_WIDTH / Brick.getWidth();
+    /** The calculated gap between each brick to ensure they are evenly spaced across the screen. */
+    private static final int BRICK_GAP = ((Screen.WINDOW_WIDTH - (BRICKS_PER_LINE * Brick.getWidth())) / BRICKS_PER_LINE) / 2;
     /** The initial vertical position (y-coordinate) for the topmost line of bricks. */
     private static final int initialLineHeight = 50;
+    /** Bricks of generated lines break on the first hit. */
+    private static final int BRICK_HIT_POINTS = 1;
+    /** The type of a standard brick. */
+    public static final int STANDARD_BRICK = 0;
+    /** The position, size and hit points of every brick of the level. */
+    private final BrickField brickField;
+    /** Spatial index over every live brick in {@link #brickField}, kept in sync on every removal. */
+    private final BrickGrid brickGrid;
 
     /**
      * Constructs the complete set of brick lines for the game level.
-     * @param num_of_lines The total number of brick lines to create.
+     * @param numberOfLines The total number of brick lines to create.
      */
     public BrickLines(int numberOfLines){
-        brickLines = new ArrayList<>();
-        for(int i = 0; i < numberOfLines; i++){
-            // Each new line is placed below the previous one.
-            brickLines.add(new BrickLine((initialLineHeight * (i + 1))));
-        }
+        brickField = new BrickField();
+        brickGrid = new BrickGrid(brickField);
+        resetBricks(numberOfLines);
+    }
+
+    /**
+     * Constructs the bricks of a level from a level pack.
+     * @param pack The level pack.
+     * @param level The index of the level in the pack, from 0.
+     */
+    public BrickLines(LevelPack pack, int level){
+        brickField = new BrickField();
+        brickGrid = new BrickGrid(brickField);
+        resetBricks(pack, level);
     }
 
     /**
-     * Retrieves a specific line of bricks by its index.
-     * @param index The index of the brick line to retrieve.
-     * @return The BrickLine object at the specified index.
+     * Returns the number of bricks a single line holds.
+     * @return The number of bricks per line.
      */
-    public BrickLine getLineByIndex(int index){
-        return brickLines.get(index);
+    public static int getBricksPerLine(){
+        return BRICKS_PER_LINE;
     }
 
     /**
-     * Gets the current number of brick lines remaining in the game.
-     * @return The number of lines.
+     * Returns the x-coordinate of a brick in a line.
+     * @param column The position of the brick in its line, from 0 at the left edge.
+     * @return The x-coordinate of the brick.
      */
-    public int getNumOfLines(){
-        return brickLines.size();
+    public static int getColumnX(int column){
+        return BRICK_GAP + column * (Brick.getWidth() + 2 * BRICK_GAP);
     }
 
     /**
-     * Removes a specific brick from a specific line.
-     * If removing the brick makes the line empty, the entire line is also removed.
-     * @param lineIndex The index of the line containing the brick.
-     * @param brickIndex The index of the brick to remove from that line.
+     * Returns the y-coordinate of a line.
+     * @param line The line, from 0 at the top.
+     * @return The y-coordinate of the bricks in the line.
      */
-    public void removeBrickFromLineByIndex(int lineIndex, int brickIndex){
-        brickLines.get(lineIndex).removeBrickByIndex(brickIndex);
-        // If the line is now empty, remove it from the list of lines.
-        if (brickLines.get(lineIndex).getNumOfBricks() == 0) {
-            brickLines.remove(lineIndex);
+    public static int getLineY(int line){
+        return initialLineHeight * (line + 1);
+    }
+
+    /**
+     * Returns the packed store of the level's bricks, for reading their positions by id.
+     * @return The brick field.
+     */
+    public BrickField getField(){
+        return brickField;
+    }
+
+    /**
+     * Gets the number of bricks remaining in the level.
+     * @return The number of live bricks.
+     */
+    public int getNumOfBricks(){
+        return brickField.getLiveCount();
+    }
+
+    /**
+     * Hits a brick once, removing it if it has no hit points left.
+     * @param id The id of the brick that was hit.
+     * @return true if the brick was destroyed by this hit.
+     */
+    public boolean hitBrick(int id){
+        if(brickField.damage(id) > 0){
+            return false;
         }
+        removeBrick(id);
+        return true;
     }
 
+    /**
+     * Removes a brick from the level in constant time.
+     * @param id The id of the brick to remove.
+     */
+    public void removeBrick(int id){
+        brickGrid.remove(id);
+        brickField.remove(id);
+    }
+
+    /**
+     * Replaces the bricks with a fresh level; brick ids start from 0 again.
+     * @param numberOfLines The total number of brick lines to create.
+     */
     public void resetBricks(int numberOfLines){
+        brickField.clear();
+        brickGrid.clear();
         for(int i = 0; i < numberOfLines; i++){
             // Each new line is placed below the previous one.
-            brickLines.add(new BrickLine((initialLineHeight * (i + 1))));
-        } 
+            addLine(getLineY(i));
+        }
+    }
+
+    /**
+     * Replaces the bricks with a level of a level pack, decoded straight from the pack; brick ids start from 0 again
+     * and follow the order of the bricks in the pack.
+     * @param pack The level pack.
+     * @param level The index of the level in the pack, from 0.
+     */
+    public void resetBricks(LevelPack pack, int level){
+        brickField.clear();
+        brickGrid.clear();
+        pack.decode(level, brickField, brickGrid);
+    }
+
+    /**
+     * Adds a single brick and registers it in the spatial index.
+     * @param x The x-coordinate of the brick.
+     * @param y The y-coordinate of the brick.
+     * @param width The width of the brick.
+     * @param height The height of the brick.
+     * @param hitPoints The number of hits the brick takes before it is destroyed.
+     * @param type The kind of brick, from 0 to 255.
+     * @return The id of the new brick.
+     */
+    public int addBrick(int x, int y, int width, int height, int hitPoints, int type){
+        int id = brickField.add(x, y, width, height, hitPoints, type);
+        brickGrid.add(id);
+        return id;
+    }
+
+    /**
+     * Moves a brick, keeping the spatial index in sync if the brick is live.
+     * @param id The id of the brick.
+     * @param x The new x-coordinate of the brick.
+     * @param y The new y-coordinate of the brick.
+     */
+    public void moveBrick(int id, int x, int y){
+        int oldX = brickField.getX(id);
+        int oldY = brickField.getY(id);
+        brickField.setPosition(id, x, y);
+        if(brickField.isLive(id)){
+            brickGrid.move(id, oldX, oldY);
+        }
+    }
+
+    /**
+     * Brings a removed brick back where it is, with new hit points, and registers it in the spatial index.
+     * @param id The id of the brick.
+     * @param hitPoints The number of hits the brick takes before it is destroyed.
+     */
+    public void reviveBrick(int id, int hitPoints){
+        if(!brickField.isLive(id)){
+            brickGrid.add(id);
+        }
+        brickField.revive(id, hitPoints);
+    }
+
+    /**
+     * Looks up the bricks that may touch the given area using the spatial index, into a caller-owned buffer.
+     * Only the grid cells overlapping the area are visited, so the cost does not grow with the number of lines,
+     * and several threads can look up bricks at once while no brick is removed.
+     * @param left The left edge of the area.
+     * @param top The top edge of the area.
+     * @param right The right edge of the area.
+     * @param bottom The bottom edge of the area.
+     * @param result The buffer receiving the candidates.
+     * @return The number of candidate bricks, ordered by id, which is top to bottom and left to right.
+     */
+    public int findCandidateBricks(int left, int top, int right, int bottom, BrickGrid.Candidates result){
+        return brickGrid.query(left, top, right, bottom, result);
+    }
+
+    /**
+     * Adds a line of evenly spaced bricks and registers them in the spatial index.
+     * @param lineHeight The y-coordinate of the line.
+     */
+    private void addLine(int lineHeight){
+        for(int i = 0; i < BRICKS_PER_LINE; i++){
+            addBrick(getColumnX(i), lineHeight, Brick.getWidth(), Brick.getHeight(), BRICK_HIT_POINTS, STANDARD_BRICK);
+        }
     }
 }
@@ -0,0 +1,200 @@
+package GameObjects;
+
+/**
+ * Allocation-free geometry helpers used by the collision code.
+ * Every shape is passed as plain coordinates instead of AWT geometry objects,
+ * so a sweep can run without creating any garbage.
+ */
+public final class CollisionMath {
+    /** Tiny tolerance used when comparing floating-point values. */
+    public static final double EPSILON = 1e-9;
+
+    private CollisionMath(){
+    }
+
+    /**
+     * Circle-vs-rectangle overlap test.
+     * @param centerX The x-coordinate of the circle's center.
+     * @param centerY The y-coordinate of the circle's center.
+     * @param radius The radius of the circle.
+     * @param rectX The left edge of the rectangle.
+     * @param rectY The top edge of the rectangle.
+     * @param rectWidth The width of the rectangle.
+     * @param rectHeight The height of the rectangle.
+     * @return true if the circle touches or overlaps the rectangle.
+     */
+    public static boolean isCircleIntersectsRect(double centerX, double centerY, double radius,
+            int rectX, int rectY, int rectWidth, int rectHeight){
+        double closestX = clamp(centerX, rectX, rectX + rectWidth);
+        double closestY = clamp(centerY, rectY, rectY + rectHeight);
+        double deltaX = centerX - closestX;
+        double deltaY = centerY - closestY;
+        return (deltaX * deltaX) + (deltaY * deltaY) <= radius * radius;
+    }
+
+    /**
+     * The result of a swept collision test: when the moving shape first touches the target,
+     * and the contact normal pointing from the target towards the shape.
+     * Reused between tests so a sweep does not allocate.
+     */
+    public static final class Contact {
+        private double time;
+        private double normalX;
+        private double normalY;
+
+        /**
+         * Returns the time of impact.
+         * @return The fraction of the swept movement, from 0 to 1, covered before the contact.
+         */
+        public double getTime(){
+            return time;
+        }
+
+        /**
+         * Returns the x-component of the unit contact normal.
+         * @return The normal's x-component.
+         */
+        public double getNormalX(){
+            return normalX;
+        }
+
+        /**
+         * Returns the y-component of the unit contact normal.
+         * @return The normal's y-component.
+         */
+        public double getNormalY(){
+            return normalY;
+        }
+
+        private boolean set(double time, double normalX, double normalY){
+            this.time = time;
+            this.normalX = normalX;
+            this.normalY = normalY;
+            return true;
+        }
+    }
+
+    /**
+     * Swept circle-vs-rectangle test: finds when a circle moving in a straight line first touches a rectangle.
+     * The circle's center is tested against the rectangle grown by the radius with rounded corners,
+     * so the time of impact is exact whatever the distance moved.
+     * A circle already overlapping the rectangle counts as a contact at time 0 unless it is moving away.
+     * @param centerX The x-coordinate of the circle's center at the start of the movement.
+     * @param centerY The y-coordinate of the circle's center at the start of the movement.
+     * @param radius The radius of the circle.
+     * @param deltaX The horizontal distance the circle moves.
+     * @param deltaY The vertical distance the circle moves.
+     * @param rectX The left edge of the rectangle.
+     * @param rectY The top edge of the rectangle.
+     * @param rectWidth The width of the rectangle.
+     * @param rectHeight The height of the rectangle.
+     * @param result Receives the time of impact and the contact normal when there is a contact.
+     * @return true if the circle touches the rectangle during the movement.
+     */
+    public static boolean sweepCircleRect(double centerX, double centerY, double radius, double deltaX, double deltaY,
+            int rectX, int rectY, int rectWidth, int rectHeight, Contact result){
+        int rectRight = rectX + rectWidth;
+        int rectBottom = rectY + rectHeight;
+        // Slab test against the rectangle grown by the radius.
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+        boolean enterOnX = false;
+        if(Math.abs(deltaX) < EPSILON){
+            if(centerX < rectX - radius || centerX > rectRight + radius){
+                return false;
+            }
+        }
+        else{
+            double near = ((deltaX > 0 ? rectX - radius : rectRight + radius) - centerX) / deltaX;
+            double far = ((deltaX > 0 ? rectRight + radius : rectX - radius) - centerX) / deltaX;
+            enter = near;
+            exit = far;
+            enterOnX = true;
+        }
+        if(Math.abs(deltaY) < EPSILON){
+            if(centerY < rectY - radius || centerY > rectBottom + radius){
+                return false;
+            }
+        }
+        else{
+            double near = ((deltaY > 0 ? rectY - radius : rectBottom + radius) - centerY) / deltaY;
+            double far = ((deltaY > 0 ? rectBottom + radius : rectY - radius) - centerY) / deltaY;
+            if(near > enter){
+                enter = near;
+                enterOnX = false;
+            }
+            exit = Math.min(exit, far);
+        }
+        if(enter > exit || exit < 0 || enter > 1){
+            return false;
+        }
+
+        if(enter <= 0){
+            // Starting inside the grown rectangle: either already touching, or in a corner square outside the rounding.
+            double closestX = clamp(centerX, rectX, rectRight);
+            double closestY = clamp(centerY, rectY, rectBottom);
+            double offsetX = centerX - closestX;
+            double offsetY = centerY - closestY;
+            double distanceSquared = offsetX * offsetX + offsetY * offsetY;
+            if(distanceSquared <= radius * radius){
+                double normalX;
+                double normalY;
+                if(distanceSquared > EPSILON){
+                    double distance = Math.sqrt(distanceSquared);
+                    normalX = offsetX / distance;
+                    normalY = offsetY / distance;
+                }
+                else{
+                    // Center inside the rectangle: push out through the nearest face.
+                    double toLeft = centerX - rectX;
+                    double toRight = rectRight - centerX;
+                    double toTop = centerY - rectY;
+                    double toBottom = rectBottom - centerY;
+                    double nearest = Math.min(Math.min(toLeft, toRight), Math.min(toTop, toBottom));
+                    normalX = nearest == toLeft ? -1 : nearest == toRight ? 1 : 0;
+                    normalY = normalX != 0 ? 0 : nearest == toTop ? -1 : 1;
+                }
+                if(deltaX * normalX + deltaY * normalY >= 0){
+                    return false;
+                }
+                return result.set(0, normalX, normalY);
+            }
+            enter = 0;
+        }
+
+        double hitX = centerX + deltaX * enter;
+        double hitY = centerY + deltaY * enter;
+        boolean besideX = hitX < rectX || hitX > rectRight;
+        boolean besideY = hitY < rectY || hitY > rectBottom;
+        if(!(besideX && besideY)){
+            // Face contact.
+            if(enterOnX){
+                return result.set(enter, deltaX > 0 ? -1 : 1, 0);
+            }
+            return result.set(enter, 0, deltaY > 0 ? -1 : 1);
+        }
+
+        // Corner region: the grown rectangle is rounded there, so intersect with the circle around the corner.
+        double cornerX = hitX < rectX ? rectX : rectRight;
+        double cornerY = hitY < rectY ? rectY : rectBottom;
+        double fromCornerX = centerX - cornerX;
+        double fromCornerY = centerY - cornerY;
+        double a = deltaX * deltaX + deltaY * deltaY;
+        double b = fromCornerX * deltaX + fromCornerY * deltaY;
+        double c = fromCornerX * fromCornerX + fromCornerY * fromCornerY - radius * radius;
+        double discriminant = b * b - a * c;
+        if(b >= 0 || discriminant < 0){
+            return false;
+        }
+        double time = (-b - Math.sqrt(discriminant)) / a;
+        if(time < 0 || time > 1){
+            return false;
+        }
+        return result.set(time, (fromCornerX + deltaX * time) / radius, (fromCornerY + deltaY * time) / radius);
+    }
+
+    /** Utility clamp used by angle and collision calculations. */
+    public static double clamp(double value, double min, double max){
+        return Math.max(min, Math.min(max, value));
+    }
+}
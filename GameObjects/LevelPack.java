@@ -0,0 +1,217 @@
+package GameObjects;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import Render.Screen;
+
+/**
+ * A read-only pack of levels in a compact binary file.
+ * The file is memory-mapped instead of read, so opening a pack only touches its header, and the bricks
+ * of a level are decoded straight from the mapping into a {@link BrickField} when the level starts.
+ * A pack of thousands of levels therefore costs neither startup time nor heap until its levels are played.
+ * <p>
+ * File layout (big-endian): magic, version, level count, then one index entry per level (the file offset
+ * of its bricks and the number of bricks), then the bricks of every level, 6 bytes each:
+ * x and y as shorts, then type and hit points as unsigned bytes. Every brick has the standard {@link Brick} size.
+ * Packs are written with a {@link Builder}.
+ */
+public final class LevelPack {
+    /** "BBLP": Brick Breaker Level Pack. */
+    private static final int MAGIC = 0x42424C50;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 10;
+    private static final int INDEX_ENTRY_BYTES = 8;
+    private static final int BRICK_BYTES = 6;
+    /** The largest hit points and type a brick can have. */
+    public static final int MAX_BRICK_VALUE = 0xFF;
+    private final ByteBuffer buffer;
+    private final int levelCount;
+
+    private LevelPack(ByteBuffer buffer, int levelCount){
+        this.buffer = buffer;
+        this.levelCount = levelCount;
+    }
+
+    /**
+     * Maps a level pack file. Only the header is checked; an index entry is checked when its level is loaded.
+     * @param path The pack file.
+     * @return The pack.
+     * @throws IOException if the file cannot be read, is not a level pack or its index points outside the file.
+     */
+    public static LevelPack open(Path path) throws IOException{
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed.
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC){
+            throw new IOException(path + " is not a level pack");
+        }
+        int version = buffer.getShort(4);
+        if(version != VERSION){
+            throw new IOException("Unsupported level pack version " + version);
+        }
+        int levelCount = buffer.getInt(6);
+        if(levelCount < 0 || HEADER_BYTES + (long) levelCount * INDEX_ENTRY_BYTES > buffer.capacity()){
+            throw new IOException(path + " is truncated");
+        }
+        return new LevelPack(buffer, levelCount);
+    }
+
+    /**
+     * Returns the number of levels in the pack.
+     * @return The level count.
+     */
+    public int getLevelCount(){
+        return levelCount;
+    }
+
+    /**
+     * Returns the number of bricks a level starts with.
+     * @param level The index of the level, from 0.
+     * @return The brick count.
+     */
+    public int getBrickCount(int level){
+        return buffer.getInt(indexEntry(level) + 4);
+    }
+
+    /**
+     * Adds the bricks of a level to a field and registers them in its grid, in the order they are stored.
+     * Reads the mapping with absolute gets, so one pack can be decoded from several threads.
+     * @param level The index of the level, from 0.
+     * @param field The field receiving the bricks.
+     * @param grid The spatial index of the field.
+     */
+    void decode(int level, BrickField field, BrickGrid grid){
+        int entry = indexEntry(level);
+        int position = buffer.getInt(entry);
+        int end = position + buffer.getInt(entry + 4) * BRICK_BYTES;
+        for(; position < end; position += BRICK_BYTES){
+            int id = field.add(buffer.getShort(position), buffer.getShort(position + 2), Brick.getWidth(), Brick.getHeight(),
+                    buffer.get(position + 5) & 0xFF, buffer.get(position + 4) & 0xFF);
+            grid.add(id);
+        }
+    }
+
+    /**
+     * Returns the position of a level's index entry, after checking that the bricks it points at are in the file.
+     * @throws UncheckedIOException if the entry points outside the bricks of the file.
+     */
+    private int indexEntry(int level){
+        if(level < 0 || level >= levelCount){
+            throw new IndexOutOfBoundsException("level " + level + " of " + levelCount);
+        }
+        int entry = HEADER_BYTES + level * INDEX_ENTRY_BYTES;
+        long offset = buffer.getInt(entry);
+        long brickCount = buffer.getInt(entry + 4);
+        if(offset < HEADER_BYTES + (long) levelCount * INDEX_ENTRY_BYTES || brickCount < 0
+                || offset + brickCount * BRICK_BYTES > buffer.capacity()){
+            throw new UncheckedIOException(new IOException("Broken index entry for level " + level));
+        }
+        return entry;
+    }
+
+    /**
+     * Collects levels in memory and writes them as a level pack.
+     */
+    public static final class Builder {
+        private final ByteArrayOutputStream bricks = new ByteArrayOutputStream();
+        private final DataOutputStream brickOut = new DataOutputStream(bricks);
+        /** The number of bricks of every level, indexed by level. */
+        private int[] brickCounts = new int[16];
+        private int levelCount;
+        /** The positions of the current level's bricks, x then y, to find overlaps. */
+        private int[] levelPositions = new int[64];
+
+        /** Starts a new, empty level; the following bricks are added to it. */
+        public void beginLevel(){
+            if(levelCount == brickCounts.length){
+                brickCounts = Arrays.copyOf(brickCounts, levelCount * 2);
+            }
+            levelCount++;
+        }
+
+        /**
+         * Adds a brick of the standard size to the current level.
+         * @param x The x-coordinate of the brick.
+         * @param y The y-coordinate of the brick.
+         * @param hitPoints The number of hits the brick takes before it is destroyed, from 1 to {@value LevelPack#MAX_BRICK_VALUE}.
+         * @param type The kind of brick, from 0 to {@value LevelPack#MAX_BRICK_VALUE}.
+         * @throws IllegalStateException if no level was begun.
+         * @throws IllegalArgumentException if the brick is not fully inside the window, overlaps a brick of the level
+         * or a value is out of range.
+         */
+        public void addBrick(int x, int y, int hitPoints, int type){
+            if(levelCount == 0){
+                throw new IllegalStateException("No level was begun");
+            }
+            if(x < 0 || y < 0 || x + Brick.getWidth() > Screen.WINDOW_WIDTH || y + Brick.getHeight() > Screen.WINDOW_HEIGHT){
+                throw new IllegalArgumentException("Brick at " + x + "," + y + " is not inside the window");
+            }
+            if(hitPoints < 1 || hitPoints > MAX_BRICK_VALUE){
+                throw new IllegalArgumentException("Hit points must be from 1 to " + MAX_BRICK_VALUE + ": " + hitPoints);
+            }
+            if(type < 0 || type > MAX_BRICK_VALUE){
+                throw new IllegalArgumentException("Type must be from 0 to " + MAX_BRICK_VALUE + ": " + type);
+            }
+            int count = brickCounts[levelCount - 1];
+            for(int index = 0; index < count; index++){
+                int otherX = levelPositions[index * 2];
+                int otherY = levelPositions[index * 2 + 1];
+                if(Math.abs(x - otherX) < Brick.getWidth() && Math.abs(y - otherY) < Brick.getHeight()){
+                    throw new IllegalArgumentException("Brick at " + x + "," + y + " overlaps the brick at " + otherX + "," + otherY);
+                }
+            }
+            if(count * 2 == levelPositions.length){
+                levelPositions = Arrays.copyOf(levelPositions, levelPositions.length * 2);
+            }
+            levelPositions[count * 2] = x;
+            levelPositions[count * 2 + 1] = y;
+            try {
+                brickOut.writeShort(x);
+                brickOut.writeShort(y);
+                brickOut.writeByte(type);
+                brickOut.writeByte(hitPoints);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // Writing to memory does not fail.
+            }
+            brickCounts[levelCount - 1]++;
+        }
+
+        /**
+         * Returns the number of levels begun so far.
+         * @return The level count.
+         */
+        public int getLevelCount(){
+            return levelCount;
+        }
+
+        /**
+         * Writes the collected levels to a file, replacing it.
+         * @param path The file to write.
+         * @throws IOException if the file cannot be written.
+         */
+        public void write(Path path) throws IOException{
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(levelCount);
+                int offset = HEADER_BYTES + levelCount * INDEX_ENTRY_BYTES;
+                for(int level = 0; level < levelCount; level++){
+                    out.writeInt(offset);
+                    out.writeInt(brickCounts[level]);
+                    offset += brickCounts[level] * BRICK_BYTES;
+                }
+                bricks.writeTo(out);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package GameObjects;
 import javax.swing.ImageIcon;
 import Render.AssetPaths;
+import Render.SpriteCache;
 /**
  * The Paddle class represents the player's paddle in the game.
  * It manages the paddle's position, dimensions, speed, and icon.
@@ -9,20 +10,21 @@ public class Paddle{
     private static final String ICON_PATH = AssetPaths.PADDLE_ICON_PATH;
     private static final int WIDTH = 129;
     private static final int HEIGHT = 34;
-    private static ImageIcon paddleIcon;
-    /** The speed at which the paddle moves horizontally. */
-    private int speed = 10;
+    /** The speed at which the paddle moves horizontally, in pixels per second. */
+    private int speed = 1000;
     private int x;
     private int y;
+    /** Sub-pixel x-coordinate, so per-second speeds work at any physics rate. */
+    private double preciseX;
     /**
      * Constructs a new Paddle at the specified initial position.
      * @param x The initial x-coordinate of the paddle.
      * @param y The initial y-coordinate of the paddle.
      */
     public Paddle(int x, int y){
-        paddleIcon = new ImageIcon(ICON_PATH);
         this.x = x;
         this.y = y;
+        this.preciseX = x;
     }
 
     /**
@@ -56,6 +58,21 @@ public class Paddle{
      */
     public void setX(int x) {
         this.x = x;
+        this.preciseX = x;
+    }
+
+    /** Returns the sub-pixel x-coordinate used by the movement simulation. */
+    public double getPreciseX(){
+        return preciseX;
+    }
+
+    /**
+     * Sets the sub-pixel accurate x-coordinate and updates the integer render position.
+     * @param x The new precise x-coordinate.
+     */
+    public void setPreciseX(double x) {
+        this.preciseX = x;
+        this.x = (int)Math.round(x);
     }
 
     /**
@@ -67,11 +84,11 @@ public class Paddle{
     }
 
     /**
-     * Returns the icon for the paddle.
+     * Returns the icon for the paddle, decoded once by the {@link SpriteCache}.
      * @return The paddle's ImageIcon.
      */
     public static ImageIcon getIcon(){
-        return paddleIcon;
+        return SpriteCache.getIcon(ICON_PATH);
     }
 
     /**
@@ -85,7 +102,7 @@ public class Paddle{
         this.speed = speed;
     }
     /**
-     * Returns the moving speed of the paddle in pixels per key press.
+     * Returns the moving speed of the paddle in pixels per second.
      * @return The paddle's speed.
      */
     public int getSpeed(){
@@ -0,0 +1,133 @@
+package Main;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import Render.AssetPaths;
+import Render.SpriteCache;
+
+/**
+ * The AssetPreloader class decodes the image and audio assets in the background,
+ * so the window can be built while they load.
+ * Every image is its own task, and the menu's images are queued first so the menu can be shown
+ * before the gameplay images are done. Each task is recorded in the {@link StartupReport}.
+ */
+public class AssetPreloader {
+    /** The images needed before the menu can be shown. */
+    private static final String[] MENU_IMAGES = {
+        AssetPaths.ICON_PATH, AssetPaths.BACKGROUND_PATH, AssetPaths.MENU_ICON_PATH
+    };
+    /** The images only needed once a game starts or ends. */
+    private static final String[] GAME_IMAGES = {
+        AssetPaths.PADDLE_ICON_PATH, AssetPaths.BALL_ICON_PATH, AssetPaths.BRICK_ICON_PATH, AssetPaths.HEART_ICON_PATH,
+        AssetPaths.WINING_ICON_PATH, AssetPaths.GAME_OVER_ICON_PATH
+    };
+    private final StartupReport report;
+    private final ExecutorService executor;
+    private final CompletableFuture<Void> menuImages;
+    private final CompletableFuture<Void> gameImages;
+    private final CompletableFuture<SoundEffect> soundEffect;
+    /** Completes, successfully even if an asset failed, once every asset is done and the total is recorded. */
+    private final CompletableFuture<Void> allAssets;
+
+    /**
+     * Starts loading every asset.
+     * @param report The report the load time of each asset is recorded in.
+     */
+    public AssetPreloader(StartupReport report){
+        this.report = report;
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = report.begin();
+        // The sounds are started first: opening the audio line can block on the sound device, not on the CPU.
+        soundEffect = CompletableFuture.supplyAsync(this::openSoundEffect, executor);
+        menuImages = decodeAll(MENU_IMAGES);
+        gameImages = decodeAll(GAME_IMAGES);
+        allAssets = CompletableFuture.allOf(soundEffect, menuImages, gameImages).handle((ignored, error) -> {
+            report.record("all assets", start);
+            executor.shutdown();
+            return null;
+        });
+    }
+
+    /** Blocks until the images of the menu are decoded. */
+    public void awaitMenuImages(){
+        menuImages.join();
+    }
+
+    /** Blocks until every image is decoded. */
+    public void awaitGameImages(){
+        gameImages.join();
+    }
+
+    /**
+     * Blocks until every asset is loaded, or failed to, and the total load time is in the report.
+     * Failures are not thrown here; they are reported by the await method of the asset.
+     */
+    public void awaitAllAssets(){
+        allAssets.join();
+    }
+
+    /**
+     * Blocks until the sounds are decoded and the audio mixer is running.
+     * @return The loaded sound effects.
+     * @throws IOException if an I/O error occurs when reading the audio file.
+     * @throws UnsupportedAudioFileException if the audio file format is not supported.
+     */
+    public SoundEffect awaitSoundEffect() throws IOException, UnsupportedAudioFileException{
+        try {
+            return soundEffect.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof LoadFailure){
+                cause = cause.getCause();
+            }
+            if(cause instanceof IOException){
+                throw (IOException) cause;
+            }
+            if(cause instanceof UnsupportedAudioFileException){
+                throw (UnsupportedAudioFileException) cause;
+            }
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> decodeAll(String[] paths){
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[paths.length];
+        for(int i = 0; i < paths.length; i++){
+            String path = paths[i];
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                long start = report.begin();
+                SpriteCache.getImage(path);
+                report.record("decode " + path.substring(path.lastIndexOf('/') + 1), start);
+            }, executor);
+        }
+        return CompletableFuture.allOf(tasks);
+    }
+
+    private SoundEffect openSoundEffect(){
+        long start = report.begin();
+        try {
+            return new SoundEffect();
+        } catch (IOException | UnsupportedAudioFileException e) {
+            throw new LoadFailure(e);
+        } finally {
+            report.record("decode sounds", start);
+        }
+    }
+
+    /** Carries a checked exception of a background task back to {@link #awaitSoundEffect()}. */
+    private static final class LoadFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private LoadFailure(Exception cause){
+            super(cause);
+        }
+    }
+}
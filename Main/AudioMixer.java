@@ -0,0 +1,192 @@
+package Main;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * The AudioMixer class plays pre-decoded sounds on a thread of its own.
+ * Every sound is kept as 16-bit stereo PCM at {@link #SAMPLE_RATE}; the mixer thread adds up the voices playing
+ * into one {@link SourceDataLine}, one small chunk at a time, so overlapping sounds all play instead of cutting each other off.
+ * The game loop asks for a sound through {@link #play(int)}, which only writes to a lock-free queue and never waits
+ * for the audio device. Without an audio device the mixer is a null sink: requests are accepted and dropped.
+ */
+final class AudioMixer {
+    /** The sample rate every sound is converted to, in frames per second. */
+    static final int SAMPLE_RATE = 44_100;
+    /** The mix is always stereo. */
+    static final int CHANNELS = 2;
+    /** 256 frames is about 6 ms: the delay between a request and the sound leaving the mixer. */
+    private static final int CHUNK_FRAMES = 256;
+    /** The device buffer holds a few chunks, so a late wake-up of the mixer thread does not cause a gap. */
+    private static final int LINE_BUFFER_CHUNKS = 4;
+    /** Sounds playing at once; a new sound replaces the one closest to its end when all voices are busy. */
+    private static final int MAX_VOICES = 16;
+    /** Pending requests; must be a power of two. A full queue drops the request. */
+    private static final int QUEUE_CAPACITY = 64;
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+    private final short[][] sounds;
+    /** The output line, or null when the mixer is a null sink. */
+    private final SourceDataLine line;
+    private final Thread thread;
+    private volatile boolean running = true;
+    /**
+     * Single-producer, single-consumer ring of sound ids: the game loop writes at {@link #queueTail},
+     * the mixer thread reads at {@link #queueHead}. Each index is only advanced by its owner.
+     */
+    private final int[] queue = new int[QUEUE_CAPACITY];
+    private final AtomicInteger queueHead = new AtomicInteger();
+    private final AtomicInteger queueTail = new AtomicInteger();
+    private final AtomicInteger droppedRequests = new AtomicInteger();
+    /** The sound and next sample of every voice, only touched by the mixer thread; -1 marks a free voice. */
+    private final int[] voiceSound = new int[MAX_VOICES];
+    private final int[] voicePosition = new int[MAX_VOICES];
+    private final int[] mixBuffer = new int[CHUNK_FRAMES * CHANNELS];
+    private final byte[] outputBuffer = new byte[CHUNK_FRAMES * CHANNELS * 2];
+
+    private AudioMixer(short[][] sounds, SourceDataLine line){
+        this.sounds = sounds;
+        this.line = line;
+        Arrays.fill(voiceSound, -1);
+        thread = new Thread(this::run, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        if(line != null){
+            thread.start();
+        }
+    }
+
+    /**
+     * Opens the default audio output and starts the mixer thread.
+     * Falls back to a null sink when no line in the mix format can be opened.
+     * @param sounds The sounds that can be played, as interleaved stereo samples at {@link #SAMPLE_RATE}; a sound's id is its index.
+     * @return The running mixer.
+     */
+    static AudioMixer open(short[][] sounds){
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, CHUNK_FRAMES * CHANNELS * 2 * LINE_BUFFER_CHUNKS);
+            line.start();
+            return new AudioMixer(sounds, line);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            // IllegalArgumentException is how AudioSystem reports a machine without any matching audio device.
+            System.err.println("No audio output available, sound is disabled: " + e.getMessage());
+            return new AudioMixer(sounds, null);
+        }
+    }
+
+    /**
+     * Asks for a sound to be played. Never blocks: if the queue is full the request is dropped.
+     * Must only be called from one thread at a time, which is the game loop.
+     * @param soundId The index of the sound.
+     * @return true if the request was queued, false if it was dropped or there is no audio device.
+     */
+    boolean play(int soundId){
+        if(line == null){
+            return false;
+        }
+        int tail = queueTail.get();
+        if(tail - queueHead.get() == QUEUE_CAPACITY){
+            droppedRequests.incrementAndGet();
+            return false;
+        }
+        queue[tail & (QUEUE_CAPACITY - 1)] = soundId;
+        // The release store publishes the slot before the new tail.
+        queueTail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Returns whether sound is going to an audio device.
+     * @return false if the mixer is a null sink.
+     */
+    boolean hasOutput(){
+        return line != null;
+    }
+
+    /**
+     * Returns the number of requests dropped because the queue was full.
+     * @return The number of dropped requests.
+     */
+    int getDroppedRequests(){
+        return droppedRequests.get();
+    }
+
+    /** Stops the mixer thread and releases the audio device. */
+    void close(){
+        running = false;
+        if(line == null){
+            return;
+        }
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        line.stop();
+        line.close();
+    }
+
+    /** The mixer thread: takes the new requests, mixes one chunk and writes it, which waits for room in the device buffer. */
+    private void run(){
+        while(running){
+            takeRequests();
+            mixChunk();
+            line.write(outputBuffer, 0, outputBuffer.length);
+        }
+    }
+
+    private void takeRequests(){
+        int head = queueHead.get();
+        int tail = queueTail.get();
+        for(; head != tail; head++){
+            startVoice(queue[head & (QUEUE_CAPACITY - 1)]);
+        }
+        queueHead.lazySet(head);
+    }
+
+    private void startVoice(int soundId){
+        int voice = 0;
+        int leastRemaining = Integer.MAX_VALUE;
+        for(int i = 0; i < MAX_VOICES; i++){
+            if(voiceSound[i] < 0){
+                voice = i;
+                break;
+            }
+            int remaining = sounds[voiceSound[i]].length - voicePosition[i];
+            if(remaining < leastRemaining){
+                leastRemaining = remaining;
+                voice = i;
+            }
+        }
+        voiceSound[voice] = soundId;
+        voicePosition[voice] = 0;
+    }
+
+    /** Adds up every playing voice into the output buffer, clipping the sum to 16 bits. */
+    private void mixChunk(){
+        Arrays.fill(mixBuffer, 0);
+        for(int voice = 0; voice < MAX_VOICES; voice++){
+            if(voiceSound[voice] < 0){
+                continue;
+            }
+            short[] samples = sounds[voiceSound[voice]];
+            int position = voicePosition[voice];
+            int count = Math.min(mixBuffer.length, samples.length - position);
+            for(int i = 0; i < count; i++){
+                mixBuffer[i] += samples[position + i];
+            }
+            voicePosition[voice] = position + count;
+            if(voicePosition[voice] >= samples.length){
+                voiceSound[voice] = -1;
+            }
+        }
+        for(int i = 0; i < mixBuffer.length; i++){
+            int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+            outputBuffer[2 * i] = (byte) sample;
+            outputBuffer[2 * i + 1] = (byte) (sample >> 8);
+        }
+    }
+}
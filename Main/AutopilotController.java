@@ -0,0 +1,184 @@
+package Main;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BrickField;
+import GameObjects.Paddle;
+
+/**
+ * A paddle controller that plays by itself, for soak tests and repeatable benchmark sessions.
+ * Whenever the ball starts to fall, the bot predicts where it will reach the paddle, folding its path at the side
+ * walls like {@link BallSweep} does, then picks the hit position whose {@link PaddleBounce} sends the ball towards
+ * the lowest live brick and steers the paddle under that point. While the ball rises the paddle follows it.
+ * The launch control is held all the time, so a missed ball is relaunched at once.
+ * The bot only reads the world and plans once per bounce, so it is deterministic and does not allocate.
+ * A seeded bot shifts every aimed hit by a small pseudo-random amount, so games played by bots with different
+ * seeds play out differently while each one can still be reproduced.
+ */
+public class AutopilotController implements PaddleController {
+    private static final double BALL_RADIUS = Ball.getWidth() / 2.0;
+    private static final double PADDLE_HALF_WIDTH = Paddle.getWidth() / 2.0;
+    /** The rightmost paddle position, as in {@link GameWorld}. */
+    private static final double PADDLE_RIGHT_LIMIT = Screen.WINDOW_WIDTH - Paddle.getWidth();
+    /** The farthest from the paddle's center a hit is aimed, leaving a margin for the paddle's step size. */
+    private static final double MAX_AIM_OFFSET = PADDLE_HALF_WIDTH - 12;
+    /** The hit positions tried across the paddle when aiming. */
+    private static final int AIM_CANDIDATES = 24;
+    /** The largest shift a seeded bot adds to an aimed hit, in pixels. */
+    private static final double AIM_JITTER = 8.0;
+    /** The bounce model of the world being played, replaced if the bot is moved to a world with other physics. */
+    private PaddleBounce paddleBounce = new PaddleBounce();
+    /** The largest random shift of an aimed hit, 0 for a bot that always aims the same way. */
+    private final double aimJitter;
+    private long randomState;
+    /** The ball velocity the current plan was made for; NaN while there is no plan. */
+    private double plannedXVelocity = Double.NaN;
+    private double plannedYVelocity = Double.NaN;
+    /** The paddle position the plan steers to. */
+    private double targetPaddleX;
+
+    /** Creates a bot that always plays the same way in the same situation. */
+    public AutopilotController(){
+        aimJitter = 0;
+    }
+
+    /**
+     * Creates a bot whose aim varies with a seed.
+     * @param seed The seed of the aim shifts; the same seed gives the same game.
+     */
+    public AutopilotController(long seed){
+        aimJitter = AIM_JITTER;
+        // xorshift needs a non-zero state.
+        randomState = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+    }
+
+    @Override
+    public int nextInput(GameWorld world){
+        Ball ball = world.getBall();
+        Paddle paddle = world.getPaddle();
+        double xVelocity = ball.getBallXVelocity();
+        double yVelocity = ball.getBallYVelocity();
+        if(yVelocity <= 0){
+            // Rising or waiting to launch: stay under the ball and plan again on the way down.
+            plannedXVelocity = Double.NaN;
+            plannedYVelocity = Double.NaN;
+            targetPaddleX = ball.getPreciseX() + BALL_RADIUS - PADDLE_HALF_WIDTH;
+        }
+        else if(xVelocity != plannedXVelocity || yVelocity != plannedYVelocity){
+            // Falling with a new velocity, after a launch or a bounce.
+            plan(world, ball, paddle, xVelocity, yVelocity);
+            plannedXVelocity = xVelocity;
+            plannedYVelocity = yVelocity;
+        }
+        return GameWorld.INPUT_SPACE | steer(paddle, world.getStepSeconds());
+    }
+
+    /**
+     * Chooses where the paddle should meet the falling ball.
+     * @param xVelocity The ball's horizontal velocity.
+     * @param yVelocity The ball's vertical velocity, positive.
+     */
+    private void plan(GameWorld world, Ball ball, Paddle paddle, double xVelocity, double yVelocity){
+        // The ball's top edge when its bottom touches the top of the paddle.
+        double contactY = paddle.getY() - Ball.getHeight();
+        double time = (contactY - ball.getPreciseY()) / yVelocity;
+        if(time <= 0){
+            // Already past the top of the paddle: only a side hit can save it.
+            targetPaddleX = ball.getPreciseX() + BALL_RADIUS - PADDLE_HALF_WIDTH;
+            return;
+        }
+        double landingX = foldX(ball.getPreciseX() + xVelocity * time);
+        double landingCenter = landingX + BALL_RADIUS;
+        if(paddleBounce.getProfile() != world.getPhysicsProfile()){
+            paddleBounce = new PaddleBounce(world.getPhysicsProfile());
+        }
+        double offset = chooseOffset(world.getBricks().getField(), landingX, contactY, xVelocity, yVelocity,
+                paddle.getPreciseX(), paddle.getSpeed() * time);
+        if(aimJitter > 0){
+            // The top 53 bits as a fraction from 0 to 1.
+            double fraction = (nextRandom() >>> 11) * 0x1.0p-53;
+            offset = Math.max(-MAX_AIM_OFFSET, Math.min(MAX_AIM_OFFSET, offset + (2 * fraction - 1) * aimJitter));
+        }
+        targetPaddleX = landingCenter - offset - PADDLE_HALF_WIDTH;
+    }
+
+    /**
+     * Returns the ball's center minus the paddle's center at the hit that best sends the ball towards the target.
+     * The target is the center of the lowest live brick, the one closest to the landing point among equals,
+     * or the middle of the top of the screen when there is none.
+     * Only hit positions the paddle can reach in time, and that keep it on screen, are considered.
+     * @param landingX The ball's left edge when it reaches the paddle.
+     * @param contactY The ball's top edge when it reaches the paddle.
+     * @param reach How far the paddle can move before the ball arrives.
+     * @return The hit offset, or 0 if no aimed hit can be reached.
+     */
+    private double chooseOffset(BrickField bricks, double landingX, double contactY, double xVelocity, double yVelocity,
+            double paddleX, double reach){
+        double landingCenter = landingX + BALL_RADIUS;
+        double targetX = Screen.WINDOW_WIDTH / 2.0;
+        double targetY = 0;
+        double targetDistance = Double.MAX_VALUE;
+        for(int id = bricks.nextLive(0); id >= 0; id = bricks.nextLive(id + 1)){
+            double bottom = bricks.getY(id) + bricks.getHeight(id);
+            double center = bricks.getX(id) + bricks.getWidth(id) / 2.0;
+            double distance = Math.abs(center - landingCenter);
+            if(bottom < contactY && (bottom > targetY || (bottom == targetY && distance < targetDistance))){
+                targetX = center;
+                targetY = bottom;
+                targetDistance = distance;
+            }
+        }
+        double bestOffset = 0;
+        double bestError = Double.MAX_VALUE;
+        for(int candidate = 0; candidate <= AIM_CANDIDATES; candidate++){
+            double offset = -MAX_AIM_OFFSET + 2 * MAX_AIM_OFFSET * candidate / AIM_CANDIDATES;
+            double hitPaddleX = landingCenter - offset - PADDLE_HALF_WIDTH;
+            if(hitPaddleX < 0 || hitPaddleX > PADDLE_RIGHT_LIMIT || Math.abs(hitPaddleX - paddleX) > reach){
+                continue;
+            }
+            paddleBounce.compute(offset, xVelocity, yVelocity);
+            double time = (contactY - targetY) / -paddleBounce.getYVelocity();
+            double error = Math.abs(foldX(landingX + paddleBounce.getXVelocity() * time) + BALL_RADIUS - targetX);
+            if(error < bestError){
+                bestError = error;
+                bestOffset = offset;
+            }
+        }
+        return bestOffset;
+    }
+
+    /** Holds left or right until the paddle is within half a step of the target. */
+    private int steer(Paddle paddle, double stepSeconds){
+        double target = Math.max(0, Math.min(PADDLE_RIGHT_LIMIT, targetPaddleX));
+        double difference = target - paddle.getPreciseX();
+        double halfStep = paddle.getSpeed() * stepSeconds / 2;
+        if(difference > halfStep){
+            return GameWorld.INPUT_RIGHT;
+        }
+        if(difference < -halfStep){
+            return GameWorld.INPUT_LEFT;
+        }
+        return 0;
+    }
+
+    /** xorshift64*, the same generator as {@link DescendingRows}. */
+    private long nextRandom(){
+        randomState ^= randomState >>> 12;
+        randomState ^= randomState << 25;
+        randomState ^= randomState >>> 27;
+        return randomState * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Maps a free-flight left edge back between the side walls, mirroring it at each bounce.
+     * @param x The left edge the ball would reach without walls.
+     * @return The left edge after bouncing off the walls.
+     */
+    private static double foldX(double x){
+        double period = 2.0 * BallSweep.BALL_SCREEN_COLLISION_X;
+        double position = x % period;
+        if(position < 0){
+            position += period;
+        }
+        return position > BallSweep.BALL_SCREEN_COLLISION_X ? period - position : position;
+    }
+}
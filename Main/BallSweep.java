@@ -0,0 +1,294 @@
+package Main;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BrickField;
+import GameObjects.BrickGrid;
+import GameObjects.BrickLines;
+import GameObjects.CollisionMath;
+import GameObjects.Paddle;
+
+/**
+ * Moves a ball through one time step with continuous collision detection.
+ * Instead of cutting the movement into one-pixel sub-steps, each iteration computes the exact time of impact
+ * against the walls, the paddle and the bricks along the rest of the path, moves the ball to the earliest contact,
+ * bounces it and continues with the time left. The cost therefore grows with the number of contacts in a step,
+ * not with the ball's speed.
+ * Bricks are only read: the bricks hit are recorded in time order for the caller to apply, and a brick is not hit
+ * twice in one step. The bounce constants come from a {@link PhysicsProfile}.
+ * The result is kept in the instance, so each simulation thread reuses its own.
+ */
+final class BallSweep {
+    /** Contacts resolved per step at most; the rest of a step that keeps bouncing is dropped. */
+    static final int MAX_CONTACTS_PER_STEP = 16;
+    private static final int BALL_WIDTH = Ball.getWidth();
+    private static final int BALL_HEIGHT = Ball.getHeight();
+    private static final double BALL_RADIUS = BALL_WIDTH / 2.0;
+    /** The x-coordinate where the ball will bounce off the right edge of the screen. */
+    static final int BALL_SCREEN_COLLISION_X = Screen.WINDOW_WIDTH - BALL_WIDTH;
+    private static final int NO_CONTACT = 0;
+    private static final int LEFT_WALL = 1;
+    private static final int RIGHT_WALL = 2;
+    private static final int TOP_WALL = 3;
+    private static final int PADDLE = 4;
+    private static final int BRICK = 5;
+    private final BrickGrid.Candidates candidates = new BrickGrid.Candidates();
+    private final CollisionMath.Contact contact = new CollisionMath.Contact();
+    private final PhysicsProfile profile;
+    private final PaddleBounce paddleBounce;
+    private final int[] brickHits = new int[MAX_CONTACTS_PER_STEP];
+    private int brickHitCount;
+    private boolean bounced;
+    /** Work done by the last move, for instrumentation. */
+    private int iterations;
+    private int brickTests;
+    private int paddleHits;
+    private double x;
+    private double y;
+    private double xVelocity;
+    private double yVelocity;
+
+    /** Creates a sweep with the default physics. */
+    BallSweep(){
+        this(PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Creates a sweep.
+     * @param profile The physics constants to bounce with.
+     */
+    BallSweep(PhysicsProfile profile){
+        this.profile = profile;
+        paddleBounce = new PaddleBounce(profile);
+    }
+
+    /**
+     * Moves a ball for the given time, resolving every contact in time order.
+     * @param x The ball's left edge.
+     * @param y The ball's top edge.
+     * @param xVelocity The ball's horizontal velocity in pixels per second.
+     * @param yVelocity The ball's vertical velocity in pixels per second.
+     * @param seconds The time to move for.
+     * @param paddle The paddle, already moved for this step.
+     * @param lineOfBricks The bricks, which are not modified.
+     */
+    void move(double x, double y, double xVelocity, double yVelocity, double seconds, Paddle paddle, BrickLines lineOfBricks){
+        this.x = x;
+        this.y = y;
+        this.xVelocity = xVelocity;
+        this.yVelocity = yVelocity;
+        brickHitCount = 0;
+        iterations = 0;
+        brickTests = 0;
+        paddleHits = 0;
+        bounced = resolvePaddleOverlap(paddle);
+        boolean hitTopWall = false;
+        int sideWall = NO_CONTACT;
+        double remaining = seconds;
+
+        for(int contacts = 0; contacts < MAX_CONTACTS_PER_STEP && remaining > 0; contacts++){
+            iterations++;
+            double deltaX = this.xVelocity * remaining;
+            double deltaY = this.yVelocity * remaining;
+            double time = 1;
+            int target = NO_CONTACT;
+            double normalX = 0;
+            double normalY = 0;
+            int brick = -1;
+
+            // Walls are planes the ball's box may not cross; only approaching walls count.
+            if(deltaX < 0 && this.x + deltaX < 0){
+                time = Math.max(0, -this.x / deltaX);
+                target = LEFT_WALL;
+            }
+            else if(deltaX > 0 && this.x + deltaX > BALL_SCREEN_COLLISION_X){
+                time = Math.max(0, (BALL_SCREEN_COLLISION_X - this.x) / deltaX);
+                target = RIGHT_WALL;
+            }
+            if(deltaY < 0 && this.y + deltaY < 0){
+                double wallTime = Math.max(0, -this.y / deltaY);
+                if(wallTime < time){
+                    time = wallTime;
+                    target = TOP_WALL;
+                }
+            }
+
+            double centerX = this.x + BALL_RADIUS;
+            double centerY = this.y + (BALL_HEIGHT / 2.0);
+            if(deltaY > 0 && CollisionMath.sweepCircleRect(centerX, centerY, BALL_RADIUS, deltaX, deltaY,
+                    paddle.getX(), paddle.getY(), Paddle.getWidth(), Paddle.getHeight(), contact) && contact.getTime() < time){
+                time = contact.getTime();
+                target = PADDLE;
+                normalX = contact.getNormalX();
+                normalY = contact.getNormalY();
+            }
+
+            // Only the bricks in the cells covered by the whole remaining path are tested, in id order.
+            int left = (int)Math.floor(Math.min(this.x, this.x + deltaX));
+            int top = (int)Math.floor(Math.min(this.y, this.y + deltaY));
+            int right = (int)Math.ceil(Math.max(this.x, this.x + deltaX)) + BALL_WIDTH;
+            int bottom = (int)Math.ceil(Math.max(this.y, this.y + deltaY)) + BALL_HEIGHT;
+            int numOfCandidates = lineOfBricks.findCandidateBricks(left, top, right, bottom, candidates);
+            brickTests += numOfCandidates;
+            BrickField bricks = lineOfBricks.getField();
+            for(int k = 0; k < numOfCandidates; k++){
+                int id = candidates.get(k);
+                if(wasHit(id)){
+                    continue;
+                }
+                if(CollisionMath.sweepCircleRect(centerX, centerY, BALL_RADIUS, deltaX, deltaY,
+                        bricks.getX(id), bricks.getY(id), bricks.getWidth(id), bricks.getHeight(id), contact)
+                        && contact.getTime() < time){
+                    time = contact.getTime();
+                    target = BRICK;
+                    brick = id;
+                    normalX = contact.getNormalX();
+                    normalY = contact.getNormalY();
+                }
+            }
+
+            this.x += deltaX * time;
+            this.y += deltaY * time;
+            remaining -= remaining * time;
+            if(target == NO_CONTACT){
+                break;
+            }
+            if(target == LEFT_WALL || target == RIGHT_WALL){
+                this.x = target == LEFT_WALL ? 0 : BALL_SCREEN_COLLISION_X;
+                this.xVelocity = target == LEFT_WALL ? Math.abs(this.xVelocity) : -Math.abs(this.xVelocity);
+                sideWall = target;
+                bounced = true;
+            }
+            else if(target == TOP_WALL){
+                this.y = 0;
+                this.yVelocity = Math.abs(this.yVelocity);
+                hitTopWall = true;
+                bounced = true;
+            }
+            else if(target == PADDLE){
+                bouncePaddle(paddle, -normalY >= Math.abs(normalX));
+                bounced = true;
+            }
+            else{
+                // Bounce on the axis the contact normal points along; corners pick their steeper side.
+                if(Math.abs(normalX) > Math.abs(normalY)){
+                    this.xVelocity = Math.copySign(this.xVelocity, normalX);
+                }
+                else{
+                    this.yVelocity = Math.copySign(this.yVelocity, normalY);
+                }
+                brickHits[brickHitCount++] = brick;
+            }
+
+            // Corner guard: top-left/top-right hits should not become a straight vertical fall.
+            if(hitTopWall && sideWall != NO_CONTACT && Math.abs(this.xVelocity) < profile.getMinCornerXVelocity()){
+                this.xVelocity = sideWall == RIGHT_WALL ? -profile.getMinCornerXVelocity() : profile.getMinCornerXVelocity();
+            }
+        }
+    }
+
+    /**
+     * Handles a paddle that moved into the ball before the ball moved: edge-top contacts count as top hits
+     * to favor player saves at the paddle edge, anything else is pushed out sideways.
+     * @return true if the ball was touching the paddle.
+     */
+    private boolean resolvePaddleOverlap(Paddle paddle){
+        if(yVelocity <= 0 || !CollisionMath.isCircleIntersectsRect(x + BALL_RADIUS, y + (BALL_HEIGHT / 2.0), BALL_RADIUS,
+                paddle.getX(), paddle.getY(), Paddle.getWidth(), Paddle.getHeight())){
+            return false;
+        }
+        boolean edgeTopContact = y + (BALL_HEIGHT / 2.0) <= paddle.getY() + (Paddle.getHeight() / 2.0);
+        if(edgeTopContact){
+            y = paddle.getY() - BALL_HEIGHT;
+        }
+        bouncePaddle(paddle, edgeTopContact);
+        return true;
+    }
+
+    /**
+     * Bounces the ball off the paddle.
+     * A top hit uses the {@link PaddleBounce} model; a side hit forces an escape path below the paddle
+     * so a moving paddle cannot trap the ball.
+     */
+    private void bouncePaddle(Paddle paddle, boolean topHit){
+        double ballCenterX = x + BALL_RADIUS;
+        double paddleCenterX = paddle.getX() + (Paddle.getWidth() / 2.0);
+        paddleHits++;
+        if(topHit){
+            paddleBounce.compute(ballCenterX - paddleCenterX, xVelocity, yVelocity);
+            xVelocity = paddleBounce.getXVelocity();
+            yVelocity = paddleBounce.getYVelocity();
+            return;
+        }
+        boolean hitLeftSide = ballCenterX < paddleCenterX;
+        double xMagnitude = Math.max(Math.abs(xVelocity), profile.getMinPaddleSideXVelocity() + paddle.getSpeed() * profile.getPaddleSidePush());
+        xVelocity = hitLeftSide ? -xMagnitude : xMagnitude;
+        yVelocity = Math.max(Math.abs(yVelocity), profile.getMinBallSpeed() * 0.75);
+        x = hitLeftSide
+                ? paddle.getX() - BALL_WIDTH - profile.getPaddleEscapeGap()
+                : paddle.getX() + Paddle.getWidth() + profile.getPaddleEscapeGap();
+        y = Math.max(y, paddle.getY() + Paddle.getHeight() + profile.getPaddleEscapeGap());
+    }
+
+    private boolean wasHit(int brick){
+        for(int i = 0; i < brickHitCount; i++){
+            if(brickHits[i] == brick){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the ball's left edge after the last move. */
+    double getX(){
+        return x;
+    }
+
+    /** Returns the ball's top edge after the last move. */
+    double getY(){
+        return y;
+    }
+
+    /** Returns the ball's horizontal velocity after the last move. */
+    double getXVelocity(){
+        return xVelocity;
+    }
+
+    /** Returns the ball's vertical velocity after the last move. */
+    double getYVelocity(){
+        return yVelocity;
+    }
+
+    /** Returns true if the last move bounced off a wall or the paddle. */
+    boolean hasBounced(){
+        return bounced;
+    }
+
+    /** Returns the number of sweep iterations of the last move: one per contact, plus the final free movement. */
+    int getIterations(){
+        return iterations;
+    }
+
+    /** Returns the number of bricks the last move tested for a contact. */
+    int getBrickTests(){
+        return brickTests;
+    }
+
+    /** Returns the number of times the last move bounced off the paddle. */
+    int getPaddleHits(){
+        return paddleHits;
+    }
+
+    /** Returns the number of bricks hit by the last move. */
+    int getBrickHitCount(){
+        return brickHitCount;
+    }
+
+    /**
+     * Returns a brick hit by the last move, in the order they were hit.
+     * @param index The index of the hit, smaller than {@link #getBrickHitCount()}.
+     * @return The id of the brick.
+     */
+    int getBrickHit(int index){
+        return brickHits[index];
+    }
+}
@@ -0,0 +1,138 @@
+package Main;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The BatchRunner class plays many independent games at once without a window, sound or timer, each one driven
+ * by an {@link AutopilotController} seeded with the game's number, and reports the throughput, the score and lives
+ * distributions and the step times. It is meant for load-testing physics changes and comparing builds: the same
+ * arguments play the same games, so two builds can be compared on identical work.
+ * The games are played by a {@link GameBatch} on a fork-join pool. Every task owns its worlds, bots and histograms,
+ * and the rules keep no shared state, so the games never contend and a run scales with the threads of the pool.
+ */
+public class BatchRunner {
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_LINES = 4;
+    /** Game time after which a game is cut short, so endless games and stalemates end too. */
+    private static final int DEFAULT_MAX_SECONDS = 600;
+    private static final long DEFAULT_SEED = 1;
+    private static final int PHYSICS_HZ = GameLoop.DEFAULT_PHYSICS_HZ;
+    private static final int LIFE_POINTS = 3;
+    private final boolean endless;
+    private final int lines;
+    private final long maxTicks;
+    private final long seed;
+    /** The results of every game, indexed by game; each game is written by exactly one task. */
+    private final long[] scores;
+    private final int[] livesLeft;
+    private final long[] ticks;
+    private final long[] p99StepNanos;
+
+    /**
+     * Prepares a batch of games.
+     * @param games The number of games to play.
+     * @param endless true to play endless games, false to play generated levels.
+     * @param lines The number of brick lines of a generated level.
+     * @param maxSeconds The game time after which a game is cut short.
+     * @param seed The seed of the first game; game n is seeded with {@code seed + n}.
+     */
+    BatchRunner(int games, boolean endless, int lines, int maxSeconds, long seed){
+        this.endless = endless;
+        this.lines = lines;
+        this.maxTicks = (long) maxSeconds * PHYSICS_HZ;
+        this.seed = seed;
+        scores = new long[games];
+        livesLeft = new int[games];
+        ticks = new long[games];
+        p99StepNanos = new long[games];
+    }
+
+    /**
+     * Plays one game to its end or to the time limit and stores its results.
+     * @param game The number of the game.
+     * @param gameSteps A histogram for the game's step times, empty on entry.
+     */
+    private void playGame(int game, LatencyHistogram gameSteps){
+        long gameSeed = seed + game;
+        GameWorld world = endless ? HeadlessRunner.newEndlessWorld(gameSeed) : HeadlessRunner.newWorld(lines, PHYSICS_HZ);
+        long tick = GameBatch.playGame(world, gameSeed, maxTicks, gameSteps, (playing, played) -> false);
+        scores[game] = world.getPlayer().getScore();
+        livesLeft[game] = world.getPlayer().getLifePoints();
+        ticks[game] = tick;
+        p99StepNanos[game] = gameSteps.valueAtPercentile(99);
+    }
+
+    /**
+     * Plays the games and prints the report.
+     * @param args Optional: the number of games, then the number of brick lines or {@code endless}, then the
+     * seconds of game time after which a game is cut short, then the number of threads (the common pool's by default),
+     * then the seed of the first game.
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+        boolean endless = args.length > 1 && args[1].equals("endless");
+        int lines = args.length > 1 && !endless ? Integer.parseInt(args[1]) : DEFAULT_LINES;
+        int maxSeconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_SECONDS;
+        ForkJoinPool pool = args.length > 3 ? new ForkJoinPool(Integer.parseInt(args[3])) : ForkJoinPool.commonPool();
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_SEED;
+        if(games <= 0){
+            throw new IllegalArgumentException("The number of games must be positive");
+        }
+        BatchRunner batch = new BatchRunner(games, endless, lines, maxSeconds, seed);
+        long start = System.nanoTime();
+        LatencyHistogram steps = GameBatch.play(pool, 0, games, GameBatch.gamesPerLeaf(games, pool.getParallelism()), batch::playGame);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        batch.printReport(steps, seconds, pool.getParallelism());
+    }
+
+    /**
+     * Prints the throughput, the score, game length and lives distributions and the step times of a finished batch.
+     * @param steps The step times of every game.
+     * @param seconds The wall-clock time the batch took.
+     * @param threads The number of threads the games ran on.
+     */
+    private void printReport(LatencyHistogram steps, double seconds, int threads){
+        int games = scores.length;
+        long totalTicks = 0;
+        int cutShort = 0;
+        int[] livesCount = new int[LIFE_POINTS + 1];
+        for(int game = 0; game < games; game++){
+            totalTicks += ticks[game];
+            if(ticks[game] >= maxTicks){
+                cutShort++;
+            }
+            livesCount[Math.max(0, Math.min(LIFE_POINTS, livesLeft[game]))]++;
+        }
+        System.out.printf("%d %s games on %d threads in %.3f s: %.1f games/s, %.0f ticks/s (%d ticks, %.1f s of game time each on average)%n",
+                games, endless ? "endless" : lines + "-line", threads, seconds, games / seconds, totalTicks / seconds,
+                totalTicks, (double) totalTicks / games / PHYSICS_HZ);
+        long[] sortedScores = scores.clone();
+        Arrays.sort(sortedScores);
+        System.out.printf("score: min %d, p10 %d, p50 %d, p90 %d, max %d, mean %.0f%n", sortedScores[0],
+                at(sortedScores, 10), at(sortedScores, 50), at(sortedScores, 90), sortedScores[games - 1],
+                Arrays.stream(scores).average().orElse(0));
+        long[] sortedTicks = ticks.clone();
+        Arrays.sort(sortedTicks);
+        System.out.printf("game seconds: min %.1f, p10 %.1f, p50 %.1f, p90 %.1f, max %.1f%n", (double) sortedTicks[0] / PHYSICS_HZ,
+                (double) at(sortedTicks, 10) / PHYSICS_HZ, (double) at(sortedTicks, 50) / PHYSICS_HZ,
+                (double) at(sortedTicks, 90) / PHYSICS_HZ, (double) sortedTicks[games - 1] / PHYSICS_HZ);
+        StringBuilder lives = new StringBuilder("lives left:");
+        for(int life = 0; life <= LIFE_POINTS; life++){
+            lives.append(' ').append(life).append(": ").append(livesCount[life]).append(life < LIFE_POINTS ? "," : "");
+        }
+        System.out.println(lives + "; " + cutShort + " games cut short after " + maxTicks / PHYSICS_HZ + " s");
+        System.out.printf("step us: mean %.2f, p50 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n", steps.getMean() / 1e3,
+                steps.valueAtPercentile(50) / 1e3, steps.valueAtPercentile(99) / 1e3,
+                steps.valueAtPercentile(99.9) / 1e3, steps.getMax() / 1e3);
+        long[] sortedP99 = p99StepNanos.clone();
+        Arrays.sort(sortedP99);
+        System.out.printf("per-game p99 step us: min %.2f, p50 %.2f, p90 %.2f, max %.2f%n", sortedP99[0] / 1e3,
+                at(sortedP99, 50) / 1e3, at(sortedP99, 90) / 1e3, sortedP99[games - 1] / 1e3);
+    }
+
+    /** Returns the value at a percentile of sorted values, by the nearest rank. */
+    private static long at(long[] sorted, double percentile){
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
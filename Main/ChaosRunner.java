@@ -0,0 +1,84 @@
+package Main;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import Render.NullRenderObserver;
+import Render.Screen;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+
+/**
+ * The ChaosRunner class runs the multi-ball stress mode without a window, sound or timer.
+ * Steps are run back to back and each one is timed against the budget of one step at the chosen rate,
+ * so the report shows whether the machine could keep up in real time: a step over budget is a dropped tick.
+ * A fresh game is started whenever one ends.
+ */
+public class ChaosRunner {
+    private static final int PADDLE_DEFAULT_X = (Screen.WINDOW_WIDTH / 2) - (Paddle.getWidth() / 2);
+    private static final int PADDLE_DEFAULT_Y = Screen.WINDOW_HEIGHT - 70;
+    private static final int LIFE_POINTS = 3;
+    private static final int SCORE_POINTS = 100;
+    private static final int DEFAULT_BALLS = 10_000;
+    private static final int DEFAULT_SECONDS = 10;
+    private static final int DEFAULT_LINES = 4;
+    private static final int PHYSICS_HZ = 100;
+    /** The paddle sweeps back and forth, turning around this often, so paddle bounces are exercised too. */
+    private static final int PADDLE_TURN_TICKS = PHYSICS_HZ;
+
+    /**
+     * Creates a fresh multi-ball world in its starting state that renders to nothing.
+     * @param volleySize The number of balls launched at once.
+     * @param numberOfLines The number of brick lines in the level.
+     * @param physicsHz The number of physics steps per second of game time.
+     * @param pool The pool the balls are updated on.
+     * @return The new world.
+     */
+    public static ChaosWorld newWorld(int volleySize, int numberOfLines, int physicsHz, ForkJoinPool pool){
+        Player player = new Player(LIFE_POINTS, SCORE_POINTS);
+        Paddle paddle = new Paddle(PADDLE_DEFAULT_X, PADDLE_DEFAULT_Y);
+        return new ChaosWorld(player, new NullRenderObserver(), paddle, new BrickLines(numberOfLines), volleySize, physicsHz, pool);
+    }
+
+    /**
+     * Runs the stress mode and prints the step times against the real-time budget.
+     * @param args Optional: the number of balls, then the seconds of game time to run, then the number of brick lines.
+     */
+    public static void main(String[] args) {
+        int volleySize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BALLS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int lines = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_LINES;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int ticks = seconds * PHYSICS_HZ;
+        long budgetNanos = 1_000_000_000L / PHYSICS_HZ;
+        long[] stepNanos = new long[ticks];
+        ChaosWorld world = newWorld(volleySize, lines, PHYSICS_HZ, pool);
+        int games = 1;
+        long ballSteps = 0;
+        for(int tick = 0; tick < ticks; tick++){
+            if(world.isGameOver()){
+                world = newWorld(volleySize, lines, PHYSICS_HZ, pool);
+                games++;
+            }
+            boolean right = (tick / PADDLE_TURN_TICKS) % 2 == 0;
+            world.setMovingRight(right);
+            world.setMovingLeft(!right);
+            ballSteps += world.getBalls().getCount();
+            long start = System.nanoTime();
+            world.step();
+            stepNanos[tick] = System.nanoTime() - start;
+        }
+        long total = 0;
+        int overBudget = 0;
+        for(long nanos : stepNanos){
+            total += nanos;
+            if(nanos > budgetNanos){
+                overBudget++;
+            }
+        }
+        Arrays.sort(stepNanos);
+        System.out.printf("%d balls, %d steps at %d Hz on %d threads, %d games, %.0f balls per step on average%n",
+                volleySize, ticks, PHYSICS_HZ, pool.getParallelism(), games, (double)ballSteps / ticks);
+        System.out.printf("step ms: mean %.3f, p50 %.3f, p99 %.3f, max %.3f; %d steps over the %.1f ms budget%n",
+                total / 1e6 / ticks, stepNanos[ticks / 2] / 1e6, stepNanos[(int)(ticks * 0.99)] / 1e6,
+                stepNanos[ticks - 1] / 1e6, overBudget, budgetNanos / 1e6);
+    }
+}
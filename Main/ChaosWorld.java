@@ -0,0 +1,451 @@
+package Main;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import Render.RenderObserver;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BallField;
+import GameObjects.BrickField;
+import GameObjects.BrickLines;
+import GameObjects.CollisionMath;
+import GameObjects.Paddle;
+
+/**
+ * The ChaosWorld class is the multi-ball stress mode: the rules of {@link GameWorld} applied to thousands of balls at once.
+ * Balls live in a packed {@link BallField} and each step runs in phases:
+ * <ol>
+ * <li>the paddle moves;</li>
+ * <li>every ball sweeps through the step against the walls, the paddle and the bricks, in parallel over chunks of balls.
+ *     Bricks are only read in this phase: a ball bounces off a brick it touches and records the hit;</li>
+ * <li>touching balls bounce off each other, found through a spatial hash. Each ball computes its own response from
+ *     the positions and velocities at the start of the phase, so this phase runs in parallel too;</li>
+ * <li>the recorded brick hits are applied in ball id order, so when two balls hit the same brick in one step,
+ *     the ball with the lowest id breaks it and gets the score, whatever thread finished first;</li>
+ * <li>balls that fell below the paddle are removed; once none is left the player loses a life and a new volley is launched.</li>
+ * </ol>
+ * The result of a step only depends on the state before it, never on the number of threads.
+ */
+public class ChaosWorld {
+    /** Balls per parallel task; large enough that scheduling costs little next to the work. */
+    private static final int CHUNK_SIZE = 256;
+    /** Brick hits remembered per ball and step; more are bounced off but not counted. */
+    private static final int MAX_HITS_PER_STEP = 4;
+    /** Ball contacts resolved per ball and step, which bounds the cost of a step when balls pile up. */
+    private static final int MAX_CONTACTS_PER_BALL = 8;
+    private static final int BALL_WIDTH = Ball.getWidth();
+    private static final int BALL_HEIGHT = Ball.getHeight();
+    private static final double BALL_RADIUS = BALL_WIDTH / 2.0;
+    private static final int BALL_SCREEN_COLLISION_X = Screen.WINDOW_WIDTH - BALL_WIDTH;
+    private static final int PADDLE_SCREEN_RIGHT_LIMIT = Screen.WINDOW_WIDTH - Paddle.getWidth();
+    /** Spatial hash cells are one ball wide, so touching balls are always in neighbouring cells. */
+    private static final int HASH_CELL_SIZE = BALL_WIDTH;
+    private static final int HASH_COLUMNS = (Screen.WINDOW_WIDTH + HASH_CELL_SIZE - 1) / HASH_CELL_SIZE;
+    /** Launch angles of a volley are spread up to this far from vertical. */
+    private static final double VOLLEY_MAX_ANGLE_DEG = 60.0;
+    /** The fractional part of the golden ratio, used to spread a volley evenly without randomness. */
+    private static final double GOLDEN_FRACTION = 0.6180339887498949;
+    private static final int PHASE_MOVE = 0;
+    private static final int PHASE_CONTACTS = 1;
+    private final Player player;
+    private final RenderObserver renderObserver;
+    private final Paddle paddle;
+    private final BrickLines lineOfBricks;
+    private final BallField balls = new BallField();
+    private final int volleySize;
+    private final double launchSpeed;
+    private final double stepSeconds;
+    private final ForkJoinPool pool;
+    private final PhysicsProfile profile;
+    /** The miss line, below the window by the profile's forgiveness like the single-ball game's. */
+    private final int missHeight;
+    /** Spatial hash rows, enough to reach the miss line. */
+    private final int hashRows;
+    private boolean movingLeft;
+    private boolean movingRight;
+    /** Brick hits recorded in the move phase, MAX_HITS_PER_STEP slots per ball. */
+    private int[] hits = new int[0];
+    private int[] hitCounts = new int[0];
+    private boolean[] missed = new boolean[0];
+    /** Ball states computed by the contact phase, copied back once every ball is done. */
+    private double[] nextX = new double[0];
+    private double[] nextY = new double[0];
+    private double[] nextXVelocity = new double[0];
+    private double[] nextYVelocity = new double[0];
+    /** Spatial hash: the balls of cell c are hashBalls[hashStart[c]] to hashBalls[hashStart[c + 1] - 1]. */
+    private final int[] hashStart;
+    private final int[] hashFill;
+    private int[] hashBalls = new int[0];
+    /** Per-chunk scratch, so worker threads never share a buffer. */
+    private Worker[] workers = new Worker[0];
+
+    /** Scratch state owned by one chunk of balls. */
+    private static final class Worker {
+        private final BallSweep ballSweep;
+
+        private Worker(PhysicsProfile profile){
+            ballSweep = new BallSweep(profile);
+        }
+    }
+
+    /** Runs one phase over a range of chunks, splitting it in halves across the pool. */
+    private final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int phase;
+        private final int firstChunk;
+        private final int lastChunk;
+
+        private ChunkTask(int phase, int firstChunk, int lastChunk){
+            this.phase = phase;
+            this.firstChunk = firstChunk;
+            this.lastChunk = lastChunk;
+        }
+
+        @Override
+        protected void compute(){
+            if(lastChunk - firstChunk == 1){
+                runChunk(phase, firstChunk);
+                return;
+            }
+            int middle = (firstChunk + lastChunk) >>> 1;
+            invokeAll(new ChunkTask(phase, firstChunk, middle), new ChunkTask(phase, middle, lastChunk));
+        }
+    }
+
+    /**
+     * Constructs a multi-ball world with the default physics and launches the first volley.
+     * @param player The player object, containing score and life data.
+     * @param renderObserver The observer notified of destroyed bricks, score and lives; ball moves are not reported.
+     * @param paddle The paddle object.
+     * @param lineOfBricks The bricks of the level.
+     * @param volleySize The number of balls launched at once.
+     * @param physicsHz The number of steps simulated per second of game time.
+     * @param pool The pool the ball chunks run on.
+     */
+    public ChaosWorld(Player player, RenderObserver renderObserver, Paddle paddle, BrickLines lineOfBricks,
+            int volleySize, int physicsHz, ForkJoinPool pool){
+        this(player, renderObserver, paddle, lineOfBricks, volleySize, physicsHz, pool, PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Constructs a multi-ball world and launches the first volley.
+     * @param player The player object, containing score and life data.
+     * @param renderObserver The observer notified of destroyed bricks, score and lives; ball moves are not reported.
+     * @param paddle The paddle object.
+     * @param lineOfBricks The bricks of the level.
+     * @param volleySize The number of balls launched at once.
+     * @param physicsHz The number of steps simulated per second of game time.
+     * @param pool The pool the ball chunks run on.
+     * @param profile The physics constants to play with: the balls bounce with them and miss below its forgiveness.
+     */
+    public ChaosWorld(Player player, RenderObserver renderObserver, Paddle paddle, BrickLines lineOfBricks,
+            int volleySize, int physicsHz, ForkJoinPool pool, PhysicsProfile profile){
+        this.player = player;
+        this.renderObserver = renderObserver;
+        this.paddle = paddle;
+        this.lineOfBricks = lineOfBricks;
+        this.volleySize = volleySize;
+        this.launchSpeed = new Ball(0, 0).getDefaultBallYVelocity();
+        this.stepSeconds = 1.0 / physicsHz;
+        this.pool = pool;
+        this.profile = profile;
+        missHeight = Screen.WINDOW_HEIGHT + profile.getBallMissForgivenessPx();
+        hashRows = (missHeight + BALL_HEIGHT + HASH_CELL_SIZE - 1) / HASH_CELL_SIZE;
+        hashStart = new int[HASH_COLUMNS * hashRows + 1];
+        hashFill = new int[HASH_COLUMNS * hashRows];
+        launchVolley();
+    }
+
+    /**
+     * Sets whether the paddle should be moving left.
+     * @param movingLeft true while the left control is held.
+     */
+    public void setMovingLeft(boolean movingLeft){
+        this.movingLeft = movingLeft;
+    }
+
+    /**
+     * Sets whether the paddle should be moving right.
+     * @param movingRight true while the right control is held.
+     */
+    public void setMovingRight(boolean movingRight){
+        this.movingRight = movingRight;
+    }
+
+    /** Returns the balls of this world. */
+    public BallField getBalls(){
+        return balls;
+    }
+
+    /** Returns the player of this world. */
+    public Player getPlayer(){
+        return player;
+    }
+
+    /** Returns the bricks of this world. */
+    public BrickLines getBricks(){
+        return lineOfBricks;
+    }
+
+    /**
+     * Determines if the game has ended, either by destroying all bricks or losing all life points.
+     * @return true if the game is over, false otherwise.
+     */
+    public boolean isGameOver(){
+        return lineOfBricks.getNumOfBricks() == 0 || player.getLifePoints() == 0;
+    }
+
+    /**
+     * Advances the world by one fixed time step. Does nothing once the game is over.
+     */
+    public void step(){
+        if(isGameOver()){
+            return;
+        }
+        updatePaddlePosition();
+        int count = balls.getCount();
+        ensureCapacity(count);
+        runPhase(PHASE_MOVE, count);
+        buildSpatialHash(count);
+        runPhase(PHASE_CONTACTS, count);
+        for(int id = 0; id < count; id++){
+            balls.set(id, nextX[id], nextY[id], nextXVelocity[id], nextYVelocity[id]);
+        }
+        applyBrickHits(count);
+        removeMissedBalls(count);
+    }
+
+    /** Runs a phase over every chunk of balls, on the pool when there is more than one chunk. */
+    private void runPhase(int phase, int count){
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if(chunks == 1){
+            runChunk(phase, 0);
+        }
+        else if(chunks > 1){
+            pool.invoke(new ChunkTask(phase, 0, chunks));
+        }
+    }
+
+    private void runChunk(int phase, int chunk){
+        Worker worker = workers[chunk];
+        int end = Math.min(balls.getCount(), (chunk + 1) * CHUNK_SIZE);
+        for(int id = chunk * CHUNK_SIZE; id < end; id++){
+            if(phase == PHASE_MOVE){
+                moveBall(id, worker);
+            }
+            else{
+                resolveBallContacts(id);
+            }
+        }
+    }
+
+    /**
+     * Moves one ball through the step like {@link GameWorld#ballMovement()}, recording the bricks it hits.
+     * Only writes the state of this ball and its own hit slots.
+     */
+    private void moveBall(int id, Worker worker){
+        BallSweep sweep = worker.ballSweep;
+        sweep.move(balls.getX(id), balls.getY(id), balls.getXVelocity(id), balls.getYVelocity(id), stepSeconds, paddle, lineOfBricks);
+        balls.set(id, sweep.getX(), sweep.getY(), sweep.getXVelocity(), sweep.getYVelocity());
+        int hitCount = Math.min(sweep.getBrickHitCount(), MAX_HITS_PER_STEP);
+        for(int k = 0; k < hitCount; k++){
+            hits[id * MAX_HITS_PER_STEP + k] = sweep.getBrickHit(k);
+        }
+        hitCounts[id] = hitCount;
+    }
+
+    /** Sorts the balls into the spatial hash cells by their center. */
+    private void buildSpatialHash(int count){
+        Arrays.fill(hashStart, 0);
+        for(int id = 0; id < count; id++){
+            hashStart[hashCell(id) + 1]++;
+        }
+        for(int cell = 0; cell < hashFill.length; cell++){
+            hashStart[cell + 1] += hashStart[cell];
+            hashFill[cell] = hashStart[cell];
+        }
+        for(int id = 0; id < count; id++){
+            hashBalls[hashFill[hashCell(id)]++] = id;
+        }
+    }
+
+    private int hashCell(int id){
+        int column = (int)((balls.getX(id) + BALL_RADIUS) / HASH_CELL_SIZE);
+        int row = (int)((balls.getY(id) + BALL_RADIUS) / HASH_CELL_SIZE);
+        column = Math.max(0, Math.min(HASH_COLUMNS - 1, column));
+        row = Math.max(0, Math.min(hashRows - 1, row));
+        return row * HASH_COLUMNS + column;
+    }
+
+    /**
+     * Computes one ball's state after bouncing off the balls it touches.
+     * Equal-mass balls that approach each other exchange their velocity along the line between their centers,
+     * and each ball moves half of the overlap away; both balls of a pair compute the mirror image of the same response.
+     * In a crowd the responses of several contacts add up, so the new speed is capped at the fastest ball involved
+     * and the push at one radius, and at most {@link #MAX_CONTACTS_PER_BALL} contacts are counted.
+     * Reads the state of all balls and writes only this ball's slot of the next-state arrays.
+     */
+    private void resolveBallContacts(int id){
+        double x = balls.getX(id);
+        double y = balls.getY(id);
+        double xVelocity = balls.getXVelocity(id);
+        double yVelocity = balls.getYVelocity(id);
+        double newXVelocity = xVelocity;
+        double newYVelocity = yVelocity;
+        double pushX = 0;
+        double pushY = 0;
+        double maxSpeedSquared = xVelocity * xVelocity + yVelocity * yVelocity;
+        double minDistance = BALL_RADIUS * 2;
+        int contacts = 0;
+        int cell = hashCell(id);
+        int column = cell % HASH_COLUMNS;
+        int row = cell / HASH_COLUMNS;
+        search:
+        for(int neighbourRow = Math.max(0, row - 1); neighbourRow <= Math.min(hashRows - 1, row + 1); neighbourRow++){
+            for(int neighbourColumn = Math.max(0, column - 1); neighbourColumn <= Math.min(HASH_COLUMNS - 1, column + 1); neighbourColumn++){
+                int neighbourCell = neighbourRow * HASH_COLUMNS + neighbourColumn;
+                for(int k = hashStart[neighbourCell]; k < hashStart[neighbourCell + 1]; k++){
+                    int other = hashBalls[k];
+                    if(other == id){
+                        continue;
+                    }
+                    double deltaX = balls.getX(other) - x;
+                    double deltaY = balls.getY(other) - y;
+                    double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+                    if(distanceSquared >= minDistance * minDistance || distanceSquared < CollisionMath.EPSILON){
+                        continue;
+                    }
+                    double distance = Math.sqrt(distanceSquared);
+                    double normalX = deltaX / distance;
+                    double normalY = deltaY / distance;
+                    double otherXVelocity = balls.getXVelocity(other);
+                    double otherYVelocity = balls.getYVelocity(other);
+                    double approachSpeed = (xVelocity - otherXVelocity) * normalX + (yVelocity - otherYVelocity) * normalY;
+                    if(approachSpeed > 0){
+                        newXVelocity -= approachSpeed * normalX;
+                        newYVelocity -= approachSpeed * normalY;
+                        maxSpeedSquared = Math.max(maxSpeedSquared, otherXVelocity * otherXVelocity + otherYVelocity * otherYVelocity);
+                    }
+                    double push = (minDistance - distance) / 2;
+                    pushX -= push * normalX;
+                    pushY -= push * normalY;
+                    if(++contacts == MAX_CONTACTS_PER_BALL){
+                        break search;
+                    }
+                }
+            }
+        }
+        double speedSquared = newXVelocity * newXVelocity + newYVelocity * newYVelocity;
+        if(speedSquared > maxSpeedSquared){
+            double scale = Math.sqrt(maxSpeedSquared / speedSquared);
+            newXVelocity *= scale;
+            newYVelocity *= scale;
+        }
+        double pushSquared = pushX * pushX + pushY * pushY;
+        if(pushSquared > BALL_RADIUS * BALL_RADIUS){
+            double scale = BALL_RADIUS / Math.sqrt(pushSquared);
+            pushX *= scale;
+            pushY *= scale;
+        }
+        nextX[id] = x + pushX;
+        nextY[id] = y + pushY;
+        nextXVelocity[id] = newXVelocity;
+        nextYVelocity[id] = newYVelocity;
+    }
+
+    /** Applies the brick hits of the move phase in ball id order; a brick already broken by a lower id is skipped. */
+    private void applyBrickHits(int count){
+        BrickField bricks = lineOfBricks.getField();
+        for(int id = 0; id < count; id++){
+            for(int k = 0; k < hitCounts[id]; k++){
+                int brick = hits[id * MAX_HITS_PER_STEP + k];
+                if(!bricks.isLive(brick)){
+                    continue;
+                }
+                player.addScore();
+                renderObserver.refreshPlayerScore(player.getScore());
+                if(lineOfBricks.hitBrick(brick)){
+                    renderObserver.brickDestroy(brick);
+                }
+                else{
+                    renderObserver.brickHit(brick, bricks.getHitPoints(brick));
+                }
+            }
+        }
+    }
+
+    /** Removes the balls below the miss line; losing the last one costs a life and launches a new volley. */
+    private void removeMissedBalls(int count){
+        boolean anyMissed = false;
+        for(int id = 0; id < count; id++){
+            missed[id] = balls.getY(id) > missHeight
+                    && !isCircleIntersectsRect((int)Math.round(balls.getX(id)), (int)Math.round(balls.getY(id)),
+                            paddle.getX(), paddle.getY(), Paddle.getWidth(), Paddle.getHeight());
+            anyMissed |= missed[id];
+        }
+        if(anyMissed){
+            balls.removeMarked(missed);
+        }
+        if(balls.getCount() == 0){
+            renderObserver.removeHeartLabel(player.getLifePoints() - 1);
+            player.loseLifePoint();
+            if(player.getLifePoints() > 0){
+                launchVolley();
+            }
+        }
+    }
+
+    /**
+     * Launches {@link #volleySize} balls from the middle of the screen, spread over the width and fanned out upwards.
+     * The spread uses the golden ratio instead of random numbers, so every volley is the same.
+     */
+    private void launchVolley(){
+        for(int i = 0; i < volleySize; i++){
+            double spread = (i * GOLDEN_FRACTION) % 1.0;
+            double angle = Math.toRadians((spread * 2 - 1) * VOLLEY_MAX_ANGLE_DEG);
+            double x = ((i * GOLDEN_FRACTION * GOLDEN_FRACTION) % 1.0) * BALL_SCREEN_COLLISION_X;
+            balls.add(x, Screen.WINDOW_HEIGHT / 2.0, Math.sin(angle) * launchSpeed, -Math.cos(angle) * launchSpeed);
+        }
+    }
+
+    /** Moves the paddle by the held controls, like the single-ball game. */
+    private void updatePaddlePosition(){
+        double paddlePositionX = paddle.getPreciseX();
+        double distance = paddle.getSpeed() * stepSeconds;
+        if(movingLeft){
+            paddlePositionX -= distance;
+        }
+        if(movingRight){
+            paddlePositionX += distance;
+        }
+        paddle.setPreciseX(CollisionMath.clamp(paddlePositionX, 0, PADDLE_SCREEN_RIGHT_LIMIT));
+    }
+
+    /** Grows the per-ball and per-chunk scratch to fit the given number of balls. */
+    private void ensureCapacity(int count){
+        if(missed.length < count){
+            int capacity = Math.max(count, missed.length * 2);
+            hits = new int[capacity * MAX_HITS_PER_STEP];
+            hitCounts = new int[capacity];
+            missed = new boolean[capacity];
+            nextX = new double[capacity];
+            nextY = new double[capacity];
+            nextXVelocity = new double[capacity];
+            nextYVelocity = new double[capacity];
+            hashBalls = new int[capacity];
+        }
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if(workers.length < chunks){
+            int oldLength = workers.length;
+            workers = Arrays.copyOf(workers, chunks);
+            for(int i = oldLength; i < chunks; i++){
+                workers[i] = new Worker(profile);
+            }
+        }
+    }
+
+    private static boolean isCircleIntersectsRect(int ballX, int ballY, int rectX, int rectY, int rectWidth, int rectHeight){
+        return CollisionMath.isCircleIntersectsRect(ballX + BALL_RADIUS, ballY + (BALL_HEIGHT / 2.0), BALL_RADIUS,
+                rectX, rectY, rectWidth, rectHeight);
+    }
+}
@@ -0,0 +1,253 @@
+package Main;
+import java.nio.ByteBuffer;
+import Render.RenderObserver;
+import Render.Screen;
+import GameObjects.Brick;
+import GameObjects.BrickField;
+import GameObjects.BrickLines;
+
+/**
+ * The DescendingRows class drives the endless mode: the brick field drifts down the screen, slowly speeding up,
+ * and a new row spawns at the top whenever there is room for one.
+ * The level's bricks are a fixed pool of row slots created once; every slot owns one line of brick ids for good.
+ * A row that drifts out of the play area or is cleared frees its slot, and the next row to spawn reuses it
+ * by moving and reviving the same bricks, so neither memory nor the cost of a step grows with the number of rows
+ * that have passed. Rows are generated from a seeded random sequence, so a session can be replayed.
+ */
+public class DescendingRows {
+    /** The vertical distance between two rows, the same as between the lines of a regular level. */
+    private static final int ROW_PITCH = BrickLines.getLineY(1) - BrickLines.getLineY(0);
+    /** A row whose top drifts past this line has left the play area, leaving room above the paddle. */
+    private static final int RECYCLE_Y = Screen.WINDOW_HEIGHT - 170;
+    /** Enough slots for every row that fits between the top of the screen and {@link #RECYCLE_Y}. */
+    private static final int SLOTS = RECYCLE_Y / ROW_PITCH + 2;
+    private static final int COLUMNS = BrickLines.getBricksPerLine();
+    private static final int INITIAL_ROWS = 4;
+    /** Drift speeds in pixels per second; the top speed is reached after about a quarter of an hour. */
+    private static final double START_SPEED = 6.0;
+    private static final double MAX_SPEED = 24.0;
+    private static final double ACCELERATION = 0.02;
+    /** Rows spawned before the first two-hit bricks appear, and before they are as common as they get. */
+    private static final int EASY_ROWS = 10;
+    private static final int HARD_ROWS = 100;
+    private static final int MAX_HIT_POINTS = 3;
+    /** The size of the drift state in a snapshot: random state, speed, pending drift, rows spawned and every slot. */
+    static final int SNAPSHOT_BYTES = 8 + 8 + 8 + 8 + SLOTS * 5;
+    private final BrickLines lineOfBricks;
+    private final long seed;
+    /** The y-coordinate of each slot's row, while the slot is active. */
+    private final int[] rowY = new int[SLOTS];
+    private final boolean[] rowActive = new boolean[SLOTS];
+    private long randomState;
+    private double speed = START_SPEED;
+    /** Drift not applied yet because bricks move by whole pixels. */
+    private double pendingDrift;
+    private long rowsSpawned;
+
+    /**
+     * Replaces the bricks with the slot pool and fills the first rows.
+     * @param lineOfBricks The bricks of the level, which this object manages from now on.
+     * @param seed The seed of the generated rows; the same seed gives the same rows.
+     */
+    public DescendingRows(BrickLines lineOfBricks, long seed){
+        this.lineOfBricks = lineOfBricks;
+        this.seed = seed;
+        // xorshift needs a non-zero state.
+        randomState = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+        lineOfBricks.resetBricks(0);
+        for(int slot = 0; slot < SLOTS; slot++){
+            for(int column = 0; column < COLUMNS; column++){
+                int id = lineOfBricks.addBrick(BrickLines.getColumnX(column), 0, Brick.getWidth(), Brick.getHeight(), 1,
+                        BrickLines.STANDARD_BRICK);
+                lineOfBricks.removeBrick(id);
+            }
+        }
+        for(int row = INITIAL_ROWS - 1; row >= 0; row--){
+            spawnRow(row * ROW_PITCH, null);
+        }
+    }
+
+    /**
+     * Returns the seed the rows are generated from.
+     * @return The seed.
+     */
+    public long getSeed(){
+        return seed;
+    }
+
+    /**
+     * Advances the drift by one step: frees cleared rows, moves the active rows down by the whole pixels drifted,
+     * frees the rows that left the play area and spawns a row at the top if there is room.
+     * @param seconds The time covered by the step.
+     * @param renderObserver The observer notified of moved, removed and restored bricks.
+     */
+    public void step(double seconds, RenderObserver renderObserver){
+        speed = Math.min(MAX_SPEED, speed + ACCELERATION * seconds);
+        pendingDrift += speed * seconds;
+        int pixels = (int) pendingDrift;
+        pendingDrift -= pixels;
+        BrickField bricks = lineOfBricks.getField();
+        int topY = Integer.MAX_VALUE;
+        for(int slot = 0; slot < SLOTS; slot++){
+            if(!rowActive[slot]){
+                continue;
+            }
+            if(!hasLiveBricks(slot, bricks)){
+                rowActive[slot] = false;
+                continue;
+            }
+            if(pixels > 0){
+                rowY[slot] += pixels;
+                if(rowY[slot] > RECYCLE_Y){
+                    clearRow(slot, bricks, renderObserver);
+                    continue;
+                }
+                moveRow(slot, bricks, renderObserver);
+            }
+            topY = Math.min(topY, rowY[slot]);
+        }
+        if(topY == Integer.MAX_VALUE){
+            spawnRow(0, renderObserver);
+        }
+        else if(topY >= ROW_PITCH){
+            spawnRow(topY - ROW_PITCH, renderObserver);
+        }
+    }
+
+    /**
+     * Returns a hash of the drift state, for the world's state hash.
+     * @return The hash.
+     */
+    long stateHash(){
+        long hash = randomState;
+        hash = hash * 31 + Double.doubleToLongBits(speed);
+        hash = hash * 31 + Double.doubleToLongBits(pendingDrift);
+        for(int slot = 0; slot < SLOTS; slot++){
+            hash = hash * 31 + (rowActive[slot] ? rowY[slot] : -1);
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the drift state into a snapshot; the bricks themselves are written by the world.
+     * @param buffer The buffer to write to, with absolute puts.
+     * @param offset The position to write at.
+     * @return The position after the drift state.
+     */
+    int writeSnapshot(ByteBuffer buffer, int offset){
+        buffer.putLong(offset, randomState);
+        buffer.putDouble(offset + 8, speed);
+        buffer.putDouble(offset + 16, pendingDrift);
+        buffer.putLong(offset + 24, rowsSpawned);
+        offset += 32;
+        for(int slot = 0; slot < SLOTS; slot++){
+            buffer.putInt(offset, rowY[slot]);
+            buffer.put(offset + 4, (byte) (rowActive[slot] ? 1 : 0));
+            offset += 5;
+        }
+        return offset;
+    }
+
+    /**
+     * Restores the drift state written by {@link #writeSnapshot}.
+     * @param buffer The buffer to read from, with absolute gets.
+     * @param offset The position to read at.
+     * @return The position after the drift state.
+     */
+    int readSnapshot(ByteBuffer buffer, int offset){
+        randomState = buffer.getLong(offset);
+        speed = buffer.getDouble(offset + 8);
+        pendingDrift = buffer.getDouble(offset + 16);
+        rowsSpawned = buffer.getLong(offset + 24);
+        offset += 32;
+        for(int slot = 0; slot < SLOTS; slot++){
+            rowY[slot] = buffer.getInt(offset);
+            rowActive[slot] = buffer.get(offset + 4) != 0;
+            offset += 5;
+        }
+        return offset;
+    }
+
+    private static boolean hasLiveBricks(int slot, BrickField bricks){
+        int next = bricks.nextLive(slot * COLUMNS);
+        return next >= 0 && next < (slot + 1) * COLUMNS;
+    }
+
+    /** Moves the live bricks of a row to its current y; destroyed ones are placed when the slot is reused. */
+    private void moveRow(int slot, BrickField bricks, RenderObserver renderObserver){
+        for(int column = 0; column < COLUMNS; column++){
+            int id = slot * COLUMNS + column;
+            if(!bricks.isLive(id)){
+                continue;
+            }
+            int x = BrickLines.getColumnX(column);
+            lineOfBricks.moveBrick(id, x, rowY[slot]);
+            renderObserver.moveBrick(id, x, rowY[slot]);
+        }
+    }
+
+    /** Removes what is left of a row that drifted out of the play area and frees its slot. */
+    private void clearRow(int slot, BrickField bricks, RenderObserver renderObserver){
+        for(int column = 0; column < COLUMNS; column++){
+            int id = slot * COLUMNS + column;
+            if(bricks.isLive(id)){
+                lineOfBricks.removeBrick(id);
+                renderObserver.brickDestroy(id);
+            }
+        }
+        rowActive[slot] = false;
+    }
+
+    /**
+     * Fills a free slot with a new row. Every column has a brick three times out of four, at least one brick
+     * is placed, and multi-hit bricks get more common as more rows have spawned.
+     * @param y The y-coordinate of the row.
+     * @param renderObserver The observer notified of the restored bricks, or null while the field is being built.
+     */
+    private void spawnRow(int y, RenderObserver renderObserver){
+        int slot = 0;
+        while(slot < SLOTS && rowActive[slot]){
+            slot++;
+        }
+        if(slot == SLOTS){
+            return;
+        }
+        // Either of two random bits: each column is set with probability 3/4.
+        int pattern = ((int) nextRandom() | (int) (nextRandom() >>> 32)) & ((1 << COLUMNS) - 1);
+        if(pattern == 0){
+            pattern = 1 << (int) Long.remainderUnsigned(nextRandom(), COLUMNS);
+        }
+        // The chance of an extra hit point grows from 0 after EASY_ROWS to 1/2 at HARD_ROWS.
+        long toughness = Math.max(0, Math.min(rowsSpawned, HARD_ROWS) - EASY_ROWS);
+        rowY[slot] = y;
+        rowActive[slot] = true;
+        for(int column = 0; column < COLUMNS; column++){
+            int id = slot * COLUMNS + column;
+            int x = BrickLines.getColumnX(column);
+            lineOfBricks.moveBrick(id, x, y);
+            if(renderObserver != null){
+                renderObserver.moveBrick(id, x, y);
+            }
+            if((pattern & (1 << column)) == 0){
+                continue;
+            }
+            int hitPoints = 1;
+            while(hitPoints < MAX_HIT_POINTS && Long.remainderUnsigned(nextRandom(), 2 * (HARD_ROWS - EASY_ROWS)) < toughness){
+                hitPoints++;
+            }
+            lineOfBricks.reviveBrick(id, hitPoints);
+            if(renderObserver != null){
+                renderObserver.brickRestore(id);
+            }
+        }
+        rowsSpawned++;
+    }
+
+    /** xorshift64*: fast, allocation-free and the same on every JVM. */
+    private long nextRandom(){
+        randomState ^= randomState >>> 12;
+        randomState ^= randomState << 25;
+        randomState ^= randomState >>> 27;
+        return randomState * 0x2545F4914F6CDD1DL;
+    }
+}
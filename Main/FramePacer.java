@@ -0,0 +1,97 @@
+package Main;
+import java.awt.DisplayMode;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The FramePacer class runs frames on the event dispatch thread at the display's refresh rate.
+ * A dedicated thread paced with {@link System#nanoTime()} hands each frame to the event dispatch thread and waits
+ * for it, then parks until the next frame is due, so frames are as even as the scheduler allows, unlike a
+ * {@link javax.swing.Timer}, whose events are coalesced and delivered late whenever the event queue is busy.
+ * A frame that runs late starts the schedule over instead of being followed by a burst of catch-up frames.
+ */
+final class FramePacer implements Runnable {
+    /** The frame rate used when the display does not report its refresh rate. */
+    private static final int DEFAULT_FRAME_HZ = 60;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    /** The work of one frame. */
+    interface Frame {
+        /**
+         * Runs one frame on the event dispatch thread.
+         * @param dueNanos When the frame was due, from {@link System#nanoTime()}, to measure how late it runs.
+         * @return true to keep running, false to stop after this frame.
+         */
+        boolean run(long dueNanos);
+    }
+
+    private final Frame frame;
+    private final String threadName;
+    private final long frameNs;
+    /** When the frame being handed over was due; written by the pacing thread before each hand-over. */
+    private long dueNanos;
+    /** What the frame returned; read by the pacing thread after each hand-over. */
+    private boolean keepRunning = true;
+    private final Runnable frameTask = this::runFrame;
+
+    /**
+     * Constructs a pacer; call {@link #start()} to run the frames.
+     * @param threadName The name of the pacing thread.
+     * @param frame The frame to run at every refresh.
+     */
+    FramePacer(String threadName, Frame frame){
+        this.threadName = threadName;
+        this.frame = frame;
+        this.frameNs = NANOS_PER_SECOND / displayRefreshRate();
+    }
+
+    /** Starts the pacing thread. */
+    void start(){
+        Thread thread = new Thread(this, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** The pacing loop: hand one frame to the EDT, then sleep until the next frame is due. */
+    @Override
+    public void run(){
+        long nextFrameTime = System.nanoTime();
+        while(keepRunning){
+            dueNanos = nextFrameTime;
+            try {
+                EventQueue.invokeAndWait(frameTask);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Frame failed", e.getCause());
+            }
+
+            nextFrameTime += frameNs;
+            long sleepNs = nextFrameTime - System.nanoTime();
+            if(sleepNs > 0){
+                LockSupport.parkNanos(sleepNs);
+            }
+            else{
+                // Running behind: start the next frame now instead of trying to catch up on missed frames.
+                nextFrameTime = System.nanoTime();
+            }
+        }
+    }
+
+    /** Runs on the event dispatch thread: the frame due now. */
+    private void runFrame(){
+        keepRunning = frame.run(dueNanos);
+    }
+
+    /** Returns the refresh rate of the default screen, or {@link #DEFAULT_FRAME_HZ} if it is unknown. */
+    private static int displayRefreshRate(){
+        if(GraphicsEnvironment.isHeadless()){
+            return DEFAULT_FRAME_HZ;
+        }
+        int refreshRate = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? DEFAULT_FRAME_HZ : refreshRate;
+    }
+}
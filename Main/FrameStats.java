@@ -0,0 +1,207 @@
+package Main;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * The FrameStats class records what every frame of the {@link GameLoop} cost, so a hitch can be tied to its cause:
+ * how late the frame started, the time spent in physics and in rendering, the number of physics steps,
+ * sweep iterations and brick tests, the bytes allocated on the event dispatch thread and the GC pauses that ended
+ * during the frame.
+ * Times go into fixed-memory {@link LatencyHistogram}s for the whole session, and the last {@link #RECENT_FRAMES}
+ * frames are also kept one by one in ring buffers for the CSV export. Recording a frame never allocates.
+ * Frames are recorded on the event dispatch thread; GC pauses arrive on a JMX notification thread and are
+ * handed over through atomics. The other methods synchronize with the recording.
+ */
+public class FrameStats {
+    /** Frames kept one by one; about two minutes at 60 frames per second. */
+    private static final int RECENT_FRAMES = 8192;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCountingThreads();
+    private final long originNs = System.nanoTime();
+    private final LatencyHistogram frameTime = new LatencyHistogram();
+    private final LatencyHistogram physicsTime = new LatencyHistogram();
+    private final LatencyHistogram renderTime = new LatencyHistogram();
+    private final LatencyHistogram lateness = new LatencyHistogram();
+    private final LatencyHistogram gcPauses = new LatencyHistogram();
+    private long frames;
+    private long steps;
+    private long sweepIterations;
+    private long brickTests;
+    private long allocatedBytes;
+    // One slot per recent frame, indexed by frame number modulo RECENT_FRAMES.
+    private final long[] frameStartNs = new long[RECENT_FRAMES];
+    private final long[] frameLatenessNs = new long[RECENT_FRAMES];
+    private final long[] framePhysicsNs = new long[RECENT_FRAMES];
+    private final long[] frameRenderNs = new long[RECENT_FRAMES];
+    private final int[] frameSteps = new int[RECENT_FRAMES];
+    private final int[] frameSweepIterations = new int[RECENT_FRAMES];
+    private final int[] frameBrickTests = new int[RECENT_FRAMES];
+    private final long[] frameAllocatedBytes = new long[RECENT_FRAMES];
+    private final long[] frameGcPauseNs = new long[RECENT_FRAMES];
+    /** GC pause time that ended since the last recorded frame, added by the notification thread. */
+    private final AtomicLong pendingGcPauseNs = new AtomicLong();
+    private final AtomicInteger gcCount = new AtomicInteger();
+
+    /** Constructs empty statistics and starts listening for GC pauses. */
+    public FrameStats(){
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()){
+            if(collector instanceof NotificationEmitter){
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    if(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())){
+                        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                        recordGcPause((long)(info.getGcInfo().getDuration() * NANOS_PER_MILLI));
+                    }
+                }, null, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the calling thread, for measuring a frame's allocations.
+     * @return The allocated bytes, or 0 if the JVM cannot count them.
+     */
+    public static long currentThreadAllocatedBytes(){
+        return THREADS == null ? 0 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records one frame of the game loop.
+     * @param startNs When the frame started running, from {@link System#nanoTime()}.
+     * @param latenessNs How long after its scheduled time the frame started.
+     * @param physicsNs The time spent in the frame's physics steps.
+     * @param renderNs The time spent rendering and presenting the frame.
+     * @param steps The number of physics steps taken.
+     * @param sweepIterations The number of swept-collision iterations in those steps.
+     * @param brickTests The number of bricks tested for a contact in those steps.
+     * @param allocated The bytes allocated by the frame.
+     */
+    public synchronized void recordFrame(long startNs, long latenessNs, long physicsNs, long renderNs,
+            int steps, int sweepIterations, int brickTests, long allocated){
+        long gcPauseNs = pendingGcPauseNs.getAndSet(0);
+        frameTime.record(physicsNs + renderNs);
+        physicsTime.record(physicsNs);
+        renderTime.record(renderNs);
+        lateness.record(latenessNs);
+        this.steps += steps;
+        this.sweepIterations += sweepIterations;
+        this.brickTests += brickTests;
+        this.allocatedBytes += allocated;
+        int slot = (int)(frames % RECENT_FRAMES);
+        frameStartNs[slot] = startNs - originNs;
+        frameLatenessNs[slot] = latenessNs;
+        framePhysicsNs[slot] = physicsNs;
+        frameRenderNs[slot] = renderNs;
+        frameSteps[slot] = steps;
+        frameSweepIterations[slot] = sweepIterations;
+        frameBrickTests[slot] = brickTests;
+        frameAllocatedBytes[slot] = allocated;
+        frameGcPauseNs[slot] = gcPauseNs;
+        frames++;
+    }
+
+    private void recordGcPause(long pauseNs){
+        pendingGcPauseNs.addAndGet(pauseNs);
+        gcCount.incrementAndGet();
+        synchronized(this){
+            gcPauses.record(pauseNs);
+        }
+    }
+
+    /**
+     * Returns a short summary for the in-game overlay.
+     * @return One line per kind of measurement.
+     */
+    public synchronized String[] overlayLines(){
+        long perFrame = Math.max(1, frames);
+        return new String[] {
+            summary("frame", frameTime),
+            summary("physics", physicsTime),
+            summary("render", renderTime),
+            summary("late", lateness),
+            String.format("steps %.2f  sweeps %.1f  brick tests %.1f per frame",
+                    (double) steps / perFrame, (double) sweepIterations / perFrame, (double) brickTests / perFrame),
+            String.format("alloc %.1f KB/frame  gc %d pauses, max %.1f ms",
+                    allocatedBytes / 1024.0 / perFrame, gcCount.get(), gcPauses.getMax() / NANOS_PER_MILLI)
+        };
+    }
+
+    private static String summary(String name, LatencyHistogram histogram){
+        return String.format("%-8s p50 %6.2f  p99 %6.2f  max %6.2f ms", name,
+                histogram.valueAtPercentile(50) / NANOS_PER_MILLI, histogram.valueAtPercentile(99) / NANOS_PER_MILLI,
+                histogram.getMax() / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Writes the recent frames as CSV, one row per frame, oldest first.
+     * @param path The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void writeCsv(Path path) throws IOException{
+        try (BufferedWriter writer = Files.newBufferedWriter(path); PrintWriter out = new PrintWriter(writer)) {
+            out.println("frame,start_ms,lateness_us,physics_us,render_us,steps,sweep_iterations,brick_tests,allocated_bytes,gc_pause_us");
+            for(long frame = Math.max(0, frames - RECENT_FRAMES); frame < frames; frame++){
+                int slot = (int)(frame % RECENT_FRAMES);
+                out.printf("%d,%.3f,%.1f,%.1f,%.1f,%d,%d,%d,%d,%.1f%n", frame, frameStartNs[slot] / NANOS_PER_MILLI,
+                        frameLatenessNs[slot] / 1000.0, framePhysicsNs[slot] / 1000.0, frameRenderNs[slot] / 1000.0,
+                        frameSteps[slot], frameSweepIterations[slot], frameBrickTests[slot], frameAllocatedBytes[slot],
+                        frameGcPauseNs[slot] / 1000.0);
+            }
+        }
+    }
+
+    /**
+     * Writes the percentile distribution of every histogram, in milliseconds, in HdrHistogram's text format.
+     * @param path The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public synchronized void writeHistograms(Path path) throws IOException{
+        try (PrintStream out = new PrintStream(Files.newOutputStream(path), false, "UTF-8")) {
+            writeHistogram(out, "frame time (physics + render)", frameTime);
+            writeHistogram(out, "physics time", physicsTime);
+            writeHistogram(out, "render time", renderTime);
+            writeHistogram(out, "frame lateness", lateness);
+            writeHistogram(out, "gc pauses", gcPauses);
+        }
+    }
+
+    private static void writeHistogram(PrintStream out, String name, LatencyHistogram histogram){
+        out.printf("# %s, ms%n", name);
+        histogram.writePercentileDistribution(out, NANOS_PER_MILLI);
+        out.println();
+    }
+
+    /**
+     * Prints the session summary.
+     * @param out The stream to print to.
+     */
+    public synchronized void print(PrintStream out){
+        out.printf("%d frames%n", frames);
+        for(String line : overlayLines()){
+            out.println(line);
+        }
+    }
+
+    /** Returns the thread bean if it can count allocated bytes, enabling the count if needed; null otherwise. */
+    private static com.sun.management.ThreadMXBean allocationCountingThreads(){
+        if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)){
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if(!threads.isThreadAllocatedMemorySupported()){
+            return null;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,122 @@
+package Main;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The GameBatch class plays a numbered range of independent, bot-driven games on a fork-join pool, for the
+ * {@link BatchRunner} and the {@link PhysicsSweep}. The range is split in halves until it is small, and every leaf
+ * plays its games one after the other with its own histogram, so the games never contend.
+ * Each game is driven by an {@link AutopilotController} seeded by the caller, so the same numbers play the same games.
+ */
+final class GameBatch {
+    /** Leaves per pool thread, so a thread whose games end early can steal work from the others. */
+    private static final int LEAVES_PER_THREAD = 8;
+
+    /** Plays one game of a batch and stores its results. */
+    interface Game {
+        /**
+         * Plays a game; called once per game number, from any thread of the pool.
+         * @param index The number of the game.
+         * @param steps A histogram for the game's step times, empty on entry.
+         */
+        void play(int index, LatencyHistogram steps);
+    }
+
+    /** Decides after every step whether a game should end early. */
+    interface StopCondition {
+        /**
+         * Checks the game after a step.
+         * @param world The game.
+         * @param tick The number of steps played so far.
+         * @return true to end the game now.
+         */
+        boolean shouldStop(GameWorld world, long tick);
+    }
+
+    private GameBatch(){
+    }
+
+    /**
+     * Returns the games per leaf task that spread a batch evenly over a pool.
+     * @param games The number of games of the batch.
+     * @param threads The parallelism of the pool.
+     * @return The games per leaf, at least 1.
+     */
+    static int gamesPerLeaf(int games, int threads){
+        return Math.max(1, games / (threads * LEAVES_PER_THREAD));
+    }
+
+    /**
+     * Plays the games from {@code from} to {@code to - 1} on a pool and waits for them.
+     * @param pool The pool to play on.
+     * @param from The number of the first game.
+     * @param to The number after the last game.
+     * @param gamesPerLeaf The most games a task plays without splitting.
+     * @param game Plays one game.
+     * @return The step times of every game, merged.
+     */
+    static LatencyHistogram play(ForkJoinPool pool, int from, int to, int gamesPerLeaf, Game game){
+        return pool.invoke(new GameRange(from, to, gamesPerLeaf, game));
+    }
+
+    /**
+     * Plays a game with a seeded bot until it is over or has run for the given number of steps.
+     * @param world The game to play.
+     * @param seed The seed of the bot.
+     * @param maxTicks The steps after which the game is cut short.
+     * @param steps The histogram every step's time is recorded in.
+     * @param stop Checked after every step; the game ends early when it returns true.
+     * @return The number of steps played.
+     */
+    static long playGame(GameWorld world, long seed, long maxTicks, LatencyHistogram steps, StopCondition stop){
+        AutopilotController bot = new AutopilotController(seed);
+        long tick = 0;
+        while(!world.isGameOver() && tick < maxTicks){
+            world.setInputMask(bot.nextInput(world));
+            long start = System.nanoTime();
+            world.step();
+            steps.record(System.nanoTime() - start);
+            tick++;
+            if(stop.shouldStop(world, tick)){
+                break;
+            }
+        }
+        return tick;
+    }
+
+    /** Plays a range of games, splitting it in halves until it is small, and returns their merged step times. */
+    private static final class GameRange extends RecursiveTask<LatencyHistogram> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int gamesPerLeaf;
+        private final transient Game game;
+
+        GameRange(int from, int to, int gamesPerLeaf, Game game){
+            this.from = from;
+            this.to = to;
+            this.gamesPerLeaf = gamesPerLeaf;
+            this.game = game;
+        }
+
+        @Override
+        protected LatencyHistogram compute(){
+            if(to - from > gamesPerLeaf){
+                int middle = (from + to) >>> 1;
+                GameRange left = new GameRange(from, middle, gamesPerLeaf, game);
+                left.fork();
+                LatencyHistogram steps = new GameRange(middle, to, gamesPerLeaf, game).compute();
+                steps.add(left.join());
+                return steps;
+            }
+            LatencyHistogram steps = new LatencyHistogram();
+            LatencyHistogram gameSteps = new LatencyHistogram();
+            for(int index = from; index < to; index++){
+                gameSteps.reset();
+                game.play(index, gameSteps);
+                steps.add(gameSteps);
+            }
+            return steps;
+        }
+    }
+}
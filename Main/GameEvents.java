@@ -0,0 +1,140 @@
+package Main;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of the game's hot paths, shown under "Brick Breaker" in JDK Mission Control next to
+ * the JVM's own GC, JIT and thread events.
+ * When no recording is running, an event's {@code begin()}, {@code commit()} and {@code shouldCommit()} do nothing and
+ * the JIT removes the unused event object, so the events cost nothing in normal play. Events on rarely taken paths
+ * may still run interpreted, where the object would be allocated, so those are only created if {@link #isRecording()}.
+ * Events that fire for every step or frame are recorded without stack traces to keep recordings small.
+ * Fields are package-private except those set from the {@code Render} package.
+ * A recording with every event enabled is started with the {@code --profile} launch option.
+ */
+public final class GameEvents {
+    private static final String CATEGORY = "Brick Breaker";
+
+    private GameEvents(){
+    }
+
+    /**
+     * Returns whether a flight recording may be running, for skipping events on rarely taken paths.
+     * Unlike looking up an event type, this does not start the flight recorder's machinery.
+     * @return false if the flight recorder was never started in this JVM.
+     */
+    static boolean isRecording(){
+        return FlightRecorder.isInitialized();
+    }
+
+    /** One frame of the game loop on the event dispatch thread: its physics steps and its render. */
+    @Name("brickbreaker.Tick")
+    @Label("Tick")
+    @Category({CATEGORY, "Game Loop"})
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Physics Steps")
+        int steps;
+
+        @Label("Lateness")
+        @Description("How long after its scheduled time the frame started, in nanoseconds")
+        long latenessNanos;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+
+    /** One fixed physics step of the game world. */
+    @Name("brickbreaker.PhysicsStep")
+    @Label("Physics Step")
+    @Category({CATEGORY, "Game Loop"})
+    @StackTrace(false)
+    public static final class PhysicsStep extends Event {
+        @Label("Sweep Iterations")
+        int sweepIterations;
+
+        @Label("Brick Tests")
+        int brickTests;
+    }
+
+    /** The ball hit a brick. */
+    @Name("brickbreaker.BrickCollision")
+    @Label("Brick Collision")
+    @Category({CATEGORY, "Physics"})
+    @StackTrace(false)
+    public static final class BrickCollision extends Event {
+        @Label("Brick Id")
+        int brickId;
+
+        @Label("Destroyed")
+        boolean destroyed;
+    }
+
+    /** A destroyed brick was removed from the screen; its duration is the cost of redrawing the brick layer. */
+    @Name("brickbreaker.BrickDestroy")
+    @Label("Brick Destroy")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    public static final class BrickDestroy extends Event {
+        @Label("Brick Id")
+        public int brickId;
+    }
+
+    /** The player missed the ball. */
+    @Name("brickbreaker.LifeLost")
+    @Label("Life Lost")
+    @Category({CATEGORY, "Game"})
+    @StackTrace(false)
+    public static final class LifeLost extends Event {
+        @Label("Lives Left")
+        int livesLeft;
+
+        @Label("Score")
+        int score;
+    }
+
+    /** A level ended; its duration is the time spent setting up what comes next. */
+    @Name("brickbreaker.LevelTransition")
+    @Label("Level Transition")
+    @Category({CATEGORY, "Game"})
+    public static final class LevelTransition extends Event {
+        @Label("Level")
+        int level;
+
+        @Label("Outcome")
+        @Description("next level, won or game over")
+        String outcome;
+    }
+
+    /** A sound effect was requested from the mixer. */
+    @Name("brickbreaker.SoundPlay")
+    @Label("Sound Play")
+    @Category({CATEGORY, "Audio"})
+    @StackTrace(false)
+    public static final class SoundPlay extends Event {
+        @Label("Sound")
+        String sound;
+
+        @Label("Queued")
+        @Description("False if the request was dropped because the mixer queue was full or there is no audio device")
+        boolean queued;
+    }
+
+    /** One frame drawn and presented by the screen. */
+    @Name("brickbreaker.Repaint")
+    @Label("Repaint")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    public static final class Repaint extends Event {
+        @Label("Redraws")
+        @Description("Times the frame was drawn because the back buffer was restored or lost")
+        public int redraws;
+    }
+}
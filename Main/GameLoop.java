@@ -0,0 +1,93 @@
+package Main;
+
+/**
+ * The GameLoop class drives a {@link Gameplay} from a {@link FramePacer}, paced with {@link System#nanoTime()}.
+ * Physics advances in fixed steps taken from a time accumulator, so the simulation speed does not depend
+ * on how often frames are drawn; each frame is then rendered between the last two physics states.
+ * The steps and the render of a frame run together on the event dispatch thread, so the game state
+ * is only ever touched from one thread. Each frame's timings and work are recorded in a {@link FrameStats}
+ * and, while a flight recording is running, as a {@link GameEvents.Tick}.
+ */
+public class GameLoop {
+    /** The physics rate used when none is configured. */
+    public static final int DEFAULT_PHYSICS_HZ = 120;
+    /** Elapsed time per frame is capped, so a long stall (e.g. a dragged window) does not trigger a burst of catch-up steps. */
+    private static final long MAX_FRAME_TIME_NS = 250_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private final Gameplay gameplay;
+    private final FrameStats frameStats;
+    private final long stepNs;
+    private final FramePacer pacer;
+    private volatile boolean running;
+    /** Simulated time not yet consumed by a physics step. Only used on the event dispatch thread. */
+    private long accumulatorNs;
+    /** When the previous frame started. */
+    private long previousTime;
+
+    /**
+     * Constructs a loop for the given gameplay.
+     * @param gameplay The gameplay to step and render.
+     * @param physicsHz The number of physics steps per second, e.g. 60, 120 or 240.
+     * @param frameStats The statistics every frame is recorded in.
+     */
+    public GameLoop(Gameplay gameplay, int physicsHz, FrameStats frameStats){
+        this.gameplay = gameplay;
+        this.frameStats = frameStats;
+        this.stepNs = NANOS_PER_SECOND / physicsHz;
+        this.pacer = new FramePacer("game-loop", this::runFrame);
+    }
+
+    /** Starts the loop on its own thread. */
+    public void start(){
+        running = true;
+        previousTime = System.nanoTime();
+        pacer.start();
+    }
+
+    /** Stops the loop; the frame in progress, if any, is finished first. */
+    public void stop(){
+        running = false;
+    }
+
+    /**
+     * Runs on the event dispatch thread: accumulates the elapsed time, takes the physics steps it holds,
+     * then renders one frame interpolated between the last two states.
+     * @param frameTime When the frame was due.
+     * @return Whether the loop is still running.
+     */
+    private boolean runFrame(long frameTime){
+        if(!running){
+            return false;
+        }
+        GameEvents.Tick tick = new GameEvents.Tick();
+        tick.begin();
+        long startNs = System.nanoTime();
+        accumulatorNs += Math.min(startNs - previousTime, MAX_FRAME_TIME_NS);
+        previousTime = startNs;
+        int pendingSteps = (int)(accumulatorNs / stepNs);
+        accumulatorNs -= pendingSteps * stepNs;
+        long startAllocated = FrameStats.currentThreadAllocatedBytes();
+        int startSweepIterations = gameplay.getSweepIterations();
+        int startBrickTests = gameplay.getBrickTests();
+        int steps = 0;
+        for(; steps < pendingSteps && running; steps++){
+            gameplay.update();
+        }
+        long physicsEndNs = System.nanoTime();
+        if(running){
+            gameplay.render(accumulatorNs / (double) stepNs);
+        }
+        long endNs = System.nanoTime();
+        long allocated = FrameStats.currentThreadAllocatedBytes() - startAllocated;
+        frameStats.recordFrame(startNs, startNs - frameTime, physicsEndNs - startNs, endNs - physicsEndNs, steps,
+                gameplay.getSweepIterations() - startSweepIterations, gameplay.getBrickTests() - startBrickTests, allocated);
+        tick.end();
+        if(tick.shouldCommit()){
+            tick.steps = steps;
+            tick.latenessNanos = startNs - frameTime;
+            tick.allocatedBytes = allocated;
+            tick.commit();
+        }
+        return running;
+    }
+}
@@ -2,12 +2,18 @@ package Main;
 import Render.*;
 import GameObjects.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.io.IOException;
-import javax.sound.sampled.LineUnavailableException;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
 import javax.sound.sampled.UnsupportedAudioFileException;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 /**
  * The GameManager class is the central component of the game.
  * It is responsible for initializing the game objects, managing the game state,
@@ -25,45 +31,230 @@ public class GameManager implements KeyListener{
     private Ball ball;
     private Player player;
     private BrickLines lineOfBricks;
+    /** The levels of the game, decoded one at a time as they start. */
+    private LevelPack levelPack;
+    /** Whether the game is played as one endless level, set with the --endless launch option. */
+    private boolean endless;
+    /** Whether the game plays itself and restarts on its own, set with the --autopilot launch option. */
+    private boolean autopilot;
+    /** The drifting rows of the endless game in progress, or null. */
+    private DescendingRows descendingRows;
     private Gameplay gameplay;
+    /** Loads the images and sounds in the background while the window is built. */
+    private AssetPreloader preloader;
+    private StartupReport startupReport;
+    /** Records every level's input when the game is launched with --record, otherwise null. */
+    private InputRecorder recorder;
+    /** The timings of every frame of the session, shown with F3 and exported with --frame-stats. */
+    private final FrameStats frameStats = new FrameStats();
     /** The number of lives the player has before the game is over. */
     private int life_points = 3;
     /** The points awarded for breaking a single brick. */
     private int score_points = 100;
     private int currentLevel = 1;
+    /** The number of physics steps per second, set with the --physics-hz launch option. */
+    private int physicsHz = GameLoop.DEFAULT_PHYSICS_HZ;
     /** Tracks if a key has been pressed to start the game from the menu. */
     private boolean key_pressed;
     /** Tracks if the game is waiting for a restart key after game over. */
     private boolean waitingForRestart;
+    /** Whether the constructor set the game up; false after an error window was shown instead. */
+    private boolean ready;
+    /** The file the --profile launch option writes the flight recording to when no file is given. */
+    private static final String DEFAULT_PROFILE_PATH = "brick-breaker.jfr";
+    /** How long the end screen is shown before the autopilot starts a new game, in milliseconds. */
+    private static final int AUTOPILOT_RESTART_DELAY_MS = 2000;
     /**
      * Constructs a GameManager, initializing all game components.
-     * It performs a pre-launch check for necessary asset files and exits if any are missing.
+     * It starts loading the assets in the background, then performs a pre-launch check for necessary
+     * asset files and the level pack. If anything is missing or damaged, an error window is shown and the manager
+     * is left unusable, which {@link #isReady()} reports.
      * It sets up the screen, game objects (paddle, ball, player), and calculates brick layout.
+     * @param physicsHz The number of physics steps per second.
+     * @param startupReport The report the startup phases are recorded in.
+     * @param levelPackPath The level pack to play.
      */
-    public GameManager(){
+    public GameManager(int physicsHz, StartupReport startupReport, Path levelPackPath){
+        this.physicsHz = physicsHz;
+        this.startupReport = startupReport;
+        preloader = new AssetPreloader(startupReport);
         // Checks for the existence of all required game assets. If any are missing,
         // an error window is shown, and the constructor returns early.
-        if(CheckPath()){
+        long phaseStart = startupReport.begin();
+        boolean missingAsset = CheckPath();
+        startupReport.record("asset check", phaseStart);
+        if(missingAsset){
+            return;
+        }
+        phaseStart = startupReport.begin();
+        try {
+            levelPack = LevelPack.open(levelPackPath);
+        } catch (IOException e) {
+            new ErrorWindow("The level pack is missing or damaged: " + e.getMessage());
+            return;
+        }
+        startupReport.record("level pack", phaseStart);
+        if(levelPack.getLevelCount() == 0){
+            new ErrorWindow("The level pack has no levels.");
             return;
         }
         // Initialize core game components.
+        phaseStart = startupReport.begin();
         screen = new Screen();
+        startupReport.record("window", phaseStart);
         paddle = new Paddle(PADDLE_DEFAULT_X, PADDLE_DEFAULT_Y);
         ball = new Ball(Ball_DEFAULT_X, BALL_DEFAULT_Y);
         player = new Player(life_points, score_points);
-        lineOfBricks = new BrickLines(currentLevel);
+        lineOfBricks = new BrickLines(levelPack, currentLevel - 1);
         screen.addKeyListener(this);
         key_pressed = false;
         waitingForRestart = false;
+        ready = true;
+    }
+
+    /**
+     * Returns whether the game was set up; if not, an error window is already shown and the game must not start.
+     * @return true if the manager can show the menu and play.
+     */
+    public boolean isReady(){
+        return ready;
     }
 
     /**
      * The main entry point of the application.
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments: {@code --physics-hz=<rate>} sets the physics rate (60, 120 or 240 are typical),
+     * {@code --levels=<file>} plays the levels of another level pack,
+     * {@code --endless} plays one endless level of drifting, respawning rows instead of the level pack,
+     * {@code --autopilot} lets the {@link AutopilotController} play, starting and restarting games without a key press,
+     * {@code --asset-report} prints the decode time and memory of every image when the game exits,
+     * {@code --record=<file>} records the session's input for {@link InputReplayer},
+     * {@code --frame-stats=<file>} writes the timings of the last frames as CSV to the file, and their histograms
+     * to the file with {@code .hgrm} appended, when the game exits,
+     * {@code --profile[=<file>]} records the session with JDK Flight Recorder, including the {@link GameEvents},
+     * and writes the recording to the file ({@value #DEFAULT_PROFILE_PATH} by default) when the game exits.
      */
     public static void main(String[] args) {
-        GameManager gameManager = new GameManager();
+        int physicsHz = GameLoop.DEFAULT_PHYSICS_HZ;
+        boolean assetReport = false;
+        String recordPath = null;
+        String frameStatsPath = null;
+        String profilePath = null;
+        String levelPackPath = AssetPaths.LEVEL_PACK_PATH;
+        boolean endless = false;
+        boolean autopilot = false;
+        for(String arg : args){
+            if(arg.startsWith("--physics-hz=")){
+                physicsHz = Integer.parseInt(arg.substring("--physics-hz=".length()));
+            }
+            else if(arg.startsWith("--levels=")){
+                levelPackPath = arg.substring("--levels=".length());
+            }
+            else if(arg.equals("--endless")){
+                endless = true;
+            }
+            else if(arg.equals("--autopilot")){
+                autopilot = true;
+            }
+            else if(arg.equals("--asset-report")){
+                assetReport = true;
+            }
+            else if(arg.startsWith("--record=")){
+                recordPath = arg.substring("--record=".length());
+            }
+            else if(arg.startsWith("--frame-stats=")){
+                frameStatsPath = arg.substring("--frame-stats=".length());
+            }
+            else if(arg.equals("--profile")){
+                profilePath = DEFAULT_PROFILE_PATH;
+            }
+            else if(arg.startsWith("--profile=")){
+                profilePath = arg.substring("--profile=".length());
+            }
+        }
+        if(physicsHz <= 0){
+            throw new IllegalArgumentException("--physics-hz must be positive");
+        }
+        if(profilePath != null){
+            // Started first, so the recording also covers loading.
+            startProfiling(Paths.get(profilePath));
+        }
+        StartupReport startupReport = new StartupReport();
+        GameManager gameManager = new GameManager(physicsHz, startupReport, Paths.get(levelPackPath));
+        if(!gameManager.isReady()){
+            // The error window is up; closing it exits.
+            return;
+        }
+        gameManager.endless = endless;
+        gameManager.autopilot = autopilot;
+        if(recordPath != null){
+            InputRecorder recorder = new InputRecorder(Paths.get(recordPath), physicsHz);
+            gameManager.recorder = recorder;
+            // Save the level being played when the window is closed.
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+        }
+        if(frameStatsPath != null){
+            Runtime.getRuntime().addShutdownHook(new Thread(exportFrameStats(gameManager.frameStats, Paths.get(frameStatsPath))));
+        }
+        if(assetReport){
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> SpriteCache.printReport(System.out)));
+        }
         gameManager.menu_screen();
+        startupReport.milestone("time to menu");
+        gameManager.finishLoading();
+        startupReport.print(System.out);
+        if(autopilot){
+            SwingUtilities.invokeLater(gameManager::startFromMenu);
+        }
+    }
+
+    /**
+     * Returns the task that prints the frame statistics and writes them to files when the game exits.
+     * @param frameStats The statistics of the session.
+     * @param csvPath The CSV file; the histograms go to the same path with {@code .hgrm} appended.
+     * @return The export task.
+     */
+    private static Runnable exportFrameStats(FrameStats frameStats, Path csvPath){
+        return () -> {
+            frameStats.print(System.out);
+            try {
+                frameStats.writeCsv(csvPath);
+                frameStats.writeHistograms(Paths.get(csvPath + ".hgrm"));
+            } catch (IOException e) {
+                System.err.println("Could not write the frame statistics to " + csvPath + ": " + e.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Starts a flight recording with the JDK's "profile" settings and every game event enabled,
+     * and writes it to a file when the game exits. If the recording cannot be started the game runs without it.
+     * @param path The file the recording is written to.
+     */
+    private static void startProfiling(Path path){
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            System.err.println("Could not start the flight recording: " + e.getMessage());
+            return;
+        }
+        recording.setName("brick-breaker");
+        for(Class<?> event : GameEvents.class.getDeclaredClasses()){
+            if(Event.class.isAssignableFrom(event)){
+                recording.enable(event.asSubclass(Event.class));
+            }
+        }
+        recording.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                recording.dump(path);
+                System.out.println("Flight recording written to " + path);
+            } catch (IOException e) {
+                System.err.println("Could not write the flight recording to " + path + ": " + e.getMessage());
+            } finally {
+                recording.close();
+            }
+        }));
     }
 
     /**
@@ -72,9 +263,38 @@ public class GameManager implements KeyListener{
     public void menu_screen(){
         key_pressed = false;
         waitingForRestart = false;
+        preloader.awaitMenuImages();
         screen.menuScreen();
     }
 
+    /**
+     * Waits for the assets still loading after the menu is shown, until their total load time is recorded.
+     * If the sounds could not be loaded, an error window is shown.
+     */
+    private void finishLoading(){
+        preloader.awaitGameImages();
+        soundEffect();
+        preloader.awaitAllAssets();
+    }
+
+    /**
+     * Returns the sound effects, waiting for them to finish loading if needed.
+     * @return The sound effects, or null if they could not be loaded.
+     */
+    private synchronized SoundEffect soundEffect(){
+        if(sound_effect != null){
+            return sound_effect;
+        }
+        try {
+            sound_effect = preloader.awaitSoundEffect();
+        } catch (UnsupportedAudioFileException e) {
+            new ErrorWindow("One or more audio files are in an unsupported format.");
+        } catch (IOException e) {
+            new ErrorWindow("An audio file is missing or cannot be read from the assets folder.");
+        }
+        return sound_effect;
+    }
+
     /**
      * Starts the main gameplay loop. This method is called once the player
      * initiates the game from the menu. It sets up the game level by creating bricks,
@@ -88,6 +308,9 @@ public class GameManager implements KeyListener{
             gameplay = null;
         }
         screen.removeKeyListener(this); // Remove this listener to pass control to Gameplay's listener.
+        if(endless && descendingRows == null){
+            descendingRows = new DescendingRows(lineOfBricks, System.nanoTime());
+        }
         // Render all game objects on the screen.
         screen.addPaddleLabel(Paddle.getIcon(), paddle.getX(), paddle.getY(), Paddle.getWidth(), Paddle.getHeight());
         screen.addBallLabel(Ball.getIcon(), ball.getX(), ball.getY(), Ball.getWidth(), Ball.getHeight());
@@ -95,43 +318,95 @@ public class GameManager implements KeyListener{
         screen.addBricksLabels(lineOfBricks);
         screen.addPlayerScore(player.getScore());
         // Initialize and run the core gameplay logic.
-        gameplay = new Gameplay(player, screen, sound_effect, ball, paddle, lineOfBricks);
+        gameplay = new Gameplay(player, screen, soundEffect(), ball, paddle, lineOfBricks, physicsHz, currentLevel, frameStats);
+        if(descendingRows != null){
+            gameplay.setDescendingRows(descendingRows);
+        }
+        if(autopilot){
+            gameplay.setPaddleController(new AutopilotController());
+        }
+        if(recorder != null){
+            gameplay.setRecorder(recorder);
+        }
         // Set up a listener to handle game-end conditions (win or lose).
         gameplay.setGameEndListener(() -> {
+        GameEvents.LevelTransition transition = new GameEvents.LevelTransition();
+        transition.begin();
+        int endedLevel = currentLevel;
+        String outcome;
         screen.removeKeyListener(gameplay);
         if (player.getLifePoints() == 0) {
+            outcome = "game over";
             screen.clearScreen();
             screen.gameOverScreen();
             waitingForRestart = true;
             key_pressed = false;
             screen.addKeyListener(this);
+            restartAutopilot();
         } else {
             currentLevel++;
-            if(currentLevel <= 4){
+            if(currentLevel <= levelPack.getLevelCount()){
+                outcome = "next level";
                 screen.clearScreen();
                 ball.resetPosition();
-                lineOfBricks.resetBricks(currentLevel);
+                lineOfBricks.resetBricks(levelPack, currentLevel - 1);
                 screen.addBricksLabels(lineOfBricks);
                 start();
             }
             else{
+                outcome = "won";
                 screen.clearScreen();
                 screen.winingScreen();
                 waitingForRestart = true;
                 key_pressed = false;
                 screen.addKeyListener(this);
+                restartAutopilot();
             }
         }
+        transition.end();
+        if(transition.shouldCommit()){
+            transition.level = endedLevel;
+            transition.outcome = outcome;
+            transition.commit();
+        }
         });
         gameplay.run();
     }
 
+    /**
+     * With the autopilot on, starts a new game once the end screen has been shown for a moment,
+     * unless a key restarted it first.
+     */
+    private void restartAutopilot(){
+        if(!autopilot){
+            return;
+        }
+        Timer timer = new Timer(AUTOPILOT_RESTART_DELAY_MS, e -> {
+            if(waitingForRestart){
+                waitingForRestart = false;
+                resetGameState();
+                start();
+            }
+        });
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    /** Starts the game from the menu as the first key press would, unless a key already started it. */
+    private void startFromMenu(){
+        if(!key_pressed){
+            key_pressed = true;
+            start();
+        }
+    }
+
     private void resetGameState(){
         currentLevel = 1;
         player = new Player(life_points, score_points);
         paddle = new Paddle(PADDLE_DEFAULT_X, PADDLE_DEFAULT_Y);
         ball = new Ball(Ball_DEFAULT_X, BALL_DEFAULT_Y);
-        lineOfBricks = new BrickLines(currentLevel);
+        lineOfBricks = new BrickLines(levelPack, currentLevel - 1);
+        descendingRows = null;
     }
     /**
      * Invoked when a key has been pressed. Used here to detect the first key press
@@ -146,10 +421,7 @@ public class GameManager implements KeyListener{
             start();
             return;
         }
-        if(!key_pressed){
-            key_pressed = true;
-            start();
-        }
+        startFromMenu();
     }
 
     /**
@@ -171,7 +443,7 @@ public class GameManager implements KeyListener{
     }
 
     /**
-     * Verifies the existence of all required asset files (images and sounds).
+     * Verifies the existence of all required image files.
      * If a file is not found, it displays an error window.
      * @return true if an error occurred (e.g., a file is missing), false otherwise.
      */
@@ -193,19 +465,7 @@ public class GameManager implements KeyListener{
             new ErrorWindow("The heart PNG file is missing from the assets folder.");
             return true;
         }
-        // Check for sound assets.
-        try {
-            sound_effect = new SoundEffect();
-        } catch (LineUnavailableException e) {
-            new ErrorWindow("Audio line is unavailable. The sound device may be in use.");
-            return true;
-        } catch (UnsupportedAudioFileException e) {
-            new ErrorWindow("One or more audio files are in an unsupported format.");
-            return true;
-        } catch (IOException e) {
-            new ErrorWindow("An audio file is missing or cannot be read from the assets folder.");
-            return true;
-        }
+        // The sound assets are opened by the preloader; a failure is reported once it finishes.
         return false;
     }
 }
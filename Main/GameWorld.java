@@ -0,0 +1,559 @@
+package Main;
+import java.nio.ByteBuffer;
+import Render.RenderObserver;
+import Render.Screen;
+import GameObjects.Paddle;
+import GameObjects.Ball;
+import GameObjects.BrickField;
+import GameObjects.BrickLines;
+import GameObjects.CollisionMath;
+
+/**
+ * The GameWorld class holds the rules of the game: paddle movement, ball movement,
+ * collisions with walls, paddle and bricks, scoring and life loss.
+ * It knows nothing about Swing; every visible change is reported to a {@link RenderObserver},
+ * so the world can be stepped headlessly as fast as the CPU allows.
+ * The collision hot paths are package-private so the JMH benchmarks in this package can drive them directly.
+ * Every speed is expressed in pixels per second and each {@link #step()} advances the world by a fixed
+ * time step, so the game runs at the same speed whatever the physics rate.
+ * The tuning constants of the physics come from a {@link PhysicsProfile}.
+ */
+public class GameWorld {
+    /** Input bit set while the paddle should move left. */
+    public static final int INPUT_LEFT = 1;
+    /** Input bit set while the paddle should move right. */
+    public static final int INPUT_RIGHT = 2;
+    /** Input bit set while the launch control is held. */
+    public static final int INPUT_SPACE = 4;
+    /** The leftmost limit for the paddle's movement. */
+    private final int PADDLE_SCREEN_LEFT_LIMIT = 0;
+    /** The rightmost limit for the paddle's movement. */
+    private final int PADDLE_SCREEN_RIGHT_LIMIT = Screen.WINDOW_WIDTH - Paddle.getWidth();
+    /** The fixed part of a snapshot: ball position and velocity, paddle x, score, lives, flags and brick count. */
+    private static final int SNAPSHOT_HEADER_BYTES = 5 * 8 + 4 + 4 + 1 + 4;
+    private static final int SNAPSHOT_WAITING = 1;
+    private static final int SNAPSHOT_ENDLESS = 2;
+    /** Miss threshold is below the visible game area, by the profile's forgiveness, to allow late edge saves. */
+    private final int MISS_HEIGHT;
+    private final PhysicsProfile profile;
+    private Player player;
+    private RenderObserver renderObserver;
+    private SoundEffect soundEffect;
+    private Paddle paddle;
+    private Ball ball;
+    private BrickLines lineOfBricks;
+    /** Moves and respawns the bricks in endless mode, or null for a regular level. */
+    private DescendingRows descendingRows;
+    /** Tracks if the paddle should be moving left. */
+    private boolean movingLeft = false;
+    /** Tracks if the paddle should be moving right. */
+    private boolean movingRight = false;
+    private boolean ballDefaultPosition = true;
+    private boolean spacePressed = false;
+    /** The simulated time covered by one {@link #step()}, in seconds. */
+    private final double stepSeconds;
+    /** Ball and paddle positions at the start of the last step, used to interpolate rendering. */
+    private double previousBallX;
+    private double previousBallY;
+    private double previousPaddleX;
+    /** Reused swept-collision state, so moving the ball does not allocate. */
+    private final BallSweep ballSweep;
+    /** Collision work since the world was created, read by the frame statistics. */
+    private int sweepIterations;
+    private int brickTests;
+    private int paddleHits;
+
+    /**
+     * Constructs the game world with the default physics.
+     * @param player The player object, containing score and life data.
+     * @param renderObserver The observer notified of every visible change.
+     * @param soundEffect The object for playing sound effects, or null to run silently.
+     * @param ball The ball object.
+     * @param paddle The paddle object.
+     * @param lineOfBricks The bricks of the level.
+     * @param physicsHz The number of steps simulated per second of game time.
+     */
+    public GameWorld(Player player, RenderObserver renderObserver, SoundEffect soundEffect, Ball ball, Paddle paddle, BrickLines lineOfBricks, int physicsHz){
+        this(player, renderObserver, soundEffect, ball, paddle, lineOfBricks, physicsHz, PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Constructs the game world. The paddle's speed is set from the profile.
+     * @param player The player object, containing score and life data.
+     * @param renderObserver The observer notified of every visible change.
+     * @param soundEffect The object for playing sound effects, or null to run silently.
+     * @param ball The ball object.
+     * @param paddle The paddle object.
+     * @param lineOfBricks The bricks of the level.
+     * @param physicsHz The number of steps simulated per second of game time.
+     * @param profile The physics constants to play with.
+     */
+    public GameWorld(Player player, RenderObserver renderObserver, SoundEffect soundEffect, Ball ball, Paddle paddle, BrickLines lineOfBricks, int physicsHz,
+            PhysicsProfile profile){
+        this.player = player;
+        this.renderObserver = renderObserver;
+        this.soundEffect = soundEffect;
+        this.ball = ball;
+        this.paddle = paddle;
+        this.lineOfBricks = lineOfBricks;
+        this.stepSeconds = 1.0 / physicsHz;
+        this.profile = profile;
+        MISS_HEIGHT = Screen.WINDOW_HEIGHT + profile.getBallMissForgivenessPx();
+        ballSweep = new BallSweep(profile);
+        paddle.setSpeed(profile.getPaddleSpeed());
+        savePreviousPositions();
+    }
+
+    /**
+     * Advances the world by one fixed time step: moves the paddle, launches the ball if requested,
+     * moves the ball while resolving collisions and handles a missed ball.
+     * Does nothing once the game is over.
+     */
+    public void step(){
+        if(isGameOver()){
+            return;
+        }
+        savePreviousPositions();
+        updatePaddlePosition(); // Update paddle position every frame for smooth movement.
+        if(descendingRows != null){
+            // Bricks move before the ball, so the sweep sees where they are during this step.
+            descendingRows.step(stepSeconds, renderObserver);
+        }
+        ballReset();
+
+        // Move + resolve collisions before checking miss so last-moment saves are valid.
+        ballMovement();
+
+        // Check miss only after collision resolution, so last-moment paddle saves count.
+        if(isBallMissed()){
+            ball.resetPosition();
+            ballDefaultPosition = true;
+            renderObserver.removeHeartLabel(player.getLifePoints() - 1);
+            player.loseLifePoint();
+            if(GameEvents.isRecording()){
+                GameEvents.LifeLost event = new GameEvents.LifeLost();
+                if(event.shouldCommit()){
+                    event.livesLeft = player.getLifePoints();
+                    event.score = player.getScore();
+                    event.commit();
+                }
+            }
+            // The ball jumped back to the middle; don't interpolate across the jump.
+            previousBallX = ball.getPreciseX();
+            previousBallY = ball.getPreciseY();
+        }
+    }
+
+    /**
+     * Reports the ball and paddle positions to the render observer, blended between
+     * the state before and after the last step.
+     * @param alpha How far the display time is past the last step, from 0 (previous state) to 1 (current state).
+     */
+    public void render(double alpha){
+        double ballX = previousBallX + (ball.getPreciseX() - previousBallX) * alpha;
+        double ballY = previousBallY + (ball.getPreciseY() - previousBallY) * alpha;
+        double paddleX = previousPaddleX + (paddle.getPreciseX() - previousPaddleX) * alpha;
+        renderObserver.moveBall((int)Math.round(ballX), (int)Math.round(ballY));
+        renderObserver.movePaddle((int)Math.round(paddleX), paddle.getY());
+    }
+
+    /** Remembers where the ball and paddle are before they move. */
+    private void savePreviousPositions(){
+        previousBallX = ball.getPreciseX();
+        previousBallY = ball.getPreciseY();
+        previousPaddleX = paddle.getPreciseX();
+    }
+
+    /**
+     * Sets whether the paddle should be moving left.
+     * @param movingLeft true while the left control is held.
+     */
+    public void setMovingLeft(boolean movingLeft){
+        this.movingLeft = movingLeft;
+    }
+
+    /**
+     * Sets whether the paddle should be moving right.
+     * @param movingRight true while the right control is held.
+     */
+    public void setMovingRight(boolean movingRight){
+        this.movingRight = movingRight;
+    }
+
+    /**
+     * Sets whether the launch control is held; the ball launches on the next tick it is waiting.
+     * @param spacePressed true while the launch control is held.
+     */
+    public void setSpacePressed(boolean spacePressed){
+        this.spacePressed = spacePressed;
+    }
+
+    /**
+     * Returns the current input as a bitmask of {@link #INPUT_LEFT}, {@link #INPUT_RIGHT} and {@link #INPUT_SPACE}.
+     * @return The input bitmask.
+     */
+    public int getInputMask(){
+        return (movingLeft ? INPUT_LEFT : 0) | (movingRight ? INPUT_RIGHT : 0) | (spacePressed ? INPUT_SPACE : 0);
+    }
+
+    /**
+     * Sets all inputs at once from a bitmask, as returned by {@link #getInputMask()}.
+     * @param inputMask The input bitmask.
+     */
+    public void setInputMask(int inputMask){
+        movingLeft = (inputMask & INPUT_LEFT) != 0;
+        movingRight = (inputMask & INPUT_RIGHT) != 0;
+        spacePressed = (inputMask & INPUT_SPACE) != 0;
+    }
+
+    /**
+     * Plays the level in endless mode: the bricks drift down and keep respawning, and the game only ends
+     * when the player runs out of lives. Must be called before the first step.
+     * @param descendingRows The endless rows, built on this world's bricks.
+     */
+    public void setDescendingRows(DescendingRows descendingRows){
+        this.descendingRows = descendingRows;
+    }
+
+    /**
+     * Returns the endless rows of this world.
+     * @return The endless rows, or null for a regular level.
+     */
+    public DescendingRows getDescendingRows(){
+        return descendingRows;
+    }
+
+    /**
+     * Returns a 64-bit hash of everything a step depends on: ball, paddle, player, launch state, live bricks
+     * and, in endless mode, the drift of the rows.
+     * Two worlds with the same hash behave the same from here on, so replays can compare hashes instead of states.
+     * @return The hash of the current state.
+     */
+    public long stateHash(){
+        long hash = 0xcbf29ce484222325L;
+        hash = mixHash(hash, Double.doubleToLongBits(ball.getPreciseX()));
+        hash = mixHash(hash, Double.doubleToLongBits(ball.getPreciseY()));
+        hash = mixHash(hash, Double.doubleToLongBits(ball.getBallXVelocity()));
+        hash = mixHash(hash, Double.doubleToLongBits(ball.getBallYVelocity()));
+        hash = mixHash(hash, Double.doubleToLongBits(paddle.getPreciseX()));
+        hash = mixHash(hash, player.getScore());
+        hash = mixHash(hash, player.getLifePoints());
+        hash = mixHash(hash, ballDefaultPosition ? 1 : 0);
+        hash = mixHash(hash, lineOfBricks.getNumOfBricks());
+        if(descendingRows != null){
+            hash = mixHash(hash, descendingRows.stateHash());
+        }
+        return mixHash(hash, lineOfBricks.getField().liveHash());
+    }
+
+    /**
+     * Returns the size of a snapshot of this world. It only changes when bricks are added to the level.
+     * @return The snapshot size in bytes.
+     */
+    public int getSnapshotSize(){
+        int bricks = lineOfBricks.getField().getIdCount();
+        if(descendingRows != null){
+            return SNAPSHOT_HEADER_BYTES + bricks * 5 + DescendingRows.SNAPSHOT_BYTES;
+        }
+        return SNAPSHOT_HEADER_BYTES + bricks;
+    }
+
+    /**
+     * Writes everything a step depends on into a compact binary snapshot, with absolute puts and no allocation.
+     * Layout: ball x, y and velocities and paddle x as doubles, score and lives as ints, a flags byte
+     * (ball waiting to launch, endless) and the number of brick ids, then one byte of hit points per brick id,
+     * 0 for a destroyed brick. In endless mode every brick's x and y follow as shorts, then the drift state.
+     * The input and the render interpolation are not part of the snapshot.
+     * @param buffer The buffer to write to; it needs {@link #getSnapshotSize()} bytes from the offset.
+     * @param offset The position to write at.
+     * @return The position after the snapshot.
+     */
+    public int writeSnapshot(ByteBuffer buffer, int offset){
+        BrickField bricks = lineOfBricks.getField();
+        int idCount = bricks.getIdCount();
+        buffer.putDouble(offset, ball.getPreciseX());
+        buffer.putDouble(offset + 8, ball.getPreciseY());
+        buffer.putDouble(offset + 16, ball.getBallXVelocity());
+        buffer.putDouble(offset + 24, ball.getBallYVelocity());
+        buffer.putDouble(offset + 32, paddle.getPreciseX());
+        buffer.putInt(offset + 40, player.getScore());
+        buffer.putInt(offset + 44, player.getLifePoints());
+        buffer.put(offset + 48, (byte) ((ballDefaultPosition ? SNAPSHOT_WAITING : 0) | (descendingRows != null ? SNAPSHOT_ENDLESS : 0)));
+        buffer.putInt(offset + 49, idCount);
+        offset += SNAPSHOT_HEADER_BYTES;
+        // Hit points never exceed LevelPack.MAX_BRICK_VALUE, so one unsigned byte holds them.
+        for(int id = 0; id < idCount; id++){
+            buffer.put(offset + id, (byte) (bricks.isLive(id) ? bricks.getHitPoints(id) : 0));
+        }
+        offset += idCount;
+        if(descendingRows != null){
+            for(int id = 0; id < idCount; id++){
+                buffer.putShort(offset, (short) bricks.getX(id));
+                buffer.putShort(offset + 2, (short) bricks.getY(id));
+                offset += 4;
+            }
+            offset = descendingRows.writeSnapshot(buffer, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Puts the world back in the state of a snapshot written by {@link #writeSnapshot} for the same level,
+     * reporting every brick, score and life change to the render observer.
+     * @param buffer The buffer to read from, with absolute gets.
+     * @param offset The position to read at.
+     * @return The position after the snapshot.
+     * @throws IllegalArgumentException if the snapshot was taken of a level with other bricks or in another mode.
+     */
+    public int restoreSnapshot(ByteBuffer buffer, int offset){
+        BrickField bricks = lineOfBricks.getField();
+        int idCount = bricks.getIdCount();
+        int flags = buffer.get(offset + 48);
+        if(buffer.getInt(offset + 49) != idCount || ((flags & SNAPSHOT_ENDLESS) != 0) != (descendingRows != null)){
+            throw new IllegalArgumentException("The snapshot was taken of another level");
+        }
+        ball.setPrecisePosition(buffer.getDouble(offset), buffer.getDouble(offset + 8));
+        ball.setBallXVelocity(buffer.getDouble(offset + 16));
+        ball.setBallYVelocity(buffer.getDouble(offset + 24));
+        paddle.setPreciseX(buffer.getDouble(offset + 32));
+        int score = buffer.getInt(offset + 40);
+        int lifePoints = buffer.getInt(offset + 44);
+        ballDefaultPosition = (flags & SNAPSHOT_WAITING) != 0;
+        int hitPointsOffset = offset + SNAPSHOT_HEADER_BYTES;
+        offset = hitPointsOffset + idCount;
+        for(int id = 0; id < idCount; id++){
+            if(descendingRows != null){
+                int x = buffer.getShort(offset + id * 4);
+                int y = buffer.getShort(offset + id * 4 + 2);
+                if(x != bricks.getX(id) || y != bricks.getY(id)){
+                    lineOfBricks.moveBrick(id, x, y);
+                    renderObserver.moveBrick(id, x, y);
+                }
+            }
+            int hitPoints = buffer.get(hitPointsOffset + id) & 0xFF;
+            boolean live = bricks.isLive(id);
+            if(hitPoints == 0){
+                if(live){
+                    lineOfBricks.removeBrick(id);
+                    renderObserver.brickDestroy(id);
+                }
+            }
+            else if(!live){
+                lineOfBricks.reviveBrick(id, hitPoints);
+                renderObserver.brickRestore(id);
+            }
+            else if(bricks.getHitPoints(id) != hitPoints){
+                lineOfBricks.reviveBrick(id, hitPoints);
+                renderObserver.brickHit(id, hitPoints);
+            }
+        }
+        if(descendingRows != null){
+            offset = descendingRows.readSnapshot(buffer, offset + idCount * 4);
+        }
+        if(score != player.getScore()){
+            player.setScore(score);
+            renderObserver.refreshPlayerScore(score);
+        }
+        if(lifePoints != player.getLifePoints()){
+            player.setLifePoints(lifePoints);
+            renderObserver.refreshHearts(lifePoints);
+        }
+        // The world jumped; don't interpolate across the jump.
+        savePreviousPositions();
+        return offset;
+    }
+
+    /**
+     * Brings back destroyed bricks, lowest ids first, as a head-to-head opponent's hits do.
+     * Bricks within a ball's width of the ball are skipped, so the ball is never caught inside one.
+     * @param count The number of bricks to bring back.
+     * @return The number of bricks brought back, fewer if not enough bricks are destroyed and clear of the ball.
+     */
+    int reviveBricks(int count){
+        BrickField bricks = lineOfBricks.getField();
+        double margin = Ball.getWidth();
+        double left = ball.getPreciseX() - margin;
+        double top = ball.getPreciseY() - margin;
+        double right = ball.getPreciseX() + Ball.getWidth() + margin;
+        double bottom = ball.getPreciseY() + Ball.getHeight() + margin;
+        int revived = 0;
+        for(int id = 0; id < bricks.getIdCount() && revived < count; id++){
+            if(bricks.isLive(id) || bricks.getX(id) + bricks.getWidth(id) > left && bricks.getX(id) < right
+                    && bricks.getY(id) + bricks.getHeight(id) > top && bricks.getY(id) < bottom){
+                continue;
+            }
+            lineOfBricks.reviveBrick(id, 1);
+            renderObserver.brickRestore(id);
+            revived++;
+        }
+        return revived;
+    }
+
+    /** One FNV-1a style round over a 64-bit value. */
+    private static long mixHash(long hash, long value){
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * Returns the physics constants of this world.
+     * @return The profile.
+     */
+    public PhysicsProfile getPhysicsProfile(){
+        return profile;
+    }
+
+    /**
+     * Returns the simulated time covered by one step.
+     * @return The step length in seconds.
+     */
+    double getStepSeconds(){
+        return stepSeconds;
+    }
+
+    /**
+     * Returns the number of swept-collision iterations since the world was created; wraps around on overflow.
+     * @return The iteration count.
+     */
+    int getSweepIterations(){
+        return sweepIterations;
+    }
+
+    /**
+     * Returns the number of bricks tested for a contact since the world was created; wraps around on overflow.
+     * @return The brick test count.
+     */
+    int getBrickTests(){
+        return brickTests;
+    }
+
+    /**
+     * Returns the number of times the ball bounced off the paddle since the world was created.
+     * @return The paddle hit count.
+     */
+    int getPaddleHits(){
+        return paddleHits;
+    }
+
+    /** Returns the player of this world. */
+    public Player getPlayer(){
+        return player;
+    }
+
+    /** Returns the ball of this world. */
+    public Ball getBall(){
+        return ball;
+    }
+
+    /** Returns the paddle of this world. */
+    public Paddle getPaddle(){
+        return paddle;
+    }
+
+    /** Returns the bricks of this world. */
+    public BrickLines getBricks(){
+        return lineOfBricks;
+    }
+
+    /**
+     * Moves the ball for one step with swept collision detection, so fast motion doesn't skip collisions.
+     * Contacts with walls, paddle and bricks are resolved in the order they happen, then every brick hit
+     * is scored and removed in that same order.
+     */
+    void ballMovement(){
+        ballSweep.move(ball.getPreciseX(), ball.getPreciseY(), ball.getBallXVelocity(), ball.getBallYVelocity(),
+                stepSeconds, paddle, lineOfBricks);
+        ball.setPrecisePosition(ballSweep.getX(), ballSweep.getY());
+        ball.setBallXVelocity(ballSweep.getXVelocity());
+        ball.setBallYVelocity(ballSweep.getYVelocity());
+        sweepIterations += ballSweep.getIterations();
+        brickTests += ballSweep.getBrickTests();
+        paddleHits += ballSweep.getPaddleHits();
+        for(int i = 0; i < ballSweep.getBrickHitCount(); i++){
+            int id = ballSweep.getBrickHit(i);
+            player.addScore();
+            renderObserver.refreshPlayerScore(player.getScore());
+            boolean destroyed = lineOfBricks.hitBrick(id);
+            if(destroyed){
+                renderObserver.brickDestroy(id);
+            }
+            else{
+                renderObserver.brickHit(id, lineOfBricks.getField().getHitPoints(id));
+            }
+            if(GameEvents.isRecording()){
+                GameEvents.BrickCollision event = new GameEvents.BrickCollision();
+                if(event.shouldCommit()){
+                    event.brickId = id;
+                    event.destroyed = destroyed;
+                    event.commit();
+                }
+            }
+        }
+
+        // Play at most one collision sound per step: copies started together mix into one louder, clipped sound
+        // and take mixer voices and queue slots from the sounds that follow.
+        if(soundEffect != null){
+            if(ballSweep.getBrickHitCount() > 0){
+                soundEffect.playBrickCollisionSoundEffect();
+            }
+            else if(ballSweep.hasBounced()){
+                soundEffect.playCollisionSoundEffect();
+            }
+        }
+    }
+
+    /** Counts a miss only when the ball is below the threshold and no longer touching the paddle. */
+    private boolean isBallMissed(){
+            return ball.getPreciseY() > MISS_HEIGHT
+                    && !isCircleIntersectsRect(paddle.getX(), paddle.getY(), Paddle.getWidth(), Paddle.getHeight());
+    }
+
+    /** Circle-vs-rectangle check for the ball against a target rectangle. */
+    private boolean isCircleIntersectsRect(int rectX, int rectY, int rectWidth, int rectHeight){
+        double radius = Ball.getWidth() / 2.0;
+        double centerX = ball.getX() + radius;
+        double centerY = ball.getY() + (Ball.getHeight() / 2.0);
+        return CollisionMath.isCircleIntersectsRect(centerX, centerY, radius, rectX, rectY, rectWidth, rectHeight);
+    }
+
+    /** Utility clamp used by angle and collision calculations. */
+    private double clamp(double value, double min, double max){
+        return CollisionMath.clamp(value, min, max);
+    }
+    /**
+     * Determines if the game has ended, either by destroying all bricks (win)
+     * or losing all life points (lose). In endless mode only the second ends the game.
+     * @return true if the game is over, false otherwise.
+     */
+    public boolean isGameOver(){
+        if(descendingRows == null && lineOfBricks.getNumOfBricks() == 0){
+            return true;
+        }
+        else if(player.getLifePoints() == 0){
+            return true;
+        }
+        return false;
+    }
+    /**
+     * Updates the paddle's position based on the current movement flags.
+     * This method is called in the game loop to ensure smooth, continuous movement.
+     */
+    private void updatePaddlePosition() {
+        double paddlePositionX = paddle.getPreciseX();
+        double distance = paddle.getSpeed() * stepSeconds;
+        if (movingLeft && paddlePositionX > PADDLE_SCREEN_LEFT_LIMIT) {
+            paddlePositionX -= distance;
+        }
+        if (movingRight && paddlePositionX < PADDLE_SCREEN_RIGHT_LIMIT) {
+            paddlePositionX += distance;
+        }
+        paddle.setPreciseX(clamp(paddlePositionX, PADDLE_SCREEN_LEFT_LIMIT, PADDLE_SCREEN_RIGHT_LIMIT));
+    }
+    /** Launches the ball from its waiting state, at the profile's launch speed, when space is pressed. */
+    private void ballReset(){
+        if(ballDefaultPosition && spacePressed){
+            ball.setBallXVelocity(ball.getDefaultBallXVelocity());
+            ball.setBallYVelocity(profile.getLaunchSpeed());
+            ballDefaultPosition = false;
+        }
+    }
+}
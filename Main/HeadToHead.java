@@ -0,0 +1,429 @@
+package Main;
+import Render.ErrorWindow;
+import Render.NullRenderObserver;
+import Render.RenderObserver;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.SwingUtilities;
+
+/**
+ * The HeadToHead class plays one side of a {@link HeadToHeadMatch} against a peer process over UDP,
+ * with a {@link RollbackSession} hiding the network delay. Each peer sends a packet every step (big-endian):
+ * the type byte, the newest remote step it has input for, which acknowledges the peer's input up to that step,
+ * then the first step and the count byte of its own inputs not acknowledged yet and those inputs, one byte each,
+ * then the step and value of its newest final state hash. Inputs are sent until acknowledged, so a lost packet
+ * costs nothing but a longer prediction, and the hashes let each peer check that both simulated the same match.
+ * <p>
+ * In a window the local field is shown and played with the keyboard, and the opponent's score and lives are shown
+ * in the overlay; headless, an {@link AutopilotController} plays and a report is printed at the end.
+ * Outgoing packets go through a {@link LossyLink}, so two processes on localhost can be tested with injected delay.
+ */
+public class HeadToHead {
+    private static final byte INPUTS = 3;
+    /** Unacknowledged inputs sent in one packet at most; older ones follow once these are acknowledged. */
+    private static final int MAX_INPUTS_PER_PACKET = 64;
+    private static final int PACKET_BYTES = 1 + 4 + 4 + 1 + MAX_INPUTS_PER_PACKET + 4 + 8;
+    public static final int DEFAULT_PORT = NetProtocol.DEFAULT_PORT + 10;
+    private static final int DEFAULT_LINES = 4;
+    private static final int DEFAULT_MATCH_SECONDS = 120;
+    /** How long a peer keeps sending after the match is over, so the other peer can confirm the end too. */
+    private static final long LINGER_NANOS = 1_000_000_000L;
+    /** How long a peer waits for a silent peer before giving up. */
+    private static final long TIMEOUT_NANOS = 10_000_000_000L;
+    /** Steps played at most in one frame of the window, so a stall is not followed by a burst. */
+    private static final int MAX_STEPS_PER_FRAME = 8;
+    private static final int LIFE_POINTS = 3;
+    private static final int SCORE_POINTS = 100;
+    private final RollbackSession session;
+    private final int localPlayer;
+    private final DatagramChannel channel;
+    private final LossyLink link;
+    private final SocketAddress peer;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(PACKET_BYTES);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(PACKET_BYTES);
+    /** The newest local step the peer has input for. */
+    private int peerAckTick = -1;
+    /** A hash received from the peer for a step not final here yet, or -1. */
+    private int pendingHashTick = -1;
+    private long pendingHash;
+    /** The newest step whose hashes were compared. */
+    private int checkedHashTick = -1;
+    private int checkedHashes;
+    private int desyncs;
+    private int firstDesyncTick = -1;
+    private long lastHeardNanos;
+    private long stalls;
+    /** How long each played step took, rollback included, in nanoseconds. */
+    private final LatencyHistogram stepTimes = new LatencyHistogram();
+    /** The input held on the keyboard of the window. */
+    private int keyInput;
+    /** When the window's last frame ran, and the simulated time it left unplayed. */
+    private long lastFrameNanos;
+    private long unplayedNanos;
+    /** The overlay lines and the opponent score, lives and result they show, rebuilt only when these change. */
+    private String[] overlayLines;
+    private int overlayScore = -1;
+    private int overlayLives = -1;
+    private int overlayResult;
+
+    /**
+     * Opens one side of a match.
+     * @param session The session of the match.
+     * @param localPlayer The player this process controls, 0 or 1.
+     * @param port The local port.
+     * @param peer The address of the other process.
+     * @param latencyMs The simulated delay of the packets sent to the peer, in milliseconds.
+     * @param jitterMs The largest random delay added on top of the latency, in milliseconds.
+     * @param lossPercent The share of the packets sent to the peer that are dropped, from 0 to 100.
+     * @throws IOException if the channel cannot be opened.
+     */
+    HeadToHead(RollbackSession session, int localPlayer, int port, SocketAddress peer, int latencyMs, int jitterMs,
+            double lossPercent) throws IOException{
+        this.session = session;
+        this.localPlayer = localPlayer;
+        this.peer = peer;
+        channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress(port));
+        channel.configureBlocking(false);
+        link = new LossyLink(channel, latencyMs, jitterMs, lossPercent, localPlayer + 1);
+        lastHeardNanos = System.nanoTime();
+    }
+
+    /**
+     * Plays one step with the local input, rolling back first if the peer's input proved a prediction wrong.
+     * @param localInput The local player's input.
+     * @return false if the step had to wait for the peer.
+     */
+    boolean step(int localInput){
+        long start = System.nanoTime();
+        if(session.advance(localInput) < 0){
+            stalls++;
+            return false;
+        }
+        stepTimes.record(System.nanoTime() - start);
+        return true;
+    }
+
+    /** Reads every waiting packet from the peer. */
+    void receive(long now) throws IOException{
+        while(true){
+            receiveBuffer.clear();
+            SocketAddress sender;
+            try {
+                sender = channel.receive(receiveBuffer);
+            } catch (PortUnreachableException e) {
+                // The peer is not up yet.
+                return;
+            }
+            if(sender == null){
+                return;
+            }
+            receiveBuffer.flip();
+            if(receiveBuffer.remaining() < PACKET_BYTES - MAX_INPUTS_PER_PACKET || receiveBuffer.get(0) != INPUTS){
+                continue;
+            }
+            lastHeardNanos = now;
+            peerAckTick = Math.max(peerAckTick, receiveBuffer.getInt(1));
+            int first = receiveBuffer.getInt(5);
+            int count = receiveBuffer.get(9) & 0xFF;
+            if(receiveBuffer.remaining() < PACKET_BYTES - MAX_INPUTS_PER_PACKET + count){
+                continue;
+            }
+            for(int index = 0; index < count; index++){
+                session.addRemoteInput(first + index, receiveBuffer.get(10 + index));
+            }
+            int hashTick = receiveBuffer.getInt(10 + count);
+            if(hashTick > pendingHashTick && hashTick > checkedHashTick){
+                pendingHashTick = hashTick;
+                pendingHash = receiveBuffer.getLong(14 + count);
+            }
+        }
+    }
+
+    /** Compares the peer's newest hash with this peer's once the step is final here too. */
+    private void checkHash(){
+        if(pendingHashTick < 0 || session.getNewestHashTick() < pendingHashTick){
+            return;
+        }
+        long hash = session.getHash(pendingHashTick);
+        checkedHashTick = pendingHashTick;
+        if(hash != 0){
+            checkedHashes++;
+            if(hash != pendingHash){
+                desyncs++;
+                if(firstDesyncTick < 0){
+                    firstDesyncTick = pendingHashTick;
+                }
+            }
+        }
+        pendingHashTick = -1;
+    }
+
+    /** Sends the local inputs the peer has not acknowledged, this peer's acknowledgement and its newest hash. */
+    void send(long now) throws IOException{
+        checkHash();
+        int tick = session.getMatch().getTick();
+        int first = Math.max(peerAckTick + 1, tick - RollbackSession.getInputHistory() + 1);
+        int count = Math.min(tick - first, MAX_INPUTS_PER_PACKET);
+        sendBuffer.clear();
+        sendBuffer.put(INPUTS).putInt(session.getRemoteConfirmedTick()).putInt(first).put((byte) count);
+        for(int index = 0; index < count; index++){
+            sendBuffer.put((byte) session.getLocalInput(first + index));
+        }
+        int hashTick = session.getNewestHashTick();
+        sendBuffer.putInt(hashTick).putLong(hashTick >= 0 ? session.getHash(hashTick) : 0).flip();
+        try {
+            link.send(sendBuffer, peer, now);
+            link.flush(now);
+        } catch (PortUnreachableException e) {
+            // The peer is not up yet; the inputs are sent again with the next packet.
+        }
+    }
+
+    /** Returns whether the peer has been silent for too long. */
+    boolean peerTimedOut(long now){
+        return now - lastHeardNanos > TIMEOUT_NANOS;
+    }
+
+    /** Prints the result of the match and how the rollbacks went. */
+    void printReport(double seconds){
+        HeadToHeadMatch match = session.getMatch();
+        int result = match.getResult();
+        System.out.printf("player %d: %d steps in %.1f s, %d waits for the peer, %d packets sent (%d dropped)%n", localPlayer,
+                match.getTick(), seconds, stalls, link.getSent(), link.getDropped());
+        System.out.printf("rollbacks: %d, %d steps simulated again (%.2f per rollback, longest %d)%n", session.getRollbacks(),
+                session.getResimulatedTicks(), session.getRollbacks() == 0 ? 0.0 : (double) session.getResimulatedTicks() / session.getRollbacks(),
+                session.getLongestRollback());
+        System.out.printf("step with rollback us: mean %.1f, p50 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n", stepTimes.getMean() / 1e3,
+                stepTimes.valueAtPercentile(50) / 1e3, stepTimes.valueAtPercentile(99) / 1e3,
+                stepTimes.valueAtPercentile(99.9) / 1e3, stepTimes.getMax() / 1e3);
+        System.out.printf("hashes checked: %d, desyncs: %d%s%n", checkedHashes, desyncs,
+                firstDesyncTick >= 0 ? " (first at step " + firstDesyncTick + ")" : "");
+        System.out.printf("final: step %d, result %s, scores %d-%d, hash %016x%n", match.getTick(),
+                result == HeadToHeadMatch.DRAW ? "draw" : result == HeadToHeadMatch.PLAYING ? "unfinished" : "player " + result + " wins",
+                match.getWorld(0).getPlayer().getScore(), match.getWorld(1).getPlayer().getScore(), match.stateHash());
+    }
+
+    /** Closes the channel. */
+    void close() throws IOException{
+        channel.close();
+    }
+
+    /**
+     * Plays one side of a match.
+     * @param args {@code --player=<0|1>} the side played (0 by default), {@code --port=<port>} the local port,
+     * {@code --peer=<host:port>} the other process, {@code --lines=<lines>} the brick lines of the level,
+     * {@code --seconds=<seconds>} the length of the match, {@code --latency=<ms>}, {@code --jitter=<ms>} and
+     * {@code --loss=<percent>} the simulated network of the packets sent, {@code --headless} to play without a window
+     * and {@code --autopilot} to let the bot play in the window too.
+     * By default player 0 listens on {@value #DEFAULT_PORT} and player 1 on the next port, each with the other as peer.
+     */
+    public static void main(String[] args) throws IOException {
+        int player = 0;
+        Integer port = null;
+        String peerAddress = null;
+        int lines = DEFAULT_LINES;
+        int matchSeconds = DEFAULT_MATCH_SECONDS;
+        int latencyMs = 0;
+        int jitterMs = 0;
+        double lossPercent = 0;
+        boolean headless = false;
+        boolean autopilot = false;
+        for(String arg : args){
+            if(arg.startsWith("--player=")){
+                player = Integer.parseInt(arg.substring("--player=".length()));
+            }
+            else if(arg.startsWith("--port=")){
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            }
+            else if(arg.startsWith("--peer=")){
+                peerAddress = arg.substring("--peer=".length());
+            }
+            else if(arg.startsWith("--lines=")){
+                lines = Integer.parseInt(arg.substring("--lines=".length()));
+            }
+            else if(arg.startsWith("--seconds=")){
+                matchSeconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            }
+            else if(arg.startsWith("--latency=")){
+                latencyMs = Integer.parseInt(arg.substring("--latency=".length()));
+            }
+            else if(arg.startsWith("--jitter=")){
+                jitterMs = Integer.parseInt(arg.substring("--jitter=".length()));
+            }
+            else if(arg.startsWith("--loss=")){
+                lossPercent = Double.parseDouble(arg.substring("--loss=".length()));
+            }
+            else if(arg.equals("--headless")){
+                headless = true;
+            }
+            else if(arg.equals("--autopilot")){
+                autopilot = true;
+            }
+            else{
+                throw new IllegalArgumentException("Unknown option \"" + arg + "\"");
+            }
+        }
+        if(player != 0 && player != 1){
+            throw new IllegalArgumentException("--player must be 0 or 1");
+        }
+        int localPort = port != null ? port : DEFAULT_PORT + player;
+        InetSocketAddress peer;
+        if(peerAddress != null){
+            int colon = peerAddress.lastIndexOf(':');
+            peer = new InetSocketAddress(peerAddress.substring(0, colon), Integer.parseInt(peerAddress.substring(colon + 1)));
+        }
+        else{
+            peer = new InetSocketAddress("localhost", DEFAULT_PORT + 1 - player);
+        }
+        Screen screen = headless ? null : new Screen();
+        RenderObserver localObserver = headless ? new NullRenderObserver() : screen;
+        GameWorld[] worlds = new GameWorld[2];
+        worlds[player] = newField(lines, localObserver);
+        worlds[1 - player] = newField(lines, new NullRenderObserver());
+        HeadToHeadMatch match = new HeadToHeadMatch(worlds[0], worlds[1], matchSeconds * GameLoop.DEFAULT_PHYSICS_HZ);
+        HeadToHead side = new HeadToHead(new RollbackSession(match, player), player, localPort, peer, latencyMs, jitterMs, lossPercent);
+        if(headless){
+            side.playHeadless(new AutopilotController(player + 1), worlds[player]);
+        }
+        else{
+            side.playInWindow(screen, autopilot ? new AutopilotController(player + 1) : null, worlds[player], worlds[1 - player]);
+        }
+    }
+
+    /** Creates a field in its starting state. */
+    private static GameWorld newField(int lines, RenderObserver observer){
+        Player fieldPlayer = new Player(LIFE_POINTS, SCORE_POINTS);
+        Ball ball = new Ball(Screen.WINDOW_WIDTH / 2, Screen.WINDOW_HEIGHT / 2);
+        Paddle paddle = new Paddle((Screen.WINDOW_WIDTH / 2) - (Paddle.getWidth() / 2), Screen.WINDOW_HEIGHT - 70);
+        return new GameWorld(fieldPlayer, observer, null, ball, paddle, new BrickLines(lines), GameLoop.DEFAULT_PHYSICS_HZ);
+    }
+
+    /** Plays the match at the physics rate with the bot, then lingers so the peer can finish and prints the report. */
+    private void playHeadless(PaddleController bot, GameWorld localWorld) throws IOException{
+        long tickNanos = 1_000_000_000L / GameLoop.DEFAULT_PHYSICS_HZ;
+        long start = System.nanoTime();
+        long nextTick = start;
+        long finishedAt = 0;
+        while(true){
+            long now = System.nanoTime();
+            if(now - nextTick < 0){
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+            receive(now);
+            if(session.isFinished()){
+                if(finishedAt == 0){
+                    finishedAt = now;
+                }
+                // Linger until the peer has every input it needs to finish too, or has gone.
+                boolean acknowledged = peerAckTick >= session.getMatch().getTick() - 1;
+                if(acknowledged && now - finishedAt > LINGER_NANOS || peerTimedOut(now)){
+                    break;
+                }
+            }
+            else if(peerTimedOut(now)){
+                System.out.println("player " + localPlayer + ": the peer is silent, giving up");
+                break;
+            }
+            else{
+                step(bot.nextInput(localWorld));
+            }
+            send(now);
+            nextTick += tickNanos;
+            if(now - nextTick > LINGER_NANOS){
+                nextTick = now;
+            }
+        }
+        printReport((System.nanoTime() - start) / 1e9);
+        close();
+    }
+
+    /**
+     * Plays the match in the window, stepping by the elapsed time each frame.
+     * The frames are paced by a {@link FramePacer} like the game's, so the local input is sampled at an even rate.
+     */
+    private void playInWindow(Screen screen, PaddleController bot, GameWorld localWorld, GameWorld opponentWorld){
+        screen.addKeyListener(new KeyListener() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                keyInput |= NetClient.keyInput(e.getKeyCode());
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                keyInput &= ~NetClient.keyInput(e.getKeyCode());
+            }
+
+            @Override
+            public void keyTyped(KeyEvent e) {}
+        });
+        long tickNanos = 1_000_000_000L / GameLoop.DEFAULT_PHYSICS_HZ;
+        SwingUtilities.invokeLater(() -> {
+            Player player = localWorld.getPlayer();
+            screen.addPaddleLabel(Paddle.getIcon(), localWorld.getPaddle().getX(), localWorld.getPaddle().getY(), Paddle.getWidth(), Paddle.getHeight());
+            screen.addBallLabel(Ball.getIcon(), localWorld.getBall().getX(), localWorld.getBall().getY(), Ball.getWidth(), Ball.getHeight());
+            screen.addHeartLabels(player.getLifePoints(), player.getHeartIcon(), Player.getHeartWidth(), Player.getHeartHeight());
+            screen.addBricksLabels(localWorld.getBricks());
+            screen.addPlayerScore(player.getScore());
+            lastFrameNanos = System.nanoTime();
+            new FramePacer("head-to-head", frameTime -> {
+                long now = System.nanoTime();
+                try {
+                    receive(now);
+                    if(!session.isFinished() && !peerTimedOut(now)){
+                        unplayedNanos = Math.min(unplayedNanos + now - lastFrameNanos, MAX_STEPS_PER_FRAME * tickNanos);
+                        while(unplayedNanos >= tickNanos){
+                            if(!step(bot != null ? bot.nextInput(localWorld) : keyInput)){
+                                unplayedNanos = 0;
+                                break;
+                            }
+                            unplayedNanos -= tickNanos;
+                        }
+                    }
+                    send(now);
+                } catch (IOException e) {
+                    new ErrorWindow("The connection to the other player failed: " + e.getMessage());
+                    return false;
+                }
+                lastFrameNanos = now;
+                localWorld.render((double) unplayedNanos / tickNanos);
+                screen.setStatsOverlay(overlay(opponentWorld));
+                screen.renderFrame();
+                return true;
+            }).start();
+        });
+    }
+
+    /** Returns the overlay lines: the opponent's score and lives, and the result once the match is over. */
+    private String[] overlay(GameWorld opponentWorld){
+        int result = session.isFinished() ? session.getMatch().getResult() : HeadToHeadMatch.PLAYING;
+        int score = opponentWorld.getPlayer().getScore();
+        int lives = opponentWorld.getPlayer().getLifePoints();
+        if(overlayLines != null && score == overlayScore && lives == overlayLives && result == overlayResult){
+            return overlayLines;
+        }
+        overlayScore = score;
+        overlayLives = lives;
+        overlayResult = result;
+        String opponent = "Opponent: " + score + " points, " + lives + " lives";
+        if(result == HeadToHeadMatch.PLAYING){
+            overlayLines = new String[] {opponent};
+        }
+        else{
+            overlayLines = new String[] {opponent, result == HeadToHeadMatch.DRAW ? "Draw" : result == localPlayer ? "You win" : "You lose"};
+        }
+        return overlayLines;
+    }
+}
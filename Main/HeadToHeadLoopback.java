@@ -0,0 +1,73 @@
+package Main;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The HeadToHeadLoopback class plays a rollback match between two {@link HeadToHead} processes on localhost,
+ * both played by the autopilot, with delay, jitter and loss injected into the packets of both. It prints both
+ * reports and checks that the two processes ended the match at the same step in the same state.
+ */
+public class HeadToHeadLoopback {
+    private static final int DEFAULT_LATENCY_MS = 30;
+    private static final int DEFAULT_JITTER_MS = 10;
+    private static final int DEFAULT_MATCH_SECONDS = 60;
+
+    /**
+     * Runs the match and prints the reports.
+     * @param args Optional: the simulated latency and jitter in milliseconds, then the loss in percent,
+     * then the length of the match in seconds.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int latencyMs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LATENCY_MS;
+        int jitterMs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_JITTER_MS;
+        String lossPercent = args.length > 2 ? args[2] : "0";
+        int matchSeconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_MATCH_SECONDS;
+        int[] ports = {freePort(), freePort()};
+        Process[] peers = new Process[2];
+        File[] outputs = new File[2];
+        for(int player = 0; player < 2; player++){
+            outputs[player] = File.createTempFile("head-to-head-" + player + "-", ".log");
+            outputs[player].deleteOnExit();
+            peers[player] = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Djava.awt.headless=true", "-cp", System.getProperty("java.class.path"), HeadToHead.class.getName(),
+                    "--headless", "--player=" + player, "--port=" + ports[player], "--peer=127.0.0.1:" + ports[1 - player],
+                    "--seconds=" + matchSeconds, "--latency=" + latencyMs, "--jitter=" + jitterMs, "--loss=" + lossPercent)
+                    .redirectErrorStream(true).redirectOutput(outputs[player]).start();
+        }
+        String[] finals = new String[2];
+        for(int player = 0; player < 2; player++){
+            int exit = peers[player].waitFor();
+            List<String> lines = Files.readAllLines(outputs[player].toPath());
+            for(String line : lines){
+                System.out.println(line);
+                if(line.startsWith("final: ")){
+                    finals[player] = line;
+                }
+            }
+            if(exit != 0){
+                System.out.println("player " + player + " exited with " + exit);
+            }
+        }
+        if(finals[0] != null && finals[0].equals(finals[1])){
+            System.out.println("Both peers ended the match in the same state.");
+        }
+        else{
+            System.out.println("The peers disagree on the end of the match.");
+            System.exit(1);
+        }
+    }
+
+    /** Returns a UDP port that was free a moment ago. */
+    private static int freePort() throws IOException{
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        }
+    }
+}
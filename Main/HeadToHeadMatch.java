@@ -0,0 +1,129 @@
+package Main;
+import java.nio.ByteBuffer;
+
+/**
+ * A head-to-head match between two players on mirrored fields: each player plays their own copy of the same level,
+ * and every brick a player destroys brings back one of the destroyed bricks on the other player's field.
+ * The first player to clear their field wins, a player who loses their last life loses, and when the time runs out
+ * the higher score wins. Both fields are stepped together from both players' input, so the match is a single
+ * deterministic state that {@link RollbackSession} can snapshot, restore and simulate again.
+ */
+public class HeadToHeadMatch {
+    /** The result of a match that is not over yet. */
+    public static final int PLAYING = -2;
+    /** The result of a match that ended even. */
+    public static final int DRAW = -1;
+    private final GameWorld[] worlds;
+    private final int maxTicks;
+    private int tick;
+
+    /**
+     * Creates a match on two fields in their starting state.
+     * @param first The field of player 0.
+     * @param second The field of player 1, a copy of the first.
+     * @param maxTicks The number of steps after which the match ends on score.
+     */
+    public HeadToHeadMatch(GameWorld first, GameWorld second, int maxTicks){
+        if(first.getSnapshotSize() != second.getSnapshotSize()){
+            throw new IllegalArgumentException("Both players must play the same level");
+        }
+        worlds = new GameWorld[] {first, second};
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Steps both fields once, then lets each player's destroyed bricks come back on the other field.
+     * @param firstInput The input of player 0 for this step.
+     * @param secondInput The input of player 1 for this step.
+     */
+    public void step(int firstInput, int secondInput){
+        int firstBricks = worlds[0].getBricks().getNumOfBricks();
+        int secondBricks = worlds[1].getBricks().getNumOfBricks();
+        worlds[0].setInputMask(firstInput);
+        worlds[1].setInputMask(secondInput);
+        worlds[0].step();
+        worlds[1].step();
+        int firstDestroyed = firstBricks - worlds[0].getBricks().getNumOfBricks();
+        int secondDestroyed = secondBricks - worlds[1].getBricks().getNumOfBricks();
+        // A field cleared by this step stays cleared: the win is decided before any brick comes back.
+        if(getResult() == PLAYING){
+            worlds[1].reviveBricks(firstDestroyed);
+            worlds[0].reviveBricks(secondDestroyed);
+        }
+        tick++;
+    }
+
+    /**
+     * Returns the outcome of the match.
+     * @return The winning player, {@link #DRAW}, or {@link #PLAYING} while the match goes on.
+     */
+    public int getResult(){
+        boolean firstOut = worlds[0].getPlayer().getLifePoints() == 0;
+        boolean secondOut = worlds[1].getPlayer().getLifePoints() == 0;
+        boolean firstCleared = !firstOut && worlds[0].getBricks().getNumOfBricks() == 0;
+        boolean secondCleared = !secondOut && worlds[1].getBricks().getNumOfBricks() == 0;
+        if(firstCleared != secondCleared){
+            return firstCleared ? 0 : 1;
+        }
+        if(!firstCleared && firstOut != secondOut){
+            return firstOut ? 1 : 0;
+        }
+        if(firstCleared || firstOut || tick >= maxTicks){
+            int firstScore = worlds[0].getPlayer().getScore();
+            int secondScore = worlds[1].getPlayer().getScore();
+            return firstScore == secondScore ? DRAW : firstScore > secondScore ? 0 : 1;
+        }
+        return PLAYING;
+    }
+
+    /**
+     * Returns a player's field.
+     * @param player The player, 0 or 1.
+     * @return The field.
+     */
+    public GameWorld getWorld(int player){
+        return worlds[player];
+    }
+
+    /** Returns the number of steps played. */
+    public int getTick(){
+        return tick;
+    }
+
+    /** Returns the size of a snapshot of the match, in bytes. */
+    public int getSnapshotSize(){
+        return 4 + 2 * worlds[0].getSnapshotSize();
+    }
+
+    /**
+     * Writes the step number and both fields into a snapshot, as {@link GameWorld#writeSnapshot} does.
+     * @param buffer The buffer to write to.
+     * @param offset The position to write at.
+     * @return The position after the snapshot.
+     */
+    public int writeSnapshot(ByteBuffer buffer, int offset){
+        buffer.putInt(offset, tick);
+        offset = worlds[0].writeSnapshot(buffer, offset + 4);
+        return worlds[1].writeSnapshot(buffer, offset);
+    }
+
+    /**
+     * Puts the match back in the state of a snapshot written by {@link #writeSnapshot}.
+     * @param buffer The buffer to read from.
+     * @param offset The position to read at.
+     * @return The position after the snapshot.
+     */
+    public int restoreSnapshot(ByteBuffer buffer, int offset){
+        tick = buffer.getInt(offset);
+        offset = worlds[0].restoreSnapshot(buffer, offset + 4);
+        return worlds[1].restoreSnapshot(buffer, offset);
+    }
+
+    /**
+     * Returns a hash of the state of both fields, for checking that two peers simulated the same match.
+     * @return The hash.
+     */
+    public long stateHash(){
+        return worlds[0].stateHash() * 31 + worlds[1].stateHash() + tick;
+    }
+}
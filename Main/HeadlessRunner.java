@@ -0,0 +1,106 @@
+package Main;
+import Render.NullRenderObserver;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+
+/**
+ * The HeadlessRunner class steps the game world without a window, sound or timer.
+ * It is meant for profiling and soak tests on machines without a display:
+ * the world is stepped back to back and a fresh game is started whenever one ends.
+ */
+public class HeadlessRunner {
+    private static final int BALL_DEFAULT_X = Screen.WINDOW_WIDTH / 2;
+    private static final int BALL_DEFAULT_Y = Screen.WINDOW_HEIGHT / 2;
+    private static final int PADDLE_DEFAULT_X = (Screen.WINDOW_WIDTH / 2) - (Paddle.getWidth() / 2);
+    private static final int PADDLE_DEFAULT_Y = Screen.WINDOW_HEIGHT - 70;
+    private static final int LIFE_POINTS = 3;
+    private static final int SCORE_POINTS = 100;
+    private static final long DEFAULT_TICKS = 1_000_000L;
+    private static final int DEFAULT_LINES = 4;
+
+    /**
+     * Creates a fresh world in its starting state that renders to nothing and plays no sound,
+     * stepping at the default physics rate.
+     * @param numberOfLines The number of brick lines in the level.
+     * @return The new world.
+     */
+    public static GameWorld newWorld(int numberOfLines){
+        return newWorld(numberOfLines, GameLoop.DEFAULT_PHYSICS_HZ);
+    }
+
+    /**
+     * Creates a fresh world in its starting state that renders to nothing and plays no sound.
+     * @param numberOfLines The number of brick lines in the level.
+     * @param physicsHz The number of physics steps per second of game time.
+     * @return The new world.
+     */
+    public static GameWorld newWorld(int numberOfLines, int physicsHz){
+        return newWorld(numberOfLines, physicsHz, PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Creates a fresh world in its starting state that renders to nothing and plays no sound.
+     * @param numberOfLines The number of brick lines in the level.
+     * @param physicsHz The number of physics steps per second of game time.
+     * @param profile The physics constants to play with.
+     * @return The new world.
+     */
+    public static GameWorld newWorld(int numberOfLines, int physicsHz, PhysicsProfile profile){
+        Player player = new Player(LIFE_POINTS, SCORE_POINTS);
+        Ball ball = new Ball(BALL_DEFAULT_X, BALL_DEFAULT_Y);
+        Paddle paddle = new Paddle(PADDLE_DEFAULT_X, PADDLE_DEFAULT_Y);
+        return new GameWorld(player, new NullRenderObserver(), null, ball, paddle, new BrickLines(numberOfLines), physicsHz, profile);
+    }
+
+    /**
+     * Creates a fresh endless world that renders to nothing and plays no sound, stepping at the default physics rate.
+     * @param seed The seed of the generated rows.
+     * @return The new world.
+     */
+    public static GameWorld newEndlessWorld(long seed){
+        return newEndlessWorld(seed, PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Creates a fresh endless world that renders to nothing and plays no sound, stepping at the default physics rate.
+     * @param seed The seed of the generated rows.
+     * @param profile The physics constants to play with.
+     * @return The new world.
+     */
+    public static GameWorld newEndlessWorld(long seed, PhysicsProfile profile){
+        GameWorld world = newWorld(0, GameLoop.DEFAULT_PHYSICS_HZ, profile);
+        world.setDescendingRows(new DescendingRows(world.getBricks(), seed));
+        return world;
+    }
+
+    /**
+     * Runs the world for a number of ticks and prints the achieved tick rate.
+     * @param args Optional: the number of ticks to run, then the number of brick lines or {@code endless},
+     * then {@code autopilot} to let the {@link AutopilotController} play instead of leaving the paddle still.
+     */
+    public static void main(String[] args) {
+        long ticks = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_TICKS;
+        boolean endless = args.length > 1 && args[1].equals("endless");
+        int lines = args.length > 1 && !endless ? Integer.parseInt(args[1]) : DEFAULT_LINES;
+        PaddleController controller = args.length > 2 && args[2].equals("autopilot") ? new AutopilotController() : null;
+        long games = 1;
+        GameWorld world = endless ? newEndlessWorld(games) : newWorld(lines);
+        world.setSpacePressed(true);
+        long start = System.nanoTime();
+        for(long tick = 0; tick < ticks; tick++){
+            if(world.isGameOver()){
+                games++;
+                world = endless ? newEndlessWorld(games) : newWorld(lines);
+                world.setSpacePressed(true);
+            }
+            if(controller != null){
+                world.setInputMask(controller.nextInput(world));
+            }
+            world.step();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s), %d games%n", ticks, seconds, ticks / seconds, games);
+    }
+}
@@ -0,0 +1,503 @@
+package Main;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import GameObjects.Ball;
+import GameObjects.BrickField;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+import Render.NullRenderObserver;
+
+/**
+ * The InputLog class holds a recorded play session in a compact binary form.
+ * A session is a list of segments, one per played level. Each segment stores the state the level started from,
+ * then the input bitmask of every physics step, run-length encoded: a run is the mask byte followed by
+ * the number of steps it was held as a variable-length integer, so the step number of each run is implicit.
+ * Every {@link #INDEX_INTERVAL_TICKS} steps a run is cut and an index entry stores the step, the byte offset of
+ * the run and the world's state hash at that step, for seeking into the inputs and for locating where a replay diverges.
+ * <p>
+ * File layout (big-endian): magic, version, physics rate, segment count, then per segment:
+ * level, life points, score amount, score, paddle x and y, ball x and y, ball velocities,
+ * brick count and every brick's x, y, width, height, hit points and type, whether the level is endless and
+ * the seed of its rows, step count, run bytes, index entries, end-state hash and whether the level was played to its end.
+ */
+public class InputLog {
+    /** "BBRL": Brick Breaker Replay Log. */
+    private static final int MAGIC = 0x4242524C;
+    private static final int VERSION = 4;
+    /** Steps between two index entries; about 8.5 seconds at the default physics rate. */
+    public static final int INDEX_INTERVAL_TICKS = 1024;
+    /** Values stored per brick: x, y, width, height, hit points and type. */
+    private static final int BRICK_INTS = 6;
+    private final int physicsHz;
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * Constructs an empty log.
+     * @param physicsHz The physics rate the session is played at; a replay must step at the same rate.
+     */
+    public InputLog(int physicsHz){
+        this.physicsHz = physicsHz;
+    }
+
+    /**
+     * Returns the physics rate of the recorded session.
+     * @return The number of physics steps per second.
+     */
+    public int getPhysicsHz(){
+        return physicsHz;
+    }
+
+    /**
+     * Returns the number of recorded segments.
+     * @return The number of segments.
+     */
+    public int getNumOfSegments(){
+        return segments.size();
+    }
+
+    /**
+     * Returns a recorded segment.
+     * @param index The index of the segment.
+     * @return The segment.
+     */
+    public Segment getSegment(int index){
+        return segments.get(index);
+    }
+
+    /**
+     * Starts a new segment from the current state of a world that has not been stepped yet.
+     * @param world The world of the level.
+     * @param level The number of the level, for reporting; the bricks themselves are recorded.
+     * @return The new segment.
+     */
+    public Segment addSegment(GameWorld world, int level){
+        Segment segment = new Segment();
+        segment.level = level;
+        segment.lifePoints = world.getPlayer().getLifePoints();
+        segment.scoreAmount = world.getPlayer().getScoreAmount();
+        segment.score = world.getPlayer().getScore();
+        segment.paddleX = world.getPaddle().getPreciseX();
+        segment.paddleY = world.getPaddle().getY();
+        segment.ballX = world.getBall().getPreciseX();
+        segment.ballY = world.getBall().getPreciseY();
+        segment.ballXVelocity = world.getBall().getBallXVelocity();
+        segment.ballYVelocity = world.getBall().getBallYVelocity();
+        if(world.getDescendingRows() != null){
+            // Endless rows are all generated from the seed.
+            segment.endless = true;
+            segment.endlessSeed = world.getDescendingRows().getSeed();
+            segment.bricks = new int[0];
+            segments.add(segment);
+            return segment;
+        }
+        // Levels come from a level pack that may change, so the bricks are kept with the inputs.
+        BrickField bricks = world.getBricks().getField();
+        segment.bricks = new int[bricks.getLiveCount() * BRICK_INTS];
+        int brick = 0;
+        for(int id = bricks.nextLive(0); id >= 0; id = bricks.nextLive(id + 1)){
+            segment.bricks[brick++] = bricks.getX(id);
+            segment.bricks[brick++] = bricks.getY(id);
+            segment.bricks[brick++] = bricks.getWidth(id);
+            segment.bricks[brick++] = bricks.getHeight(id);
+            segment.bricks[brick++] = bricks.getHitPoints(id);
+            segment.bricks[brick++] = bricks.getType(id);
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Builds a fresh world in the state a segment started from.
+     * @param segment A segment of this log.
+     * @return The new world, rendering to nothing and playing no sound.
+     */
+    public GameWorld newWorld(Segment segment){
+        Player player = new Player(segment.lifePoints, segment.scoreAmount);
+        player.setScore(segment.score);
+        Ball ball = new Ball(0, 0);
+        ball.setPrecisePosition(segment.ballX, segment.ballY);
+        ball.setBallXVelocity(segment.ballXVelocity);
+        ball.setBallYVelocity(segment.ballYVelocity);
+        Paddle paddle = new Paddle(0, segment.paddleY);
+        paddle.setPreciseX(segment.paddleX);
+        BrickLines lineOfBricks = new BrickLines(0);
+        int[] b = segment.bricks;
+        for(int brick = 0; brick < b.length; brick += BRICK_INTS){
+            lineOfBricks.addBrick(b[brick], b[brick + 1], b[brick + 2], b[brick + 3], b[brick + 4], b[brick + 5]);
+        }
+        GameWorld world = new GameWorld(player, new NullRenderObserver(), null, ball, paddle, lineOfBricks, physicsHz);
+        if(segment.endless){
+            world.setDescendingRows(new DescendingRows(lineOfBricks, segment.endlessSeed));
+        }
+        return world;
+    }
+
+    /**
+     * Writes the log to a file, replacing it. Every segment must be finished.
+     * @param path The file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path path) throws IOException{
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(physicsHz);
+            out.writeInt(segments.size());
+            for(Segment segment : segments){
+                segment.write(out);
+            }
+        }
+    }
+
+    /**
+     * Reads a log written by {@link #write(Path)}.
+     * @param path The file to read.
+     * @return The log.
+     * @throws IOException if the file cannot be read or is not a replay log.
+     */
+    public static InputLog read(Path path) throws IOException{
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if(in.readInt() != MAGIC){
+                throw new IOException(path + " is not a replay log");
+            }
+            int version = in.readShort();
+            if(version != VERSION){
+                throw new IOException("Unsupported replay log version " + version);
+            }
+            InputLog log = new InputLog(in.readInt());
+            int numOfSegments = in.readInt();
+            for(int i = 0; i < numOfSegments; i++){
+                log.segments.add(Segment.read(in));
+            }
+            return log;
+        }
+    }
+
+    /**
+     * One level of a recorded session: its starting state, its inputs and its index.
+     */
+    public static final class Segment {
+        private int level;
+        private int lifePoints;
+        private int scoreAmount;
+        private int score;
+        private double paddleX;
+        private int paddleY;
+        private double ballX;
+        private double ballY;
+        private double ballXVelocity;
+        private double ballYVelocity;
+        /** The bricks the level started with, {@link #BRICK_INTS} values each. */
+        private int[] bricks;
+        /** Whether the level was played in endless mode, and the seed of its rows. */
+        private boolean endless;
+        private long endlessSeed;
+        /** The number of steps recorded. */
+        private int ticks;
+        /** Encoded runs, valid up to {@link #runBytesLength}. */
+        private byte[] runBytes = new byte[256];
+        private int runBytesLength;
+        /** The run being recorded; it is encoded once the mask changes or an index entry is due. */
+        private int pendingMask = -1;
+        private int pendingLength;
+        private int indexCount;
+        private int[] indexTicks = new int[8];
+        private int[] indexOffsets = new int[8];
+        private long[] indexHashes = new long[8];
+        private long endHash;
+        private boolean completed;
+
+        private Segment(){
+        }
+
+        /**
+         * Records the input of the next step. Must be called before the world is stepped.
+         * @param world The world about to be stepped.
+         */
+        public void recordTick(GameWorld world){
+            int mask = world.getInputMask();
+            if(ticks % INDEX_INTERVAL_TICKS == 0){
+                flushRun();
+                addIndexEntry(ticks, runBytesLength, world.stateHash());
+            }
+            if(mask != pendingMask){
+                flushRun();
+                pendingMask = mask;
+            }
+            pendingLength++;
+            ticks++;
+        }
+
+        /**
+         * Ends the recording of the segment.
+         * @param world The world after its last step.
+         * @param completed true if the level was played until the game ended, false if the session was cut short.
+         */
+        public void finish(GameWorld world, boolean completed){
+            flushRun();
+            endHash = world.stateHash();
+            this.completed = completed;
+        }
+
+        /**
+         * Returns the number of the level in the session's level pack.
+         * @return The level.
+         */
+        public int getLevel(){
+            return level;
+        }
+
+        /**
+         * Returns the number of recorded steps.
+         * @return The step count.
+         */
+        public int getTicks(){
+            return ticks;
+        }
+
+        /**
+         * Returns the state hash of the world after the last recorded step.
+         * @return The end-state hash.
+         */
+        public long getEndHash(){
+            return endHash;
+        }
+
+        /**
+         * Returns whether the level was played until the game ended.
+         * @return false if the session was cut short during this level.
+         */
+        public boolean isCompleted(){
+            return completed;
+        }
+
+        /**
+         * Returns the number of index entries.
+         * @return The index size.
+         */
+        public int getIndexCount(){
+            return indexCount;
+        }
+
+        /**
+         * Returns the step of an index entry.
+         * @param entry The index entry.
+         * @return The step the entry points at.
+         */
+        public int getIndexTick(int entry){
+            return indexTicks[entry];
+        }
+
+        /**
+         * Returns the world's state hash at an index entry, before its step.
+         * @param entry The index entry.
+         * @return The state hash.
+         */
+        public long getIndexHash(int entry){
+            return indexHashes[entry];
+        }
+
+        /**
+         * Returns the size of the encoded inputs.
+         * @return The number of bytes the runs take.
+         */
+        public int getRunBytesLength(){
+            return runBytesLength;
+        }
+
+        /**
+         * Returns the input recorded for a step, seeking through the index instead of decoding from the start.
+         * @param tick The step, smaller than {@link #getTicks()}.
+         * @return The input bitmask of that step.
+         */
+        public int inputAt(int tick){
+            int entry = Arrays.binarySearch(indexTicks, 0, indexCount, tick);
+            if(entry < 0){
+                entry = -entry - 2;
+            }
+            RunReader reader = newReader(indexOffsets[entry]);
+            int runStart = indexTicks[entry];
+            while(reader.next()){
+                if(tick < runStart + reader.length){
+                    return reader.mask;
+                }
+                runStart += reader.length;
+            }
+            throw new IndexOutOfBoundsException("tick " + tick + " of " + ticks);
+        }
+
+        /**
+         * Returns a reader over the runs, from the first one.
+         * @return The reader.
+         */
+        public RunReader newReader(){
+            return newReader(0);
+        }
+
+        private RunReader newReader(int offset){
+            return new RunReader(runBytes, offset, runBytesLength);
+        }
+
+        /** Encodes the pending run, if any. */
+        private void flushRun(){
+            if(pendingLength == 0){
+                return;
+            }
+            ensureRunCapacity(6);
+            runBytes[runBytesLength++] = (byte) pendingMask;
+            int length = pendingLength;
+            while((length & ~0x7F) != 0){
+                runBytes[runBytesLength++] = (byte) ((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            runBytes[runBytesLength++] = (byte) length;
+            pendingLength = 0;
+        }
+
+        private void ensureRunCapacity(int extra){
+            if(runBytesLength + extra > runBytes.length){
+                runBytes = Arrays.copyOf(runBytes, Math.max(runBytes.length * 2, runBytesLength + extra));
+            }
+        }
+
+        private void addIndexEntry(int tick, int offset, long hash){
+            if(indexCount == indexTicks.length){
+                indexTicks = Arrays.copyOf(indexTicks, indexCount * 2);
+                indexOffsets = Arrays.copyOf(indexOffsets, indexCount * 2);
+                indexHashes = Arrays.copyOf(indexHashes, indexCount * 2);
+            }
+            indexTicks[indexCount] = tick;
+            indexOffsets[indexCount] = offset;
+            indexHashes[indexCount] = hash;
+            indexCount++;
+        }
+
+        private void write(DataOutputStream out) throws IOException{
+            out.writeInt(level);
+            out.writeInt(lifePoints);
+            out.writeInt(scoreAmount);
+            out.writeInt(score);
+            out.writeDouble(paddleX);
+            out.writeInt(paddleY);
+            out.writeDouble(ballX);
+            out.writeDouble(ballY);
+            out.writeDouble(ballXVelocity);
+            out.writeDouble(ballYVelocity);
+            out.writeInt(bricks.length / BRICK_INTS);
+            for(int value : bricks){
+                out.writeInt(value);
+            }
+            out.writeBoolean(endless);
+            out.writeLong(endlessSeed);
+            out.writeInt(ticks);
+            out.writeInt(runBytesLength);
+            out.write(runBytes, 0, runBytesLength);
+            out.writeInt(indexCount);
+            for(int i = 0; i < indexCount; i++){
+                out.writeInt(indexTicks[i]);
+                out.writeInt(indexOffsets[i]);
+                out.writeLong(indexHashes[i]);
+            }
+            out.writeLong(endHash);
+            out.writeBoolean(completed);
+        }
+
+        private static Segment read(DataInputStream in) throws IOException{
+            Segment segment = new Segment();
+            segment.level = in.readInt();
+            segment.lifePoints = in.readInt();
+            segment.scoreAmount = in.readInt();
+            segment.score = in.readInt();
+            segment.paddleX = in.readDouble();
+            segment.paddleY = in.readInt();
+            segment.ballX = in.readDouble();
+            segment.ballY = in.readDouble();
+            segment.ballXVelocity = in.readDouble();
+            segment.ballYVelocity = in.readDouble();
+            segment.bricks = new int[in.readInt() * BRICK_INTS];
+            for(int i = 0; i < segment.bricks.length; i++){
+                segment.bricks[i] = in.readInt();
+            }
+            segment.endless = in.readBoolean();
+            segment.endlessSeed = in.readLong();
+            segment.ticks = in.readInt();
+            segment.runBytesLength = in.readInt();
+            segment.runBytes = new byte[segment.runBytesLength];
+            in.readFully(segment.runBytes);
+            segment.indexCount = in.readInt();
+            segment.indexTicks = new int[Math.max(1, segment.indexCount)];
+            segment.indexOffsets = new int[Math.max(1, segment.indexCount)];
+            segment.indexHashes = new long[Math.max(1, segment.indexCount)];
+            for(int i = 0; i < segment.indexCount; i++){
+                segment.indexTicks[i] = in.readInt();
+                segment.indexOffsets[i] = in.readInt();
+                segment.indexHashes[i] = in.readLong();
+            }
+            segment.endHash = in.readLong();
+            segment.completed = in.readBoolean();
+            return segment;
+        }
+    }
+
+    /**
+     * Decodes the runs of a segment one at a time without allocating.
+     */
+    public static final class RunReader {
+        private final byte[] bytes;
+        private final int end;
+        private int position;
+        private int mask;
+        private int length;
+
+        private RunReader(byte[] bytes, int position, int end){
+            this.bytes = bytes;
+            this.position = position;
+            this.end = end;
+        }
+
+        /**
+         * Advances to the next run.
+         * @return false once every run was read.
+         */
+        public boolean next(){
+            if(position >= end){
+                return false;
+            }
+            mask = bytes[position++];
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while((b & 0x80) != 0);
+            length = value;
+            return true;
+        }
+
+        /**
+         * Returns the input bitmask of the current run.
+         * @return The input bitmask.
+         */
+        public int getMask(){
+            return mask;
+        }
+
+        /**
+         * Returns the number of steps the current run lasts.
+         * @return The run length.
+         */
+        public int getLength(){
+            return length;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package Main;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+/**
+ * The InputRecorder class records a play session into an {@link InputLog} file.
+ * The game calls it once per level and once per physics step; the file is rewritten at the end of every level
+ * and when the game exits, so a session cut short is still saved up to its last step.
+ * The methods are synchronized because the game exits from a shutdown hook while steps run on the event dispatch thread.
+ */
+public class InputRecorder {
+    private final Path path;
+    private final InputLog log;
+    /** The segment of the level being played, or null between levels. */
+    private InputLog.Segment segment;
+    private GameWorld world;
+
+    /**
+     * Constructs a recorder writing to the given file.
+     * @param path The file the session is written to.
+     * @param physicsHz The physics rate the session is played at.
+     */
+    public InputRecorder(Path path, int physicsHz){
+        this.path = path;
+        this.log = new InputLog(physicsHz);
+    }
+
+    /**
+     * Starts recording a level.
+     * @param world The world of the level, before its first step.
+     * @param level The number of the level in the level pack.
+     */
+    public synchronized void beginLevel(GameWorld world, int level){
+        this.world = world;
+        segment = log.addSegment(world, level);
+    }
+
+    /** Records the input of the step the world is about to take. */
+    public synchronized void recordTick(){
+        if(segment != null){
+            segment.recordTick(world);
+        }
+    }
+
+    /** Ends the level once its game is over and saves the session. */
+    public synchronized void endLevel(){
+        finishSegment(true);
+    }
+
+    /** Saves the session, ending the level being played as cut short. */
+    public synchronized void close(){
+        finishSegment(false);
+    }
+
+    private void finishSegment(boolean completed){
+        if(segment == null){
+            return;
+        }
+        segment.finish(world, completed);
+        segment = null;
+        world = null;
+        try {
+            log.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the replay log " + path, e);
+        }
+    }
+}
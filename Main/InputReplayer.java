@@ -0,0 +1,93 @@
+package Main;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The InputReplayer class re-runs a session recorded by {@link InputRecorder} without a window, sound or timer.
+ * Every level is rebuilt from the state it started in and stepped back to back with the recorded inputs,
+ * through the same {@link GameWorld} rules the game uses. The world's state hash is checked at every index entry
+ * and at the end of each level, so a change in the rules that alters a recorded game is caught, along with
+ * the window of steps where it first diverged.
+ */
+public class InputReplayer {
+    private final InputLog log;
+
+    /**
+     * Constructs a replayer for a recorded session.
+     * @param log The recorded session.
+     */
+    public InputReplayer(InputLog log){
+        this.log = log;
+    }
+
+    /**
+     * Replays one level of the session.
+     * @param segmentIndex The index of the level in the session.
+     * @return The first step whose state hash does not match the recording, or -1 if the replay matches.
+     *         A mismatch found at an index entry means the game diverged at most {@link InputLog#INDEX_INTERVAL_TICKS} steps before.
+     */
+    public int replaySegment(int segmentIndex){
+        InputLog.Segment segment = log.getSegment(segmentIndex);
+        GameWorld world = log.newWorld(segment);
+        InputLog.RunReader reader = segment.newReader();
+        int tick = 0;
+        int nextEntry = 0;
+        while(reader.next()){
+            world.setInputMask(reader.getMask());
+            int runEnd = tick + reader.getLength();
+            for(; tick < runEnd; tick++){
+                // Runs are cut at every index entry, so an entry can only fall on the first step of a run.
+                if(nextEntry < segment.getIndexCount() && segment.getIndexTick(nextEntry) == tick){
+                    if(world.stateHash() != segment.getIndexHash(nextEntry)){
+                        return tick;
+                    }
+                    nextEntry++;
+                }
+                world.step();
+            }
+        }
+        return world.stateHash() == segment.getEndHash() ? -1 : tick;
+    }
+
+    /**
+     * Replays a recorded session and prints the result of every level.
+     * Exits with status 1 if any level does not match its recording.
+     * @param args The replay log file, then optionally how many times to replay it (for profiling).
+     * @throws IOException if the log cannot be read.
+     */
+    public static void main(String[] args) throws IOException{
+        if(args.length == 0){
+            System.err.println("usage: InputReplayer <replay log> [repeat]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        int repeat = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        InputLog log = InputLog.read(path);
+        InputReplayer replayer = new InputReplayer(log);
+        boolean matches = true;
+        long totalTicks = 0;
+        long start = System.nanoTime();
+        for(int run = 0; run < repeat; run++){
+            for(int i = 0; i < log.getNumOfSegments(); i++){
+                InputLog.Segment segment = log.getSegment(i);
+                long segmentStart = System.nanoTime();
+                int divergedAt = replayer.replaySegment(i);
+                double milliseconds = (System.nanoTime() - segmentStart) / 1e6;
+                totalTicks += segment.getTicks();
+                if(run > 0 && divergedAt < 0){
+                    continue;
+                }
+                String result = divergedAt < 0 ? "ok" : "DIVERGED by step " + divergedAt;
+                System.out.printf("level %d: %d steps, %d input bytes, %.2f ms, %s%s%n", segment.getLevel(), segment.getTicks(),
+                        segment.getRunBytesLength(), milliseconds, result, segment.isCompleted() ? "" : " (cut short)");
+                matches &= divergedAt < 0;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d steps in %.3f s (%.0f steps/s) at %d Hz%n", totalTicks, seconds, totalTicks / seconds, log.getPhysicsHz());
+        if(!matches){
+            System.exit(1);
+        }
+    }
+}
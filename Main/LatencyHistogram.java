@@ -0,0 +1,133 @@
+package Main;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * A fixed-memory histogram of non-negative values, usually durations in nanoseconds.
+ * Buckets are log-linear like HdrHistogram's: values below {@value #SUB_BUCKETS} are counted exactly, and above them
+ * every power of two is split into {@value #HALF_SUB_BUCKETS} linear buckets, so any value is kept within about 3%
+ * and the whole range up to about 18 minutes of nanoseconds fits in about 1200 counters. Recording is a few arithmetic operations and never allocates.
+ * Not thread-safe: one thread records, and readers synchronize with it.
+ */
+public class LatencyHistogram {
+    /** Values below this are counted exactly; above it, each power of two has half as many linear buckets. */
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    /** Linear buckets per power of two above the exact range. */
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    /** Values at or above 2^40 are counted in the last bucket. */
+    private static final int MAX_VALUE_BITS = 40;
+    private static final long MAX_TRACKED_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private final long[] counts = new long[bucketIndex(MAX_TRACKED_VALUE) + 1];
+    private long totalCount;
+    private long max;
+    private double sum;
+
+    /**
+     * Records one value.
+     * @param value The value; negative values are counted as 0 and huge ones in the last bucket.
+     */
+    public void record(long value){
+        long clamped = Math.max(0, Math.min(value, MAX_TRACKED_VALUE));
+        counts[bucketIndex(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Adds every value recorded by another histogram to this one.
+     * @param other The histogram to add, which is not modified.
+     */
+    public void add(LatencyHistogram other){
+        for(int index = 0; index < counts.length; index++){
+            counts[index] += other.counts[index];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /** Forgets every recorded value. */
+    public void reset(){
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    /** Returns the number of recorded values. */
+    public long getCount(){
+        return totalCount;
+    }
+
+    /** Returns the largest recorded value, exactly. */
+    public long getMax(){
+        return max;
+    }
+
+    /** Returns the mean of the recorded values, or 0 if there are none. */
+    public double getMean(){
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * Returns the value below which the given share of the recorded values fall.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The highest value of the bucket holding that percentile, capped at the maximum; 0 if nothing was recorded.
+     */
+    public long valueAtPercentile(double percentile){
+        if(totalCount == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for(int index = 0; index < counts.length; index++){
+            seen += counts[index];
+            if(seen >= rank){
+                return Math.min(highestValueIn(index), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Writes the percentile distribution in the text format of HdrHistogram's {@code outputPercentileDistribution},
+     * so it can be plotted with the usual HdrHistogram tools.
+     * @param out The stream to write to.
+     * @param unitDivisor The recorded values are divided by this, e.g. 1e6 to print nanoseconds as milliseconds.
+     */
+    public void writePercentileDistribution(PrintStream out, double unitDivisor){
+        out.printf("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+        long seen = 0;
+        for(int index = 0; index < counts.length; index++){
+            if(counts[index] == 0){
+                continue;
+            }
+            seen += counts[index];
+            double fraction = (double) seen / totalCount;
+            double value = Math.min(highestValueIn(index), max) / unitDivisor;
+            if(seen < totalCount){
+                out.printf("%12.3f %2.12f %10d %14.2f%n", value, fraction, seen, 1 / (1 - fraction));
+            }
+            else{
+                out.printf("%12.3f %2.12f %10d%n", value, fraction, seen);
+            }
+        }
+        out.printf("#[Mean    = %12.3f, Max = %12.3f]%n", getMean() / unitDivisor, max / unitDivisor);
+        out.printf("#[Total count    = %12d]%n", totalCount);
+    }
+
+    /** Maps a value to its bucket: exact below {@link #SUB_BUCKETS}, then {@link #HALF_SUB_BUCKETS} buckets per power of two. */
+    private static int bucketIndex(long value){
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        return shift * HALF_SUB_BUCKETS + (int)(value >>> shift);
+    }
+
+    /** Returns the highest value that maps to a bucket. */
+    private static long highestValueIn(int index){
+        int shift = index < SUB_BUCKETS ? 0 : (index / HALF_SUB_BUCKETS) - 1;
+        long subBucket = index - (long) shift * HALF_SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,113 @@
+package Main;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import GameObjects.BrickLines;
+import GameObjects.LevelPack;
+
+/**
+ * Converts levels from a readable text file into a binary {@link LevelPack}.
+ * <p>
+ * The text is read line by line; blank lines and everything after a {@code #} are ignored.
+ * <ul>
+ * <li>{@code level} starts a new level.</li>
+ * <li>{@code row <bricks>} adds the next line of bricks below the previous row of the level, laid out like the
+ * generated lines of {@link BrickLines}. Each character is one brick position from the left: {@code .} leaves it
+ * empty and a digit from 1 to 9 places a standard brick with that many hit points.</li>
+ * <li>{@code brick <x> <y> [hit points] [type]} places a brick anywhere in the window; hit points default to 1
+ * and the type to the standard brick.</li>
+ * </ul>
+ * Bricks of a level must not overlap; an overlapping brick is reported with its line like any other error.
+ */
+public class LevelPackConverter {
+    private final LevelPack.Builder builder = new LevelPack.Builder();
+    /** The number of rows in the current level. */
+    private int rows;
+
+    /**
+     * Converts one line of the text format.
+     * @param line The line, without its line break.
+     * @throws IllegalArgumentException if the line is not valid.
+     */
+    void convertLine(String line){
+        int comment = line.indexOf('#');
+        String[] words = (comment >= 0 ? line.substring(0, comment) : line).trim().split("\\s+");
+        switch(words[0]){
+            case "":
+                return;
+            case "level":
+                expectArguments(words, 0, 0);
+                builder.beginLevel();
+                rows = 0;
+                return;
+            case "row":
+                expectArguments(words, 1, 1);
+                addRow(words[1]);
+                return;
+            case "brick":
+                expectArguments(words, 2, 4);
+                builder.addBrick(Integer.parseInt(words[1]), Integer.parseInt(words[2]),
+                        words.length > 3 ? Integer.parseInt(words[3]) : 1,
+                        words.length > 4 ? Integer.parseInt(words[4]) : BrickLines.STANDARD_BRICK);
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown command \"" + words[0] + "\"");
+        }
+    }
+
+    private void addRow(String bricks){
+        if(bricks.length() > BrickLines.getBricksPerLine()){
+            throw new IllegalArgumentException("A row holds at most " + BrickLines.getBricksPerLine() + " bricks");
+        }
+        int y = BrickLines.getLineY(rows);
+        for(int column = 0; column < bricks.length(); column++){
+            char brick = bricks.charAt(column);
+            if(brick == '.'){
+                continue;
+            }
+            if(brick < '1' || brick > '9'){
+                throw new IllegalArgumentException("Unknown brick '" + brick + "'");
+            }
+            builder.addBrick(BrickLines.getColumnX(column), y, brick - '0', BrickLines.STANDARD_BRICK);
+        }
+        rows++;
+    }
+
+    private static void expectArguments(String[] words, int min, int max){
+        int arguments = words.length - 1;
+        if(arguments < min || arguments > max){
+            throw new IllegalArgumentException("\"" + words[0] + "\" takes " + (min == max ? min : min + " to " + max) + " arguments");
+        }
+    }
+
+    /**
+     * Reads a text file of levels and writes it as a level pack.
+     * @param args The text file, then the pack file to write.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException{
+        if(args.length != 2){
+            System.err.println("usage: LevelPackConverter <levels text> <level pack>");
+            System.exit(2);
+        }
+        LevelPackConverter converter = new LevelPackConverter();
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]))) {
+            String line;
+            int lineNumber = 0;
+            while((line = reader.readLine()) != null){
+                lineNumber++;
+                try {
+                    converter.convertLine(line);
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.err.println(args[0] + ":" + lineNumber + ": " + e.getMessage());
+                    System.exit(1);
+                }
+            }
+        }
+        Path output = Paths.get(args[1]);
+        converter.builder.write(output);
+        System.out.printf("%d levels written to %s (%d bytes)%n", converter.builder.getLevelCount(), output, Files.size(output));
+    }
+}
@@ -0,0 +1,144 @@
+package Main;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Sends datagrams through a simulated bad network, so the multiplayer modes can be tested on one machine.
+ * Every packet is dropped with a given probability, or held back for the latency plus a random jitter
+ * and sent by a later {@link #flush}; jittered packets may overtake each other as on a real network.
+ * Held packets are copied into slots allocated up front, so the shim does not allocate while sending.
+ * With no latency and no loss packets go straight to the channel.
+ * Not thread-safe: one thread sends and flushes.
+ */
+public class LossyLink {
+    /** Packets held back at once; when every slot is taken, further packets are dropped as a full queue would. */
+    private static final int SLOTS = 1024;
+    private final DatagramChannel channel;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    /** The share of packets dropped, from 0 to 1. */
+    private final double lossChance;
+    private final ByteBuffer[] packets = new ByteBuffer[SLOTS];
+    private final SocketAddress[] targets = new SocketAddress[SLOTS];
+    private final long[] dueNanos = new long[SLOTS];
+    /** The number of held packets; they occupy the first slots. */
+    private int held;
+    private long randomState;
+    private long sent;
+    private long sentBytes;
+    private long dropped;
+
+    /**
+     * Creates a link over a channel.
+     * @param channel The non-blocking channel the packets are sent on.
+     * @param latencyMs The delay added to every packet, in milliseconds.
+     * @param jitterMs The largest random delay added on top of the latency, in milliseconds.
+     * @param lossPercent The share of packets dropped, from 0 to 100.
+     * @param seed The seed of the drops and the jitter.
+     */
+    public LossyLink(DatagramChannel channel, int latencyMs, int jitterMs, double lossPercent, long seed){
+        if(latencyMs < 0 || jitterMs < 0 || !(lossPercent >= 0 && lossPercent <= 100)){
+            throw new IllegalArgumentException("The latency and jitter must be non-negative and the loss from 0 to 100");
+        }
+        this.channel = channel;
+        this.latencyNanos = latencyMs * 1_000_000L;
+        this.jitterNanos = jitterMs * 1_000_000L;
+        this.lossChance = lossPercent / 100;
+        // xorshift needs a non-zero state.
+        randomState = seed == 0 ? 0x9E3779B97F4A7C15L : seed;
+        for(int slot = 0; slot < SLOTS && (latencyMs > 0 || jitterMs > 0); slot++){
+            packets[slot] = ByteBuffer.allocate(NetProtocol.MAX_PACKET_BYTES);
+        }
+    }
+
+    /**
+     * Sends a packet, or drops it or holds it back as the simulated network decides.
+     * @param packet The packet, from its position to its limit; it is consumed.
+     * @param target The address to send to.
+     * @param now The current time from {@link System#nanoTime()}.
+     * @throws IOException if the channel fails.
+     */
+    public void send(ByteBuffer packet, SocketAddress target, long now) throws IOException{
+        if(lossChance > 0 && nextFraction() < lossChance){
+            dropped++;
+            packet.position(packet.limit());
+            return;
+        }
+        if(latencyNanos == 0 && jitterNanos == 0){
+            transmit(packet, target);
+            return;
+        }
+        if(held == SLOTS){
+            dropped++;
+            packet.position(packet.limit());
+            return;
+        }
+        ByteBuffer copy = packets[held];
+        copy.clear();
+        copy.put(packet).flip();
+        targets[held] = target;
+        dueNanos[held] = now + latencyNanos + (jitterNanos > 0 ? (long) (nextFraction() * jitterNanos) : 0);
+        held++;
+    }
+
+    /**
+     * Sends the held packets whose delay has passed.
+     * @param now The current time from {@link System#nanoTime()}.
+     * @throws IOException if the channel fails.
+     */
+    public void flush(long now) throws IOException{
+        int slot = 0;
+        while(slot < held){
+            if(dueNanos[slot] - now > 0){
+                slot++;
+                continue;
+            }
+            transmit(packets[slot], targets[slot]);
+            // Move the last held packet into the freed slot, swapping buffers so none is lost.
+            held--;
+            ByteBuffer free = packets[slot];
+            packets[slot] = packets[held];
+            packets[held] = free;
+            targets[slot] = targets[held];
+            targets[held] = null;
+            dueNanos[slot] = dueNanos[held];
+        }
+    }
+
+    /** Returns the number of packets put on the wire. */
+    public long getSent(){
+        return sent;
+    }
+
+    /** Returns the payload bytes put on the wire, without the UDP and IP headers. */
+    public long getSentBytes(){
+        return sentBytes;
+    }
+
+    /** Returns the number of packets the simulated network dropped. */
+    public long getDropped(){
+        return dropped;
+    }
+
+    private void transmit(ByteBuffer packet, SocketAddress target) throws IOException{
+        int bytes = packet.remaining();
+        // A full socket buffer drops the datagram, as the network would.
+        if(channel.send(packet, target) > 0){
+            sent++;
+            sentBytes += bytes;
+        }
+        else{
+            dropped++;
+        }
+    }
+
+    /** Returns a pseudo-random fraction from 0 to 1, from xorshift64* as in {@link DescendingRows}. */
+    private double nextFraction(){
+        randomState ^= randomState >>> 12;
+        randomState ^= randomState << 25;
+        randomState ^= randomState >>> 27;
+        return ((randomState * 0x2545F4914F6CDD1DL) >>> 11) * 0x1.0p-53;
+    }
+}
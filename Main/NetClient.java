@@ -0,0 +1,403 @@
+package Main;
+import Render.ErrorWindow;
+import Render.RenderObserver;
+import Render.Screen;
+import GameObjects.Ball;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * The NetClient class is the rendering side of the multiplayer mode. It sends its input to a {@link NetServer},
+ * which plays the game, and shows the updates the server sends back. Updates arrive only
+ * {@link NetProtocol#SEND_HZ} times a second, so the client shows the game a little in the past,
+ * {@value #INTERPOLATION_DELAY_UPDATES} update intervals behind the newest update, and interpolates the ball and
+ * paddle between the two updates around that moment; one lost update then goes unnoticed.
+ * Destroyed bricks, score and lives are applied when the shown moment reaches the update that carried them.
+ * <p>
+ * The client is polled from one thread: {@link #poll} reads the updates and sends the input,
+ * and {@link #render} reports the shown state to a {@link RenderObserver}, a {@link Screen} in the window client.
+ * Received updates are kept in a ring allocated up front, so polling does not allocate.
+ */
+public class NetClient {
+    /** Updates kept for interpolation; a power of two. */
+    private static final int SNAPSHOTS = 32;
+    /** How far behind the newest update the game is shown, in update intervals. */
+    private static final double INTERPOLATION_DELAY_UPDATES = 2.5;
+    /** A move larger than this between two updates is a new ball or game, shown as a jump rather than a slide. */
+    private static final double MAX_INTERPOLATED_MOVE = 100;
+    /** How quickly the estimate of the server clock follows updates that arrive later than the earliest ones. */
+    private static final double CLOCK_SMOOTHING = 0.01;
+    private static final int PADDLE_Y = Screen.WINDOW_HEIGHT - 70;
+    private final DatagramChannel channel;
+    private final LossyLink link;
+    private final SocketAddress server;
+    private final RenderObserver observer;
+    private final double tickNanos;
+    private final double delayTicks;
+    private final long sendIntervalNanos;
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_BYTES);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(NetProtocol.INPUT_BYTES);
+    /** The received updates, indexed by update number modulo {@link #SNAPSHOTS}. */
+    private final int[] snapshotTick = new int[SNAPSHOTS];
+    private final double[] snapshotBallX = new double[SNAPSHOTS];
+    private final double[] snapshotBallY = new double[SNAPSHOTS];
+    private final double[] snapshotPaddleX = new double[SNAPSHOTS];
+    /** The score and lives an update carried, or -1 if it carried none. */
+    private final int[] snapshotScore = new int[SNAPSHOTS];
+    private final int[] snapshotLives = new int[SNAPSHOTS];
+    private final int[] snapshotWordCount = new int[SNAPSHOTS];
+    private final int[] snapshotWordIndex = new int[SNAPSHOTS * NetProtocol.MAX_BRICK_WORDS];
+    private final long[] snapshotWords = new long[SNAPSHOTS * NetProtocol.MAX_BRICK_WORDS];
+    /** The number of updates received in the current game, and the number whose bricks and score were shown. */
+    private int received;
+    private int applied;
+    /** The tick of the newest update received, which is acknowledged to the server; -1 before the first. */
+    private int newestTick = -1;
+    /** The number of the game being shown, or -1 before the first update. */
+    private int game = -1;
+    private BrickLines bricks;
+    /** The destroyed-brick bits of the bricks as shown. */
+    private long[] shownWords;
+    private int score;
+    private int lives;
+    private double ballX;
+    private double ballY;
+    private double paddleX;
+    /** The server tick minus the local clock in ticks, as estimated from the earliest updates. */
+    private double clockOffset;
+    private boolean clockKnown;
+    private int input;
+    private int sentInput = -1;
+    private long nextSendNanos;
+    private long receivedPackets;
+    private long receivedBytes;
+
+    /**
+     * Opens a client's channel to a server.
+     * @param server The address of the server.
+     * @param observer The observer the shown game is reported to.
+     * @param latencyMs The simulated delay of the packets sent to the server, in milliseconds.
+     * @param jitterMs The largest random delay added on top of the latency, in milliseconds.
+     * @param lossPercent The share of the packets sent to the server that are dropped, from 0 to 100.
+     * @param seed The seed of the simulated drops and jitter.
+     * @throws IOException if the channel cannot be opened.
+     */
+    public NetClient(SocketAddress server, RenderObserver observer, int latencyMs, int jitterMs, double lossPercent, long seed) throws IOException{
+        this.server = server;
+        this.observer = observer;
+        int physicsHz = GameLoop.DEFAULT_PHYSICS_HZ;
+        tickNanos = 1e9 / physicsHz;
+        delayTicks = INTERPOLATION_DELAY_UPDATES * physicsHz / NetProtocol.SEND_HZ;
+        sendIntervalNanos = 1_000_000_000L / NetProtocol.SEND_HZ;
+        channel = DatagramChannel.open();
+        channel.configureBlocking(false);
+        channel.connect(server);
+        link = new LossyLink(channel, latencyMs, jitterMs, lossPercent, seed);
+    }
+
+    /**
+     * Sets the input sent to the server.
+     * @param input The input as a bitmask of {@link GameWorld#INPUT_LEFT}, {@link GameWorld#INPUT_RIGHT}
+     * and {@link GameWorld#INPUT_SPACE}.
+     */
+    public void setInput(int input){
+        this.input = input;
+    }
+
+    /**
+     * Reads the waiting updates and sends the input if it changed or is due again.
+     * @param now The current time from {@link System#nanoTime()}.
+     * @return true if a new game started, so the caller must show its bricks afresh from {@link #getBricks()}.
+     * @throws IOException if the channel fails.
+     */
+    public boolean poll(long now) throws IOException{
+        boolean newGame = false;
+        while(true){
+            receiveBuffer.clear();
+            // A refused port, e.g. a server that is not up yet, only means nothing arrives.
+            SocketAddress sender;
+            try {
+                sender = channel.receive(receiveBuffer);
+            } catch (PortUnreachableException e) {
+                break;
+            }
+            if(sender == null){
+                break;
+            }
+            receiveBuffer.flip();
+            if(receiveBuffer.remaining() >= NetProtocol.UPDATE_HEADER_BYTES && receiveBuffer.get(0) == NetProtocol.UPDATE){
+                receivedPackets++;
+                receivedBytes += receiveBuffer.remaining();
+                newGame |= readUpdate(now);
+            }
+        }
+        try {
+            if(input != sentInput || now - nextSendNanos >= 0){
+                sendBuffer.clear();
+                sendBuffer.put(NetProtocol.INPUT).put((byte) input).putInt(newestTick).flip();
+                sentInput = input;
+                nextSendNanos = now + sendIntervalNanos;
+                link.send(sendBuffer, server, now);
+            }
+            link.flush(now);
+        } catch (PortUnreachableException e) {
+            // The input is sent again when it is next due.
+        }
+        return newGame;
+    }
+
+    /** Stores one update; returns true if it started a new game. */
+    private boolean readUpdate(long now){
+        ByteBuffer packet = receiveBuffer;
+        int tick = packet.getInt(1);
+        if(tick <= newestTick){
+            // Late or duplicated; a newer update already superseded it.
+            return false;
+        }
+        int flags = packet.get(5);
+        int position = NetProtocol.UPDATE_HEADER_BYTES;
+        boolean newGame = false;
+        if((flags & NetProtocol.FLAG_GAME) != 0){
+            int updateGame = packet.get(position) & 0xFF;
+            int lines = packet.getShort(position + 1);
+            position += 3;
+            if(updateGame != game){
+                startGame(updateGame, lines);
+                newGame = true;
+            }
+        }
+        else if(game < 0){
+            // Joined in the middle of a game whose announcement was lost; it is repeated until acknowledged.
+            return false;
+        }
+        if(received - applied == SNAPSHOTS){
+            // The ring is full of updates not shown yet: show the oldest at once rather than lose its bricks.
+            apply(applied++ & (SNAPSHOTS - 1));
+        }
+        int slot = received & (SNAPSHOTS - 1);
+        snapshotTick[slot] = tick;
+        snapshotBallX[slot] = NetProtocol.decodePosition(packet.getShort(6));
+        snapshotBallY[slot] = NetProtocol.decodePosition(packet.getShort(8));
+        snapshotPaddleX[slot] = NetProtocol.decodePosition(packet.getShort(10));
+        snapshotScore[slot] = -1;
+        snapshotLives[slot] = -1;
+        if((flags & NetProtocol.FLAG_SCORE) != 0){
+            snapshotScore[slot] = packet.getInt(position);
+            snapshotLives[slot] = packet.get(position + 4);
+            position += 5;
+        }
+        int count = 0;
+        if((flags & NetProtocol.FLAG_BRICKS) != 0){
+            count = Math.min(packet.get(position), NetProtocol.MAX_BRICK_WORDS);
+            position++;
+            for(int word = 0; word < count; word++){
+                snapshotWordIndex[slot * NetProtocol.MAX_BRICK_WORDS + word] = packet.getShort(position);
+                snapshotWords[slot * NetProtocol.MAX_BRICK_WORDS + word] = packet.getLong(position + 2);
+                position += 10;
+            }
+        }
+        snapshotWordCount[slot] = count;
+        received++;
+        newestTick = tick;
+        // The earliest arrivals have the least delay, so the clock follows them at once and the others slowly.
+        double sample = tick - now / tickNanos;
+        if(!clockKnown || sample > clockOffset){
+            clockOffset = sample;
+            clockKnown = true;
+        }
+        else{
+            clockOffset += (sample - clockOffset) * CLOCK_SMOOTHING;
+        }
+        return newGame;
+    }
+
+    /** Forgets the shown game and starts showing a new one with all its bricks. */
+    private void startGame(int newGame, int lines){
+        game = newGame;
+        bricks = new BrickLines(lines);
+        shownWords = new long[NetProtocol.wordCount(bricks.getField().getIdCount())];
+        received = 0;
+        applied = 0;
+        score = 0;
+        lives = 0;
+    }
+
+    /**
+     * Shows the game as it was a little in the past, between the two updates around that moment.
+     * @param now The current time from {@link System#nanoTime()}.
+     */
+    public void render(long now){
+        if(received == 0){
+            return;
+        }
+        double shownTick = now / tickNanos + clockOffset - delayTicks;
+        int oldest = Math.max(applied, received - SNAPSHOTS);
+        while(applied < received && snapshotTick[applied & (SNAPSHOTS - 1)] <= shownTick){
+            apply(applied++ & (SNAPSHOTS - 1));
+        }
+        // The update at or before the shown moment, or the oldest kept if the moment is earlier still.
+        int before = Math.max(oldest, applied - 1) & (SNAPSHOTS - 1);
+        ballX = snapshotBallX[before];
+        ballY = snapshotBallY[before];
+        paddleX = snapshotPaddleX[before];
+        if(applied < received && applied > 0){
+            int after = applied & (SNAPSHOTS - 1);
+            double fraction = (shownTick - snapshotTick[before]) / (snapshotTick[after] - snapshotTick[before]);
+            fraction = Math.max(0, Math.min(1, fraction));
+            double ballMove = Math.abs(snapshotBallX[after] - ballX) + Math.abs(snapshotBallY[after] - ballY);
+            if(ballMove <= MAX_INTERPOLATED_MOVE){
+                ballX += (snapshotBallX[after] - ballX) * fraction;
+                ballY += (snapshotBallY[after] - ballY) * fraction;
+            }
+            paddleX += (snapshotPaddleX[after] - paddleX) * fraction;
+        }
+        observer.moveBall((int) Math.round(ballX), (int) Math.round(ballY));
+        observer.movePaddle((int) Math.round(paddleX), PADDLE_Y);
+    }
+
+    /** Shows the bricks, score and lives of an update. */
+    private void apply(int slot){
+        for(int word = 0; word < snapshotWordCount[slot]; word++){
+            int index = snapshotWordIndex[slot * NetProtocol.MAX_BRICK_WORDS + word];
+            long destroyed = snapshotWords[slot * NetProtocol.MAX_BRICK_WORDS + word];
+            if(index < 0 || index >= shownWords.length){
+                continue;
+            }
+            long changed = destroyed ^ shownWords[index];
+            while(changed != 0){
+                int bit = Long.numberOfTrailingZeros(changed);
+                int id = index * 64 + bit;
+                if((destroyed & (1L << bit)) != 0){
+                    bricks.removeBrick(id);
+                    observer.brickDestroy(id);
+                }
+                else{
+                    bricks.reviveBrick(id, 1);
+                    observer.brickRestore(id);
+                }
+                changed &= changed - 1;
+            }
+            shownWords[index] = destroyed;
+        }
+        if(snapshotScore[slot] >= 0 && snapshotScore[slot] != score){
+            score = snapshotScore[slot];
+            observer.refreshPlayerScore(score);
+        }
+        if(snapshotLives[slot] >= 0 && snapshotLives[slot] != lives){
+            lives = snapshotLives[slot];
+            observer.refreshHearts(lives);
+        }
+    }
+
+    /** Returns the bricks of the shown game, or null before the first update. */
+    public BrickLines getBricks(){
+        return bricks;
+    }
+
+    /** Returns the shown x-coordinate of the ball. */
+    public double getBallX(){
+        return ballX;
+    }
+
+    /** Returns the shown x-coordinate of the paddle. */
+    public double getPaddleX(){
+        return paddleX;
+    }
+
+    /** Returns the number of updates received. */
+    public long getReceivedPackets(){
+        return receivedPackets;
+    }
+
+    /** Returns the payload bytes of the updates received, without the UDP and IP headers. */
+    public long getReceivedBytes(){
+        return receivedBytes;
+    }
+
+    /** Returns the link the input is sent through. */
+    public LossyLink getLink(){
+        return link;
+    }
+
+    /**
+     * Closes the channel.
+     * @throws IOException if closing fails.
+     */
+    public void close() throws IOException{
+        channel.close();
+    }
+
+    /**
+     * Opens a window that plays on a server, with the arrow keys or A and D to move and Space to launch.
+     * @param args Optional: the server's host, then its port, then the simulated latency and jitter in milliseconds
+     * and loss in percent of the packets sent to the server.
+     */
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : NetProtocol.DEFAULT_PORT;
+        int latencyMs = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int jitterMs = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        double lossPercent = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        Screen screen = new Screen();
+        NetClient client = new NetClient(new InetSocketAddress(host, port), screen, latencyMs, jitterMs, lossPercent, System.nanoTime());
+        screen.addKeyListener(new KeyListener() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                client.setInput(client.input | keyInput(e.getKeyCode()));
+            }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                client.setInput(client.input & ~keyInput(e.getKeyCode()));
+            }
+
+            @Override
+            public void keyTyped(KeyEvent e) {}
+        });
+        // Frames are paced like the game's own GameLoop, as a Swing timer delivers them unevenly.
+        new FramePacer("net-client", frameTime -> {
+            long now = System.nanoTime();
+            try {
+                if(client.poll(now)){
+                    showNewGame(screen, client.getBricks());
+                }
+            } catch (IOException e) {
+                new ErrorWindow("The connection to the server failed: " + e.getMessage());
+                return false;
+            }
+            client.render(now);
+            screen.renderFrame();
+            return true;
+        }).start();
+    }
+
+    /** Returns the input bit a key controls, or 0. */
+    static int keyInput(int key){
+        if(key == KeyEvent.VK_A || key == KeyEvent.VK_LEFT)
+            return GameWorld.INPUT_LEFT;
+        if(key == KeyEvent.VK_D || key == KeyEvent.VK_RIGHT)
+            return GameWorld.INPUT_RIGHT;
+        if(key == KeyEvent.VK_SPACE)
+            return GameWorld.INPUT_SPACE;
+        return 0;
+    }
+
+    /** Puts the ball, paddle, hearts, bricks and score of a new game on the screen. */
+    private static void showNewGame(Screen screen, BrickLines bricks){
+        Player player = new Player(0, 0);
+        screen.clearScreen();
+        screen.addPaddleLabel(Paddle.getIcon(), Screen.WINDOW_WIDTH / 2, PADDLE_Y, Paddle.getWidth(), Paddle.getHeight());
+        screen.addBallLabel(Ball.getIcon(), Screen.WINDOW_WIDTH / 2, Screen.WINDOW_HEIGHT / 2, Ball.getWidth(), Ball.getHeight());
+        screen.addHeartLabels(0, player.getHeartIcon(), Player.getHeartWidth(), Player.getHeartHeight());
+        screen.addBricksLabels(bricks);
+        screen.addPlayerScore(0);
+    }
+}
@@ -0,0 +1,109 @@
+package Main;
+import Render.NullRenderObserver;
+import GameObjects.Ball;
+import GameObjects.Paddle;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * The NetLoadTest class checks the multiplayer mode on one machine: it starts a {@link NetServer} on the loopback
+ * address and connects many headless {@link NetClient}s to it, through a {@link LossyLink} with the given latency,
+ * jitter and loss in both directions. Every client holds the launch key and steers its shown paddle under its
+ * shown ball, so the games keep going. At the end it reports whether the server kept its tick schedule,
+ * the bandwidth of each client and the share of the updates that arrived.
+ */
+public class NetLoadTest {
+    private static final int DEFAULT_CLIENTS = 64;
+    private static final int DEFAULT_SECONDS = 20;
+    /** How often the clients are polled, in nanoseconds; about a frame at 1000 frames per second. */
+    private static final long POLL_NANOS = 1_000_000L;
+    private static final double BALL_RADIUS = Ball.getWidth() / 2.0;
+    private static final double PADDLE_HALF_WIDTH = Paddle.getWidth() / 2.0;
+    /** How far the paddle's center may be from the ball's before a client steers. */
+    private static final double STEER_DEAD_ZONE = 10;
+
+    /**
+     * Runs the test and prints the report.
+     * @param args Optional: the number of clients, then the seconds to run, then the simulated latency and jitter
+     * in milliseconds and loss in percent, applied to the packets of both the server and the clients.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CLIENTS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        int latencyMs = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        int jitterMs = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        double lossPercent = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        NetServer server = new NetServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4, clientCount,
+                latencyMs, jitterMs, lossPercent);
+        InetSocketAddress address = server.getAddress();
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "net-server");
+        serverThread.start();
+        NetClient[] clients = new NetClient[clientCount];
+        for(int index = 0; index < clientCount; index++){
+            clients[index] = new NetClient(address, new NullRenderObserver(), latencyMs, jitterMs, lossPercent, index + 1);
+        }
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long now;
+        while((now = System.nanoTime()) - end < 0){
+            for(NetClient client : clients){
+                client.poll(now);
+                client.render(now);
+                client.setInput(steer(client));
+            }
+            long rest = POLL_NANOS - (System.nanoTime() - now);
+            if(rest > 0){
+                Thread.sleep(rest / 1_000_000, (int) (rest % 1_000_000));
+            }
+        }
+        server.stop();
+        serverThread.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long updates = 0;
+        long downBytes = 0;
+        long upPackets = 0;
+        long upBytes = 0;
+        for(NetClient client : clients){
+            updates += client.getReceivedPackets();
+            downBytes += client.getReceivedBytes();
+            upPackets += client.getLink().getSent();
+            upBytes += client.getLink().getSentBytes();
+            client.close();
+        }
+        LatencyHistogram lateness = server.getTickLateness();
+        LatencyHistogram work = server.getTickWork();
+        int ticks = server.getTick();
+        System.out.printf("%d clients for %.1f s, %d ms latency, %d ms jitter, %.1f%% loss%n", clientCount, elapsed,
+                latencyMs, jitterMs, lossPercent);
+        System.out.printf("server: %d ticks (%.1f per second, %d scheduled), late p50 %.0f us, p99 %.0f us, p99.9 %.0f us, max %.0f us%n",
+                ticks, ticks / elapsed, GameLoop.DEFAULT_PHYSICS_HZ, lateness.valueAtPercentile(50) / 1e3,
+                lateness.valueAtPercentile(99) / 1e3, lateness.valueAtPercentile(99.9) / 1e3, lateness.getMax() / 1e3);
+        System.out.printf("server tick work: p50 %.0f us, p99 %.0f us, max %.0f us%n", work.valueAtPercentile(50) / 1e3,
+                work.valueAtPercentile(99) / 1e3, work.getMax() / 1e3);
+        double perClient = clientCount * elapsed;
+        System.out.printf("per client down: %.1f updates/s (%.0f%% of %d), %.0f bytes/s payload, %.0f bytes/s with UDP/IP headers%n",
+                updates / perClient, 100.0 * updates / (server.getLink().getSent() + server.getLink().getDropped()), NetProtocol.SEND_HZ,
+                downBytes / perClient, (downBytes + updates * NetProtocol.DATAGRAM_OVERHEAD_BYTES) / perClient);
+        System.out.printf("per client up: %.1f inputs/s, %.0f bytes/s payload, %.0f bytes/s with UDP/IP headers%n",
+                upPackets / perClient, upBytes / perClient, (upBytes + upPackets * NetProtocol.DATAGRAM_OVERHEAD_BYTES) / perClient);
+    }
+
+    /** Holds the launch key and moves the shown paddle's center towards the shown ball's. */
+    private static int steer(NetClient client){
+        double difference = client.getBallX() + BALL_RADIUS - (client.getPaddleX() + PADDLE_HALF_WIDTH);
+        if(difference > STEER_DEAD_ZONE){
+            return GameWorld.INPUT_SPACE | GameWorld.INPUT_RIGHT;
+        }
+        if(difference < -STEER_DEAD_ZONE){
+            return GameWorld.INPUT_SPACE | GameWorld.INPUT_LEFT;
+        }
+        return GameWorld.INPUT_SPACE;
+    }
+}
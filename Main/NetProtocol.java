@@ -0,0 +1,82 @@
+package Main;
+import GameObjects.BrickField;
+
+/**
+ * The packets of the authoritative multiplayer mode, played by a {@link NetServer} and its {@link NetClient}s over UDP.
+ * <p>
+ * A client sends {@link #INPUT} packets (big-endian): the type byte, its input bitmask and the tick of the
+ * newest update it has applied, which acknowledges that update. The first input from an address joins the game.
+ * <p>
+ * The server sends {@link #UPDATE} packets {@link #SEND_HZ} times a second: the type byte, the server tick,
+ * a flags byte, then the ball's x and y and the paddle's x as fixed-point shorts in {@link #POSITION_SCALE}ths
+ * of a pixel. Everything else is sent only while it differs from the last update the client acknowledged:
+ * with {@link #FLAG_GAME} the game number as a byte and the brick lines of a new game as a short, with {@link #FLAG_SCORE} the score as an
+ * int and the lives as a byte, and with {@link #FLAG_BRICKS} a count byte followed by that many pairs of a short
+ * word index and a long word of destroyed-brick bits, 64 brick ids per word. A lost update is therefore repaired
+ * by the next one, and a steady game costs {@value #UPDATE_HEADER_BYTES} bytes per update.
+ */
+public final class NetProtocol {
+    /** The port the server listens on unless another one is given. */
+    public static final int DEFAULT_PORT = 47800;
+    /** The largest packet either side sends. */
+    static final int MAX_PACKET_BYTES = 128;
+    static final byte UPDATE = 1;
+    static final byte INPUT = 2;
+    static final int FLAG_GAME = 1;
+    static final int FLAG_SCORE = 2;
+    static final int FLAG_BRICKS = 4;
+    /** Type, tick, flags and the three positions. */
+    static final int UPDATE_HEADER_BYTES = 1 + 4 + 1 + 3 * 2;
+    /** Type, input and acknowledged tick. */
+    static final int INPUT_BYTES = 1 + 1 + 4;
+    /** Updates sent to every client per second, and inputs sent by every client per second while nothing changes. */
+    static final int SEND_HZ = 20;
+    /** Brick words sent in one update at most; the rest follow in the next updates. */
+    static final int MAX_BRICK_WORDS = 8;
+    /** Positions are sent in quarter pixels. */
+    static final int POSITION_SCALE = 4;
+    /** The size of the UDP and IPv4 headers, for estimating the bandwidth on the wire. */
+    static final int DATAGRAM_OVERHEAD_BYTES = 28;
+
+    private NetProtocol(){}
+
+    /**
+     * Converts a position to the fixed-point short it is sent as.
+     * @param position The position in pixels.
+     * @return The position in {@link #POSITION_SCALE}ths of a pixel, clamped to the range of a short.
+     */
+    static short encodePosition(double position){
+        long scaled = Math.round(position * POSITION_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+    }
+
+    /**
+     * Converts a received fixed-point short back to a position.
+     * @param encoded The position in {@link #POSITION_SCALE}ths of a pixel.
+     * @return The position in pixels.
+     */
+    static double decodePosition(short encoded){
+        return (double) encoded / POSITION_SCALE;
+    }
+
+    /**
+     * Returns the destroyed-brick bits of 64 consecutive brick ids; ids past the end of the level count as live.
+     * @param bricks The bricks of the level.
+     * @param index The index of the word.
+     * @return The word, with bit n set if brick {@code 64 * index + n} was destroyed.
+     */
+    static long destroyedWord(BrickField bricks, int index){
+        int idsInWord = Math.min(64, bricks.getIdCount() - index * 64);
+        long ids = idsInWord >= 64 ? -1L : (1L << idsInWord) - 1;
+        return ~bricks.getLiveWord(index) & ids;
+    }
+
+    /**
+     * Returns the number of destroyed-brick words that cover a level.
+     * @param idCount The number of brick ids of the level.
+     * @return The number of words.
+     */
+    static int wordCount(int idCount){
+        return (idCount + 63) / 64;
+    }
+}
@@ -0,0 +1,331 @@
+package Main;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.Selector;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import GameObjects.BrickField;
+
+/**
+ * The NetServer class runs the authoritative side of the multiplayer mode: every connected {@link NetClient}
+ * gets its own {@link GameWorld}, stepped here at the physics rate with the input the client last sent,
+ * and the client only renders what the server reports. A game that ends is replaced by a new one at once.
+ * <p>
+ * Everything runs on one thread around a non-blocking {@link DatagramChannel} and a {@link Selector}: the thread
+ * sleeps in the selector until the next tick is due, reading inputs as they arrive, then steps every world.
+ * {@link NetProtocol#SEND_HZ} times a second each client is sent an update holding the ball and paddle positions
+ * and only the score, lives and destroyed bricks that changed since the last update it acknowledged,
+ * which takes a few hundred bytes per second per client. Because bricks are only destroyed during a game,
+ * an update never has to undo a change the client applied from an earlier one.
+ * Outgoing packets go through a {@link LossyLink}, so latency and loss can be simulated on localhost.
+ */
+public class NetServer {
+    private static final int DEFAULT_MAX_CLIENTS = 64;
+    private static final int DEFAULT_LINES = 4;
+    /** A client that has sent nothing for this long has left. */
+    private static final long SESSION_TIMEOUT_NANOS = 5_000_000_000L;
+    /** Updates remembered per client for matching acknowledgements; a power of two. */
+    private static final int HISTORY = 64;
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final LossyLink link;
+    private final int lines;
+    private final int physicsHz;
+    private final int maxClients;
+    private final TickScheduler scheduler;
+    /** Ticks between two updates to the clients. */
+    private final int sendInterval;
+    private final Map<SocketAddress, Session> sessionsByAddress = new HashMap<>();
+    /** The sessions in joining order, iterated by index so a tick does not allocate. */
+    private final List<Session> sessions = new ArrayList<>();
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_BYTES);
+    private final ByteBuffer sendBuffer = ByteBuffer.allocateDirect(NetProtocol.MAX_PACKET_BYTES);
+    /** How long each tick took, stepping every world and sending the updates, in nanoseconds. */
+    private final LatencyHistogram tickWork = new LatencyHistogram();
+    private int tick;
+    private long receivedPackets;
+
+    /** A connected client and its game. */
+    private final class Session {
+        private final SocketAddress address;
+        private GameWorld world;
+        /** The number of the current game, sent as a byte. */
+        private int game;
+        /** The first tick of the current game; acknowledgements of older updates are ignored. */
+        private int gameStartTick;
+        private int input;
+        private long lastHeardNanos;
+        /** The state the client is known to have, from the newest update it acknowledged. */
+        private boolean gameAcked;
+        private int ackedTick = -1;
+        private int ackedScore;
+        private int ackedLives;
+        private long[] ackedWords;
+        /** The state the client has after each recent update, indexed by update number modulo {@link #HISTORY}. */
+        private final int[] historyTick = new int[HISTORY];
+        private final int[] historyScore = new int[HISTORY];
+        private final int[] historyLives = new int[HISTORY];
+        private long[][] historyWords;
+
+        Session(SocketAddress address, long now){
+            this.address = address;
+            lastHeardNanos = now;
+            newGame();
+        }
+
+        /** Starts a new game from scratch; the client is told with the next update. */
+        void newGame(){
+            world = HeadlessRunner.newWorld(lines, physicsHz);
+            game++;
+            gameStartTick = tick;
+            gameAcked = false;
+            // Nothing is known about the client's state until it acknowledges the new game.
+            ackedScore = -1;
+            ackedLives = -1;
+            int words = NetProtocol.wordCount(world.getBricks().getField().getIdCount());
+            ackedWords = new long[words];
+            historyWords = new long[HISTORY][words];
+            Arrays.fill(historyTick, -1);
+        }
+
+        /**
+         * Records that the client applied an update.
+         * @param updateTick The tick of the update.
+         */
+        void acknowledge(int updateTick){
+            if(updateTick <= ackedTick || updateTick < gameStartTick){
+                return;
+            }
+            int slot = (updateTick / sendInterval) & (HISTORY - 1);
+            if(historyTick[slot] != updateTick){
+                // Too old to be remembered; a newer acknowledgement will follow.
+                return;
+            }
+            ackedTick = updateTick;
+            gameAcked = true;
+            ackedScore = historyScore[slot];
+            ackedLives = historyLives[slot];
+            System.arraycopy(historyWords[slot], 0, ackedWords, 0, ackedWords.length);
+        }
+
+        /** Writes this tick's update for the client into a buffer and remembers what the client will have after it. */
+        void writeUpdate(ByteBuffer buffer){
+            int slot = (tick / sendInterval) & (HISTORY - 1);
+            historyTick[slot] = tick;
+            buffer.put(NetProtocol.UPDATE).putInt(tick);
+            int flagsPosition = buffer.position();
+            buffer.put((byte) 0);
+            buffer.putShort(NetProtocol.encodePosition(world.getBall().getPreciseX()));
+            buffer.putShort(NetProtocol.encodePosition(world.getBall().getPreciseY()));
+            buffer.putShort(NetProtocol.encodePosition(world.getPaddle().getPreciseX()));
+            int flags = 0;
+            if(!gameAcked){
+                flags |= NetProtocol.FLAG_GAME;
+                buffer.put((byte) game).putShort((short) lines);
+            }
+            int score = world.getPlayer().getScore();
+            int lives = world.getPlayer().getLifePoints();
+            if(score != ackedScore || lives != ackedLives){
+                flags |= NetProtocol.FLAG_SCORE;
+                buffer.putInt(score).put((byte) lives);
+            }
+            historyScore[slot] = score;
+            historyLives[slot] = lives;
+            BrickField bricks = world.getBricks().getField();
+            long[] words = historyWords[slot];
+            int countPosition = buffer.position();
+            buffer.put((byte) 0);
+            int count = 0;
+            for(int index = 0; index < ackedWords.length; index++){
+                long word = NetProtocol.destroyedWord(bricks, index);
+                if(word != ackedWords[index] && count < NetProtocol.MAX_BRICK_WORDS){
+                    buffer.putShort((short) index).putLong(word);
+                    words[index] = word;
+                    count++;
+                }
+                else{
+                    words[index] = ackedWords[index];
+                }
+            }
+            if(count > 0){
+                flags |= NetProtocol.FLAG_BRICKS;
+                buffer.put(countPosition, (byte) count);
+            }
+            else{
+                buffer.position(countPosition);
+            }
+            buffer.put(flagsPosition, (byte) flags);
+        }
+    }
+
+    /**
+     * Opens the server's channel.
+     * @param address The address to listen on, e.g. port 0 of the loopback address for any free port.
+     * @param lines The number of brick lines of every game.
+     * @param maxClients The number of clients served at most; others are ignored until one leaves.
+     * @param latencyMs The simulated delay of the packets sent to the clients, in milliseconds.
+     * @param jitterMs The largest random delay added on top of the latency, in milliseconds.
+     * @param lossPercent The share of the packets sent to the clients that are dropped, from 0 to 100.
+     * @throws IOException if the channel cannot be opened.
+     */
+    public NetServer(InetSocketAddress address, int lines, int maxClients, int latencyMs, int jitterMs, double lossPercent) throws IOException{
+        if(lines <= 0 || lines > Short.MAX_VALUE || maxClients <= 0){
+            throw new IllegalArgumentException("The brick lines and the client count must be positive");
+        }
+        this.lines = lines;
+        this.maxClients = maxClients;
+        physicsHz = GameLoop.DEFAULT_PHYSICS_HZ;
+        sendInterval = Math.max(1, physicsHz / NetProtocol.SEND_HZ);
+        channel = DatagramChannel.open();
+        channel.bind(address);
+        channel.configureBlocking(false);
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+        scheduler = new TickScheduler(selector, 1_000_000_000L / physicsHz);
+        link = new LossyLink(channel, latencyMs, jitterMs, lossPercent, 1);
+    }
+
+    /**
+     * Returns the address the server listens on.
+     * @return The bound address.
+     * @throws IOException if the channel is closed.
+     */
+    public InetSocketAddress getAddress() throws IOException{
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    /**
+     * Ticks the games until {@link #stop()} is called, then closes the channel.
+     * @throws IOException if the channel fails.
+     */
+    public void run() throws IOException{
+        try {
+            scheduler.run(now -> {
+                tick(now);
+                tickWork.record(System.nanoTime() - now);
+            }, () -> {
+                receive(System.nanoTime());
+                link.flush(System.nanoTime());
+            }, this::printReport);
+        } finally {
+            selector.close();
+            channel.close();
+        }
+    }
+
+    /** Makes {@link #run()} return after the current tick; may be called from any thread. */
+    public void stop(){
+        scheduler.stop();
+    }
+
+    /** Reads every waiting input packet. */
+    private void receive(long now) throws IOException{
+        while(true){
+            receiveBuffer.clear();
+            SocketAddress sender = channel.receive(receiveBuffer);
+            if(sender == null){
+                return;
+            }
+            receiveBuffer.flip();
+            if(receiveBuffer.remaining() < NetProtocol.INPUT_BYTES || receiveBuffer.get(0) != NetProtocol.INPUT){
+                continue;
+            }
+            receivedPackets++;
+            Session session = sessionsByAddress.get(sender);
+            if(session == null){
+                if(sessions.size() >= maxClients){
+                    continue;
+                }
+                session = new Session(sender, now);
+                sessionsByAddress.put(sender, session);
+                sessions.add(session);
+            }
+            session.lastHeardNanos = now;
+            session.input = receiveBuffer.get(1);
+            session.acknowledge(receiveBuffer.getInt(2));
+        }
+    }
+
+    /** Steps every game, drops silent clients and sends the updates when they are due. */
+    private void tick(long now) throws IOException{
+        for(int index = sessions.size() - 1; index >= 0; index--){
+            Session session = sessions.get(index);
+            if(now - session.lastHeardNanos > SESSION_TIMEOUT_NANOS){
+                sessions.remove(index);
+                sessionsByAddress.remove(session.address);
+                continue;
+            }
+            GameWorld world = session.world;
+            world.setInputMask(session.input);
+            world.step();
+            if(world.isGameOver()){
+                session.newGame();
+            }
+        }
+        if(tick % sendInterval == 0){
+            for(int index = 0; index < sessions.size(); index++){
+                sendBuffer.clear();
+                sessions.get(index).writeUpdate(sendBuffer);
+                sendBuffer.flip();
+                link.send(sendBuffer, sessions.get(index).address, now);
+            }
+        }
+        tick++;
+    }
+
+    /** Prints the clients, the tick timings and the outgoing bandwidth since the server started. */
+    private void printReport(){
+        LatencyHistogram tickLateness = scheduler.getTickLateness();
+        double seconds = (double) tick / physicsHz;
+        int clients = Math.max(1, sessions.size());
+        System.out.printf("%d clients, tick %d: late p50 %.0f us, p99 %.0f us, max %.0f us; work p50 %.0f us, p99 %.0f us; "
+                + "%d packets in, %d out (%d dropped), %.0f bytes/s out per client%n",
+                sessions.size(), tick, tickLateness.valueAtPercentile(50) / 1e3, tickLateness.valueAtPercentile(99) / 1e3,
+                tickLateness.getMax() / 1e3, tickWork.valueAtPercentile(50) / 1e3, tickWork.valueAtPercentile(99) / 1e3,
+                receivedPackets, link.getSent(), link.getDropped(), link.getSentBytes() / seconds / clients);
+    }
+
+    /** Returns how late each tick started, in nanoseconds. Read it after {@link #run()} returned. */
+    LatencyHistogram getTickLateness(){
+        return scheduler.getTickLateness();
+    }
+
+    /** Returns how long each tick took, in nanoseconds. Read it after {@link #run()} returned. */
+    LatencyHistogram getTickWork(){
+        return tickWork;
+    }
+
+    /** Returns the number of ticks played. Read it after {@link #run()} returned. */
+    int getTick(){
+        return tick;
+    }
+
+    /** Returns the link the updates are sent through. Read it after {@link #run()} returned. */
+    LossyLink getLink(){
+        return link;
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * @param args Optional: the port, then the number of brick lines, then the number of clients served at most,
+     * then the simulated latency and jitter in milliseconds and loss in percent of the packets sent to the clients.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : NetProtocol.DEFAULT_PORT;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LINES;
+        int maxClients = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_CLIENTS;
+        int latencyMs = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        int jitterMs = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        double lossPercent = args.length > 5 ? Double.parseDouble(args[5]) : 0;
+        NetServer server = new NetServer(new InetSocketAddress(port), lines, maxClients, latencyMs, jitterMs, lossPercent);
+        System.out.println("Serving up to " + maxClients + " clients on " + server.getAddress());
+        server.run();
+    }
+}
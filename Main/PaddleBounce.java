@@ -0,0 +1,75 @@
+package Main;
+import GameObjects.CollisionMath;
+import GameObjects.Paddle;
+
+/**
+ * The top-paddle bounce model: a center hit returns the ball straight up, and the farther from the center
+ * the ball lands, the larger its return angle.
+ * The angles and speed floors come from a {@link PhysicsProfile}.
+ * The result is kept in the instance instead of a new object, so each simulation thread reuses its own.
+ */
+final class PaddleBounce {
+    private static final double EPSILON = CollisionMath.EPSILON;
+    private final PhysicsProfile profile;
+    private double xVelocity;
+    private double yVelocity;
+
+    /** Creates a bounce model with the default physics. */
+    PaddleBounce(){
+        this(PhysicsProfile.DEFAULT);
+    }
+
+    /**
+     * Creates a bounce model.
+     * @param profile The physics constants to bounce with.
+     */
+    PaddleBounce(PhysicsProfile profile){
+        this.profile = profile;
+    }
+
+    /** Returns the physics constants this model bounces with. */
+    PhysicsProfile getProfile(){
+        return profile;
+    }
+
+    /**
+     * Computes the velocity of a ball bouncing off the top of the paddle.
+     * @param centerDelta The ball's center minus the paddle's center, along X.
+     * @param xVelocity The ball's horizontal velocity before the bounce.
+     * @param yVelocity The ball's vertical velocity before the bounce.
+     */
+    void compute(double centerDelta, double xVelocity, double yVelocity){
+        double hitRatio = CollisionMath.clamp(centerDelta / (Paddle.getWidth() / 2.0), -1.0, 1.0);
+        double currentSpeed = Math.hypot(xVelocity, yVelocity);
+        double speed = Math.max(currentSpeed, profile.getMinBallSpeed());
+
+        // Only exact center (sub-pixel) returns straight.
+        if(Math.abs(centerDelta) < EPSILON){
+            this.xVelocity = 0.0;
+            this.yVelocity = -speed;
+            return;
+        }
+        double absHit = Math.abs(hitRatio);
+        double bounceAngleDeg = profile.getPaddleMinOffcenterAngleDeg()
+                + (profile.getPaddleMaxBounceAngleDeg() - profile.getPaddleMinOffcenterAngleDeg()) * absHit;
+        double bounceAngleRad = Math.toRadians(bounceAngleDeg);
+        double xMagnitude = Math.max(profile.getMinPaddleReturnXVelocity(), Math.sin(bounceAngleRad) * speed);
+        double yMagnitude = Math.cos(bounceAngleRad) * speed;
+        if(yMagnitude < profile.getMinPaddleTopYVelocity()){
+            yMagnitude = Math.min(speed, profile.getMinPaddleTopYVelocity());
+            xMagnitude = Math.sqrt(Math.max(EPSILON, (speed * speed) - (yMagnitude * yMagnitude)));
+        }
+        this.xVelocity = (hitRatio < 0) ? -xMagnitude : xMagnitude;
+        this.yVelocity = -Math.abs(yMagnitude);
+    }
+
+    /** Returns the horizontal velocity computed by the last {@link #compute} call. */
+    double getXVelocity(){
+        return xVelocity;
+    }
+
+    /** Returns the vertical velocity computed by the last {@link #compute} call. */
+    double getYVelocity(){
+        return yVelocity;
+    }
+}
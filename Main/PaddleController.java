@@ -0,0 +1,16 @@
+package Main;
+
+/**
+ * Decides the input of every physics step in place of the keyboard.
+ * A controller set on a {@link Gameplay} or used to drive a {@link GameWorld} directly is asked once per step,
+ * before the step is recorded, so a session played by a controller replays like one played by hand.
+ */
+public interface PaddleController {
+    /**
+     * Returns the input for the next step of a world.
+     * @param world The world about to be stepped, which must not be modified.
+     * @return The input as a bitmask of {@link GameWorld#INPUT_LEFT}, {@link GameWorld#INPUT_RIGHT}
+     * and {@link GameWorld#INPUT_SPACE}.
+     */
+    int nextInput(GameWorld world);
+}
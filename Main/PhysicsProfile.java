@@ -0,0 +1,241 @@
+package Main;
+import java.util.Arrays;
+
+/**
+ * The tuning constants of the ball physics: paddle bounce angles, speed floors, escape gaps, the miss threshold
+ * and the launch and paddle speeds. A {@link GameWorld} plays by one profile for its whole life; the game uses
+ * {@link #DEFAULT}, and {@link PhysicsSweep} builds others to search for better values.
+ * Profiles are immutable, so one can be shared by worlds on many threads. Build them with a {@link Builder}.
+ */
+public final class PhysicsProfile {
+    /** A tunable constant, with the name it is given on the command line and its value in the default profile. */
+    public enum Parameter {
+        /** Paddle bounce angle from vertical at the paddle's edges, in degrees. */
+        PADDLE_MAX_BOUNCE_ANGLE_DEG("paddleMaxBounceAngleDeg", 67.0),
+        /** Smallest angle from vertical for any hit off the paddle's exact center, in degrees. */
+        PADDLE_MIN_OFFCENTER_ANGLE_DEG("paddleMinOffcenterAngleDeg", 8.0),
+        /** Smallest horizontal return speed of an off-center paddle hit, in pixels per second. */
+        MIN_PADDLE_RETURN_X_VELOCITY("minPaddleReturnXVelocity", 180.0),
+        /** Smallest upward speed after a top paddle hit, so returns are never almost horizontal, in pixels per second. */
+        MIN_PADDLE_TOP_Y_VELOCITY("minPaddleTopYVelocity", 250.0),
+        /** Speed the ball is raised to on a paddle hit if it has slowed below it, in pixels per second. */
+        MIN_BALL_SPEED("minBallSpeed", 600.0),
+        /** Smallest horizontal speed after a paddle side hit, before the paddle's own push, in pixels per second. */
+        MIN_PADDLE_SIDE_X_VELOCITY("minPaddleSideXVelocity", 200.0),
+        /** Share of the paddle's speed a side hit adds to the ball's horizontal speed. */
+        PADDLE_SIDE_PUSH("paddleSidePush", 0.35),
+        /** Gap between ball and paddle after a side hit, so they do not overlap again, in pixels. */
+        PADDLE_ESCAPE_GAP("paddleEscapeGap", 2.0),
+        /** Smallest horizontal speed after a hit into a top corner, so the ball does not drop straight down, in pixels per second. */
+        MIN_CORNER_X_VELOCITY("minCornerXVelocity", 200.0),
+        /** How far below the window the ball may fall before it counts as missed, in pixels. */
+        BALL_MISS_FORGIVENESS_PX("ballMissForgivenessPx", 16.0),
+        /** Speed of the ball when it is launched, straight down, in pixels per second. */
+        LAUNCH_SPEED("launchSpeed", 1100.0),
+        /** Speed of the paddle, in pixels per second. */
+        PADDLE_SPEED("paddleSpeed", 1000.0);
+
+        private final String key;
+        private final double defaultValue;
+
+        Parameter(String key, double defaultValue){
+            this.key = key;
+            this.defaultValue = defaultValue;
+        }
+
+        /** Returns the name of the parameter on the command line. */
+        public String getKey(){
+            return key;
+        }
+
+        /** Returns the value of the parameter in the default profile. */
+        public double getDefaultValue(){
+            return defaultValue;
+        }
+
+        /**
+         * Finds a parameter by its command-line name.
+         * @param key The name, e.g. {@code minBallSpeed}.
+         * @return The parameter.
+         * @throws IllegalArgumentException if no parameter has that name.
+         */
+        public static Parameter fromKey(String key){
+            for(Parameter parameter : values()){
+                if(parameter.key.equals(key)){
+                    return parameter;
+                }
+            }
+            throw new IllegalArgumentException("Unknown physics parameter \"" + key + "\"");
+        }
+    }
+
+    /** The constants the game is played with. */
+    public static final PhysicsProfile DEFAULT = new Builder().build();
+    private final double[] values;
+    private final double paddleMaxBounceAngleDeg;
+    private final double paddleMinOffcenterAngleDeg;
+    private final double minPaddleReturnXVelocity;
+    private final double minPaddleTopYVelocity;
+    private final double minBallSpeed;
+    private final double minPaddleSideXVelocity;
+    private final double paddleSidePush;
+    private final int paddleEscapeGap;
+    private final double minCornerXVelocity;
+    private final int ballMissForgivenessPx;
+    private final double launchSpeed;
+    private final int paddleSpeed;
+
+    private PhysicsProfile(double[] values){
+        this.values = values;
+        paddleMaxBounceAngleDeg = values[Parameter.PADDLE_MAX_BOUNCE_ANGLE_DEG.ordinal()];
+        paddleMinOffcenterAngleDeg = values[Parameter.PADDLE_MIN_OFFCENTER_ANGLE_DEG.ordinal()];
+        minPaddleReturnXVelocity = values[Parameter.MIN_PADDLE_RETURN_X_VELOCITY.ordinal()];
+        minPaddleTopYVelocity = values[Parameter.MIN_PADDLE_TOP_Y_VELOCITY.ordinal()];
+        minBallSpeed = values[Parameter.MIN_BALL_SPEED.ordinal()];
+        minPaddleSideXVelocity = values[Parameter.MIN_PADDLE_SIDE_X_VELOCITY.ordinal()];
+        paddleSidePush = values[Parameter.PADDLE_SIDE_PUSH.ordinal()];
+        paddleEscapeGap = (int) Math.round(values[Parameter.PADDLE_ESCAPE_GAP.ordinal()]);
+        minCornerXVelocity = values[Parameter.MIN_CORNER_X_VELOCITY.ordinal()];
+        ballMissForgivenessPx = (int) Math.round(values[Parameter.BALL_MISS_FORGIVENESS_PX.ordinal()]);
+        launchSpeed = values[Parameter.LAUNCH_SPEED.ordinal()];
+        paddleSpeed = (int) Math.round(values[Parameter.PADDLE_SPEED.ordinal()]);
+    }
+
+    /**
+     * Returns the value of a parameter.
+     * @param parameter The parameter.
+     * @return The value.
+     */
+    public double get(Parameter parameter){
+        return values[parameter.ordinal()];
+    }
+
+    /** Returns the paddle bounce angle at the paddle's edges, in degrees. */
+    double getPaddleMaxBounceAngleDeg(){
+        return paddleMaxBounceAngleDeg;
+    }
+
+    /** Returns the smallest bounce angle of an off-center paddle hit, in degrees. */
+    double getPaddleMinOffcenterAngleDeg(){
+        return paddleMinOffcenterAngleDeg;
+    }
+
+    /** Returns the smallest horizontal return speed of an off-center paddle hit, in pixels per second. */
+    double getMinPaddleReturnXVelocity(){
+        return minPaddleReturnXVelocity;
+    }
+
+    /** Returns the smallest upward speed after a top paddle hit, in pixels per second. */
+    double getMinPaddleTopYVelocity(){
+        return minPaddleTopYVelocity;
+    }
+
+    /** Returns the speed a slow ball is raised to on a paddle hit, in pixels per second. */
+    double getMinBallSpeed(){
+        return minBallSpeed;
+    }
+
+    /** Returns the smallest horizontal speed after a paddle side hit, in pixels per second. */
+    double getMinPaddleSideXVelocity(){
+        return minPaddleSideXVelocity;
+    }
+
+    /** Returns the share of the paddle's speed a side hit adds to the ball. */
+    double getPaddleSidePush(){
+        return paddleSidePush;
+    }
+
+    /** Returns the gap between ball and paddle after a side hit, in pixels. */
+    int getPaddleEscapeGap(){
+        return paddleEscapeGap;
+    }
+
+    /** Returns the smallest horizontal speed after a top corner hit, in pixels per second. */
+    double getMinCornerXVelocity(){
+        return minCornerXVelocity;
+    }
+
+    /** Returns how far below the window the ball may fall before it is missed, in pixels. */
+    int getBallMissForgivenessPx(){
+        return ballMissForgivenessPx;
+    }
+
+    /** Returns the launch speed of the ball, in pixels per second. */
+    double getLaunchSpeed(){
+        return launchSpeed;
+    }
+
+    /** Returns the speed of the paddle, in pixels per second. */
+    int getPaddleSpeed(){
+        return paddleSpeed;
+    }
+
+    /**
+     * Returns the parameters that differ from the default profile as {@code name=value} pairs, or {@code default}.
+     * @return The description of the profile.
+     */
+    @Override
+    public String toString(){
+        StringBuilder text = new StringBuilder();
+        for(Parameter parameter : Parameter.values()){
+            if(get(parameter) != parameter.defaultValue){
+                text.append(text.length() > 0 ? " " : "").append(parameter.key).append('=').append(get(parameter));
+            }
+        }
+        return text.length() > 0 ? text.toString() : "default";
+    }
+
+    /**
+     * Collects parameter values for a new profile, starting from the default values.
+     */
+    public static final class Builder {
+        private final double[] values = new double[Parameter.values().length];
+
+        /** Starts from the default profile. */
+        public Builder(){
+            for(Parameter parameter : Parameter.values()){
+                values[parameter.ordinal()] = parameter.defaultValue;
+            }
+        }
+
+        /**
+         * Starts from the values of another profile.
+         * @param profile The profile to copy.
+         */
+        public Builder(PhysicsProfile profile){
+            System.arraycopy(profile.values, 0, values, 0, values.length);
+        }
+
+        /**
+         * Sets one parameter.
+         * @param parameter The parameter.
+         * @param value The new value.
+         * @return This builder.
+         * @throws IllegalArgumentException if the value is negative or not a number.
+         */
+        public Builder set(Parameter parameter, double value){
+            if(!(value >= 0) || Double.isInfinite(value)){
+                throw new IllegalArgumentException(parameter.key + " must be a non-negative number: " + value);
+            }
+            values[parameter.ordinal()] = value;
+            return this;
+        }
+
+        /**
+         * Creates the profile.
+         * @return The new profile.
+         * @throws IllegalArgumentException if the parameters contradict each other.
+         */
+        public PhysicsProfile build(){
+            if(values[Parameter.PADDLE_MIN_OFFCENTER_ANGLE_DEG.ordinal()] > values[Parameter.PADDLE_MAX_BOUNCE_ANGLE_DEG.ordinal()]
+                    || values[Parameter.PADDLE_MAX_BOUNCE_ANGLE_DEG.ordinal()] >= 90){
+                throw new IllegalArgumentException("The paddle bounce angles must satisfy min <= max < 90");
+            }
+            if(values[Parameter.MIN_BALL_SPEED.ordinal()] == 0 || values[Parameter.LAUNCH_SPEED.ordinal()] == 0
+                    || values[Parameter.PADDLE_SPEED.ordinal()] == 0){
+                throw new IllegalArgumentException("The ball and paddle speeds must be positive");
+            }
+            return new PhysicsProfile(Arrays.copyOf(values, values.length));
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package Main;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The PhysicsSweep class searches the {@link PhysicsProfile} constants without a window: it builds candidate profiles
+ * on a grid or at random within the given ranges, plays many bot-driven games with each one in parallel and prints
+ * the candidates ranked by how they play. The default profile is always played too, as the baseline.
+ * <p>
+ * Every game is driven by an {@link AutopilotController} seeded with the game's number, and the same game numbers
+ * are played with every candidate, so the candidates are compared on the same bot behavior. For each candidate the
+ * sweep reports the average rally (paddle hits per served ball), the share of games where the ball got stuck
+ * (no brick hit and no miss for {@value #STUCK_SECONDS} s), the share of levels cleared, the lives lost per minute
+ * and the mean cost of a step.
+ * All the games of all candidates are played as one {@link GameBatch}, so a sweep keeps every core busy until it ends.
+ */
+public class PhysicsSweep {
+    private static final int DEFAULT_GAMES = 50;
+    private static final int DEFAULT_LINES = 4;
+    private static final int DEFAULT_MAX_SECONDS = 300;
+    private static final int DEFAULT_STEPS = 3;
+    private static final int DEFAULT_TOP = 20;
+    private static final long DEFAULT_SEED = 1;
+    /** Sweeps larger than this are refused; narrow the ranges or use a random search. */
+    private static final int MAX_CANDIDATES = 100_000;
+    /** Game time without a brick hit or a miss after which the ball counts as stuck and the game ends. */
+    private static final int STUCK_SECONDS = 20;
+    private static final int PHYSICS_HZ = GameLoop.DEFAULT_PHYSICS_HZ;
+    private static final int LIFE_POINTS = 3;
+    private final List<PhysicsProfile> candidates;
+    private final int gamesPerCandidate;
+    private final boolean endless;
+    private final int lines;
+    private final long maxTicks;
+    private final long seed;
+    /** The results of every game, indexed by candidate * gamesPerCandidate + game; each is written by one task. */
+    private final long[] ticks;
+    private final long[] stepNanos;
+    private final int[] paddleHits;
+    private final int[] livesLost;
+    private final boolean[] cleared;
+    private final boolean[] stuck;
+
+    /**
+     * Prepares a sweep.
+     * @param candidates The profiles to play, the baseline first.
+     * @param gamesPerCandidate The number of games played with each profile.
+     * @param endless true to play endless games, false to play generated levels.
+     * @param lines The number of brick lines of a generated level.
+     * @param maxSeconds The game time after which a game is cut short.
+     * @param seed The seed of the first game of each candidate; game n is seeded with {@code seed + n}.
+     */
+    PhysicsSweep(List<PhysicsProfile> candidates, int gamesPerCandidate, boolean endless, int lines, int maxSeconds, long seed){
+        this.candidates = candidates;
+        this.gamesPerCandidate = gamesPerCandidate;
+        this.endless = endless;
+        this.lines = lines;
+        this.maxTicks = (long) maxSeconds * PHYSICS_HZ;
+        this.seed = seed;
+        int games = candidates.size() * gamesPerCandidate;
+        ticks = new long[games];
+        stepNanos = new long[games];
+        paddleHits = new int[games];
+        livesLost = new int[games];
+        cleared = new boolean[games];
+        stuck = new boolean[games];
+    }
+
+    /**
+     * Plays one game until it ends, the ball gets stuck or the time limit is reached, and stores its results.
+     * @param index The candidate times the games per candidate, plus the game number.
+     * @param steps A histogram for the game's step times, empty on entry.
+     */
+    private void playGame(int index, LatencyHistogram steps){
+        PhysicsProfile profile = candidates.get(index / gamesPerCandidate);
+        long gameSeed = seed + index % gamesPerCandidate;
+        GameWorld world = endless ? HeadlessRunner.newEndlessWorld(gameSeed, profile)
+                : HeadlessRunner.newWorld(lines, PHYSICS_HZ, profile);
+        Player player = world.getPlayer();
+        StuckBall stuckBall = new StuckBall(player);
+        long tick = GameBatch.playGame(world, gameSeed, maxTicks, steps, stuckBall);
+        stuck[index] = stuckBall.stuck;
+        ticks[index] = tick;
+        stepNanos[index] = Math.round(steps.getMean() * steps.getCount());
+        paddleHits[index] = world.getPaddleHits();
+        livesLost[index] = LIFE_POINTS - player.getLifePoints();
+        cleared[index] = !endless && world.getBricks().getNumOfBricks() == 0;
+    }
+
+    /** Ends a game once neither the score nor the lives changed for {@value #STUCK_SECONDS} s of game time. */
+    private static final class StuckBall implements GameBatch.StopCondition {
+        private final Player player;
+        private long lastProgress;
+        private long lastScore;
+        private int lastLives;
+        private boolean stuck;
+
+        StuckBall(Player player){
+            this.player = player;
+            lastScore = player.getScore();
+            lastLives = player.getLifePoints();
+        }
+
+        @Override
+        public boolean shouldStop(GameWorld world, long tick){
+            if(player.getScore() != lastScore || player.getLifePoints() != lastLives){
+                lastScore = player.getScore();
+                lastLives = player.getLifePoints();
+                lastProgress = tick;
+            }
+            else if(tick - lastProgress >= (long) STUCK_SECONDS * PHYSICS_HZ){
+                stuck = true;
+            }
+            return stuck;
+        }
+    }
+
+    /** The aggregated results of one candidate. */
+    private static final class Summary {
+        private final int candidate;
+        private final double rally;
+        private final double stuckShare;
+        private final double clearedShare;
+        private final double livesLostPerMinute;
+        private final double stepNanos;
+        private final double gameSeconds;
+
+        Summary(int candidate, double rally, double stuckShare, double clearedShare, double livesLostPerMinute,
+                double stepNanos, double gameSeconds){
+            this.candidate = candidate;
+            this.rally = rally;
+            this.stuckShare = stuckShare;
+            this.clearedShare = clearedShare;
+            this.livesLostPerMinute = livesLostPerMinute;
+            this.stepNanos = stepNanos;
+            this.gameSeconds = gameSeconds;
+        }
+    }
+
+    /**
+     * Aggregates the games of one candidate.
+     * A ball is served at the start of the game and after every miss, except the one that ends it.
+     */
+    private Summary summarize(int candidate){
+        long totalTicks = 0;
+        long totalNanos = 0;
+        long hits = 0;
+        long lost = 0;
+        long serves = 0;
+        int stuckGames = 0;
+        int clearedGames = 0;
+        for(int index = candidate * gamesPerCandidate; index < (candidate + 1) * gamesPerCandidate; index++){
+            totalTicks += ticks[index];
+            totalNanos += stepNanos[index];
+            hits += paddleHits[index];
+            lost += livesLost[index];
+            serves += livesLost[index] + (livesLost[index] < LIFE_POINTS ? 1 : 0);
+            stuckGames += stuck[index] ? 1 : 0;
+            clearedGames += cleared[index] ? 1 : 0;
+        }
+        double minutes = totalTicks / (60.0 * PHYSICS_HZ);
+        return new Summary(candidate, (double) hits / Math.max(1, serves), (double) stuckGames / gamesPerCandidate,
+                (double) clearedGames / gamesPerCandidate, minutes > 0 ? lost / minutes : 0,
+                (double) totalNanos / Math.max(1, totalTicks), (double) totalTicks / gamesPerCandidate / PHYSICS_HZ);
+    }
+
+    /**
+     * Builds the candidates of a grid search: every combination of the values of the swept parameters.
+     * @param parameters The swept parameters.
+     * @param values The values of each swept parameter.
+     * @return The candidates, the default profile first.
+     */
+    static List<PhysicsProfile> grid(List<PhysicsProfile.Parameter> parameters, List<double[]> values){
+        long size = 1;
+        for(double[] parameterValues : values){
+            size *= parameterValues.length;
+            if(size > MAX_CANDIDATES){
+                throw new IllegalArgumentException("The grid has more than " + MAX_CANDIDATES + " candidates");
+            }
+        }
+        List<PhysicsProfile> candidates = new ArrayList<>();
+        candidates.add(PhysicsProfile.DEFAULT);
+        int[] digits = new int[parameters.size()];
+        for(long combination = 0; combination < size; combination++){
+            PhysicsProfile.Builder builder = new PhysicsProfile.Builder();
+            for(int i = 0; i < digits.length; i++){
+                builder.set(parameters.get(i), values.get(i)[digits[i]]);
+            }
+            addCandidate(candidates, builder);
+            // Count in mixed radix: the first parameter changes fastest.
+            for(int i = 0; i < digits.length && ++digits[i] == values.get(i).length; i++){
+                digits[i] = 0;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Builds the candidates of a random search: points drawn uniformly within the ranges of the swept parameters.
+     * @param parameters The swept parameters.
+     * @param ranges The minimum and maximum of each swept parameter.
+     * @param count The number of points to draw.
+     * @param seed The seed of the draws.
+     * @return The candidates, the default profile first.
+     */
+    static List<PhysicsProfile> random(List<PhysicsProfile.Parameter> parameters, List<double[]> ranges, int count, long seed){
+        if(count > MAX_CANDIDATES){
+            throw new IllegalArgumentException("A random search draws at most " + MAX_CANDIDATES + " candidates");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<PhysicsProfile> candidates = new ArrayList<>();
+        candidates.add(PhysicsProfile.DEFAULT);
+        for(int draw = 0; draw < count; draw++){
+            PhysicsProfile.Builder builder = new PhysicsProfile.Builder();
+            for(int i = 0; i < parameters.size(); i++){
+                double[] range = ranges.get(i);
+                // Rounded to thousandths, so a printed candidate can be typed back as a single value.
+                builder.set(parameters.get(i), range[0] == range[range.length - 1] ? range[0]
+                        : Math.round(random.nextDouble(range[0], range[range.length - 1]) * 1000) / 1000.0);
+            }
+            addCandidate(candidates, builder);
+        }
+        return candidates;
+    }
+
+    /** Adds a candidate, skipping combinations the profile rejects, such as a minimum angle above the maximum. */
+    private static void addCandidate(List<PhysicsProfile> candidates, PhysicsProfile.Builder builder){
+        try {
+            candidates.add(builder.build());
+        } catch (IllegalArgumentException e) {
+            // Not a valid profile: nothing to play.
+        }
+    }
+
+    /**
+     * Parses the values of a swept parameter: {@code min:max:steps} for evenly spaced values, {@code min:max}
+     * for the default number of steps, or a single value.
+     * @param spec The values as given on the command line.
+     * @return The values, in increasing order.
+     * @throws IllegalArgumentException if the values cannot be parsed.
+     */
+    static double[] parseValues(String spec){
+        String[] parts = spec.split(":");
+        if(parts.length == 1){
+            return new double[]{Double.parseDouble(parts[0])};
+        }
+        if(parts.length > 3){
+            throw new IllegalArgumentException("Expected min:max[:steps], got \"" + spec + "\"");
+        }
+        double min = Double.parseDouble(parts[0]);
+        double max = Double.parseDouble(parts[1]);
+        int steps = parts.length == 3 ? Integer.parseInt(parts[2]) : DEFAULT_STEPS;
+        if(min > max || steps < 2){
+            throw new IllegalArgumentException("Expected min <= max and at least 2 steps, got \"" + spec + "\"");
+        }
+        double[] values = new double[steps];
+        for(int step = 0; step < steps; step++){
+            values[step] = min + (max - min) * step / (steps - 1);
+        }
+        return values;
+    }
+
+    /**
+     * Runs a sweep and prints the ranked candidates.
+     * @param args Options, then the swept parameters as {@code name=min:max[:steps]} or {@code name=value}:
+     * {@code --random=<n>} draws n random candidates within the ranges instead of a grid,
+     * {@code --games=<n>} plays n games per candidate ({@value #DEFAULT_GAMES} by default),
+     * {@code --lines=<n>} sets the brick lines of a level ({@value #DEFAULT_LINES} by default),
+     * {@code --endless} plays endless games instead,
+     * {@code --seconds=<n>} cuts games short after n seconds of game time ({@value #DEFAULT_MAX_SECONDS} by default),
+     * {@code --threads=<n>} sets the threads (the common pool's by default),
+     * {@code --seed=<n>} seeds the games and the random search,
+     * {@code --top=<n>} prints the n best candidates ({@value #DEFAULT_TOP} by default).
+     */
+    public static void main(String[] args) {
+        int randomCount = 0;
+        int games = DEFAULT_GAMES;
+        int lines = DEFAULT_LINES;
+        boolean endless = false;
+        int maxSeconds = DEFAULT_MAX_SECONDS;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long seed = DEFAULT_SEED;
+        int top = DEFAULT_TOP;
+        List<PhysicsProfile.Parameter> parameters = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+        for(String arg : args){
+            if(arg.startsWith("--random=")){
+                randomCount = Integer.parseInt(arg.substring("--random=".length()));
+            }
+            else if(arg.startsWith("--games=")){
+                games = Integer.parseInt(arg.substring("--games=".length()));
+            }
+            else if(arg.startsWith("--lines=")){
+                lines = Integer.parseInt(arg.substring("--lines=".length()));
+            }
+            else if(arg.equals("--endless")){
+                endless = true;
+            }
+            else if(arg.startsWith("--seconds=")){
+                maxSeconds = Integer.parseInt(arg.substring("--seconds=".length()));
+            }
+            else if(arg.startsWith("--threads=")){
+                pool = new ForkJoinPool(Integer.parseInt(arg.substring("--threads=".length())));
+            }
+            else if(arg.startsWith("--seed=")){
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            }
+            else if(arg.startsWith("--top=")){
+                top = Integer.parseInt(arg.substring("--top=".length()));
+            }
+            else if(arg.indexOf('=') > 0){
+                int equals = arg.indexOf('=');
+                parameters.add(PhysicsProfile.Parameter.fromKey(arg.substring(0, equals)));
+                values.add(parseValues(arg.substring(equals + 1)));
+            }
+            else{
+                exitWithUsage();
+            }
+        }
+        if(parameters.isEmpty()){
+            exitWithUsage();
+        }
+        if(games <= 0){
+            throw new IllegalArgumentException("--games must be positive");
+        }
+        List<PhysicsProfile> candidates = randomCount > 0 ? random(parameters, values, randomCount, seed) : grid(parameters, values);
+        PhysicsSweep sweep = new PhysicsSweep(candidates, games, endless, lines, maxSeconds, seed);
+        int totalGames = candidates.size() * games;
+        // The baseline's games are played once unmeasured, so the step cost of the first candidates leaves out JIT compilation.
+        GameBatch.play(pool, 0, games, Math.max(1, games / pool.getParallelism()), sweep::playGame);
+        long start = System.nanoTime();
+        GameBatch.play(pool, 0, totalGames, GameBatch.gamesPerLeaf(totalGames, pool.getParallelism()), sweep::playGame);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d candidates x %d %s games on %d threads in %.1f s (%.0f games/s)%n", candidates.size(), games,
+                endless ? "endless" : lines + "-line", pool.getParallelism(), seconds, totalGames / seconds);
+        sweep.printRanking(top);
+    }
+
+    /** Prints the command line and the parameters with their default values, then exits. */
+    private static void exitWithUsage(){
+        System.err.println("usage: PhysicsSweep [--random=<n>] [--games=<n>] [--lines=<n>|--endless] [--seconds=<n>]"
+                + " [--threads=<n>] [--seed=<n>] [--top=<n>] <parameter>=<min>:<max>[:<steps>] ...");
+        System.err.print("parameters:");
+        for(PhysicsProfile.Parameter parameter : PhysicsProfile.Parameter.values()){
+            System.err.print(" " + parameter.getKey() + " (" + parameter.getDefaultValue() + ")");
+        }
+        System.err.println();
+        System.exit(2);
+    }
+
+    /**
+     * Prints the candidates with the fewest stuck balls first, then the longest rallies; the baseline is always shown.
+     * @param top The number of candidates to print.
+     */
+    private void printRanking(int top){
+        Summary[] summaries = new Summary[candidates.size()];
+        for(int candidate = 0; candidate < summaries.length; candidate++){
+            summaries[candidate] = summarize(candidate);
+        }
+        Summary baseline = summaries[0];
+        Arrays.sort(summaries, Comparator.comparingDouble((Summary summary) -> summary.stuckShare)
+                .thenComparingDouble(summary -> -summary.rally));
+        System.out.printf("%5s %7s %7s %8s %8s %8s %8s  %s%n", "rank", "rally", "stuck%", "cleared%", "lost/min", "step ns",
+                "game s", "profile");
+        for(int rank = 0; rank < summaries.length; rank++){
+            if(rank < top || summaries[rank] == baseline){
+                printSummary(Integer.toString(rank + 1), summaries[rank]);
+            }
+        }
+    }
+
+    private void printSummary(String rank, Summary summary){
+        System.out.printf("%5s %7.2f %7.1f %8.1f %8.2f %8.0f %8.1f  %s%n", rank, summary.rally, summary.stuckShare * 100,
+                summary.clearedShare * 100, summary.livesLostPerMinute, summary.stepNanos, summary.gameSeconds,
+                candidates.get(summary.candidate));
+    }
+}
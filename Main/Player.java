@@ -1,6 +1,7 @@
 package Main;
 import javax.swing.ImageIcon;
 import Render.AssetPaths;
+import Render.SpriteCache;
 /**
  * The Player class encapsulates all data related to the player,
  * including life points, score, and the visual representation of lives (hearts).
@@ -9,7 +10,6 @@ public class Player {
     private static final int HEART_WIDTH = 50;
     private static final int HEART_HEIGHT = 50;
     private static final String ICON_PATH = AssetPaths.HEART_ICON_PATH;
-    private static ImageIcon heartIcon;
     /** The number of remaining lives for the player. */
     private int lifePoints;
     /** The player's current score, which starts at 0. */
@@ -25,7 +25,6 @@ public class Player {
     public Player(int lifePoints, int scoreAmount){
         this.lifePoints = lifePoints;
         this.scoreAmount = scoreAmount;
-        heartIcon = new ImageIcon(ICON_PATH);
     }
 
     /**
@@ -50,6 +49,30 @@ public class Player {
         return score;
     }
         
+    /**
+     * Returns the points awarded for breaking a single brick.
+     * @return The score amount.
+     */
+    public int getScoreAmount(){
+        return scoreAmount;
+    }
+
+    /**
+     * Sets the score, e.g. to resume a recorded session from the middle.
+     * @param score The new score.
+     */
+    void setScore(int score){
+        this.score = score;
+    }
+
+    /**
+     * Sets the remaining life points, e.g. to restore a snapshot of the game.
+     * @param lifePoints The new number of life points.
+     */
+    void setLifePoints(int lifePoints){
+        this.lifePoints = lifePoints;
+    }
+
     /**
      * Returns the player's remaining life points.
      * @return The number of life points.
@@ -74,11 +97,11 @@ public class Player {
         return HEART_HEIGHT;
     }
     /**
-     * Returns the ImageIcon for the heart.
+     * Returns the ImageIcon for the heart, decoded once by the {@link SpriteCache}.
      * @return The heart's ImageIcon.
      */
     public ImageIcon getHeartIcon(){
-        return heartIcon;
+        return SpriteCache.getIcon(ICON_PATH);
     }
 
     /**
@@ -0,0 +1,81 @@
+package Main;
+import java.nio.ByteBuffer;
+
+/**
+ * A ring of the most recent {@link GameWorld} snapshots, so play can be wound back a few seconds.
+ * All slots live in one buffer allocated up front, and every slot holds the level number next to the snapshot,
+ * so recording a step is a bounded copy with no allocation. The oldest snapshot is overwritten when the ring is full.
+ * The buffer is only reallocated, and emptied, when a level with more bricks needs larger slots.
+ * Not thread-safe: it is used by the thread that steps the world.
+ */
+public class RewindBuffer {
+    private static final int LEVEL_BYTES = 4;
+    private final int capacity;
+    private ByteBuffer slots;
+    private int slotSize;
+    /** The slot the next snapshot is written to. */
+    private int next;
+    private int size;
+
+    /**
+     * Creates an empty ring.
+     * @param capacity The number of snapshots kept, e.g. the physics rate times the seconds that can be wound back.
+     */
+    public RewindBuffer(int capacity){
+        if(capacity <= 0){
+            throw new IllegalArgumentException("The rewind capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Saves the current state of a world as the newest snapshot.
+     * @param world The world to save.
+     * @param level The level the world is playing, given back by {@link #rewind}.
+     */
+    public void record(GameWorld world, int level){
+        int needed = LEVEL_BYTES + world.getSnapshotSize();
+        if(needed > slotSize){
+            slotSize = needed;
+            slots = ByteBuffer.allocate(slotSize * capacity);
+            clear();
+        }
+        int offset = next * slotSize;
+        slots.putInt(offset, level);
+        world.writeSnapshot(slots, offset + LEVEL_BYTES);
+        next = (next + 1) % capacity;
+        size = Math.min(size + 1, capacity);
+    }
+
+    /**
+     * Puts a world back in the state it was in some steps ago and forgets the newer snapshots.
+     * Winds back as far as possible if fewer snapshots are kept.
+     * @param world The world to restore, playing the level the snapshot was taken of.
+     * @param steps The number of snapshots to go back; 0 restores the newest one.
+     * @return The level of the restored snapshot, or -1 if the ring is empty and nothing was restored.
+     */
+    public int rewind(GameWorld world, int steps){
+        if(size == 0){
+            return -1;
+        }
+        int back = Math.min(Math.max(steps, 0), size - 1);
+        int slot = Math.floorMod(next - 1 - back, capacity);
+        int offset = slot * slotSize;
+        world.restoreSnapshot(slots, offset + LEVEL_BYTES);
+        // The restored snapshot stays as the newest, so winding back again goes further.
+        next = (slot + 1) % capacity;
+        size -= back;
+        return slots.getInt(offset);
+    }
+
+    /** Returns the number of snapshots kept. */
+    public int size(){
+        return size;
+    }
+
+    /** Forgets every snapshot, e.g. when a new level starts. */
+    public void clear(){
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,222 @@
+package Main;
+import java.nio.ByteBuffer;
+
+/**
+ * Rollback netcode in the style of GGPO for a {@link HeadToHeadMatch}, independent of the transport.
+ * The local player's input is applied at once; the remote player's input for steps it has not arrived for yet is
+ * predicted to be the last one received. When the real input arrives and differs from the prediction, the next
+ * {@link #advance} restores the snapshot taken before the first wrong step and simulates the steps since then again
+ * with the corrected input, within the same frame. A snapshot of the match is kept for each of the last
+ * {@value #MAX_PREDICTION_TICKS} steps, and the local player never runs more than that many steps ahead of the
+ * remote input, so a rollback never has to go back further. Snapshots live in one buffer allocated up front.
+ * <p>
+ * Every {@value #HASH_INTERVAL_TICKS} steps, once the real input of both players is known up to that step,
+ * the hash of the snapshot after it is kept, so peers can exchange hashes and detect a desync.
+ * Once the match is over in the simulated state, no further step is played, so both peers end on the same step.
+ * Not thread-safe: the session is advanced and fed from one thread.
+ */
+public class RollbackSession {
+    /** The number of steps the remote input may be predicted for, and so the longest rollback. */
+    public static final int MAX_PREDICTION_TICKS = 8;
+    /** Steps between two kept state hashes. */
+    public static final int HASH_INTERVAL_TICKS = 60;
+    /** Snapshots kept, one per step; a power of two above {@link #MAX_PREDICTION_TICKS}. */
+    private static final int SNAPSHOTS = 16;
+    /** Inputs kept per player, so they can be sent again until acknowledged; a power of two. */
+    private static final int INPUTS = 256;
+    /** Hashes kept for comparing with the remote peer's. */
+    private static final int HASHES = 16;
+    private final HeadToHeadMatch match;
+    private final int localPlayer;
+    private final ByteBuffer snapshots;
+    private final int snapshotSize;
+    private final byte[] localInputs = new byte[INPUTS];
+    private final byte[] remoteInputs = new byte[INPUTS];
+    /** The remote input each simulated step was played with, predicted or real. */
+    private final byte[] usedRemoteInputs = new byte[INPUTS];
+    /** The newest step whose remote input arrived; every earlier one has arrived too. */
+    private int remoteConfirmedTick = -1;
+    /** The first step played with a wrong prediction, or -1 if none is known. */
+    private int firstMispredictedTick = -1;
+    private final int[] hashTicks = new int[HASHES];
+    private final long[] hashes = new long[HASHES];
+    /** The step of the newest kept hash; the first hash is of step 0. */
+    private int newestHashTick = -HASH_INTERVAL_TICKS;
+    private long rollbacks;
+    private long resimulatedTicks;
+    private int longestRollback;
+
+    /**
+     * Creates a session for a match in its starting state.
+     * @param match The match, played the same way by both peers.
+     * @param localPlayer The player this peer controls, 0 or 1.
+     */
+    public RollbackSession(HeadToHeadMatch match, int localPlayer){
+        if(localPlayer != 0 && localPlayer != 1){
+            throw new IllegalArgumentException("The local player must be 0 or 1");
+        }
+        this.match = match;
+        this.localPlayer = localPlayer;
+        snapshotSize = match.getSnapshotSize();
+        snapshots = ByteBuffer.allocate(snapshotSize * SNAPSHOTS);
+    }
+
+    /**
+     * Plays the next step with the local input, first rolling back and correcting any mispredicted steps.
+     * The step is not played if the remote input lags too far behind, so the peers stay within rollback range.
+     * @param localInput The local player's input for the step.
+     * @return The number of steps simulated again to correct predictions, or -1 if the step had to wait.
+     */
+    public int advance(int localInput){
+        int resimulated = rollBack();
+        keepFinalHashes();
+        int tick = match.getTick();
+        if(tick - remoteConfirmedTick > MAX_PREDICTION_TICKS || match.getResult() != HeadToHeadMatch.PLAYING){
+            return -1;
+        }
+        localInputs[tick & (INPUTS - 1)] = (byte) localInput;
+        simulate(tick);
+        return resimulated;
+    }
+
+    /**
+     * Restores the snapshot before the first mispredicted step and plays the steps since then again.
+     * @return The number of steps played again.
+     */
+    private int rollBack(){
+        if(firstMispredictedTick < 0){
+            return 0;
+        }
+        int from = firstMispredictedTick;
+        int to = match.getTick();
+        firstMispredictedTick = -1;
+        match.restoreSnapshot(snapshots, (from & (SNAPSHOTS - 1)) * snapshotSize);
+        for(int tick = from; tick < to; tick++){
+            simulate(tick);
+        }
+        rollbacks++;
+        resimulatedTicks += to - from;
+        longestRollback = Math.max(longestRollback, to - from);
+        return to - from;
+    }
+
+    /**
+     * Keeps the hashes of the steps that became final, those up to the newest step with remote input.
+     * The state after step n is the snapshot taken before step n + 1, which the prediction limit keeps in the ring.
+     */
+    private void keepFinalHashes(){
+        int tick = match.getTick();
+        int finalTick = Math.min(remoteConfirmedTick, tick - 1);
+        for(int hashTick = newestHashTick + HASH_INTERVAL_TICKS; hashTick <= finalTick; hashTick += HASH_INTERVAL_TICKS){
+            int offset = ((hashTick + 1) & (SNAPSHOTS - 1)) * snapshotSize;
+            if(hashTick + 1 == tick){
+                match.writeSnapshot(snapshots, offset);
+            }
+            // FNV-1a over the snapshot's bytes.
+            long hash = 0xCBF29CE484222325L;
+            for(int index = offset; index < offset + snapshotSize; index++){
+                hash = (hash ^ (snapshots.get(index) & 0xFF)) * 0x100000001B3L;
+            }
+            newestHashTick = hashTick;
+            hashTicks[(hashTick / HASH_INTERVAL_TICKS) & (HASHES - 1)] = hashTick;
+            hashes[(hashTick / HASH_INTERVAL_TICKS) & (HASHES - 1)] = hash;
+        }
+    }
+
+    /** Saves the snapshot before a step and plays it with the best known remote input. */
+    private void simulate(int tick){
+        match.writeSnapshot(snapshots, (tick & (SNAPSHOTS - 1)) * snapshotSize);
+        int remoteInput = tick <= remoteConfirmedTick ? remoteInputs[tick & (INPUTS - 1)]
+                : remoteConfirmedTick >= 0 ? remoteInputs[remoteConfirmedTick & (INPUTS - 1)] : 0;
+        usedRemoteInputs[tick & (INPUTS - 1)] = (byte) remoteInput;
+        int localInput = localInputs[tick & (INPUTS - 1)];
+        if(localPlayer == 0){
+            match.step(localInput, remoteInput);
+        }
+        else{
+            match.step(remoteInput, localInput);
+        }
+    }
+
+    /**
+     * Adds remote input received from the peer. Input for steps already received is ignored, and so is input
+     * beyond a gap, which the peer sends again.
+     * @param tick The step of the input.
+     * @param input The remote player's input for that step.
+     */
+    public void addRemoteInput(int tick, int input){
+        if(tick != remoteConfirmedTick + 1){
+            return;
+        }
+        remoteInputs[tick & (INPUTS - 1)] = (byte) input;
+        remoteConfirmedTick = tick;
+        if(tick < match.getTick() && usedRemoteInputs[tick & (INPUTS - 1)] != (byte) input && firstMispredictedTick < 0){
+            firstMispredictedTick = tick;
+        }
+    }
+
+    /**
+     * Returns the local input of a played step, for sending to the peer.
+     * Only the last few hundred steps are kept.
+     * @param tick The step.
+     * @return The input.
+     */
+    public int getLocalInput(int tick){
+        return localInputs[tick & (INPUTS - 1)];
+    }
+
+    /** Returns the number of local inputs that can be sent again, the oldest being the newest played minus this. */
+    static int getInputHistory(){
+        return INPUTS;
+    }
+
+    /** Returns the newest step whose remote input arrived, or -1. */
+    public int getRemoteConfirmedTick(){
+        return remoteConfirmedTick;
+    }
+
+    /** Returns the step of the newest kept hash of a final state, or -1 if there is none yet. */
+    public int getNewestHashTick(){
+        return Math.max(newestHashTick, -1);
+    }
+
+    /**
+     * Returns the kept hash of the state after a step.
+     * @param tick The step, a multiple of {@link #HASH_INTERVAL_TICKS}.
+     * @return The hash, or 0 if the step's hash is not kept.
+     */
+    public long getHash(int tick){
+        int slot = (tick / HASH_INTERVAL_TICKS) & (HASHES - 1);
+        return tick >= 0 && hashTicks[slot] == tick && tick <= newestHashTick ? hashes[slot] : 0;
+    }
+
+    /**
+     * Returns whether the match is over in a step played with the real input of both players,
+     * so both peers agree on the result.
+     * @return true if the result is final.
+     */
+    public boolean isFinished(){
+        return match.getResult() != HeadToHeadMatch.PLAYING && match.getTick() - 1 <= remoteConfirmedTick
+                && firstMispredictedTick < 0;
+    }
+
+    /** Returns the match. */
+    public HeadToHeadMatch getMatch(){
+        return match;
+    }
+
+    /** Returns the number of rollbacks so far. */
+    public long getRollbacks(){
+        return rollbacks;
+    }
+
+    /** Returns the number of steps simulated again by all the rollbacks so far. */
+    public long getResimulatedTicks(){
+        return resimulatedTicks;
+    }
+
+    /** Returns the most steps simulated again by one rollback. */
+    public int getLongestRollback(){
+        return longestRollback;
+    }
+}
@@ -1,88 +1,122 @@
 package Main;
 import java.io.File;
 import java.io.IOException;
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import Render.AssetPaths;
 
 /**
  * The SoundEffect class is responsible for loading and playing all sound effects used in the game.
- * It pre-loads audio clips for collisions to ensure they can be played without delay.
+ * Every sound is decoded once into PCM in the mixer's format and handed to an {@link AudioMixer},
+ * so playing a sound from the game loop only queues a request and never touches the audio device.
  */
 public class SoundEffect {
     private static final String COLLISION_SOUND_EFFECT_FILE_PATH = AssetPaths.COLLISION_SOUND_EFFECT_FILE_PATH;
     private static final String BRICK_COLLISION_SOUND_EFFECT_FILE_PATH = AssetPaths.BRICK_COLLISION_SOUND_EFFECT_FILE_PATH;
-    private Clip collisionSoundEffect;
-    private Clip brickCollisionSoundEffect;
-    // Short cooldowns avoid audio restart spam when several collisions happen in one frame.
-    private static final long COLLISION_SOUND_COOLDOWN_NS = 25_000_000L;
-    private static final long BRICK_SOUND_COOLDOWN_NS = 20_000_000L;
-    private long lastCollisionSoundTimeNs = 0L;
-    private long lastBrickSoundTimeNs = 0L;
+    /** Sound ids in the mixer. */
+    private static final int COLLISION_SOUND = 0;
+    private static final int BRICK_COLLISION_SOUND = 1;
+    private final AudioMixer mixer;
 
     /**
-     * Constructs a SoundEffect object and loads all the necessary audio files into memory.
-     * @throws LineUnavailableException if a clip cannot be obtained due to resource restrictions.
+     * Constructs a SoundEffect object, decodes all the necessary audio files and starts the mixer.
+     * Without an audio device the sounds are still decoded, and playing them does nothing.
      * @throws IOException if an I/O error occurs when reading the audio file.
      * @throws UnsupportedAudioFileException if the audio file format is not supported.
      */
-    public SoundEffect() throws LineUnavailableException, IOException, UnsupportedAudioFileException{
-        // Load the sound effect for general collisions (e.g., ball with paddle or walls).
-        File collisionSoundEffectFile = new File(COLLISION_SOUND_EFFECT_FILE_PATH);
-		AudioInputStream audioStream = AudioSystem.getAudioInputStream(collisionSoundEffectFile);
-		collisionSoundEffect = AudioSystem.getClip();
-		collisionSoundEffect.open(audioStream);
-
-        // Load the sound effect for when the ball collides with a brick.
-        File brickCollisionSoundEffectFile = new File(BRICK_COLLISION_SOUND_EFFECT_FILE_PATH);
-		AudioInputStream brickAudioStream = AudioSystem.getAudioInputStream(brickCollisionSoundEffectFile);
-		brickCollisionSoundEffect = AudioSystem.getClip();
-		brickCollisionSoundEffect.open(brickAudioStream);
+    public SoundEffect() throws IOException, UnsupportedAudioFileException{
+        short[][] sounds = new short[2][];
+        // The sound effect for general collisions (e.g., ball with paddle or walls).
+        sounds[COLLISION_SOUND] = decode(COLLISION_SOUND_EFFECT_FILE_PATH);
+        // The sound effect for when the ball collides with a brick.
+        sounds[BRICK_COLLISION_SOUND] = decode(BRICK_COLLISION_SOUND_EFFECT_FILE_PATH);
+        mixer = AudioMixer.open(sounds);
     }
 
     /**
-     * Stops and closes the audio clips to release system resources.
+     * Stops the mixer to release the audio device.
      * This should be called when the game is shutting down.
      */
     public void close(){
-        collisionSoundEffect.stop();
-        collisionSoundEffect.close();
-        brickCollisionSoundEffect.stop();
-        brickCollisionSoundEffect.close();
+        mixer.close();
     }
 
     /**
-     * Plays the standard collision sound effect from the beginning.
-     * If the clip is already playing, it is stopped and reset before playing again.
+     * Returns whether sound is going to an audio device.
+     * @return false if no audio device could be opened and sounds are silently dropped.
      */
+    public boolean hasOutput(){
+        return mixer.hasOutput();
+    }
+
+    /** Plays the standard collision sound effect; it mixes over any sound already playing. */
     public void playCollisionSoundEffect(){
-        long now = System.nanoTime();
-        if(now - lastCollisionSoundTimeNs < COLLISION_SOUND_COOLDOWN_NS)
-            return;
-        lastCollisionSoundTimeNs = now;
+        play(COLLISION_SOUND, "collision");
+    }
 
-        if(collisionSoundEffect.isRunning())
-            collisionSoundEffect.stop();
-        collisionSoundEffect.setFramePosition(0);
-        collisionSoundEffect.start();
+    /** Plays the brick collision sound effect; it mixes over any sound already playing. */
+    public void playBrickCollisionSoundEffect(){
+        play(BRICK_COLLISION_SOUND, "brick collision");
+    }
+
+    /** Queues a sound in the mixer and reports it to the flight recorder. */
+    private void play(int soundId, String name){
+        boolean queued = mixer.play(soundId);
+        if(GameEvents.isRecording()){
+            GameEvents.SoundPlay event = new GameEvents.SoundPlay();
+            if(event.shouldCommit()){
+                event.sound = name;
+                event.queued = queued;
+                event.commit();
+            }
+        }
     }
 
     /**
-     * Plays the brick collision sound effect from the beginning.
-     * If the clip is already playing, it is stopped and reset before playing again.
+     * Decodes an audio file into interleaved 16-bit stereo samples at the mixer's sample rate.
+     * Mono files are copied to both channels and other rates are resampled linearly.
+     * @param path The path of the audio file.
+     * @return The samples.
+     * @throws IOException if an I/O error occurs when reading the audio file.
+     * @throws UnsupportedAudioFileException if the audio file format is not supported.
      */
-    public void playBrickCollisionSoundEffect(){
-        long now = System.nanoTime();
-        if(now - lastBrickSoundTimeNs < BRICK_SOUND_COOLDOWN_NS)
-            return;
-        lastBrickSoundTimeNs = now;
+    private static short[] decode(String path) throws IOException, UnsupportedAudioFileException{
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new File(path))) {
+            AudioFormat sourceFormat = source.getFormat();
+            int channels = sourceFormat.getChannels();
+            float sampleRate = sourceFormat.getSampleRate();
+            AudioFormat pcmFormat = new AudioFormat(sampleRate, 16, channels, true, false);
+            byte[] bytes;
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                bytes = pcm.readAllBytes();
+            }
+            int sourceFrames = bytes.length / (2 * channels);
+            if(sourceFrames == 0){
+                return new short[0];
+            }
+            double step = sampleRate / AudioMixer.SAMPLE_RATE;
+            int frames = (int)((sourceFrames - 1) / step) + 1;
+            short[] samples = new short[frames * AudioMixer.CHANNELS];
+            for(int frame = 0; frame < frames; frame++){
+                double position = frame * step;
+                int index = (int) position;
+                int next = Math.min(index + 1, sourceFrames - 1);
+                double fraction = position - index;
+                for(int channel = 0; channel < AudioMixer.CHANNELS; channel++){
+                    int sourceChannel = Math.min(channel, channels - 1);
+                    double a = sample(bytes, index * channels + sourceChannel);
+                    double b = sample(bytes, next * channels + sourceChannel);
+                    samples[frame * AudioMixer.CHANNELS + channel] = (short) Math.round(a + (b - a) * fraction);
+                }
+            }
+            return samples;
+        }
+    }
 
-        if(brickCollisionSoundEffect.isRunning())
-            brickCollisionSoundEffect.stop();
-        brickCollisionSoundEffect.setFramePosition(0);
-        brickCollisionSoundEffect.start();
+    /** Reads one little-endian 16-bit sample. */
+    private static short sample(byte[] bytes, int sampleIndex){
+        return (short) ((bytes[2 * sampleIndex] & 0xff) | (bytes[2 * sampleIndex + 1] << 8));
     }
 }
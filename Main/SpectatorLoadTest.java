@@ -0,0 +1,249 @@
+package Main;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The SpectatorLoadTest class checks the spectator broadcast on one machine: it starts a {@link SpectatorServer} on
+ * the loopback address and opens many spectator connections to it, all read by one thread. Every frame is decoded
+ * and checked: frame numbers must follow each other except where the server skipped forward to a keyframe, and a
+ * keyframe that follows an unbroken run of deltas of the same game must not lose a point or a destroyed brick the
+ * deltas built, since a game's score and destroyed bricks only grow. A share of the spectators
+ * read slowly on purpose, about half as fast as the stream, so the server has to skip them forward.
+ * At the end it reports the fan-out throughput, the server's broadcast times and the latency from encoding a frame
+ * to decoding it, measured on the fast spectators.
+ */
+public class SpectatorLoadTest {
+    private static final int DEFAULT_SPECTATORS = 1000;
+    private static final int DEFAULT_SECONDS = 20;
+    private static final double DEFAULT_SLOW_PERCENT = 2;
+    /** How much a slow spectator reads at a time, and how often. */
+    private static final int SLOW_READ_BYTES = 64;
+    private static final long SLOW_READ_NANOS = 100_000_000L;
+    /** The kernel receive buffer of a slow spectator's socket, so its backlog reaches the server soon. */
+    private static final int SLOW_RECEIVE_BUFFER_BYTES = 2048;
+
+    /** A spectator connection and the state its frames built. */
+    private static final class Viewer {
+        private final SocketChannel channel;
+        private final boolean slow;
+        private final ByteBuffer buffer = ByteBuffer.allocate(4096);
+        private long nextReadNanos;
+        /** The frame number expected next, or -1 before the first keyframe. */
+        private int expectedFrame = -1;
+        private int game;
+        private int score;
+        private int lives;
+        private long[] words = new long[0];
+        private long frames;
+        private long skips;
+        private long errors;
+
+        Viewer(SocketChannel channel, boolean slow){
+            this.channel = channel;
+            this.slow = slow;
+        }
+
+        /**
+         * Decodes every complete frame in the buffer.
+         * @param now The time the bytes were read.
+         * @param latency Where to record how long ago each frame was encoded, or null.
+         */
+        void decode(long now, LatencyHistogram latency){
+            buffer.flip();
+            while(buffer.remaining() >= 2 && buffer.remaining() >= 2 + (buffer.getShort(buffer.position()) & 0xFFFF)){
+                int end = buffer.position() + 2 + (buffer.getShort() & 0xFFFF);
+                byte type = buffer.get();
+                int number = buffer.getInt();
+                long encodedNanos = buffer.getLong();
+                buffer.position(buffer.position() + 3 * 2);
+                if(type == SpectatorServer.KEYFRAME){
+                    readKeyframe(number);
+                }
+                else if(type == SpectatorServer.DELTA && number == expectedFrame){
+                    readDelta();
+                }
+                else{
+                    errors++;
+                }
+                if(buffer.position() != end){
+                    errors++;
+                    buffer.position(end);
+                }
+                expectedFrame = number + 1;
+                frames++;
+                if(latency != null){
+                    latency.record(now - encodedNanos);
+                }
+            }
+            buffer.compact();
+        }
+
+        /**
+         * Reads a keyframe, checking it against the state built so far if no frame was skipped before it.
+         * The keyframe may be ahead of that state, as it also holds its own frame's changes.
+         */
+        private void readKeyframe(int number){
+            int keyGame = buffer.get() & 0xFF;
+            int keyScore = buffer.getInt();
+            int keyLives = buffer.get();
+            int wordCount = buffer.get();
+            boolean continuous = number == expectedFrame && keyGame == game && words.length == wordCount;
+            if(expectedFrame >= 0 && number != expectedFrame){
+                if(number < expectedFrame){
+                    errors++;
+                }
+                skips++;
+            }
+            if(continuous && keyScore < score){
+                errors++;
+            }
+            if(words.length != wordCount){
+                words = new long[wordCount];
+            }
+            for(int index = 0; index < wordCount; index++){
+                long word = buffer.getLong();
+                if(continuous && (word & words[index]) != words[index]){
+                    errors++;
+                }
+                words[index] = word;
+            }
+            game = keyGame;
+            score = keyScore;
+            lives = keyLives;
+        }
+
+        /** Applies a delta to the state built so far. */
+        private void readDelta(){
+            int flags = buffer.get();
+            if((flags & NetProtocol.FLAG_SCORE) != 0){
+                score = buffer.getInt();
+                lives = buffer.get();
+            }
+            if((flags & NetProtocol.FLAG_BRICKS) != 0){
+                int count = buffer.get();
+                for(int index = 0; index < count; index++){
+                    int word = buffer.get();
+                    long value = buffer.getLong();
+                    if(word < 0 || word >= words.length){
+                        errors++;
+                    }
+                    else{
+                        words[word] = value;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the test and prints the report.
+     * @param args Optional: the number of spectators, then the seconds to run, then the share of slow spectators in percent.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int spectatorCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_SPECTATORS;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SECONDS;
+        double slowPercent = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_SLOW_PERCENT;
+        SpectatorServer server = new SpectatorServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+        InetSocketAddress address = server.getAddress();
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "spectator-server");
+        serverThread.start();
+        Selector selector = Selector.open();
+        Viewer[] viewers = new Viewer[spectatorCount];
+        int slowCount = (int) Math.round(spectatorCount * slowPercent / 100);
+        for(int index = 0; index < spectatorCount; index++){
+            // Spread the slow spectators evenly among the others.
+            boolean slow = slowCount > 0 && index % Math.max(1, spectatorCount / slowCount) == 0
+                    && index / Math.max(1, spectatorCount / slowCount) < slowCount;
+            SocketChannel channel = SocketChannel.open();
+            if(slow){
+                channel.setOption(StandardSocketOptions.SO_RCVBUF, SLOW_RECEIVE_BUFFER_BYTES);
+            }
+            channel.connect(address);
+            channel.configureBlocking(false);
+            viewers[index] = new Viewer(channel, slow);
+            if(!slow){
+                // The slow spectators are read on a timer instead.
+                channel.register(selector, SelectionKey.OP_READ, viewers[index]);
+            }
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long now;
+        while((now = System.nanoTime()) - end < 0){
+            selector.select(1);
+            for(SelectionKey key : selector.selectedKeys()){
+                Viewer viewer = (Viewer) key.attachment();
+                long read = viewer.channel.read(viewer.buffer);
+                if(read < 0){
+                    key.cancel();
+                    viewer.errors++;
+                    continue;
+                }
+                viewer.decode(System.nanoTime(), latency);
+            }
+            selector.selectedKeys().clear();
+            for(Viewer viewer : viewers){
+                if(viewer.slow && now - viewer.nextReadNanos >= 0){
+                    viewer.nextReadNanos = now + SLOW_READ_NANOS;
+                    viewer.buffer.limit(Math.min(viewer.buffer.capacity(), viewer.buffer.position() + SLOW_READ_BYTES));
+                    viewer.channel.read(viewer.buffer);
+                    viewer.buffer.limit(viewer.buffer.capacity());
+                    viewer.decode(now, null);
+                }
+            }
+        }
+        server.stop();
+        serverThread.join();
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long fastFrames = 0;
+        long slowFrames = 0;
+        long seenSkips = 0;
+        long errors = 0;
+        for(Viewer viewer : viewers){
+            if(viewer.slow){
+                slowFrames += viewer.frames;
+            }
+            else{
+                fastFrames += viewer.frames;
+            }
+            seenSkips += viewer.skips;
+            errors += viewer.errors;
+            viewer.channel.close();
+        }
+        selector.close();
+        int fastCount = spectatorCount - slowCount;
+        int frames = server.getFrameCount();
+        LatencyHistogram work = server.getBroadcastWork();
+        LatencyHistogram lateness = server.getTickLateness();
+        System.out.printf("%d spectators (%d slow) for %.1f s, %d accepted, %d dropped%n", spectatorCount, slowCount, elapsed,
+                server.getAcceptedSpectators(), server.getDroppedSpectators());
+        System.out.printf("fan-out: %d frames encoded (%.1f per second, %d scheduled), %.0f frames/s and %.0f bytes/s written%n",
+                frames, frames / elapsed, SpectatorServer.BROADCAST_HZ, server.getSentFrames() / elapsed, server.getSentBytes() / elapsed);
+        System.out.printf("broadcast to all: p50 %.0f us, p99 %.0f us, p99.9 %.0f us, max %.0f us; tick late p99 %.0f us, max %.0f us%n",
+                work.valueAtPercentile(50) / 1e3, work.valueAtPercentile(99) / 1e3, work.valueAtPercentile(99.9) / 1e3,
+                work.getMax() / 1e3, lateness.valueAtPercentile(99) / 1e3, lateness.getMax() / 1e3);
+        System.out.printf("encode to decode, fast spectators: p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                latency.valueAtPercentile(50) / 1e6, latency.valueAtPercentile(99) / 1e6, latency.valueAtPercentile(99.9) / 1e6,
+                latency.getMax() / 1e6);
+        System.out.printf("frames per spectator: fast %.0f, slow %.0f; %d skips forward by the server, %d seen by the spectators%n",
+                fastCount == 0 ? 0.0 : (double) fastFrames / fastCount, slowCount == 0 ? 0.0 : (double) slowFrames / slowCount,
+                server.getSkips(), seenSkips);
+        System.out.println("stream errors: " + errors);
+        if(errors > 0){
+            System.exit(1);
+        }
+    }
+}
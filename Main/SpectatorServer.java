@@ -0,0 +1,419 @@
+package Main;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import GameObjects.BrickField;
+
+/**
+ * The SpectatorServer class streams one live bot-played game to any number of read-only spectators over TCP.
+ * A game that ends is replaced by a new one at once.
+ * <p>
+ * {@link #BROADCAST_HZ} times a second the state is encoded once, as a frame in a ring of frames that lives in one
+ * direct buffer shared by every spectator. Each spectator only has the number of the next frame it is owed and how
+ * much of that frame it already got; its pending frames are written straight from the ring with one gathering
+ * write, through views of the ring that all spectators share. So fanning a frame out costs a system call per
+ * spectator, but no copy and no encoding.
+ * <p>
+ * Frames are big-endian and start with a length short counting the bytes after it, then the type byte, the frame
+ * number as an int, the server's {@link System#nanoTime()} when the frame was encoded, and the ball's x and y and
+ * the paddle's x as fixed-point shorts, as in {@link NetProtocol}. A {@link #KEYFRAME} goes on with the game number
+ * as a byte, the score as an int, the lives as a byte, the number of destroyed-brick words as a byte and the words
+ * themselves as longs, 64 brick ids per word. A {@link #DELTA} only holds what changed since the previous frame:
+ * a flags byte, then with {@link NetProtocol#FLAG_SCORE} the score and lives, and with {@link NetProtocol#FLAG_BRICKS}
+ * a count byte followed by pairs of a word index byte and a word.
+ * <p>
+ * A keyframe is sent every {@link #KEYFRAME_INTERVAL} frames and whenever a new game starts, and a spectator joins
+ * at the newest keyframe. A spectator that falls more than {@link #MAX_BACKLOG_FRAMES} frames behind, because it
+ * reads too slowly and its socket buffer is full, is skipped forward to the newest keyframe once its current frame
+ * is complete, so the server never holds more than the ring for anyone. The socket send buffers are kept small for
+ * the same reason: stale frames should wait in the ring, where they can be skipped, not in the kernel.
+ * Everything runs on one thread around a {@link Selector} that only accepts connections.
+ */
+public class SpectatorServer {
+    /** The port the server listens on unless another one is given. */
+    public static final int DEFAULT_PORT = 47820;
+    /** Frames broadcast per second; every other physics step at the default physics rate. */
+    static final int BROADCAST_HZ = 60;
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    /** Length, type, frame number, encoding time and the three positions. */
+    static final int FRAME_HEADER_BYTES = 2 + 1 + 4 + 8 + 3 * 2;
+    /** Frames between two keyframes. */
+    static final int KEYFRAME_INTERVAL = 30;
+    /** How many frames a spectator may be owed before it is skipped forward to the newest keyframe. */
+    static final int MAX_BACKLOG_FRAMES = 60;
+    /**
+     * Frames kept in the ring; a power of two well above {@link #MAX_BACKLOG_FRAMES}, so a spectator that is behind
+     * has a few seconds to take the rest of its frame in progress before the frame is overwritten.
+     */
+    private static final int FRAMES = 256;
+    /** The most frames written to a spectator with one gathering write. */
+    private static final int MAX_GATHER = 16;
+    /** The kernel send buffer of each spectator's socket, in bytes. */
+    private static final int SEND_BUFFER_BYTES = 4096;
+    private static final int DEFAULT_LINES = 4;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final int lines;
+    private final TickScheduler scheduler;
+    /** Physics steps between two frames. */
+    private final int broadcastInterval;
+    /** The size of a slot of the ring: the largest frame. */
+    private final int slotBytes;
+    private final int wordCount;
+    /** The ring of encoded frames, frame n in slot n modulo {@link #FRAMES}. */
+    private final ByteBuffer frames;
+    /** The buffer frames are encoded through, a view of the ring. */
+    private final ByteBuffer encoder;
+    /**
+     * Views of the ring for the gathering writes, two per slot so the pending frames of a spectator are always
+     * consecutive views even when they wrap around the ring. Their bounds are set before each write.
+     */
+    private final ByteBuffer[] views = new ByteBuffer[2 * FRAMES];
+    private final int[] frameLengths = new int[FRAMES];
+    private final long[] previousWords;
+    private final List<Spectator> spectators = new ArrayList<>();
+    /** How long encoding a frame and writing it to every spectator took, in nanoseconds. */
+    private final LatencyHistogram broadcastWork = new LatencyHistogram();
+    private final AutopilotController bot = new AutopilotController();
+    private GameWorld world;
+    private int game;
+    private boolean newGame = true;
+    private int previousScore;
+    private int previousLives;
+    private int tick;
+    /** The number of the next frame to encode. */
+    private int frameCount;
+    private int newestKeyframe;
+    private long sentBytes;
+    private long sentFrames;
+    private long skips;
+    private long droppedSpectators;
+    private long acceptedSpectators;
+
+    /** A connected spectator and how far its stream got. */
+    private static final class Spectator {
+        private final SocketChannel channel;
+        /** The number of the next frame the spectator is owed. */
+        private int nextFrame;
+        /** The bytes of that frame already written. */
+        private int sentInFrame;
+
+        Spectator(SocketChannel channel, int nextFrame){
+            this.channel = channel;
+            this.nextFrame = nextFrame;
+        }
+    }
+
+    /**
+     * Opens the server's socket.
+     * @param address The address to listen on, e.g. port 0 of the loopback address for any free port.
+     * @param lines The number of brick lines of every game.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public SpectatorServer(InetSocketAddress address, int lines) throws IOException{
+        if(lines <= 0){
+            throw new IllegalArgumentException("The brick lines must be positive");
+        }
+        this.lines = lines;
+        broadcastInterval = Math.max(1, GameLoop.DEFAULT_PHYSICS_HZ / BROADCAST_HZ);
+        world = HeadlessRunner.newWorld(lines);
+        wordCount = NetProtocol.wordCount(world.getBricks().getField().getIdCount());
+        if(wordCount > Byte.MAX_VALUE){
+            throw new IllegalArgumentException("Too many brick lines to stream");
+        }
+        previousWords = new long[wordCount];
+        // A delta that changes the score, the lives and every word is the largest frame.
+        slotBytes = FRAME_HEADER_BYTES + 1 + 4 + 1 + 1 + wordCount * (1 + 8);
+        frames = ByteBuffer.allocateDirect(FRAMES * slotBytes);
+        encoder = frames.duplicate();
+        for(int index = 0; index < views.length; index++){
+            views[index] = frames.duplicate();
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        scheduler = new TickScheduler(selector, 1_000_000_000L / GameLoop.DEFAULT_PHYSICS_HZ);
+    }
+
+    /**
+     * Returns the address the server listens on.
+     * @return The bound address.
+     * @throws IOException if the socket is closed.
+     */
+    public InetSocketAddress getAddress() throws IOException{
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Plays and broadcasts until {@link #stop()} is called, then closes every connection.
+     * @throws IOException if the server socket fails.
+     */
+    public void run() throws IOException{
+        try {
+            scheduler.run(this::tick, this::accept, this::printReport);
+        } finally {
+            for(Spectator spectator : spectators){
+                spectator.channel.close();
+            }
+            selector.close();
+            serverChannel.close();
+        }
+    }
+
+    /** Makes {@link #run()} return after the current tick; may be called from any thread. */
+    public void stop(){
+        scheduler.stop();
+    }
+
+    /** Accepts every waiting connection; a new spectator starts at the newest keyframe. */
+    private void accept() throws IOException{
+        SocketChannel channel;
+        while((channel = serverChannel.accept()) != null){
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_BYTES);
+            // Before the first frame, the first one to be encoded is a keyframe.
+            spectators.add(new Spectator(channel, frameCount == 0 ? 0 : newestKeyframe));
+            acceptedSpectators++;
+        }
+    }
+
+    /** Steps the game with the bot, starting a new one when it ends, and broadcasts a frame when one is due. */
+    private void tick(long now) throws IOException{
+        world.setInputMask(bot.nextInput(world));
+        world.step();
+        if(world.isGameOver()){
+            world = HeadlessRunner.newWorld(lines);
+            game++;
+            newGame = true;
+        }
+        if(tick % broadcastInterval == 0){
+            // Accepted here too, as a server that is behind its schedule does not wait in the selector.
+            accept();
+            encodeFrame(now);
+            for(int index = spectators.size() - 1; index >= 0; index--){
+                if(!write(spectators.get(index))){
+                    drop(index);
+                }
+            }
+            broadcastWork.record(System.nanoTime() - now);
+        }
+        tick++;
+    }
+
+    /** Encodes the current state into the next slot of the ring, as a keyframe when one is due. */
+    private void encodeFrame(long now){
+        int slot = frameCount & (FRAMES - 1);
+        boolean keyframe = newGame || frameCount - newestKeyframe >= KEYFRAME_INTERVAL || frameCount == 0;
+        int start = slot * slotBytes;
+        encoder.clear().position(start + 2);
+        encoder.put(keyframe ? KEYFRAME : DELTA).putInt(frameCount).putLong(now);
+        encoder.putShort(NetProtocol.encodePosition(world.getBall().getPreciseX()));
+        encoder.putShort(NetProtocol.encodePosition(world.getBall().getPreciseY()));
+        encoder.putShort(NetProtocol.encodePosition(world.getPaddle().getPreciseX()));
+        int score = world.getPlayer().getScore();
+        int lives = world.getPlayer().getLifePoints();
+        BrickField bricks = world.getBricks().getField();
+        if(keyframe){
+            encoder.put((byte) game).putInt(score).put((byte) lives).put((byte) wordCount);
+            for(int index = 0; index < wordCount; index++){
+                previousWords[index] = NetProtocol.destroyedWord(bricks, index);
+                encoder.putLong(previousWords[index]);
+            }
+            newestKeyframe = frameCount;
+            newGame = false;
+        }
+        else{
+            int flagsPosition = encoder.position();
+            encoder.put((byte) 0);
+            int flags = 0;
+            if(score != previousScore || lives != previousLives){
+                flags |= NetProtocol.FLAG_SCORE;
+                encoder.putInt(score).put((byte) lives);
+            }
+            int countPosition = encoder.position();
+            encoder.put((byte) 0);
+            int count = 0;
+            for(int index = 0; index < wordCount; index++){
+                long word = NetProtocol.destroyedWord(bricks, index);
+                if(word != previousWords[index]){
+                    encoder.put((byte) index).putLong(word);
+                    previousWords[index] = word;
+                    count++;
+                }
+            }
+            if(count > 0){
+                flags |= NetProtocol.FLAG_BRICKS;
+                encoder.put(countPosition, (byte) count);
+            }
+            else{
+                encoder.position(countPosition);
+            }
+            encoder.put(flagsPosition, (byte) flags);
+        }
+        previousScore = score;
+        previousLives = lives;
+        int length = encoder.position() - start;
+        encoder.putShort(start, (short) (length - 2));
+        frameLengths[slot] = length;
+        frameCount++;
+    }
+
+    /**
+     * Writes the frames a spectator is owed with gathering writes until they are all sent or its socket is full.
+     * A spectator too far behind first gets the rest of the frame in progress, so its stream stays whole,
+     * and is then skipped forward to the newest keyframe.
+     * @param spectator The spectator.
+     * @return false if the connection failed, or the spectator fell so far behind mid-frame that the frame was overwritten.
+     */
+    private boolean write(Spectator spectator){
+        try {
+            if(frameCount - spectator.nextFrame > MAX_BACKLOG_FRAMES && newestKeyframe > spectator.nextFrame){
+                if(spectator.sentInFrame > 0){
+                    if(frameCount - spectator.nextFrame > FRAMES){
+                        return false;
+                    }
+                    send(spectator, spectator.nextFrame + 1);
+                    if(spectator.sentInFrame > 0){
+                        return true;
+                    }
+                }
+                spectator.nextFrame = newestKeyframe;
+                skips++;
+            }
+            send(spectator, frameCount);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a spectator's frames up to a frame straight from the ring, until they are sent or its socket is full.
+     * @param spectator The spectator.
+     * @param endFrame The number of the first frame not to write.
+     * @throws IOException if the connection failed.
+     */
+    private void send(Spectator spectator, int endFrame) throws IOException{
+        while(spectator.nextFrame != endFrame){
+            int first = spectator.nextFrame & (FRAMES - 1);
+            int count = Math.min(endFrame - spectator.nextFrame, MAX_GATHER);
+            long requested = 0;
+            for(int index = 0; index < count; index++){
+                int slot = (first + index) & (FRAMES - 1);
+                ByteBuffer view = views[first + index];
+                view.limit(slot * slotBytes + frameLengths[slot]);
+                view.position(slot * slotBytes + (index == 0 ? spectator.sentInFrame : 0));
+                requested += view.remaining();
+            }
+            long written = spectator.channel.write(views, first, count);
+            sentBytes += written;
+            advance(spectator, written);
+            if(written < requested){
+                return;
+            }
+        }
+    }
+
+    /** Moves a spectator's position in its stream forward by the bytes just written. */
+    private void advance(Spectator spectator, long written){
+        while(written > 0){
+            int rest = frameLengths[spectator.nextFrame & (FRAMES - 1)] - spectator.sentInFrame;
+            if(written < rest){
+                spectator.sentInFrame += (int) written;
+                return;
+            }
+            written -= rest;
+            spectator.nextFrame++;
+            spectator.sentInFrame = 0;
+            sentFrames++;
+        }
+    }
+
+    /** Closes a spectator's connection and forgets it, moving the last spectator into its place. */
+    private void drop(int index){
+        Spectator spectator = spectators.get(index);
+        Spectator last = spectators.remove(spectators.size() - 1);
+        if(last != spectator){
+            spectators.set(index, last);
+        }
+        try {
+            spectator.channel.close();
+        } catch (IOException e) {
+            // Already gone.
+        }
+        droppedSpectators++;
+    }
+
+    /** Prints the spectators, the broadcast timings and the bandwidth since the server started. */
+    private void printReport(){
+        double seconds = (double) tick / GameLoop.DEFAULT_PHYSICS_HZ;
+        System.out.printf("%d spectators, frame %d: broadcast p50 %.0f us, p99 %.0f us, max %.0f us; late p99 %.0f us; "
+                + "%.0f frames/s and %.0f bytes/s out, %d skips, %d dropped%n",
+                spectators.size(), frameCount, broadcastWork.valueAtPercentile(50) / 1e3, broadcastWork.valueAtPercentile(99) / 1e3,
+                broadcastWork.getMax() / 1e3, scheduler.getTickLateness().valueAtPercentile(99) / 1e3, sentFrames / seconds, sentBytes / seconds,
+                skips, droppedSpectators);
+    }
+
+    /** Returns how long each broadcast took, in nanoseconds. Read it after {@link #run()} returned. */
+    LatencyHistogram getBroadcastWork(){
+        return broadcastWork;
+    }
+
+    /** Returns how late each tick started, in nanoseconds. Read it after {@link #run()} returned. */
+    LatencyHistogram getTickLateness(){
+        return scheduler.getTickLateness();
+    }
+
+    /** Returns the number of frames encoded. Read it after {@link #run()} returned. */
+    int getFrameCount(){
+        return frameCount;
+    }
+
+    /** Returns the number of frames completely written to a spectator, over all spectators. */
+    long getSentFrames(){
+        return sentFrames;
+    }
+
+    /** Returns the number of bytes written to the spectators. */
+    long getSentBytes(){
+        return sentBytes;
+    }
+
+    /** Returns the number of times a slow spectator was skipped forward to a keyframe. */
+    long getSkips(){
+        return skips;
+    }
+
+    /** Returns the number of spectators whose connection failed or who fell too far behind. */
+    long getDroppedSpectators(){
+        return droppedSpectators;
+    }
+
+    /** Returns the number of spectators that connected. */
+    long getAcceptedSpectators(){
+        return acceptedSpectators;
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * @param args Optional: the port, then the number of brick lines.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LINES;
+        SpectatorServer server = new SpectatorServer(new InetSocketAddress(port), lines);
+        System.out.println("Broadcasting to spectators on " + server.getAddress());
+        server.run();
+    }
+}
@@ -0,0 +1,77 @@
+package Main;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The StartupReport class collects how long each phase of the game's startup took.
+ * Phases may run concurrently, so each one is kept with its start offset and duration,
+ * both measured from the moment the report was created (the start of {@code main}).
+ * The time the JVM spent before {@code main} is reported as its own phase.
+ * Phases can be recorded from any thread.
+ */
+public class StartupReport {
+    private final long originNs = System.nanoTime();
+    private final long jvmStartMs = ManagementFactory.getRuntimeMXBean().getUptime();
+    private final List<Phase> phases = new ArrayList<>();
+
+    /** A finished phase, in nanoseconds relative to the report's origin. */
+    private static final class Phase {
+        private final String name;
+        private final long startNs;
+        private final long durationNs;
+
+        private Phase(String name, long startNs, long durationNs){
+            this.name = name;
+            this.startNs = startNs;
+            this.durationNs = durationNs;
+        }
+    }
+
+    /**
+     * Returns the current time, to be passed to {@link #record(String, long)} once the phase is over.
+     * @return The current {@link System#nanoTime()}.
+     */
+    public long begin(){
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a phase that started at the given time and ends now.
+     * @param name The name of the phase.
+     * @param startNs The value {@link #begin()} returned when the phase started.
+     */
+    public void record(String name, long startNs){
+        long now = System.nanoTime();
+        synchronized(phases){
+            phases.add(new Phase(name, startNs - originNs, now - startNs));
+        }
+    }
+
+    /**
+     * Records a milestone: a phase that spans from the start of {@code main} until now, e.g. the time to menu.
+     * @param name The name of the milestone.
+     */
+    public void milestone(String name){
+        record(name, originNs);
+    }
+
+    /**
+     * Prints every recorded phase ordered by start time.
+     * @param out The stream to print to.
+     */
+    public void print(PrintStream out){
+        List<Phase> sorted;
+        synchronized(phases){
+            sorted = new ArrayList<>(phases);
+        }
+        sorted.sort(Comparator.comparingLong((Phase phase) -> phase.startNs).thenComparingLong(phase -> phase.durationNs));
+        out.printf("%-26s %10s %10s%n", "startup phase", "start", "time");
+        out.printf("%-26s %10s %7d ms%n", "jvm (before main)", "", jvmStartMs);
+        for(Phase phase : sorted){
+            out.printf("%-26s %7.1f ms %7.1f ms%n", phase.name, phase.startNs / 1_000_000.0, phase.durationNs / 1_000_000.0);
+        }
+    }
+}
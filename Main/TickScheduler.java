@@ -0,0 +1,100 @@
+package Main;
+import java.io.IOException;
+import java.nio.channels.Selector;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The TickScheduler class runs a server's fixed-rate ticks on one thread around a {@link Selector}.
+ * Between two ticks the thread waits in the selector, so arriving packets or connections wake it and can be
+ * handled at once, and the last fraction of a millisecond is parked instead, as the selector's timeout is coarser.
+ * How late every tick started is recorded, and a report is printed every {@value #REPORT_SECONDS} seconds.
+ */
+final class TickScheduler {
+    /** A tick this late restarts the schedule instead of being caught up with a burst of ticks. */
+    private static final long MAX_CATCH_UP_NANOS = 1_000_000_000L;
+    private static final int REPORT_SECONDS = 5;
+
+    /** One tick of the server. */
+    interface Tick {
+        /**
+         * Runs the tick.
+         * @param now The time the tick started, from {@link System#nanoTime()}.
+         * @throws IOException if a channel fails.
+         */
+        void run(long now) throws IOException;
+    }
+
+    /** What the server does after waiting for the next tick, e.g. reading what arrived. */
+    interface Idle {
+        /**
+         * Handles what arrived while waiting.
+         * @throws IOException if a channel fails.
+         */
+        void run() throws IOException;
+    }
+
+    private final Selector selector;
+    private final long tickNanos;
+    /** How late each tick started, in nanoseconds. */
+    private final LatencyHistogram tickLateness = new LatencyHistogram();
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a scheduler.
+     * @param selector The selector to wait in between ticks; its selected keys are cleared after each wait.
+     * @param tickNanos The time between two ticks, in nanoseconds.
+     */
+    TickScheduler(Selector selector, long tickNanos){
+        this.selector = selector;
+        this.tickNanos = tickNanos;
+    }
+
+    /**
+     * Runs the ticks until {@link #stop()} is called.
+     * @param tick Run once per tick.
+     * @param idle Run after every wait for the next tick.
+     * @param report Run every {@value #REPORT_SECONDS} seconds, after a tick.
+     * @throws IOException if the selector or a callback fails.
+     */
+    void run(Tick tick, Idle idle, Runnable report) throws IOException{
+        long nextTick = System.nanoTime();
+        long nextReport = nextTick + REPORT_SECONDS * 1_000_000_000L;
+        while(running){
+            long now = System.nanoTime();
+            if(now - nextTick >= 0){
+                tickLateness.record(now - nextTick);
+                tick.run(now);
+                nextTick += tickNanos;
+                if(now - nextTick > MAX_CATCH_UP_NANOS){
+                    nextTick = now;
+                }
+                if(now - nextReport >= 0){
+                    report.run();
+                    nextReport += REPORT_SECONDS * 1_000_000_000L;
+                }
+                continue;
+            }
+            long waitMillis = (nextTick - now) / 1_000_000;
+            if(waitMillis > 0){
+                selector.select(waitMillis);
+                selector.selectedKeys().clear();
+            }
+            else{
+                // Less than a millisecond to go, finer than the selector's timeout.
+                LockSupport.parkNanos(nextTick - now);
+            }
+            idle.run();
+        }
+    }
+
+    /** Makes {@link #run} return after the current tick; may be called from any thread. */
+    void stop(){
+        running = false;
+        selector.wakeup();
+    }
+
+    /** Returns how late each tick started, in nanoseconds. Read it after {@link #run} returned. */
+    LatencyHistogram getTickLateness(){
+        return tickLateness;
+    }
+}
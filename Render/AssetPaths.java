@@ -14,6 +14,8 @@ public final class AssetPaths {
     // sound effect assets
     public static final String COLLISION_SOUND_EFFECT_FILE_PATH = "assets/Bubble.wav";
     public static final String BRICK_COLLISION_SOUND_EFFECT_FILE_PATH = "assets/blop-cut-silenced.wav";
+    // levels
+    public static final String LEVEL_PACK_PATH = "assets/levels.bblp";
     // error
     public static final String ERROR_ICON_PATH = "assets/error.png";
 }
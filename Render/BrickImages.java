@@ -0,0 +1,58 @@
+package Render;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * The BrickImages class picks the image of a brick from its type and the hit points it has left.
+ * A brick with more hit points is drawn darker, so the player can tell how many hits it still takes;
+ * the shades are made from the brick asset on first use and shared by all bricks.
+ * Only the standard brick has art so far, so every type is drawn with it.
+ */
+final class BrickImages {
+    /** The art of each brick type, indexed by type; types past the end use the first entry. */
+    private static final String[] TYPE_PATHS = {AssetPaths.BRICK_ICON_PATH};
+    /** Bricks with this many hit points or more share the darkest shade. */
+    private static final int SHADES = 5;
+    /** How much darker each extra hit point makes the brick, from 0 to 1. */
+    private static final float SHADE_STEP = 0.15f;
+    private static final BufferedImage[][] IMAGES = new BufferedImage[TYPE_PATHS.length][SHADES];
+
+    private BrickImages(){
+    }
+
+    /**
+     * Returns the image of a brick.
+     * @param type The kind of brick.
+     * @param hitPoints The hit points the brick has left, at least 1.
+     * @return The shared image to draw the brick with.
+     */
+    static synchronized BufferedImage get(int type, int hitPoints){
+        int art = type >= 0 && type < TYPE_PATHS.length ? type : 0;
+        int shade = Math.max(0, Math.min(hitPoints, SHADES) - 1);
+        BufferedImage image = IMAGES[art][shade];
+        if(image == null){
+            image = shade(SpriteCache.getImage(TYPE_PATHS[art]), shade);
+            IMAGES[art][shade] = image;
+        }
+        return image;
+    }
+
+    /** Darkens the opaque pixels of an image by the given number of steps; step 0 returns the image itself. */
+    private static BufferedImage shade(BufferedImage source, int steps){
+        if(steps == 0){
+            return source;
+        }
+        BufferedImage image = SpriteCache.toCompatible(source);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, steps * SHADE_STEP));
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,204 @@
+package Render;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.List;
+
+/**
+ * An off-screen image holding the background with every live brick already drawn on it.
+ * Instead of drawing each brick every frame the {@link Screen} blits this image once and only patches what changed:
+ * a destroyed brick's rectangle is erased at once, and the rectangles of moved or restored bricks are collected
+ * into one region that is redrawn, background and bricks, before the next blit. In endless mode the drifting rows
+ * therefore cost a redraw of their strip, not of the whole layer.
+ * A VolatileImage is used when the display supports one, falling back to a compatible BufferedImage.
+ * If the volatile contents are lost, the layer is rebuilt from the live brick sprites.
+ * Bricks of a level never overlap, so erasing one brick only needs the background under it.
+ */
+class BrickLayer {
+    private final Sprite background;
+    /** The brick sprites by brick id, shared with the screen; destroyed bricks are null. */
+    private final List <Sprite> brickSprites;
+    private final int width;
+    private final int height;
+    private VolatileImage volatileImage;
+    private BufferedImage fallbackImage;
+    /** Set when the bricks were replaced and the whole layer must be redrawn. */
+    private boolean dirty = true;
+    /** The region to redraw before the next blit; empty while the right edge is not past the left one. */
+    private int regionLeft;
+    private int regionTop;
+    private int regionRight;
+    private int regionBottom;
+
+    /**
+     * Constructs the layer.
+     * @param background The background sprite under the bricks.
+     * @param brickSprites The brick sprites by id; the layer reads them when it has to be rebuilt.
+     * @param width The width of the layer.
+     * @param height The height of the layer.
+     */
+    BrickLayer(Sprite background, List <Sprite> brickSprites, int width, int height){
+        this.background = background;
+        this.brickSprites = brickSprites;
+        this.width = width;
+        this.height = height;
+    }
+
+    /** Marks the whole layer for a redraw, e.g. after the bricks of a level were added or cleared. */
+    void invalidate(){
+        dirty = true;
+    }
+
+    /**
+     * Marks a rectangle of the layer for a redraw before the next blit, e.g. where a brick was or now is.
+     * @param x The left edge of the rectangle.
+     * @param y The top edge of the rectangle.
+     * @param rectWidth The width of the rectangle.
+     * @param rectHeight The height of the rectangle.
+     */
+    void invalidate(int x, int y, int rectWidth, int rectHeight){
+        if(regionRight <= regionLeft){
+            regionLeft = x;
+            regionTop = y;
+            regionRight = x + rectWidth;
+            regionBottom = y + rectHeight;
+            return;
+        }
+        regionLeft = Math.min(regionLeft, x);
+        regionTop = Math.min(regionTop, y);
+        regionRight = Math.max(regionRight, x + rectWidth);
+        regionBottom = Math.max(regionBottom, y + rectHeight);
+    }
+
+    /**
+     * Erases a single brick by drawing the background back over its rectangle.
+     * @param brick The sprite of the destroyed brick.
+     */
+    void erase(Sprite brick){
+        if(dirty){
+            return; // The next full rebuild won't include the brick anyway.
+        }
+        Graphics2D g = createLayerGraphics();
+        if(g == null){
+            return;
+        }
+        try {
+            g.setClip(brick.getX(), brick.getY(), brick.getWidth(), brick.getHeight());
+            background.draw(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Draws the layer, rebuilding it first if it is dirty or its contents were lost.
+     * @param g The graphics of the frame being drawn.
+     * @param configuration The configuration of the surface the frame is shown on.
+     */
+    void draw(Graphics2D g, GraphicsConfiguration configuration){
+        if(volatileImage == null && fallbackImage == null){
+            createImage(configuration);
+        }
+        if(volatileImage == null){
+            update();
+            g.drawImage(fallbackImage, 0, 0, null);
+            return;
+        }
+        do {
+            int status = volatileImage.validate(configuration);
+            if(status == VolatileImage.IMAGE_INCOMPATIBLE){
+                createImage(configuration);
+                if(volatileImage == null){
+                    draw(g, configuration);
+                    return;
+                }
+                dirty = true;
+            }
+            else if(status == VolatileImage.IMAGE_RESTORED){
+                dirty = true;
+            }
+            update();
+            g.drawImage(volatileImage, 0, 0, null);
+        } while(volatileImage.contentsLost());
+    }
+
+    /** Brings the layer up to date: a full rebuild if it is dirty, otherwise a redraw of the invalidated region. */
+    private void update(){
+        if(dirty){
+            rebuild();
+        }
+        else if(regionRight > regionLeft){
+            redrawRegion();
+        }
+    }
+
+    /** Draws the background and the live bricks overlapping the invalidated region into it. */
+    private void redrawRegion(){
+        Graphics2D g = createLayerGraphics();
+        if(g == null){
+            return;
+        }
+        try {
+            g.setClip(regionLeft, regionTop, regionRight - regionLeft, regionBottom - regionTop);
+            background.draw(g);
+            for(Sprite brick : brickSprites){
+                if(brick != null && brick.getX() < regionRight && brick.getX() + brick.getWidth() > regionLeft
+                        && brick.getY() < regionBottom && brick.getY() + brick.getHeight() > regionTop){
+                    brick.draw(g);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        regionRight = regionLeft;
+    }
+
+    /** Draws the background and every live brick into the layer. */
+    private void rebuild(){
+        Graphics2D g = createLayerGraphics();
+        if(g == null){
+            return;
+        }
+        try {
+            background.draw(g);
+            for(Sprite brick : brickSprites){
+                if(brick != null){
+                    brick.draw(g);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        dirty = false;
+        regionRight = regionLeft;
+    }
+
+    private Graphics2D createLayerGraphics(){
+        if(volatileImage != null){
+            return volatileImage.createGraphics();
+        }
+        if(fallbackImage != null){
+            return fallbackImage.createGraphics();
+        }
+        return null;
+    }
+
+    /** Creates an accelerated volatile image, or a compatible buffered image when that is not possible. */
+    private void createImage(GraphicsConfiguration configuration){
+        if(volatileImage != null){
+            volatileImage.flush();
+            volatileImage = null;
+        }
+        try {
+            volatileImage = configuration.createCompatibleVolatileImage(width, height, Transparency.OPAQUE);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            volatileImage = null;
+        }
+        if(volatileImage == null){
+            fallbackImage = configuration.createCompatibleImage(width, height, Transparency.OPAQUE);
+        }
+        dirty = true;
+    }
+}
@@ -0,0 +1,34 @@
+package Render;
+
+/**
+ * A render observer that ignores every change.
+ * Used to run the game world without a display, for example in profiling and soak runs.
+ */
+public class NullRenderObserver implements RenderObserver {
+    @Override
+    public void moveBall(int x, int y) {}
+
+    @Override
+    public void movePaddle(int x, int y) {}
+
+    @Override
+    public void brickDestroy(int brickId) {}
+
+    @Override
+    public void brickHit(int brickId, int hitPoints) {}
+
+    @Override
+    public void moveBrick(int brickId, int x, int y) {}
+
+    @Override
+    public void brickRestore(int brickId) {}
+
+    @Override
+    public void refreshPlayerScore(int score) {}
+
+    @Override
+    public void removeHeartLabel(int index) {}
+
+    @Override
+    public void refreshHearts(int lifePoints) {}
+}
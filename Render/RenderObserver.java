@@ -0,0 +1,67 @@
+package Render;
+
+/**
+ * A listener interface for the visible changes produced by the game world.
+ * The world reports every change through this interface instead of touching Swing directly,
+ * so it can run with the real {@link Screen} or headlessly with {@link NullRenderObserver}.
+ */
+public interface RenderObserver {
+    /**
+     * Invoked when the ball has moved.
+     * @param x The new x-coordinate of the ball.
+     * @param y The new y-coordinate of the ball.
+     */
+    void moveBall(int x, int y);
+
+    /**
+     * Invoked when the paddle has moved.
+     * @param x The new x-coordinate of the paddle.
+     * @param y The new y-coordinate of the paddle.
+     */
+    void movePaddle(int x, int y);
+
+    /**
+     * Invoked when a brick has been destroyed.
+     * @param brickId The id of the brick in the level's {@link GameObjects.BrickField}.
+     */
+    void brickDestroy(int brickId);
+
+    /**
+     * Invoked when a brick was hit but is still standing, or its hit points changed otherwise.
+     * @param brickId The id of the brick in the level's {@link GameObjects.BrickField}.
+     * @param hitPoints The hit points the brick has left.
+     */
+    void brickHit(int brickId, int hitPoints);
+
+    /**
+     * Invoked when a brick has moved; destroyed bricks may move too, to be restored later.
+     * @param brickId The id of the brick in the level's {@link GameObjects.BrickField}.
+     * @param x The new x-coordinate of the brick.
+     * @param y The new y-coordinate of the brick.
+     */
+    void moveBrick(int brickId, int x, int y);
+
+    /**
+     * Invoked when a destroyed brick has been brought back, with the hit points it now has in the field.
+     * @param brickId The id of the brick in the level's {@link GameObjects.BrickField}.
+     */
+    void brickRestore(int brickId);
+
+    /**
+     * Invoked when the player's score has changed.
+     * @param score The new score.
+     */
+    void refreshPlayerScore(int score);
+
+    /**
+     * Invoked when the player has lost a life.
+     * @param index The index of the heart to remove.
+     */
+    void removeHeartLabel(int index);
+
+    /**
+     * Invoked when the number of lives jumped, e.g. after the game was rewound.
+     * @param lifePoints The number of lives to show.
+     */
+    void refreshHearts(int lifePoints);
+}
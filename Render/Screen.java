@@ -1,15 +1,20 @@
 package Render;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
-import GameObjects.Brick;
+import GameObjects.BrickField;
 import GameObjects.BrickLines;
+import Main.GameEvents;
 import Main.Player;
 
 import javax.swing.ImageIcon;
-import javax.swing.SwingConstants;
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
 import java.util.ArrayList;
 import java.util.List;
 /**
@@ -17,12 +22,27 @@ import java.util.List;
  * It extends JFrame and is responsible for rendering all visual elements,
  * including the background, game objects (paddle, ball, bricks), UI elements (score, lives),
  * and various game state screens (menu, win, game over).
+ * As a {@link RenderObserver} it mirrors the changes reported by the game world.
+ * Everything is drawn into a single Canvas through a page-flipping BufferStrategy:
+ * the methods below only update what is on screen, and {@link #renderFrame()} draws a whole frame.
+ * The background and bricks are cached in a {@link BrickLayer}, so a frame costs one blit
+ * plus the moving sprites no matter how many bricks the level has.
  */
-public class Screen extends JFrame{
+public class Screen extends JFrame implements RenderObserver{
     /** The height of the game window in pixels. */
     public final static int WINDOW_HEIGHT = 720;
     /** The width of the game window in pixels. */
     public final static int WINDOW_WIDTH = 1280;
+    /** Triple buffering lets a frame be drawn while the previous one is still waiting to be shown. */
+    private static final int BUFFER_COUNT = 3;
+    private static final Font TEXT_FONT = new Font("Monospaced", Font.BOLD, 28);
+    private static final Color TEXT_COLOR = new Color(0, 255, 180);
+    private static final Font STATS_FONT = new Font("Monospaced", Font.PLAIN, 14);
+    private static final Color STATS_BACKGROUND = new Color(0, 0, 0, 160);
+    private static final int STATS_LINE_HEIGHT = 17;
+    private static final int STATS_X = 10;
+    private static final int STATS_Y = 60;
+    private static final int STATS_WIDTH = 500;
     // Asset paths for icons and backgrounds.
     private final String ICON_PATH = AssetPaths.ICON_PATH;
     private final String BACKGROUND_PATH = AssetPaths.BACKGROUND_PATH;
@@ -30,16 +50,31 @@ public class Screen extends JFrame{
     private final String WINING_ICON_PATH = AssetPaths.WINING_ICON_PATH;
     private final String GAME_OVER_ICON_PATH = AssetPaths.GAME_OVER_ICON_PATH;
 
-    // JLabels used to display game elements.
-    public JLabel paddleLabel;
-    public JLabel ballLabel;
-    private JLabel backgroundLabel;
-    private JLabel playerScore;
-    private JLabel menuLogoLabel;
-    private JLabel winingLogoLabel;
-    private JLabel gameOverLogoLabel;
-    private List <JLabel> heartLabels;
-    private List <ArrayList<JLabel>> bricksLines = new ArrayList<>();
+    /** The single surface everything is drawn on. */
+    private Canvas canvas;
+    private BufferStrategy bufferStrategy;
+    // Sprites used to display game elements.
+    private Sprite backgroundSprite;
+    /** The background with all live bricks pre-drawn on it. */
+    private BrickLayer brickLayer;
+    private Sprite paddleSprite;
+    private Sprite ballSprite;
+    private Sprite playerScore;
+    private List <Sprite> heartSprites = new ArrayList<>();
+    /** The heart icon and size of the last {@link #addHeartLabels} call, so hearts can be shown again. */
+    private ImageIcon heartIcon;
+    private int heartWidth;
+    private int heartHeight;
+    /** Brick sprites indexed by brick id; a destroyed brick leaves null in its slot, so no id ever shifts. */
+    private final List <Sprite> brickSprites = new ArrayList<>();
+    /** The sprite of every brick id, destroyed or not, so a revived brick gets its sprite back without allocating. */
+    private final List <Sprite> brickSpritePool = new ArrayList<>();
+    /** The bricks shown, to pick a revived brick's image by its type and hit points. */
+    private BrickField brickField;
+    /** Logos and prompts of the menu, winning and game over screens, drawn on top of everything else. */
+    private List <Sprite> overlaySprites = new ArrayList<>();
+    /** Lines of the frame statistics overlay, or null when it is hidden. */
+    private String[] statsLines;
 
     /**
      * Constructs the main game screen (JFrame).
@@ -47,102 +82,249 @@ public class Screen extends JFrame{
      */
     public Screen(){
         this.setTitle("Brick Breaker");
-        this.setIconImage(new ImageIcon(ICON_PATH).getImage());
+        this.setIconImage(SpriteCache.getImage(ICON_PATH));
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.setResizable(false);
         this.setLayout(null);
         this.setLocationRelativeTo(null);
         this.setSize(new Dimension(WINDOW_WIDTH, WINDOW_HEIGHT));
 
-        // Use a JLabel to display the background image.
-        backgroundLabel = new JLabel(new ImageIcon(BACKGROUND_PATH));
-        backgroundLabel.setLayout(null);
-        backgroundLabel.setBounds(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
-        this.add(backgroundLabel);
+        canvas = new Canvas(){
+            @Override
+            public void paint(Graphics g){
+                // Window exposes (e.g. un-minimizing) redraw the current frame.
+                renderFrame();
+            }
+
+            @Override
+            public void update(Graphics g){
+                paint(g);
+            }
+        };
+        canvas.setBounds(0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
+        // Keep keyboard focus on the frame, where the key listeners are registered.
+        canvas.setFocusable(false);
+        this.add(canvas);
         this.setVisible(true);
+        canvas.createBufferStrategy(BUFFER_COUNT);
+        // The background is fetched only once the window is up, so a background decode can overlap building it.
+        backgroundSprite = new Sprite(SpriteCache.getImage(BACKGROUND_PATH), 0, 0, WINDOW_WIDTH, WINDOW_HEIGHT);
+        brickLayer = new BrickLayer(backgroundSprite, brickSprites, WINDOW_WIDTH, WINDOW_HEIGHT);
+        // Frames are only drawn once everything above exists.
+        bufferStrategy = canvas.getBufferStrategy();
+    }
+
+    /**
+     * Draws the current frame into the back buffer and flips it onto the screen.
+     * Called by the game loop once per frame, and by the other methods of this class when the screen changes
+     * outside of gameplay.
+     */
+    public void renderFrame(){
+        if(bufferStrategy == null){
+            return;
+        }
+        GameEvents.Repaint event = new GameEvents.Repaint();
+        event.begin();
+        int draws = 0;
+        do {
+            do {
+                Graphics2D g = (Graphics2D) bufferStrategy.getDrawGraphics();
+                try {
+                    drawFrame(g);
+                } finally {
+                    g.dispose();
+                }
+                draws++;
+            } while(bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while(bufferStrategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        event.end();
+        if(event.shouldCommit()){
+            event.redraws = draws - 1;
+            event.commit();
+        }
+    }
+
+    /** Draws every sprite, back to front. */
+    private void drawFrame(Graphics2D g){
+        brickLayer.draw(g, canvas.getGraphicsConfiguration());
+        for(Sprite heart : heartSprites){
+            heart.draw(g);
+        }
+        if(playerScore != null){
+            playerScore.draw(g);
+        }
+        if(ballSprite != null){
+            ballSprite.draw(g);
+        }
+        if(paddleSprite != null){
+            paddleSprite.draw(g);
+        }
+        for(Sprite overlay : overlaySprites){
+            overlay.draw(g);
+        }
+        if(statsLines != null){
+            drawStats(g);
+        }
+    }
+
+    /** Draws the frame statistics in the top-left corner, on a translucent panel. */
+    private void drawStats(Graphics2D g){
+        g.setColor(STATS_BACKGROUND);
+        g.fillRect(STATS_X, STATS_Y, STATS_WIDTH, STATS_LINE_HEIGHT * statsLines.length + 8);
+        g.setFont(STATS_FONT);
+        g.setColor(TEXT_COLOR);
+        for(int i = 0; i < statsLines.length; i++){
+            g.drawString(statsLines[i], STATS_X + 6, STATS_Y + STATS_LINE_HEIGHT * (i + 1));
+        }
+    }
+
+    /**
+     * Shows the frame statistics overlay with the given text, or hides it.
+     * @param lines The lines to show, or null to hide the overlay.
+     */
+    public void setStatsOverlay(String[] lines){
+        statsLines = lines;
     }
 
     /**
      * Displays the main menu screen with the game logo and a prompt to start.
      */
     public void menuScreen(){
-        menuLogoLabel = new JLabel(new ImageIcon(MENU_ICON_PATH));
-        menuLogoLabel.setBounds((WINDOW_WIDTH / 2) - 400, 100, 800, 279);
-        JLabel menuText = new JLabel("press any key to start!");
-        menuText.setBounds(WINDOW_WIDTH / 4 + 125, WINDOW_HEIGHT - 600, 600, 600);
-        menuText.setFont(new Font("Monospaced", Font.BOLD, 28));
-        menuText.setForeground(new Color(0, 255, 180));
-        backgroundLabel.add(menuLogoLabel);
-        backgroundLabel.add(menuText);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        overlaySprites.add(new Sprite(SpriteCache.getImage(MENU_ICON_PATH), (WINDOW_WIDTH / 2) - 400, 100, 800, 279));
+        overlaySprites.add(new Sprite("press any key to start!", TEXT_FONT, TEXT_COLOR, false,
+                WINDOW_WIDTH / 4 + 125, WINDOW_HEIGHT - 600, 600, 600));
+        renderFrame();
     }
 
     /**
-     * Adds a JLabel for the paddle to the screen.
-     * @param icon The icon for the label.
+     * Adds the paddle to the screen.
+     * @param icon The icon for the paddle.
      * @param x The x-coordinate.
      * @param y The y-coordinate.
-     * @param width The width of the label.
-     * @param height The height of the label.
+     * @param width The width of the paddle.
+     * @param height The height of the paddle.
      */
 
     public void addPaddleLabel(ImageIcon icon, int x, int y, int width, int height){
-        paddleLabel = new JLabel(icon, JLabel.CENTER);
-        paddleLabel.setBounds(x, y, width, height);
-        backgroundLabel.add(paddleLabel);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        paddleSprite = new Sprite(icon.getImage(), x, y, width, height);
     }
     /**
-     * Adds a JLabel for the ball to the screen.
-     * @param icon The icon for the label.
+     * Adds the ball to the screen.
+     * @param icon The icon for the ball.
      * @param x The x-coordinate.
      * @param y The y-coordinate.
-     * @param width The width of the label.
-     * @param height The height of the label.
+     * @param width The width of the ball.
+     * @param height The height of the ball.
      */
     public void addBallLabel(ImageIcon icon, int x, int y, int width, int height){
-        ballLabel = new JLabel(icon, JLabel.CENTER);
-        ballLabel.setBounds(x, y, width, height);
-        backgroundLabel.add(ballLabel);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        ballSprite = new Sprite(icon.getImage(), x, y, width, height);
     }
+
     /**
-     * Creates and adds JLabels for all bricks to the screen.
-     * @param brick_array The list of Brick objects.
-     * @param numOfBricks The total number of bricks.
+     * Moves the ball to a new position.
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
+     */
+    @Override
+    public void moveBall(int x, int y){
+        ballSprite.setLocation(x, y);
+    }
+
+    /**
+     * Moves the paddle to a new position.
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
+     */
+    @Override
+    public void movePaddle(int x, int y){
+        paddleSprite.setLocation(x, y);
+    }
+
+    /**
+     * Adds all bricks to the screen.
+     * @param lineOfBricks The lines of bricks of the level.
      */
     public void addBricksLabels(BrickLines lineOfBricks){
-        bricksLines.clear();
-        for(int i = 0; i < lineOfBricks.getNumOfLines(); i++){
-            bricksLines.add(new ArrayList<>());
-            for(int j = 0; j < lineOfBricks.getLineByIndex(i).getNumOfBricks(); j++){
-                JLabel brick = new JLabel(lineOfBricks.getLineByIndex(i).getBrickByIndex(j).getIcon(), JLabel.CENTER);
-                brick.setBounds(lineOfBricks.getLineByIndex(i).getBrickByIndex(j).getX(), lineOfBricks.getLineByIndex(i).getBrickByIndex(j).getY(), Brick.getWidth(), Brick.getHeight());
-                bricksLines.get(i).add(brick);
-                backgroundLabel.add(brick);
+        brickSprites.clear();
+        brickSpritePool.clear();
+        BrickField bricks = lineOfBricks.getField();
+        brickField = bricks;
+        for(int id = 0; id < bricks.getIdCount(); id++){
+            Sprite brick = new Sprite(BrickImages.get(bricks.getType(id), bricks.getHitPoints(id)),
+                    bricks.getX(id), bricks.getY(id), bricks.getWidth(id), bricks.getHeight(id));
+            brickSpritePool.add(brick);
+            brickSprites.add(bricks.isLive(id) ? brick : null);
+        }
+        brickLayer.invalidate();
+    }
+
+    /**
+     * Shows a brick that is still standing with the image of its remaining hit points.
+     * Its rectangle of the brick layer is redrawn on the next frame if the image changed.
+     * @param brickId The id of the brick that was hit.
+     * @param hitPoints The hit points the brick has left.
+     */
+    @Override
+    public void brickHit(int brickId, int hitPoints){
+        Sprite brick = brickSpritePool.get(brickId);
+        Image image = BrickImages.get(brickField.getType(brickId), hitPoints);
+        if(brick.getImage() != image){
+            brick.setImage(image);
+            if(brickSprites.get(brickId) != null){
+                brickLayer.invalidate(brick.getX(), brick.getY(), brick.getWidth(), brick.getHeight());
             }
         }
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
     }
 
     /**
-     * Removes a brick's JLabel from the screen after it has been destroyed.
-     * @param brickLineIndex The index of the line the brick belong
-     * @param brickIndex The index of the brick to remove.
+     * Moves a brick, destroyed or not, to a new position.
+     * Only the brick's old and new rectangles of the brick layer are redrawn, on the next frame.
+     * @param brickId The id of the brick to move.
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
+     */
+    @Override
+    public void moveBrick(int brickId, int x, int y){
+        Sprite brick = brickSpritePool.get(brickId);
+        if(brickSprites.get(brickId) != null){
+            brickLayer.invalidate(brick.getX(), brick.getY(), brick.getWidth(), brick.getHeight());
+            brickLayer.invalidate(x, y, brick.getWidth(), brick.getHeight());
+        }
+        brick.setLocation(x, y);
+    }
+
+    /**
+     * Shows a destroyed brick again, at its current position.
+     * @param brickId The id of the brick to restore.
+     */
+    @Override
+    public void brickRestore(int brickId){
+        Sprite brick = brickSpritePool.get(brickId);
+        brick.setImage(BrickImages.get(brickField.getType(brickId), brickField.getHitPoints(brickId)));
+        brickSprites.set(brickId, brick);
+        brickLayer.invalidate(brick.getX(), brick.getY(), brick.getWidth(), brick.getHeight());
+    }
+
+    /**
+     * Removes a brick from the screen after it has been destroyed.
+     * @param brickId The id of the brick to remove.
      */
-    public void brickDestroy(int brickLineIndex, int brickIndex){
-        JLabel brickLabel = bricksLines.get(brickLineIndex).get(brickIndex);
-        backgroundLabel.remove(brickLabel);
-        bricksLines.get(brickLineIndex).remove(brickIndex);
-        if(bricksLines.get(brickLineIndex).isEmpty()){
-            bricksLines.remove(brickLineIndex);
+    @Override
+    public void brickDestroy(int brickId){
+        // Only the destroyed brick's rectangle of the cached layer is redrawn.
+        Sprite brick = brickSprites.set(brickId, null);
+        if(brick != null){
+            GameEvents.BrickDestroy event = new GameEvents.BrickDestroy();
+            event.begin();
+            brickLayer.erase(brick);
+            event.end();
+            if(event.shouldCommit()){
+                event.brickId = brickId;
+                event.commit();
+            }
         }
-        // This container uses null layout, so repainting the changed area is enough.
-        backgroundLabel.repaint(brickLabel.getBounds());
     }
 
     /**
@@ -150,96 +332,94 @@ public class Screen extends JFrame{
      * @param score The initial score to display.
      */
     public void addPlayerScore(int score){
-        playerScore = new JLabel("score: " + score);
-        playerScore.setBounds(10, 0, 200, 50);
-        playerScore.setFont(new Font("Monospaced", Font.BOLD, 28));
-        playerScore.setForeground(new Color(0, 255, 180));
-        backgroundLabel.add(playerScore);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        playerScore = new Sprite("score: " + score, TEXT_FONT, TEXT_COLOR, false, 10, 0, 200, 50);
     }
 
     /**
      * Refreshes the score display with the current score.
      * @param score The new score to display.
      */
+    @Override
     public void refreshPlayerScore(int score){
         playerScore.setText("score: " + score);
-        backgroundLabel.repaint(playerScore.getBounds());
     }
 
     /**
      * Adds the heart icons to the screen to represent the player's lives.
      * @param numOfHearts The number of lives the player has.
      * @param icon The heart icon.
-     * @param x The base x-coordinate for the first heart.
-     * @param y The y-coordinate for the hearts.
      * @param width The width of a heart icon.
      * @param height The height of a heart icon.
      */
     public void addHeartLabels(int numOfHearts, ImageIcon icon, int width, int height){
-        heartLabels = new ArrayList<>();
+        heartIcon = icon;
+        heartWidth = width;
+        heartHeight = height;
+        heartSprites = new ArrayList<>();
         for(int i = 0; i < numOfHearts; i++){
-            heartLabels.add(new JLabel(icon,JLabel.CENTER));
-            heartLabels.get(i).setBounds(WINDOW_WIDTH - (Player.getHeartWidth() * (i + 1)) , 0, width, height); // Hearts are placed side-by-side.
-            backgroundLabel.add(heartLabels.get(i));
+            // Hearts are placed side-by-side.
+            heartSprites.add(new Sprite(icon.getImage(), WINDOW_WIDTH - (Player.getHeartWidth() * (i + 1)), 0, width, height));
         }
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
     }
 
     /**
      * Removes a heart icon from the screen when the player loses a life.
-     * @param num The index of the heart label to remove.
+     * @param index The index of the heart to remove.
      */
+    @Override
     public void removeHeartLabel(int index){
-        backgroundLabel.remove(heartLabels.get(index));
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
-        heartLabels.remove(index);
+        heartSprites.remove(index);
+    }
+
+    /**
+     * Shows as many hearts as the player has lives, e.g. after the game was rewound to before a life was lost.
+     * @param lifePoints The number of lives to show.
+     */
+    @Override
+    public void refreshHearts(int lifePoints){
+        if(heartIcon != null && lifePoints != heartSprites.size()){
+            addHeartLabels(lifePoints, heartIcon, heartWidth, heartHeight);
+        }
     }
 
     /** Displays the winning screen. */
     public void winingScreen(){
         int winingLogoWidth = 500;
         int winingLogoHeight = 435;
-        winingLogoLabel = new JLabel(new ImageIcon(WINING_ICON_PATH));
-        winingLogoLabel.setBounds((WINDOW_WIDTH - winingLogoWidth) / 2, 100, winingLogoWidth, winingLogoHeight);
-        JLabel winPrompt = new JLabel("press any key to play again!");
-        winPrompt.setBounds(0, winingLogoLabel.getY() + winingLogoLabel.getHeight() + 15, WINDOW_WIDTH, 50);
-        winPrompt.setHorizontalAlignment(SwingConstants.CENTER);
-        winPrompt.setFont(new Font("Monospaced", Font.BOLD, 28));
-        winPrompt.setForeground(new Color(0, 255, 180));
-        backgroundLabel.add(winingLogoLabel);
-        backgroundLabel.add(winPrompt);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        int winingLogoY = 100;
+        overlaySprites.add(new Sprite(SpriteCache.getImage(WINING_ICON_PATH),
+                (WINDOW_WIDTH - winingLogoWidth) / 2, winingLogoY, winingLogoWidth, winingLogoHeight));
+        overlaySprites.add(new Sprite("press any key to play again!", TEXT_FONT, TEXT_COLOR, true,
+                0, winingLogoY + winingLogoHeight + 15, WINDOW_WIDTH, 50));
+        renderFrame();
     }
 
     /** Displays the game over screen. */
     public void gameOverScreen(){
         int gameOverLogoWidth = 800;
         int gameOverLogoHeight = 800;
-        gameOverLogoLabel = new JLabel(new ImageIcon(GAME_OVER_ICON_PATH));
-        gameOverLogoLabel.setBounds((WINDOW_WIDTH - gameOverLogoWidth) / 2, -170, gameOverLogoWidth, gameOverLogoHeight);
-        JLabel gameOverText = new JLabel("press any key to restart!");
-        gameOverText.setBounds(0, gameOverLogoLabel.getY() + gameOverLogoLabel.getHeight() + 15, WINDOW_WIDTH, 50);
-        gameOverText.setHorizontalAlignment(SwingConstants.CENTER);
-        gameOverText.setFont(new Font("Monospaced", Font.BOLD, 28));
-        gameOverText.setForeground(new Color(0, 255, 180));
-        backgroundLabel.add(gameOverLogoLabel);
-        backgroundLabel.add(gameOverText);
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        int gameOverLogoY = -170;
+        overlaySprites.add(new Sprite(SpriteCache.getImage(GAME_OVER_ICON_PATH),
+                (WINDOW_WIDTH - gameOverLogoWidth) / 2, gameOverLogoY, gameOverLogoWidth, gameOverLogoHeight));
+        overlaySprites.add(new Sprite("press any key to restart!", TEXT_FONT, TEXT_COLOR, true,
+                0, gameOverLogoY + gameOverLogoHeight + 15, WINDOW_WIDTH, 50));
+        renderFrame();
     }
 
     /**
-     * Clears all dynamic labels (like ball, paddle, bricks) from the screen,
+     * Clears all dynamic elements (like ball, paddle, bricks) from the screen,
      * typically used when transitioning between game states.
      */
     public void clearScreen(){
-        backgroundLabel.removeAll();
-        backgroundLabel.revalidate(); 
-        backgroundLabel.repaint();
+        paddleSprite = null;
+        ballSprite = null;
+        playerScore = null;
+        heartSprites.clear();
+        brickSprites.clear();
+        brickSpritePool.clear();
+        brickField = null;
+        brickLayer.invalidate();
+        overlaySprites.clear();
+        renderFrame();
     }
 }
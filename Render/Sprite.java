@@ -0,0 +1,135 @@
+package Render;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+
+/**
+ * A Sprite is one visual element drawn by the {@link Screen}: an image, a line of text, or both,
+ * placed in a rectangle the same way a JLabel would place them.
+ * Images are centered in the rectangle and clipped to it; text is vertically centered and
+ * either left-aligned or horizontally centered.
+ */
+class Sprite {
+    private Image image;
+    private String text;
+    private Font font;
+    private Color color;
+    private boolean centerText;
+    private int x;
+    private int y;
+    private int width;
+    private int height;
+
+    /**
+     * Constructs an image sprite.
+     * @param image The image to draw.
+     * @param x The x-coordinate of the sprite's rectangle.
+     * @param y The y-coordinate of the sprite's rectangle.
+     * @param width The width of the sprite's rectangle.
+     * @param height The height of the sprite's rectangle.
+     */
+    Sprite(Image image, int x, int y, int width, int height){
+        this.image = image;
+        setBounds(x, y, width, height);
+    }
+
+    /**
+     * Constructs a text sprite.
+     * @param text The text to draw.
+     * @param font The font of the text.
+     * @param color The color of the text.
+     * @param centerText true to center the text horizontally, false to align it to the left edge.
+     * @param x The x-coordinate of the sprite's rectangle.
+     * @param y The y-coordinate of the sprite's rectangle.
+     * @param width The width of the sprite's rectangle.
+     * @param height The height of the sprite's rectangle.
+     */
+    Sprite(String text, Font font, Color color, boolean centerText, int x, int y, int width, int height){
+        this.text = text;
+        this.font = font;
+        this.color = color;
+        this.centerText = centerText;
+        setBounds(x, y, width, height);
+    }
+
+    void setBounds(int x, int y, int width, int height){
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    void setLocation(int x, int y){
+        this.x = x;
+        this.y = y;
+    }
+
+    void setImage(Image image){
+        this.image = image;
+    }
+
+    Image getImage(){
+        return image;
+    }
+
+    void setText(String text){
+        this.text = text;
+    }
+
+    int getX(){
+        return x;
+    }
+
+    int getY(){
+        return y;
+    }
+
+    int getWidth(){
+        return width;
+    }
+
+    int getHeight(){
+        return height;
+    }
+
+    /**
+     * Draws the sprite.
+     * @param g The graphics to draw with.
+     */
+    void draw(Graphics2D g){
+        if(image != null){
+            drawImage(g);
+        }
+        if(text != null){
+            drawText(g);
+        }
+    }
+
+    /** Draws the image centered in the rectangle, cropped to the rectangle like a JLabel would. */
+    private void drawImage(Graphics2D g){
+        int imageWidth = image.getWidth(null);
+        int imageHeight = image.getHeight(null);
+        int imageX = x + (width - imageWidth) / 2;
+        int imageY = y + (height - imageHeight) / 2;
+        int left = Math.max(x, imageX);
+        int top = Math.max(y, imageY);
+        int right = Math.min(x + width, imageX + imageWidth);
+        int bottom = Math.min(y + height, imageY + imageHeight);
+        if(right <= left || bottom <= top){
+            return;
+        }
+        g.drawImage(image, left, top, right, bottom,
+                left - imageX, top - imageY, right - imageX, bottom - imageY, null);
+    }
+
+    private void drawText(Graphics2D g){
+        g.setFont(font);
+        g.setColor(color);
+        FontMetrics metrics = g.getFontMetrics();
+        int textX = centerText ? x + (width - metrics.stringWidth(text)) / 2 : x;
+        int textY = y + (height - (metrics.getAscent() + metrics.getDescent())) / 2 + metrics.getAscent();
+        g.drawString(text, textX, textY);
+    }
+}
@@ -0,0 +1,136 @@
+package Render;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SpriteCache class decodes every image asset once and shares it between all users.
+ * Images are keyed by their {@link AssetPaths} entry and converted to the format the screen
+ * draws fastest (premultiplied alpha on most displays), so blitting them never needs a conversion.
+ * The decode time and memory of each asset are kept and can be printed with {@link #printReport(PrintStream)}.
+ * The cache is safe to use from several threads.
+ */
+public final class SpriteCache {
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    /** A decoded asset and what it cost to load. */
+    private static final class Entry {
+        private final BufferedImage image;
+        private final ImageIcon icon;
+        private final long decodeNanos;
+        private final boolean missing;
+
+        private Entry(BufferedImage image, long decodeNanos, boolean missing){
+            this.image = image;
+            this.icon = new ImageIcon(image);
+            this.decodeNanos = decodeNanos;
+            this.missing = missing;
+        }
+    }
+
+    private SpriteCache(){
+    }
+
+    /**
+     * Returns the decoded image of an asset, decoding it on first use.
+     * A missing or unreadable file gives an empty 1x1 image, so the screen simply draws nothing for it.
+     * @param path The asset path, one of the {@link AssetPaths} entries.
+     * @return The display-compatible image.
+     */
+    public static BufferedImage getImage(String path){
+        return ENTRIES.computeIfAbsent(path, SpriteCache::load).image;
+    }
+
+    /**
+     * Returns the decoded image of an asset wrapped in an ImageIcon, decoding it on first use.
+     * The same icon instance is returned on every call.
+     * @param path The asset path, one of the {@link AssetPaths} entries.
+     * @return The icon of the display-compatible image.
+     */
+    public static ImageIcon getIcon(String path){
+        return ENTRIES.computeIfAbsent(path, SpriteCache::load).icon;
+    }
+
+    /**
+     * Prints one line per decoded asset with its size, decode time and memory, followed by the totals.
+     * @param out The stream to print to.
+     */
+    public static void printReport(PrintStream out){
+        long totalNanos = 0;
+        long totalBytes = 0;
+        out.printf("%-34s %11s %11s %11s%n", "asset", "size", "decode", "memory");
+        for(Map.Entry<String, Entry> asset : new TreeMap<>(ENTRIES).entrySet()){
+            Entry entry = asset.getValue();
+            long bytes = memoryBytes(entry.image);
+            totalNanos += entry.decodeNanos;
+            totalBytes += bytes;
+            out.printf("%-34s %5dx%-5d %8.2f ms %8.1f KB%s%n", asset.getKey(),
+                    entry.image.getWidth(), entry.image.getHeight(),
+                    entry.decodeNanos / 1_000_000.0, bytes / 1024.0, entry.missing ? "  (missing)" : "");
+        }
+        out.printf("%-34s %11s %8.2f ms %8.1f KB%n", "total", "", totalNanos / 1_000_000.0, totalBytes / 1024.0);
+    }
+
+    /** Decodes an asset from disk and converts it to the display's format. */
+    private static Entry load(String path){
+        long start = System.nanoTime();
+        BufferedImage decoded = null;
+        try {
+            decoded = ImageIO.read(new File(path));
+        } catch (IOException e) {
+            decoded = null;
+        }
+        if(decoded == null){
+            System.err.println("Could not load image asset: " + path);
+            return new Entry(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE), System.nanoTime() - start, true);
+        }
+        BufferedImage image = toCompatible(decoded);
+        return new Entry(image, System.nanoTime() - start, false);
+    }
+
+    /**
+     * Copies an image into a translucent image compatible with the default screen.
+     * @param source The image to copy.
+     * @return The copy.
+     */
+    static BufferedImage toCompatible(BufferedImage source){
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BufferedImage image;
+        if(GraphicsEnvironment.isHeadless()){
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        else{
+            GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            image = configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /** Returns the size of an image's pixel data in bytes. */
+    private static long memoryBytes(BufferedImage image){
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        long elementBytes = DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        return (long) buffer.getSize() * buffer.getNumBanks() * elementBytes;
+    }
+}
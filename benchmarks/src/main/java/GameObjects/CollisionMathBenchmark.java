@@ -0,0 +1,46 @@
+package GameObjects;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the primitive geometry helpers in {@link CollisionMath}.
+ * Inputs are read from non-final fields so the JIT cannot fold the calls away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionMathBenchmark {
+    public double centerX = 150.0;
+    public double centerY = 110.0;
+    public double radius = Ball.getWidth() / 2.0;
+    public int brickX = 132;
+    public int brickY = 100;
+    /** A ball above the brick that reaches its top face halfway through a step. */
+    public double sweepX = 150.0;
+    public double sweepY = brickY - radius - 4.0;
+    public double deltaX = 8.0;
+    public double deltaY = 8.0;
+    private final CollisionMath.Contact contact = new CollisionMath.Contact();
+
+    @Benchmark
+    public boolean isCircleIntersectsRect(){
+        return CollisionMath.isCircleIntersectsRect(centerX, centerY, radius, brickX, brickY, Brick.getWidth(), Brick.getHeight());
+    }
+
+    @Benchmark
+    public boolean sweepCircleRect(){
+        return CollisionMath.sweepCircleRect(sweepX, sweepY, radius, deltaX, deltaY,
+                brickX, brickY, Brick.getWidth(), Brick.getHeight(), contact);
+    }
+}
@@ -0,0 +1,49 @@
+package Main;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one step of the multi-ball {@link ChaosWorld} at 100 Hz, where a step has a budget of 10 ms.
+ * Parameterized by the number of balls in a volley; a new game starts whenever one ends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChaosWorldBenchmark {
+    private static final int PHYSICS_HZ = 100;
+    private static final int LINES = 4;
+
+    @Param({"100", "1000", "10000"})
+    public int ballCount;
+
+    private ChaosWorld world;
+
+    @Setup(Level.Iteration)
+    public void setUp(){
+        world = ChaosRunner.newWorld(ballCount, LINES, PHYSICS_HZ, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public int step(){
+        if(world.isGameOver()){
+            setUp();
+        }
+        world.step();
+        return world.getBalls().getCount();
+    }
+}
@@ -0,0 +1,97 @@
+package Main;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import GameObjects.Ball;
+import GameObjects.BrickLines;
+import GameObjects.Paddle;
+import Render.Screen;
+
+/**
+ * Benchmarks for the per-tick physics of {@link GameWorld}:
+ * the swept ball movement, a sweep along the bricks that hits nothing and the paddle bounce model.
+ * Parameterized by the number of bricks in the level and by the ball speed in pixels per second,
+ * with the world stepping at the default physics rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameWorldBenchmark {
+    /** Where the ball is put back once it falls below the paddle. */
+    private static final int RESPAWN_X = Screen.WINDOW_WIDTH / 3;
+    private static final int RESPAWN_Y = Screen.WINDOW_HEIGHT / 2;
+    /** Just above the first brick line, close enough for a grid lookup but not touching any brick. */
+    private static final int NEAR_MISS_X = Screen.WINDOW_WIDTH / 2;
+    private static final int NEAR_MISS_Y = -5;
+    /** One physics step at the default rate. */
+    private static final double STEP_SECONDS = 1.0 / GameLoop.DEFAULT_PHYSICS_HZ;
+
+    /** Bricks in the level; 40 is the 4 lines the game builds on its last level. */
+    @Param({"40", "1000", "100000", "1000000"})
+    public int brickCount;
+
+    /** Ball speed in pixels per second; 1100 is the default launch speed, 12000 is about 100 pixels per step ("turbo"). */
+    @Param({"1100", "6000", "12000"})
+    public double ballSpeed;
+
+    private GameWorld world;
+    private Ball ball;
+    private final BallSweep ballSweep = new BallSweep();
+    private final PaddleBounce paddleBounce = new PaddleBounce();
+    private double launchXVelocity;
+    private double launchYVelocity;
+
+    /** Builds a fresh level each iteration so destroyed bricks do not accumulate across iterations. */
+    @Setup(Level.Iteration)
+    public void setUp(){
+        int bricksPerLine = BrickLines.getBricksPerLine();
+        int lines = Math.max(1, (brickCount + bricksPerLine - 1) / bricksPerLine);
+        world = HeadlessRunner.newWorld(lines);
+        ball = world.getBall();
+        // A 3-4-5 launch angle so the ball visits walls, paddle and bricks.
+        launchXVelocity = ballSpeed * 0.6;
+        launchYVelocity = -ballSpeed * 0.8;
+        respawn();
+    }
+
+    @Benchmark
+    public int ballMovement(){
+        if(ball.getPreciseY() > Screen.WINDOW_HEIGHT){
+            respawn();
+        }
+        world.ballMovement();
+        return ball.getX();
+    }
+
+    @Benchmark
+    public double brickSweepMiss(){
+        // Runs along the top of the bricks, sideways, so every brick cell on the way is tested without a contact.
+        ballSweep.move(NEAR_MISS_X, NEAR_MISS_Y, ballSpeed, 0, STEP_SECONDS, world.getPaddle(), world.getBricks());
+        return ballSweep.getX();
+    }
+
+    @Benchmark
+    public double paddleBounce(){
+        paddleBounce.compute(30 - (Paddle.getWidth() / 2.0), launchXVelocity, -launchYVelocity);
+        return paddleBounce.getXVelocity();
+    }
+
+    private void respawn(){
+        ball.setPosition(RESPAWN_X, RESPAWN_Y);
+        ball.setBallXVelocity(launchXVelocity);
+        ball.setBallYVelocity(launchYVelocity);
+    }
+}
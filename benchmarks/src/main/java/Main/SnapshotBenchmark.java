@@ -0,0 +1,62 @@
+package Main;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the per-tick cost of rewinding: recording a {@link GameWorld} snapshot into a {@link RewindBuffer}
+ * and restoring one. The world is played by the autopilot for a while first, so about half the bricks are gone.
+ * Parameterized by the level: a generated level with the given number of brick lines, or {@code endless}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    /** Steps played before measuring. */
+    private static final int PLAYED_STEPS = 3000;
+
+    /** Brick lines of a generated level, or {@code endless}. */
+    @Param({"4", "100", "endless"})
+    public String level;
+
+    private GameWorld world;
+    private final RewindBuffer rewindBuffer = new RewindBuffer(10 * GameLoop.DEFAULT_PHYSICS_HZ);
+    private ByteBuffer snapshot;
+
+    @Setup
+    public void setUp(){
+        world = level.equals("endless") ? HeadlessRunner.newEndlessWorld(1)
+                : HeadlessRunner.newWorld(Integer.parseInt(level), GameLoop.DEFAULT_PHYSICS_HZ);
+        AutopilotController bot = new AutopilotController(1);
+        for(int step = 0; step < PLAYED_STEPS && !world.isGameOver(); step++){
+            world.setInputMask(bot.nextInput(world));
+            world.step();
+        }
+        snapshot = ByteBuffer.allocate(world.getSnapshotSize());
+        world.writeSnapshot(snapshot, 0);
+    }
+
+    @Benchmark
+    public int record(){
+        rewindBuffer.record(world, 1);
+        return rewindBuffer.size();
+    }
+
+    @Benchmark
+    public int restore(){
+        return world.restoreSnapshot(snapshot, 0);
+    }
+}
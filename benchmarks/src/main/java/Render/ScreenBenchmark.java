@@ -0,0 +1,59 @@
+package Render;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import GameObjects.BrickLines;
+
+/**
+ * Benchmarks {@link Screen#addBricksLabels} on the event dispatch thread.
+ * This one opens a real window, so it needs a display and is skipped on headless machines
+ * (run the others with {@code -e ScreenBenchmark}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScreenBenchmark {
+    /** Bricks in the level; 40 is the 4 lines the game builds on its last level. */
+    @Param({"40", "1000", "100000", "1000000"})
+    public int brickCount;
+
+    private Screen screen;
+    private BrickLines lineOfBricks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception{
+        int bricksPerLine = BrickLines.getBricksPerLine();
+        lineOfBricks = new BrickLines(Math.max(1, (brickCount + bricksPerLine - 1) / bricksPerLine));
+        SwingUtilities.invokeAndWait(() -> screen = new Screen());
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() throws Exception{
+        SwingUtilities.invokeAndWait(() -> screen.clearScreen());
+    }
+
+    @Benchmark
+    public void addBricksLabels() throws Exception{
+        SwingUtilities.invokeAndWait(() -> screen.addBricksLabels(lineOfBricks));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception{
+        SwingUtilities.invokeAndWait(() -> screen.dispose());
+    }
+}
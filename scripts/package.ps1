@@ -11,7 +11,7 @@ New-Item -ItemType Directory -Path (Join-Path $buildDir "classes") | Out-Null
 New-Item -ItemType Directory -Path $distDir | Out-Null
 
 $javaFiles = Get-ChildItem -Path $rootDir -Recurse -Filter "*.java" |
-  Where-Object { $_.FullName -notmatch "\\build\\|\\dist\\|\\.git\\" } |
+  Where-Object { $_.FullName -notmatch "\\build\\|\\dist\\|\\.git\\|\\target\\|\\benchmarks\\|\\test\\" } |
   Select-Object -ExpandProperty FullName
 
 if (-not $javaFiles) {
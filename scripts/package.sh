@@ -9,7 +9,7 @@ rm -rf "$BUILD_DIR" "$DIST_DIR"
 mkdir -p "$BUILD_DIR/classes" "$DIST_DIR"
 
 # Compile Java sources
-JAVA_FILES=$(find "$ROOT_DIR" -name "*.java" -not -path "*/build/*" -not -path "*/dist/*" -not -path "*/.git/*")
+JAVA_FILES=$(find "$ROOT_DIR" -name "*.java" -not -path "*/build/*" -not -path "*/dist/*" -not -path "*/.git/*" -not -path "*/target/*" -not -path "*/benchmarks/*" -not -path "*/test/*")
 
 if [[ -z "$JAVA_FILES" ]]; then
   echo "No Java files found."
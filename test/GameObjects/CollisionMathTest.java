@@ -0,0 +1,70 @@
+package GameObjects;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the times of impact and normals of {@link CollisionMath#sweepCircleRect} against hand-computed contacts
+ * with a 40x20 rectangle at (100, 100) and a circle of radius 5.
+ */
+class CollisionMathTest {
+    private static final double TOLERANCE = 1e-9;
+    private static final double RADIUS = 5;
+    private static final int RECT_X = 100;
+    private static final int RECT_Y = 100;
+    private static final int RECT_WIDTH = 40;
+    private static final int RECT_HEIGHT = 20;
+    private final CollisionMath.Contact contact = new CollisionMath.Contact();
+
+    private boolean sweep(double centerX, double centerY, double deltaX, double deltaY){
+        return CollisionMath.sweepCircleRect(centerX, centerY, RADIUS, deltaX, deltaY,
+                RECT_X, RECT_Y, RECT_WIDTH, RECT_HEIGHT, contact);
+    }
+
+    private void assertContact(double time, double normalX, double normalY){
+        assertEquals(time, contact.getTime(), TOLERANCE, "time");
+        assertEquals(normalX, contact.getNormalX(), TOLERANCE, "normal x");
+        assertEquals(normalY, contact.getNormalY(), TOLERANCE, "normal y");
+    }
+
+    @Test
+    void headOnFaceHit(){
+        // The circle's edge reaches the top face at y = 100 once the center is at y = 95: 15 of the 20 pixels moved.
+        assertTrue(sweep(120, 80, 0, 20));
+        assertContact(0.75, 0, -1);
+    }
+
+    @Test
+    void cornerGrazeTakesTheNormalFromTheCornerCircle(){
+        // Passing 3 pixels above the top edge, the circle touches the top-left corner when the center is 4 pixels
+        // left of it: (x - 100)^2 + 3^2 = 5^2 at x = 96, 16 of the 20 pixels moved.
+        assertTrue(sweep(80, 97, 20, 0));
+        assertContact(0.8, -0.8, -0.6);
+    }
+
+    @Test
+    void nearMissPastCornerIsNoContact(){
+        // The diagonal crosses the grown rectangle's corner square, but passes 8 / sqrt(2) > 5 pixels from the corner.
+        assertFalse(sweep(86, 106, 20, -20));
+    }
+
+    @Test
+    void overlapAtStartMovingInIsContactAtTimeZero(){
+        // The center is 3 pixels above the top face, so the circle already overlaps the rectangle.
+        assertTrue(sweep(120, 97, 0, 5));
+        assertContact(0, 0, -1);
+    }
+
+    @Test
+    void overlapAtStartMovingAwayIsNoContact(){
+        assertFalse(sweep(120, 97, 0, -5));
+    }
+
+    @Test
+    void centerInsidePushesOutThroughTheNearestFace(){
+        // The center is 2 pixels from the left face and further from the others.
+        assertTrue(sweep(102, 110, 5, 0));
+        assertContact(0, -1, 0);
+    }
+}
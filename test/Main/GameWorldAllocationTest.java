@@ -0,0 +1,44 @@
+package Main;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that steady-state gameplay allocates nothing: once the JIT has warmed up, stepping a bot-played game,
+ * brick hits and destroys included, must not allocate a single byte on the stepping thread.
+ */
+class GameWorldAllocationTest {
+    private static final int LINES = 4;
+    private static final int WARM_UP_TICKS = 300_000;
+    private static final int MEASURED_TICKS = 20_000;
+
+    @Test
+    void steadyStateTicksAllocateNothing(){
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        AutopilotController bot = new AutopilotController();
+        GameWorld world = HeadlessRunner.newWorld(LINES);
+        for(int tick = 0; tick < WARM_UP_TICKS; tick++){
+            if(world.isGameOver()){
+                world = HeadlessRunner.newWorld(LINES);
+            }
+            world.setInputMask(bot.nextInput(world));
+            world.step();
+        }
+        world = HeadlessRunner.newWorld(LINES);
+        int bricks = world.getBricks().getNumOfBricks();
+        // What reading the counter itself costs, so it is not blamed on the game.
+        long overhead = -threads.getThreadAllocatedBytes(thread) + threads.getThreadAllocatedBytes(thread);
+        long before = threads.getThreadAllocatedBytes(thread);
+        int ticks = 0;
+        while(ticks < MEASURED_TICKS && !world.isGameOver()){
+            world.setInputMask(bot.nextInput(world));
+            world.step();
+            ticks++;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+        assertTrue(world.getBricks().getNumOfBricks() < bricks, "The measured ticks must hit bricks");
+        assertEquals(0, allocated, "Bytes allocated by " + ticks + " ticks");
+    }
+}